@@ -0,0 +1,40 @@
+package net.highwayfrogs.editor.benchmark;
+
+import net.highwayfrogs.editor.games.psx.sound.VAGUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks converting between .wav and PlayStation VAG (ADPCM) audio.
+ * Created by Kneesnap on 10/17/2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AudioBenchmark {
+    private static final int SAMPLE_RATE = 22050;
+    @Param({"22050", "441000"}) // One second, twenty seconds.
+    private int sampleCount;
+    private byte[] wavBytes;
+    private byte[] vagBytes;
+
+    @Setup
+    public void setup() {
+        this.wavBytes = BenchmarkData.makeWavFile(this.sampleCount, SAMPLE_RATE);
+        this.vagBytes = VAGUtil.wavToVag(this.wavBytes);
+    }
+
+    @Benchmark
+    public byte[] wavToVag() {
+        return VAGUtil.wavToVag(this.wavBytes);
+    }
+
+    @Benchmark
+    public byte[] vagToWav() {
+        return VAGUtil.rawVagToWav(this.vagBytes, SAMPLE_RATE);
+    }
+}
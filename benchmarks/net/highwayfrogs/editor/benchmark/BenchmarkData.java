@@ -0,0 +1,129 @@
+package net.highwayfrogs.editor.benchmark;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.highwayfrogs.editor.file.writer.ArrayReceiver;
+import net.highwayfrogs.editor.file.writer.DataWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Generates the synthetic inputs used by the benchmarks, so they can run without any game files.
+ * All data is generated from a fixed seed, so every run (and every fork) sees the same input.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class BenchmarkData {
+    public static final long SEED = 0x46726F67L;
+    private static final int PRS1_BUFFER_SIZE = 4096;
+    private static final int PRS1_BUFFER_START = 0xFEE;
+    private static final int PRS1_MIN_COPY = 3;
+    private static final int PRS1_MAX_COPY = 18;
+
+    /**
+     * Creates data which resembles a game file, a mix of repeated structures and noise, which compresses to roughly half its size.
+     * @param size the number of bytes to create
+     * @return gameData
+     */
+    public static byte[] makeGameData(int size) {
+        Random random = new Random(SEED);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i += 16) {
+            int recordId = i / 16;
+            // Record header: an id, a type, and some small values, similar to entity/polygon data.
+            writeIntLE(data, i, recordId);
+            writeIntLE(data, i + 4, recordId % 7);
+            writeIntLE(data, i + 8, random.nextInt(64));
+            writeIntLE(data, i + 12, random.nextInt());
+        }
+
+        return data;
+    }
+
+    /**
+     * Creates a mono 16-bit PCM .wav file containing a noisy tone.
+     * @param sampleCount the number of samples in the audio
+     * @param sampleRate the sample rate of the audio
+     * @return wavFileBytes
+     */
+    public static byte[] makeWavFile(int sampleCount, int sampleRate) {
+        Random random = new Random(SEED);
+        ArrayReceiver receiver = new ArrayReceiver(44 + (sampleCount * 2));
+        DataWriter writer = new DataWriter(receiver);
+        writer.writeStringBytes("RIFF");
+        writer.writeInt(36 + (sampleCount * 2));
+        writer.writeStringBytes("WAVE");
+        writer.writeStringBytes("fmt ");
+        writer.writeInt(16);
+        writer.writeShort((short) 1); // PCM
+        writer.writeShort((short) 1); // Channel count
+        writer.writeInt(sampleRate);
+        writer.writeInt(sampleRate * 2); // Byte rate
+        writer.writeShort((short) 2); // Block align
+        writer.writeShort((short) 16); // Bits per sample
+        writer.writeStringBytes("data");
+        writer.writeInt(sampleCount * 2);
+        for (int i = 0; i < sampleCount; i++) {
+            double tone = Math.sin((2 * Math.PI * 440 * i) / sampleRate) * 12000;
+            writer.writeShort((short) (tone + random.nextInt(2000) - 1000));
+        }
+
+        writer.closeReceiver();
+        return receiver.toArray();
+    }
+
+    /**
+     * Creates a raw PRS1 (LZSS) stream, without the PRS1 header, as read by PRS1Unpacker.decompressData().
+     * The stream is a random mix of literals and back-references, so it exercises both decoder paths.
+     * @param tokenCount the number of literals and back-references to write
+     * @return prs1Data
+     */
+    public static Prs1Data makePrs1Data(int tokenCount) {
+        Random random = new Random(SEED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] tokenBytes = new byte[8 * 2];
+        int bufferPos = PRS1_BUFFER_START;
+        int uncompressedSize = 0;
+
+        for (int i = 0; i < tokenCount; i += 8) {
+            int flags = 0;
+            int tokenLength = 0;
+            for (int j = 0; j < 8 && (i + j) < tokenCount; j++) {
+                if (random.nextInt(4) == 0) { // Literal.
+                    flags |= (1 << j);
+                    tokenBytes[tokenLength++] = (byte) random.nextInt(256);
+                    bufferPos = (bufferPos + 1) & (PRS1_BUFFER_SIZE - 1);
+                    uncompressedSize++;
+                } else { // Back-reference into the ring buffer.
+                    int copyLength = PRS1_MIN_COPY + random.nextInt(PRS1_MAX_COPY - PRS1_MIN_COPY + 1);
+                    int distance = PRS1_MAX_COPY + random.nextInt(PRS1_BUFFER_SIZE - (2 * PRS1_MAX_COPY));
+                    int copyStart = (bufferPos - distance) & (PRS1_BUFFER_SIZE - 1);
+                    tokenBytes[tokenLength++] = (byte) copyStart;
+                    tokenBytes[tokenLength++] = (byte) (((copyStart >> 8) << 4) | (copyLength - PRS1_MIN_COPY));
+                    bufferPos = (bufferPos + copyLength) & (PRS1_BUFFER_SIZE - 1);
+                    uncompressedSize += copyLength;
+                }
+            }
+
+            output.write(flags);
+            output.write(tokenBytes, 0, tokenLength);
+        }
+
+        return new Prs1Data(output.toByteArray(), uncompressedSize);
+    }
+
+    private static void writeIntLE(byte[] data, int index, int value) {
+        for (int i = 0; i < 4 && index + i < data.length; i++)
+            data[index + i] = (byte) (value >> (8 * i));
+    }
+
+    /**
+     * Raw PRS1 data, along with the size it decompresses to.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Prs1Data {
+        private final byte[] compressedBytes;
+        private final int uncompressedSize;
+    }
+}
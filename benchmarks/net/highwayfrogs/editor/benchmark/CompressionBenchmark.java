@@ -0,0 +1,73 @@
+package net.highwayfrogs.editor.benchmark;
+
+import net.highwayfrogs.editor.benchmark.BenchmarkData.Prs1Data;
+import net.highwayfrogs.editor.file.packers.PP20Packer;
+import net.highwayfrogs.editor.file.packers.PP20Packer.PackResult;
+import net.highwayfrogs.editor.file.packers.PP20Unpacker;
+import net.highwayfrogs.editor.file.packers.PP20Unpacker.UnpackResult;
+import net.highwayfrogs.editor.file.reader.ArraySource;
+import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestUtils;
+import net.highwayfrogs.editor.games.konami.hudson.PRS1Unpacker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the compression formats: PP20 (Millennium Interactive / SCE Cambridge games), PRS1 (Hudson games), and zlib (Great Quest).
+ * Created by Kneesnap on 10/17/2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+    @Param({"65536", "262144"})
+    private int dataSize;
+    private byte[] data;
+    private byte[] pp20PackedData;
+    private byte[] zlibCompressedData;
+    private Prs1Data prs1Data;
+
+    @Setup
+    public void setup() {
+        this.data = BenchmarkData.makeGameData(this.dataSize);
+        this.pp20PackedData = PP20Packer.packData(this.data).getPackedBytes();
+        this.zlibCompressedData = GreatQuestUtils.zlibCompress(this.data);
+        this.prs1Data = BenchmarkData.makePrs1Data(this.dataSize / 8); // Averages roughly one byte of output per input byte.
+    }
+
+    @Benchmark
+    public PackResult pp20Pack() {
+        return PP20Packer.packData(this.data);
+    }
+
+    @Benchmark
+    public PackResult pp20PackFast() {
+        return PP20Packer.packDataFast(this.data);
+    }
+
+    @Benchmark
+    public UnpackResult pp20Unpack() {
+        return PP20Unpacker.unpackData(this.pp20PackedData);
+    }
+
+    @Benchmark
+    public byte[] prs1Decompress() {
+        byte[] compressedBytes = this.prs1Data.getCompressedBytes();
+        DataReader reader = new DataReader(new ArraySource(compressedBytes));
+        return PRS1Unpacker.decompressData(reader, compressedBytes.length, this.prs1Data.getUncompressedSize());
+    }
+
+    @Benchmark
+    public byte[] zlibCompress() {
+        return GreatQuestUtils.zlibCompress(this.data);
+    }
+
+    @Benchmark
+    public byte[] zlibDecompress() {
+        return GreatQuestUtils.zlibDecompress(this.zlibCompressedData, this.dataSize);
+    }
+}
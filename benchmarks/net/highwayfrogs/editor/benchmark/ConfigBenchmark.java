@@ -0,0 +1,38 @@
+package net.highwayfrogs.editor.benchmark;
+
+import net.highwayfrogs.editor.system.Config;
+import net.highwayfrogs.editor.utils.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing the configuration files bundled with FrogLord.
+ * Created by Kneesnap on 10/17/2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigBenchmark {
+    @Param({"games/frogger/versions/psx-retail-usa.cfg", "games/medievil2/versions/2000-03-30-retail-usa-master.cfg", "games/greatquest/sound-list.cfg", "games/greatquest/file-list.cfg"})
+    private String configPath;
+    private String configText;
+
+    @Setup
+    public void setup() {
+        InputStream inputStream = FileUtils.getResourceStream(this.configPath);
+        if (inputStream == null)
+            throw new IllegalStateException("Could not find the bundled config '" + this.configPath + "'.");
+
+        this.configText = String.join(System.lineSeparator(), FileUtils.readLinesFromStream(inputStream));
+    }
+
+    @Benchmark
+    public Config loadConfig() {
+        return Config.loadConfigFromString(this.configText, this.configPath);
+    }
+}
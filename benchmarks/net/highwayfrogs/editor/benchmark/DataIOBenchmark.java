@@ -0,0 +1,91 @@
+package net.highwayfrogs.editor.benchmark;
+
+import net.highwayfrogs.editor.file.reader.ArraySource;
+import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.file.writer.ArrayReceiver;
+import net.highwayfrogs.editor.file.writer.DataWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the primitive reads/writes of DataReader and DataWriter, which every file format is built on.
+ * Created by Kneesnap on 10/17/2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataIOBenchmark {
+    @Param({"65536", "1048576"})
+    private int dataSize;
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        this.data = BenchmarkData.makeGameData(this.dataSize);
+    }
+
+    @Benchmark
+    public void readBytes(Blackhole blackhole) {
+        DataReader reader = new DataReader(new ArraySource(this.data));
+        while (reader.hasMore())
+            blackhole.consume(reader.readByte());
+    }
+
+    @Benchmark
+    public void readShorts(Blackhole blackhole) {
+        DataReader reader = new DataReader(new ArraySource(this.data));
+        for (int i = 0; i < this.dataSize; i += 2)
+            blackhole.consume(reader.readShort());
+    }
+
+    @Benchmark
+    public void readInts(Blackhole blackhole) {
+        DataReader reader = new DataReader(new ArraySource(this.data));
+        for (int i = 0; i < this.dataSize; i += 4)
+            blackhole.consume(reader.readInt());
+    }
+
+    @Benchmark
+    public int[] readIntArray() {
+        DataReader reader = new DataReader(new ArraySource(this.data));
+        return reader.readInts(new int[this.dataSize / 4]);
+    }
+
+    @Benchmark
+    public byte[] writeBytes() {
+        ArrayReceiver receiver = new ArrayReceiver();
+        DataWriter writer = new DataWriter(receiver);
+        for (int i = 0; i < this.dataSize; i++)
+            writer.writeByte(this.data[i]);
+
+        writer.closeReceiver();
+        return receiver.toArray();
+    }
+
+    @Benchmark
+    public byte[] writeShorts() {
+        ArrayReceiver receiver = new ArrayReceiver();
+        DataWriter writer = new DataWriter(receiver);
+        for (int i = 0; i < this.dataSize; i += 2)
+            writer.writeShort((short) i);
+
+        writer.closeReceiver();
+        return receiver.toArray();
+    }
+
+    @Benchmark
+    public byte[] writeInts() {
+        ArrayReceiver receiver = new ArrayReceiver();
+        DataWriter writer = new DataWriter(receiver);
+        for (int i = 0; i < this.dataSize; i += 4)
+            writer.writeInt(i);
+
+        writer.closeReceiver();
+        return receiver.toArray();
+    }
+}
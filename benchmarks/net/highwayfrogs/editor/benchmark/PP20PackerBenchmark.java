@@ -0,0 +1,106 @@
+package net.highwayfrogs.editor.benchmark;
+
+import net.highwayfrogs.editor.file.packers.PP20Packer;
+import net.highwayfrogs.editor.file.packers.PP20Packer.PackResult;
+import net.highwayfrogs.editor.file.packers.PP20Unpacker;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the PP20 packing modes, and how the search depth of the fast match finder trades compression ratio for speed.
+ * By default, synthetic game data is packed. Real game files can be packed instead with: -p inputPath=<file or folder>
+ * The compression ratio of each mode is printed once the measurements finish.
+ * Created by Kneesnap on 10/17/2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PP20PackerBenchmark {
+    private static final int SYNTHETIC_DATA_SIZE = 262144;
+    @Param({""})
+    private String inputPath;
+    @Param({"8", "32", "128"})
+    private int fastSearchDepth;
+    private List<byte[]> inputs;
+
+    @Setup
+    public void setup() throws IOException {
+        this.inputs = new ArrayList<>();
+        if (this.inputPath.isEmpty()) {
+            this.inputs.add(BenchmarkData.makeGameData(SYNTHETIC_DATA_SIZE));
+        } else {
+            addInputs(new File(this.inputPath), this.inputs);
+        }
+
+        if (this.inputs.isEmpty())
+            throw new IllegalStateException("No files to pack were found at '" + this.inputPath + "'.");
+
+        // Verify the output of each mode before measuring it.
+        for (byte[] input : this.inputs) {
+            verifyPackedData("Accurate", input, PP20Packer.packData(input));
+            verifyPackedData("Fast", input, packFast(input));
+        }
+    }
+
+    @TearDown
+    public void reportCompressionRatio() {
+        long totalBytes = 0, accuratePackedBytes = 0, fastPackedBytes = 0;
+        for (byte[] input : this.inputs) {
+            totalBytes += input.length;
+            accuratePackedBytes += PP20Packer.packData(input).getPackedBytes().length;
+            fastPackedBytes += packFast(input).getPackedBytes().length;
+        }
+
+        System.out.printf("%nCompression Ratio (%d file(s), %d bytes): Accurate: %.2f%%, Fast (Depth %d): %.2f%%%n", this.inputs.size(), totalBytes,
+                (100D * accuratePackedBytes) / totalBytes, this.fastSearchDepth, (100D * fastPackedBytes) / totalBytes);
+    }
+
+    @Benchmark
+    public PackResult packAccurate() {
+        PackResult lastResult = null;
+        for (int i = 0; i < this.inputs.size(); i++)
+            lastResult = PP20Packer.packData(this.inputs.get(i));
+
+        return lastResult;
+    }
+
+    @Benchmark
+    public PackResult packFast() {
+        PackResult lastResult = null;
+        for (int i = 0; i < this.inputs.size(); i++)
+            lastResult = packFast(this.inputs.get(i));
+
+        return lastResult;
+    }
+
+    private PackResult packFast(byte[] input) {
+        return PP20Packer.packDataFast(input, PP20Packer.EXTREME_COMPRESSION_SETTINGS, this.fastSearchDepth);
+    }
+
+    private static void verifyPackedData(String modeName, byte[] input, PackResult result) {
+        if (!Arrays.equals(input, PP20Unpacker.unpackData(result.getPackedBytes()).getUnpackedBytes()))
+            throw new IllegalStateException(modeName + " packing produced data which did not unpack to the original data.");
+    }
+
+    private static void addInputs(File file, List<byte[]> inputs) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null)
+                for (File child : children)
+                    addInputs(child, inputs);
+        } else if (file.isFile() && file.length() > 0 && file.length() <= PP20Packer.MAX_UNCOMPRESSED_FILE_SIZE) {
+            byte[] data = Files.readAllBytes(file.toPath());
+            inputs.add(PP20Unpacker.isCompressed(data) ? PP20Unpacker.unpackData(data).getUnpackedBytes() : data);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package net.highwayfrogs.editor.benchmark;
+
+import net.highwayfrogs.editor.games.psx.CVector;
+import net.highwayfrogs.editor.games.psx.shading.PSXTextureShader;
+import net.highwayfrogs.editor.games.sony.shared.SCByteTextureUV;
+import net.highwayfrogs.editor.gui.texture.BufferedImageWrapper;
+import net.highwayfrogs.editor.gui.texture.atlas.TreeTextureAtlas;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the texture pipeline used by the 3D views: shading PSX polygon textures, and packing textures into an atlas.
+ * Created by Kneesnap on 10/17/2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextureBenchmark {
+    private static final int ATLAS_TEXTURE_COUNT = 512;
+    @Param({"32", "128"})
+    private int textureSize;
+    private BufferedImage texture;
+    private BufferedImage shadedImage;
+    private BufferedImageWrapper textureSource;
+    private CVector[] triangleColors;
+    private CVector[] quadColors;
+    private SCByteTextureUV[] triangleUvs;
+    private SCByteTextureUV[] quadUvs;
+    private BufferedImage[] atlasImages;
+    private TreeTextureAtlas packedAtlas;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(BenchmarkData.SEED);
+        this.texture = makeRandomImage(random, this.textureSize, this.textureSize);
+        this.shadedImage = new BufferedImage(this.textureSize, this.textureSize, BufferedImage.TYPE_INT_ARGB);
+        this.textureSource = new BufferedImageWrapper(this.texture);
+        this.triangleColors = new CVector[] {CVector.makeColorFromRGB(0xFF8040), CVector.makeColorFromRGB(0x40FF80), CVector.makeColorFromRGB(0x8040FF)};
+        this.quadColors = new CVector[] {CVector.makeColorFromRGB(0xFF8040), CVector.makeColorFromRGB(0x40FF80), CVector.makeColorFromRGB(0x8040FF), CVector.makeColorFromRGB(0x808080)};
+        this.triangleUvs = new SCByteTextureUV[] {new SCByteTextureUV(0F, 0F), new SCByteTextureUV(1F, 0F), new SCByteTextureUV(0F, 1F)};
+        this.quadUvs = new SCByteTextureUV[] {new SCByteTextureUV(0F, 0F), new SCByteTextureUV(1F, 0F), new SCByteTextureUV(0F, 1F), new SCByteTextureUV(1F, 1F)};
+
+        // Atlas textures have a spread of sizes and aspect ratios, like the textures of a level.
+        this.atlasImages = new BufferedImage[ATLAS_TEXTURE_COUNT];
+        for (int i = 0; i < this.atlasImages.length; i++)
+            this.atlasImages[i] = new BufferedImage(8 + random.nextInt(this.textureSize), 8 + random.nextInt(this.textureSize), BufferedImage.TYPE_INT_ARGB);
+
+        this.packedAtlas = makeAtlas();
+        this.packedAtlas.rebuildTexturePositions(); // Grow the atlas to its final size before measuring.
+    }
+
+    @Benchmark
+    public BufferedImage shadeTexturedTriangle() {
+        return PSXTextureShader.makeTexturedGouraudShadedImage(this.texture, this.shadedImage, this.textureSource, this.triangleColors, this.triangleUvs, 1, 1, false);
+    }
+
+    @Benchmark
+    public BufferedImage shadeTexturedQuad() {
+        return PSXTextureShader.makeTexturedGouraudShadedImage(this.texture, this.shadedImage, this.textureSource, this.quadColors, this.quadUvs, 1, 1, false);
+    }
+
+    @Benchmark
+    public TreeTextureAtlas atlasAddTextures() {
+        return makeAtlas();
+    }
+
+    @Benchmark
+    public TreeTextureAtlas atlasRebuildPositions() {
+        this.packedAtlas.rebuildTexturePositions();
+        return this.packedAtlas;
+    }
+
+    private TreeTextureAtlas makeAtlas() {
+        TreeTextureAtlas atlas = new TreeTextureAtlas(256, 256, true);
+        atlas.startBulkOperations(); // Only the packing is measured, the atlas image is never built.
+        for (int i = 0; i < this.atlasImages.length; i++) // New texture sources each time, since the atlas registers listeners on them.
+            atlas.addTexture(new BufferedImageWrapper(this.atlasImages[i]));
+
+        return atlas;
+    }
+
+    private static BufferedImage makeRandomImage(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                image.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+
+        return image;
+    }
+}
@@ -0,0 +1,65 @@
+package net.highwayfrogs.editor.benchmark;
+
+import net.highwayfrogs.editor.file.vlo.GameImage;
+import net.highwayfrogs.editor.file.vlo.VLOArchive;
+import net.highwayfrogs.editor.games.sony.SCGameInstance;
+import net.highwayfrogs.editor.games.sony.SCGameType;
+import net.highwayfrogs.editor.system.Config;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how quickly the images in every PSX VLO of a game build are decoded.
+ * Decoding needs real game files, which must be supplied as parameters, for example:
+ * -p gameType=FROGGER -p versionConfig=psx-build20-ntsc -p executablePath=SLUS_005.06 -p mwdPath=FROGPSX.MWD
+ * Created by Kneesnap on 10/17/2026.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VLODecodeBenchmark {
+    @Param({""})
+    private String gameType;
+    @Param({""})
+    private String versionConfig;
+    @Param({""})
+    private String executablePath;
+    @Param({""})
+    private String mwdPath;
+    private List<VLOArchive> vloArchives;
+
+    @Setup
+    public void setup() {
+        if (this.gameType.isEmpty() || this.versionConfig.isEmpty() || this.executablePath.isEmpty() || this.mwdPath.isEmpty())
+            throw new IllegalStateException("The game files to decode must be supplied with -p gameType=<type> -p versionConfig=<config> -p executablePath=<file> -p mwdPath=<file>.");
+
+        SCGameInstance instance = SCGameType.valueOf(this.gameType.toUpperCase(Locale.ROOT)).createGameInstance();
+        instance.loadGame(this.versionConfig, new Config("BenchmarkConfig"), new File(this.mwdPath), new File(this.executablePath), null);
+
+        this.vloArchives = instance.getMainArchive().getAllFiles(VLOArchive.class);
+        this.vloArchives.removeIf(vlo -> !vlo.isPsxMode());
+        if (this.vloArchives.isEmpty())
+            throw new IllegalStateException("There are no PSX VLOs in this build.");
+    }
+
+    @Benchmark
+    public BufferedImage decodeAllImages() {
+        BufferedImage lastImage = null;
+        for (int i = 0; i < this.vloArchives.size(); i++) {
+            for (GameImage image : this.vloArchives.get(i).getImages()) {
+                image.invalidateCache();
+                lastImage = image.toBufferedImage();
+            }
+        }
+
+        return lastImage;
+    }
+}
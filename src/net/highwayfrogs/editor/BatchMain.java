@@ -0,0 +1,295 @@
+package net.highwayfrogs.editor;
+
+import net.highwayfrogs.editor.file.mof.MOFFile;
+import net.highwayfrogs.editor.file.mof.MOFHolder;
+import net.highwayfrogs.editor.file.vlo.ImageFilterSettings;
+import net.highwayfrogs.editor.file.vlo.ImageFilterSettings.ImageState;
+import net.highwayfrogs.editor.file.vlo.VLOArchive;
+import net.highwayfrogs.editor.games.generic.GameInstance;
+import net.highwayfrogs.editor.games.generic.data.FileDataRetention;
+import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestInstance;
+import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestUtils;
+import net.highwayfrogs.editor.games.konami.greatquest.IFileExport;
+import net.highwayfrogs.editor.games.konami.greatquest.audio.SBRFile;
+import net.highwayfrogs.editor.games.konami.greatquest.audio.SBRFile.SfxWave;
+import net.highwayfrogs.editor.games.konami.greatquest.audio.SoundChunkFile;
+import net.highwayfrogs.editor.games.konami.greatquest.audio.SoundChunkFile.SoundChunkEntry;
+import net.highwayfrogs.editor.games.konami.greatquest.file.GreatQuestArchiveFile;
+import net.highwayfrogs.editor.games.konami.greatquest.file.GreatQuestGameFile;
+import net.highwayfrogs.editor.games.konami.greatquest.file.GreatQuestImageFile;
+import net.highwayfrogs.editor.games.konami.greatquest.model.kcModelWrapper;
+import net.highwayfrogs.editor.games.shared.sound.ISoundSample;
+import net.highwayfrogs.editor.games.sony.SCGameFile;
+import net.highwayfrogs.editor.games.sony.SCGameInstance;
+import net.highwayfrogs.editor.games.sony.SCGameType;
+import net.highwayfrogs.editor.games.sony.shared.mwd.MWDFile;
+import net.highwayfrogs.editor.games.sony.shared.mwd.WADFile;
+import net.highwayfrogs.editor.games.sony.shared.mwd.WADFile.WADEntry;
+import net.highwayfrogs.editor.games.sony.shared.sound.SCSplitVBFile;
+import net.highwayfrogs.editor.system.Config;
+import net.highwayfrogs.editor.utils.DataSizeUnit;
+import net.highwayfrogs.editor.utils.FXUtils;
+import net.highwayfrogs.editor.utils.FileUtils;
+import net.highwayfrogs.editor.utils.Utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loads, rebuilds and exports game data from the command line, without a user interface.
+ * The JavaFX toolkit is never initialized, so this can run on machines without a display.
+ * Usage:
+ *  BatchMain [options] sc <game type> <version config> <executable> <mwd>
+ *  BatchMain [options] greatquest <version config> <bin>
+ * Options:
+ *  --save                 Saves the loaded game data to the output folder.
+ *  --export-textures      Exports every texture to the output folder.
+ *  --export-models        Exports every model to the output folder.
+ *  --export-audio         Exports every sound to the output folder.
+ *  --export-all           Shorthand for all three exports.
+ *  --output=<folder>      The folder to write output to. (Default: BatchOutput)
+ *  --config=<file>        The instance config to load the game with, in place of an empty one.
+ *  --retention=<policy>   Sets the file data retention policy. (KEEP_ALL, HASH_ONLY, MAPPED_ARCHIVE)
+ *  --fast-compression     Compresses saved PP20 files with the fast match finder. (Faster, but slightly larger files)
+ * The process exits with status 1 if any step failed, making it suitable for build pipelines.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class BatchMain {
+    private final List<String> arguments = new ArrayList<>();
+    private File outputFolder = new File("BatchOutput");
+    private Config instanceConfig = new Config("BatchConfig");
+    private boolean save;
+    private boolean exportTextures;
+    private boolean exportModels;
+    private boolean exportAudio;
+    private int failureCount;
+
+    private static final String USAGE = "Usage:" + Constants.NEWLINE
+            + " BatchMain [options] sc <game type> <version config> <executable> <mwd>" + Constants.NEWLINE
+            + " BatchMain [options] greatquest <version config> <bin>" + Constants.NEWLINE
+            + "Options: --save, --export-textures, --export-models, --export-audio, --export-all, --output=<folder>, --config=<file>, --retention=<policy>, --fast-compression";
+    private static final ImageFilterSettings TEXTURE_EXPORT_SETTINGS = new ImageFilterSettings(ImageState.EXPORT).setTrimEdges(false).setAllowTransparency(true);
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true"); // Must occur before AWT is first used.
+        FXUtils.setHeadless(true);
+
+        BatchMain batch = new BatchMain();
+        if (!batch.parseArguments(args)) {
+            System.out.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            batch.run();
+        } catch (Throwable th) {
+            Utils.handleError(null, th, false, "The batch run failed.");
+            batch.failureCount++;
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("Finished in %.2f seconds with %d failure(s). (Heap Used: %s)%n", (System.nanoTime() - startTime) / 1000000000D,
+                batch.failureCount, DataSizeUnit.formatSize(runtime.totalMemory() - runtime.freeMemory()));
+        System.exit(batch.failureCount > 0 ? 1 : 0); // The file loading thread pool would otherwise keep the process alive.
+    }
+
+    private boolean parseArguments(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--save")) {
+                this.save = true;
+            } else if (arg.equals("--export-textures")) {
+                this.exportTextures = true;
+            } else if (arg.equals("--export-models")) {
+                this.exportModels = true;
+            } else if (arg.equals("--export-audio")) {
+                this.exportAudio = true;
+            } else if (arg.equals("--export-all")) {
+                this.exportTextures = this.exportModels = this.exportAudio = true;
+            } else if (arg.startsWith("--output=")) {
+                this.outputFolder = new File(arg.substring("--output=".length()));
+            } else if (arg.startsWith("--config=")) {
+                File configFile = new File(arg.substring("--config=".length()));
+                if (!configFile.isFile()) {
+                    System.out.println("The config file '" + configFile + "' does not exist.");
+                    return false;
+                }
+
+                this.instanceConfig = Config.loadConfigFromTextFile(configFile, false);
+            } else if (arg.startsWith("--retention=")) {
+                String policyName = arg.substring("--retention=".length()).toUpperCase(Locale.ROOT);
+                this.instanceConfig.getOrCreateKeyValueNode(GameInstance.CONFIG_FILE_DATA_RETENTION).setAsString(FileDataRetention.valueOf(policyName).name());
+            } else if (arg.equals("--fast-compression")) {
+                this.instanceConfig.getOrCreateKeyValueNode(SCGameInstance.CONFIG_FAST_COMPRESSION).setAsBoolean(true);
+            } else if (arg.startsWith("--")) {
+                System.out.println("Unknown option '" + arg + "'.");
+                return false;
+            } else {
+                this.arguments.add(arg);
+            }
+        }
+
+        if (this.arguments.isEmpty())
+            return false;
+
+        String gameName = this.arguments.get(0).toLowerCase(Locale.ROOT);
+        return (gameName.equals("sc") && this.arguments.size() == 5) || (gameName.equals("greatquest") && this.arguments.size() == 3);
+    }
+
+    private void run() {
+        FileUtils.makeDirectory(this.outputFolder);
+        if (this.arguments.get(0).equalsIgnoreCase("sc")) {
+            runSCGame();
+        } else {
+            runGreatQuest();
+        }
+    }
+
+    private void runSCGame() {
+        SCGameType gameType = SCGameType.valueOf(this.arguments.get(1).toUpperCase(Locale.ROOT));
+        File exeFile = new File(this.arguments.get(3));
+        File mwdFile = new File(this.arguments.get(4));
+        SCGameInstance instance = gameType.createGameInstance();
+        runTimed("Load", () -> instance.loadGame(this.arguments.get(2), this.instanceConfig, mwdFile, exeFile, null));
+        runTimed("Load Deferred Files", () -> loadDeferredFiles(instance.getMainArchive())); // Lazily loaded files are part of the load cost too.
+
+        if (this.save) {
+            File saveFolder = new File(this.outputFolder, "Save");
+            FileUtils.makeDirectory(saveFolder);
+            File outputMwdFile = new File(saveFolder, mwdFile.getName());
+            File outputMwiFile = new File(saveFolder, FileUtils.stripExtension(mwdFile.getName()) + ".MWI");
+            File outputExeFile = new File(saveFolder, exeFile.getName());
+            runTimed("Save", () -> instance.saveGame(outputMwdFile, outputMwiFile, outputExeFile, null));
+        }
+
+        if (this.exportTextures)
+            runTimed("Export Textures", () -> exportSCTextures(instance.getMainArchive(), new File(this.outputFolder, "Textures")));
+        if (this.exportModels)
+            runTimed("Export Models", () -> exportSCModels(instance.getMainArchive(), new File(this.outputFolder, "Models")));
+        if (this.exportAudio)
+            runTimed("Export Audio", () -> exportSCAudio(instance.getMainArchive(), new File(this.outputFolder, "Audio")));
+    }
+
+    private static void loadDeferredFiles(MWDFile archive) {
+        for (SCGameFile<?> file : archive.getFiles()) {
+            file.ensureLoaded();
+            if (file instanceof WADFile)
+                for (WADEntry wadEntry : ((WADFile) file).getFiles())
+                    wadEntry.getFile().ensureLoaded();
+        }
+    }
+
+    private void exportSCTextures(MWDFile archive, File folder) {
+        for (VLOArchive vlo : archive.getAllFiles(VLOArchive.class)) {
+            File vloFolder = new File(folder, FileUtils.stripExtension(vlo.getFileDisplayName()));
+            FileUtils.makeDirectory(vloFolder);
+            runSafely(vlo.getFileDisplayName(), () -> vlo.exportAllImages(vloFolder, TEXTURE_EXPORT_SETTINGS));
+        }
+    }
+
+    private void exportSCModels(MWDFile archive, File folder) {
+        for (WADFile wadFile : archive.getAllFiles(WADFile.class)) {
+            File wadFolder = new File(folder, FileUtils.stripExtension(wadFile.getFileDisplayName()));
+            VLOArchive vlo = archive.findThemeVLO(wadFile.getFroggerMapTheme());
+            boolean texturesExported = false;
+            for (WADEntry wadEntry : wadFile.getFiles()) {
+                SCGameFile<?> file = wadEntry.getFile();
+                if (!(file instanceof MOFHolder))
+                    continue;
+
+                FileUtils.makeDirectory(wadFolder);
+                if (vlo != null && !texturesExported) { // The exported materials reference these images.
+                    texturesExported = true;
+                    runSafely(vlo.getFileDisplayName(), () -> vlo.exportAllImages(wadFolder, MOFFile.MOF_EXPORT_FILTER));
+                }
+
+                runSafely(file.getFileDisplayName(), () -> ((MOFHolder) file).exportObject(wadFolder, vlo));
+            }
+        }
+    }
+
+    private void exportSCAudio(MWDFile archive, File folder) {
+        for (SCSplitVBFile vbFile : archive.getAllFiles(SCSplitVBFile.class)) {
+            if (vbFile.getSoundBank() == null) {
+                System.out.println("Skipping '" + vbFile.getFileDisplayName() + "', as it has no sound bank header.");
+                continue;
+            }
+
+            File bankFolder = new File(folder, FileUtils.stripExtension(vbFile.getFileDisplayName()));
+            FileUtils.makeDirectory(bankFolder);
+            for (ISoundSample sound : vbFile.getBody().getEntries())
+                runSafely(sound.getSoundName(), () -> sound.saveToImportableFile(new File(bankFolder, sound.getSoundName() + ".wav")));
+        }
+    }
+
+    private void runGreatQuest() {
+        File binFile = new File(this.arguments.get(2));
+        GreatQuestInstance instance = new GreatQuestInstance();
+        runTimed("Load", () -> instance.loadGame(this.arguments.get(1), this.instanceConfig, binFile, null));
+
+        if (this.save) {
+            File saveFolder = new File(this.outputFolder, "Save");
+            FileUtils.makeDirectory(saveFolder);
+            runTimed("Save", () -> instance.saveGame(new File(saveFolder, binFile.getName()), null));
+        }
+
+        if (this.exportTextures)
+            runTimed("Export Textures", () -> exportGreatQuestFiles(instance, GreatQuestImageFile.class, new File(this.outputFolder, "Textures")));
+        if (this.exportModels)
+            runTimed("Export Models", () -> exportGreatQuestFiles(instance, kcModelWrapper.class, new File(this.outputFolder, "Models")));
+        if (this.exportAudio)
+            runTimed("Export Audio", () -> exportGreatQuestAudio(instance, new File(this.outputFolder, "Audio")));
+    }
+
+    private void exportGreatQuestFiles(GreatQuestInstance instance, Class<? extends GreatQuestArchiveFile> fileClass, File folder) {
+        for (GreatQuestArchiveFile file : instance.getMainArchive().getFiles()) {
+            if (fileClass.isInstance(file)) {
+                File targetFolder = GreatQuestUtils.getExportFile(folder, file).getParentFile();
+                runSafely(file.getDebugName(), () -> ((IFileExport) file).exportToFolder(targetFolder));
+            }
+        }
+    }
+
+    private void exportGreatQuestAudio(GreatQuestInstance instance, File folder) {
+        for (GreatQuestGameFile file : instance.getLooseFiles()) {
+            if (!(file instanceof SBRFile))
+                continue;
+
+            File bankFolder = new File(folder, FileUtils.stripExtension(file.getFileName()));
+            FileUtils.makeDirectory(bankFolder);
+            for (SfxWave wave : ((SBRFile) file).getWaves())
+                runSafely(file.getFileName() + "/" + wave.getExportFileName(), () -> wave.exportToWav(new File(bankFolder, wave.getExportFileName())));
+        }
+
+        SoundChunkFile soundChunkFile = instance.getSoundChunkFile();
+        if (soundChunkFile != null) {
+            File streamFolder = new File(folder, "Streams");
+            FileUtils.makeDirectory(streamFolder);
+            for (SoundChunkEntry entry : soundChunkFile.getEntries())
+                runSafely(entry.getExportFileName(), () -> entry.saveAsWavFile(new File(streamFolder, entry.getExportFileName())));
+        }
+    }
+
+    private void runTimed(String stepName, Runnable step) {
+        System.out.println(stepName + "...");
+        long startTime = System.nanoTime();
+        step.run();
+        System.out.printf("[Timing] %s: %.1f ms%n", stepName, (System.nanoTime() - startTime) / 1000000D);
+    }
+
+    private void runSafely(String name, BatchTask task) {
+        try {
+            task.run();
+        } catch (Throwable th) {
+            Utils.handleError(null, th, false, "Failed to process '%s'.", name);
+            this.failureCount++;
+        }
+    }
+
+    private interface BatchTask {
+        void run() throws Exception;
+    }
+}
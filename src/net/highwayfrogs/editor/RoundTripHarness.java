@@ -0,0 +1,336 @@
+package net.highwayfrogs.editor;
+
+import net.highwayfrogs.editor.file.reader.ArraySource;
+import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.file.writer.ArrayReceiver;
+import net.highwayfrogs.editor.file.writer.DataWriter;
+import net.highwayfrogs.editor.games.generic.data.IBinarySerializable;
+import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestInstance;
+import net.highwayfrogs.editor.games.konami.greatquest.file.GreatQuestArchiveFile;
+import net.highwayfrogs.editor.games.renderware.RwStreamChunkTypeRegistry;
+import net.highwayfrogs.editor.games.renderware.RwStreamFile;
+import net.highwayfrogs.editor.games.sony.SCGameFile;
+import net.highwayfrogs.editor.games.sony.SCGameInstance;
+import net.highwayfrogs.editor.games.sony.SCGameType;
+import net.highwayfrogs.editor.games.sony.shared.mwd.WADFile;
+import net.highwayfrogs.editor.games.sony.shared.mwd.WADFile.WADEntry;
+import net.highwayfrogs.editor.system.Config;
+import net.highwayfrogs.editor.utils.FXUtils;
+import net.highwayfrogs.editor.utils.FileUtils;
+import net.highwayfrogs.editor.utils.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Loads every file in a game, saves it again, and compares the saved data against the original data.
+ * Produces a CSV report of the throughput, allocation and mismatches per file type, so both performance and correctness regressions can be tracked between releases.
+ * Allocation is summed across every thread in the JVM, so it includes work done by background worker threads.
+ * The exception is MWD files, which are measured individually by type as they load, so only the thread loading each file is counted.
+ * Files which cannot be compared because their original data was not kept are counted as skipped, and listed in the summary.
+ * Usage:
+ *  RoundTripHarness [options] sc <game type> <version config> <executable> <mwd>
+ *  RoundTripHarness [options] greatquest <version config> <bin>
+ *  RoundTripHarness [options] rw <file or folder>...
+ * Options:
+ *  --report=<file>      The CSV file to write the report to. (Default: round-trip-report.csv) Mismatches are written next to it.
+ *  --fail-on-mismatch   Exits with status 1 if any file does not save to its original data.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class RoundTripHarness {
+    private final Map<String, TypeStatistics> loadStatistics = new TreeMap<>();
+    private final Map<String, TypeStatistics> saveStatistics = new TreeMap<>();
+    private final List<String> mismatches = new ArrayList<>();
+    private final List<String> skippedFiles = new ArrayList<>();
+    private int mismatchCount;
+    private int failureCount;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final String REPORT_HEADER = "stage,type,files,bytes,mismatches,failures,skipped,milliseconds,megabytesPerSecond,allocatedBytes";
+    private static final String MISMATCH_HEADER = "type,file,originalSize,savedSize,firstDifference";
+    private static final String USAGE = "Usage:" + Constants.NEWLINE
+            + " RoundTripHarness [options] sc <game type> <version config> <executable> <mwd>" + Constants.NEWLINE
+            + " RoundTripHarness [options] greatquest <version config> <bin>" + Constants.NEWLINE
+            + " RoundTripHarness [options] rw <file or folder>..." + Constants.NEWLINE
+            + "Options: --report=<file>, --fail-on-mismatch";
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        FXUtils.setHeadless(true);
+
+        File reportFile = new File("round-trip-report.csv");
+        boolean failOnMismatch = false;
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--report=")) {
+                reportFile = new File(arg.substring("--report=".length()));
+            } else if (arg.equals("--fail-on-mismatch")) {
+                failOnMismatch = true;
+            } else {
+                arguments.add(arg);
+            }
+        }
+
+        String mode = arguments.size() > 0 ? arguments.get(0).toLowerCase(Locale.ROOT) : "";
+        if (!(mode.equals("sc") && arguments.size() == 5) && !(mode.equals("greatquest") && arguments.size() == 3) && !(mode.equals("rw") && arguments.size() >= 2)) {
+            System.out.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        RoundTripHarness harness = new RoundTripHarness();
+        if (mode.equals("sc")) {
+            harness.testSCGame(SCGameType.valueOf(arguments.get(1).toUpperCase(Locale.ROOT)), arguments.get(2), new File(arguments.get(3)), new File(arguments.get(4)));
+        } else if (mode.equals("greatquest")) {
+            harness.testGreatQuest(arguments.get(1), new File(arguments.get(2)));
+        } else {
+            for (int i = 1; i < arguments.size(); i++)
+                harness.testRwStreamFiles(new File(arguments.get(i)));
+        }
+
+        harness.writeReport(reportFile);
+        harness.printSummary();
+        System.exit(harness.failureCount > 0 || (failOnMismatch && harness.mismatchCount > 0) ? 1 : 0);
+    }
+
+    private void testSCGame(SCGameType gameType, String versionConfig, File exeFile, File mwdFile) {
+        SCGameInstance instance = gameType.createGameInstance();
+        instance.setFileLoadObserver(this::measureFileLoad); // Each file is measured by its type, including files loaded later on first access.
+        try {
+            instance.loadGame(versionConfig, new Config("RoundTripConfig"), mwdFile, exeFile, null);
+        } catch (Throwable th) {
+            Utils.handleError(null, th, false, "Failed to load the MWD '%s'.", mwdFile);
+            this.failureCount++;
+            return;
+        }
+
+        for (SCGameFile<?> file : instance.getMainArchive().getFiles()) {
+            testSCFile(file);
+            if (file instanceof WADFile)
+                for (WADEntry wadEntry : ((WADFile) file).getFiles())
+                    testSCFile(wadEntry.getFile());
+        }
+    }
+
+    private void testSCFile(SCGameFile<?> file) {
+        if (file == null)
+            return;
+
+        try {
+            file.ensureLoaded(); // Deferred loads should not count towards the save.
+        } catch (Throwable th) {
+            Utils.handleError(null, th, false, "Failed to load '%s'.", file.getFileDisplayName());
+            this.failureCount++;
+            return;
+        }
+
+        testSave(file.getClass().getSimpleName(), file.getFileDisplayName(), file, file.getRawFileData());
+    }
+
+    private void testGreatQuest(String versionConfig, File binFile) {
+        GreatQuestInstance instance = new GreatQuestInstance();
+        measure(this.loadStatistics, "Bin", binFile.length(), () -> instance.loadGame(versionConfig, new Config("RoundTripConfig"), binFile, null));
+
+        for (GreatQuestArchiveFile file : instance.getMainArchive().getFiles())
+            testSave(file.getClass().getSimpleName(), file.getDebugName(), file, file.getRawData());
+    }
+
+    private void testRwStreamFiles(File file) {
+        if (file.isDirectory()) {
+            for (File childFile : FileUtils.listFiles(file))
+                testRwStreamFiles(childFile);
+            return;
+        }
+
+        byte[] fileBytes;
+        try {
+            fileBytes = Files.readAllBytes(file.toPath());
+        } catch (IOException ex) {
+            Utils.handleError(null, ex, false, "Failed to read '%s'.", file);
+            this.failureCount++;
+            return;
+        }
+
+        if (!RwStreamFile.isRwStreamFile(fileBytes))
+            return;
+
+        RwStreamFile rwStreamFile = new RwStreamFile(null, RwStreamChunkTypeRegistry.getDefaultRegistry(), file.getName());
+        if (measure(this.loadStatistics, RwStreamFile.class.getSimpleName(), fileBytes.length, () -> rwStreamFile.load(new DataReader(new ArraySource(fileBytes)))))
+            testSave(RwStreamFile.class.getSimpleName(), file.getPath(), rwStreamFile, fileBytes);
+    }
+
+    private void testSave(String typeName, String fileName, IBinarySerializable data, byte[] originalBytes) {
+        if (originalBytes == null) { // Without the original data, there is nothing to compare the saved data against.
+            this.saveStatistics.computeIfAbsent(typeName, key -> new TypeStatistics()).skippedCount++;
+            this.skippedFiles.add(fileName);
+            return;
+        }
+
+        ArrayReceiver receiver = new ArrayReceiver();
+        if (!measure(this.saveStatistics, typeName, originalBytes.length, () -> data.save(new DataWriter(receiver))))
+            return;
+
+        byte[] savedBytes = receiver.toArray();
+        if (Arrays.equals(originalBytes, savedBytes))
+            return;
+
+        int firstDifference = 0;
+        int minLength = Math.min(originalBytes.length, savedBytes.length);
+        while (firstDifference < minLength && originalBytes[firstDifference] == savedBytes[firstDifference])
+            firstDifference++;
+
+        this.saveStatistics.get(typeName).mismatchCount++;
+        this.mismatchCount++;
+        this.mismatches.add(escapeCsv(typeName) + "," + escapeCsv(fileName) + "," + originalBytes.length + "," + savedBytes.length + "," + firstDifference);
+    }
+
+    private boolean measure(Map<String, TypeStatistics> statisticsMap, String typeName, long byteCount, Runnable task) {
+        TypeStatistics statistics = statisticsMap.computeIfAbsent(typeName, key -> new TypeStatistics());
+        Map<Long, Long> startAllocatedBytes = getAllocatedBytesByThread();
+        long startTime = System.nanoTime();
+        try {
+            task.run();
+        } catch (Throwable th) {
+            Utils.handleError(null, th, false, "Failed to process a file of type '%s'.", typeName);
+            statistics.failureCount++;
+            this.failureCount++;
+            return false;
+        }
+
+        statistics.nanoTime += System.nanoTime() - startTime;
+        statistics.allocatedBytes += getAllocatedBytesSince(startAllocatedBytes);
+        statistics.byteCount += byteCount;
+        statistics.fileCount++;
+        return true;
+    }
+
+    // Files in the MWD may load on worker threads in parallel with each other, so only the allocations of the thread loading the file are counted.
+    // A WAD's measurement includes loading the files inside it, which are also measured under their own types.
+    private void measureFileLoad(SCGameFile<?> file, int byteCount, Runnable load) {
+        long threadId = Thread.currentThread().getId();
+        long startAllocatedBytes = getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            load.run();
+            success = true;
+        } finally { // The MWD handles the failure, so it is only counted here.
+            long nanoTime = System.nanoTime() - startTime;
+            long endAllocatedBytes = getThreadAllocatedBytes(threadId);
+            synchronized (this.loadStatistics) {
+                TypeStatistics statistics = this.loadStatistics.computeIfAbsent(file.getClass().getSimpleName(), key -> new TypeStatistics());
+                if (success) {
+                    statistics.nanoTime += nanoTime;
+                    statistics.byteCount += byteCount;
+                    statistics.fileCount++;
+                    if (startAllocatedBytes >= 0 && endAllocatedBytes >= 0)
+                        statistics.allocatedBytes += endAllocatedBytes - startAllocatedBytes;
+                } else {
+                    statistics.failureCount++;
+                    this.failureCount++;
+                }
+            }
+        }
+    }
+
+    private void writeReport(File reportFile) throws IOException {
+        try (PrintWriter writer = new PrintWriter(reportFile)) {
+            writer.println(REPORT_HEADER);
+            writeStatistics(writer, "load", this.loadStatistics);
+            writeStatistics(writer, "save", this.saveStatistics);
+        }
+
+        File mismatchFile = new File(reportFile.getAbsoluteFile().getParentFile(), FileUtils.stripExtension(reportFile.getName()) + "-mismatches.csv");
+        try (PrintWriter writer = new PrintWriter(mismatchFile)) {
+            writer.println(MISMATCH_HEADER);
+            this.mismatches.forEach(writer::println);
+        }
+
+        System.out.println("Wrote the report to '" + reportFile + "', and mismatches to '" + mismatchFile + "'.");
+    }
+
+    private static void writeStatistics(PrintWriter writer, String stage, Map<String, TypeStatistics> statisticsMap) {
+        for (Map.Entry<String, TypeStatistics> entry : statisticsMap.entrySet()) {
+            TypeStatistics statistics = entry.getValue();
+            writer.printf(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%d,%.3f,%.3f,%d%n", stage, escapeCsv(entry.getKey()), statistics.fileCount, statistics.byteCount,
+                    statistics.mismatchCount, statistics.failureCount, statistics.skippedCount, statistics.nanoTime / 1000000D, statistics.getMegabytesPerSecond(), statistics.allocatedBytes);
+        }
+    }
+
+    private void printSummary() {
+        System.out.printf("%-6s %-32s %7s %12s %10s %10s %8s %10s%n", "Stage", "Type", "Files", "Bytes", "Mismatches", "Failures", "Skipped", "MB/s");
+        printStatistics("load", this.loadStatistics);
+        printStatistics("save", this.saveStatistics);
+        if (this.skippedFiles.size() > 0)
+            System.out.println("Skipped, as their original data is not available: " + String.join(", ", this.skippedFiles));
+        System.out.println(this.mismatchCount + " mismatch(es), " + this.failureCount + " failure(s), " + this.skippedFiles.size() + " skipped.");
+    }
+
+    private static void printStatistics(String stage, Map<String, TypeStatistics> statisticsMap) {
+        for (Map.Entry<String, TypeStatistics> entry : statisticsMap.entrySet()) {
+            TypeStatistics statistics = entry.getValue();
+            System.out.printf("%-6s %-32s %7d %12d %10d %10d %8d %10.2f%n", stage, entry.getKey(), statistics.fileCount, statistics.byteCount,
+                    statistics.mismatchCount, statistics.failureCount, statistics.skippedCount, statistics.getMegabytesPerSecond());
+        }
+    }
+
+    // Files may be loaded and saved on worker threads (such as the PP20 packer), so every thread's allocations are counted, not just the harness thread's.
+    private static Map<Long, Long> getAllocatedBytesByThread() {
+        if (!(THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean)) // Only available on HotSpot-based JVMs.
+            return Collections.emptyMap();
+
+        long[] threadIds = THREAD_MX_BEAN.getAllThreadIds();
+        long[] allocatedBytes = ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(threadIds);
+        Map<Long, Long> allocatedBytesByThread = new HashMap<>(threadIds.length * 2);
+        for (int i = 0; i < threadIds.length; i++)
+            if (allocatedBytes[i] >= 0) // -1 means the thread has exited, or measuring is disabled.
+                allocatedBytesByThread.put(threadIds[i], allocatedBytes[i]);
+
+        return allocatedBytesByThread;
+    }
+
+    private static long getThreadAllocatedBytes(long threadId) {
+        if (!(THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean)) // Only available on HotSpot-based JVMs.
+            return -1;
+
+        return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(threadId);
+    }
+
+    private static long getAllocatedBytesSince(Map<Long, Long> startAllocatedBytes) {
+        long totalAllocatedBytes = 0;
+        for (Map.Entry<Long, Long> entry : getAllocatedBytesByThread().entrySet()) {
+            Long startBytes = startAllocatedBytes.get(entry.getKey()); // Threads started since the snapshot have no entry.
+            totalAllocatedBytes += entry.getValue() - (startBytes != null ? startBytes : 0L);
+        }
+
+        return totalAllocatedBytes; // Allocations made by threads which exited before the measurement ended are not counted.
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static class TypeStatistics {
+        private int fileCount;
+        private long byteCount;
+        private int mismatchCount;
+        private int failureCount;
+        private int skippedCount;
+        private long nanoTime;
+        private long allocatedBytes;
+
+        private double getMegabytesPerSecond() {
+            return this.nanoTime > 0 ? (this.byteCount / 1000000D) / (this.nanoTime / 1000000000D) : 0;
+        }
+    }
+}
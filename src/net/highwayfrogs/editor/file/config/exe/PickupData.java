@@ -51,7 +51,7 @@ public class PickupData extends SCGameData<FroggerGameInstance> {
         if (isOldPickupFormat()) {
             // TODO: Properly support the format. (This doesn't work on PC... is the issue that the PC version doesn't properly identify pointers?)
             long nextTexture = reader.readUnsignedIntAsLong();
-            while (reader.hasMore() && !getGameInstance().getBmpTexturePointers().contains(nextTexture)) // This intends to skip the first texture.
+            while (reader.hasMore() && !getGameInstance().isBmpTexturePointer(nextTexture)) // This intends to skip the first texture.
                 nextTexture = reader.readUnsignedIntAsLong();
 
             reader.setIndex(reader.getIndex() - Constants.INTEGER_SIZE);
@@ -64,7 +64,7 @@ public class PickupData extends SCGameData<FroggerGameInstance> {
         this.frames.clear();
         long imagePointer;
         while (reader.hasMore() && (imagePointer = reader.readUnsignedIntAsLong()) != 0)
-            if (!isOldPickupFormat() || getGameInstance().getBmpTexturePointers().contains(imagePointer))
+            if (!isOldPickupFormat() || getGameInstance().isBmpTexturePointer(imagePointer))
                 this.frames.add(new PickupAnimationFrame(this, this.frames.size(), imagePointer));
     }
 
@@ -5,6 +5,7 @@ import javafx.application.Platform;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
@@ -61,7 +62,8 @@ public class MOFHolder extends SCSharedGameFile {
 
     private transient FroggerMapTheme theme; // TODO: We may want to change how we track this to instead maybe know the parent WAD file and calculate it from that. This is in the interest of supporting other games.
     private transient VLOArchive vloFile; // TODO: Change this later, I think we want to change how this is tracked.
-    private MOFHolder completeMOF; // This is the last MOF which was not incomplete.
+    @Getter(AccessLevel.NONE) private MOFHolder completeMOF; // This is the last MOF which was not incomplete.
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) private transient boolean completeMOFSearched; // Only incomplete MOFs need the complete MOF, so it is not searched for until it is requested.
 
     public static final int FLAG_ANIMATION_FILE = Constants.BIT_FLAG_3; // This is an animation MOF file.
 
@@ -73,6 +75,20 @@ public class MOFHolder extends SCSharedGameFile {
         this.completeMOF = lastCompleteMOF;
     }
 
+    /**
+     * Gets the last MOF which was not incomplete, which an incomplete MOF shares its data with.
+     * If one was not provided when this MOF was created, it is searched for on the first call.
+     * @return completeMOF, or null
+     */
+    public MOFHolder getCompleteMOF() {
+        if (this.completeMOF == null && !this.completeMOFSearched && getIndexEntry() != null) {
+            this.completeMOFSearched = true;
+            this.completeMOF = SCUtils.findCompleteMof(getIndexEntry());
+        }
+
+        return this.completeMOF;
+    }
+
     @Override
     @SneakyThrows
     public void exportAlternateFormat() {
@@ -10,6 +10,9 @@ import net.highwayfrogs.editor.utils.MathUtils;
 import net.highwayfrogs.editor.utils.Utils;
 
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Packs a byte array into PP20 compressed data. PP20 is a LZSS variant.
@@ -53,6 +56,11 @@ public class PP20Packer {
     // This method has been tested against Beast Wars PC/PSX, Frogger PC/PSX, MediEvil, MediEvil 2, Moon Warrior, and C-12 Final Resistance and outputs perfect safety margin matches for all of them.
     public static final int SAFETY_MARGIN_CONSTANT = 4;
 
+    public static final int DEFAULT_FAST_SEARCH_DEPTH = 32;
+
+    public static final int THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final ExecutorService PACKER_THREAD_POOL = Executors.newWorkStealingPool(THREAD_COUNT);
+
     /**
      * Packs a byte array using extreme compression settings.
      * @param data The data to pack.
@@ -62,6 +70,28 @@ public class PP20Packer {
         return packData(data, true, EXTREME_COMPRESSION_SETTINGS);
     }
 
+    /**
+     * Packs a byte array using extreme compression settings on a worker thread.
+     * Packing has no shared state, so the result is identical to calling packDataWithMode() directly.
+     * @param data The data to pack. Should not be modified until packing completes.
+     * @param fastMode if true, the fast match finder is used, otherwise the output will match the original packer
+     * @return packTask
+     */
+    public static Future<PackResult> packDataAsync(byte[] data, boolean fastMode) {
+        return PACKER_THREAD_POOL.submit(() -> packDataWithMode(data, fastMode));
+    }
+
+    /**
+     * Packs a byte array using extreme compression settings.
+     * The fast match finder is useful while repeatedly testing changes, as packing becomes much faster, at the cost of slightly larger files.
+     * @param data The data to pack.
+     * @param fastMode if true, the fast match finder is used, otherwise the output will match the original packer
+     * @return packedData
+     */
+    public static PackResult packDataWithMode(byte[] data, boolean fastMode) {
+        return fastMode ? packDataFast(data) : packData(data);
+    }
+
     /**
      * Pack a byte array into PP20 compressed data.
      * @param data The data to compress.
@@ -73,14 +103,48 @@ public class PP20Packer {
             throw new RuntimeException("packData tried to compress data larger than the maximum PP20 file size! (" + data.length + " > " + MAX_UNCOMPRESSED_FILE_SIZE + ")!");
 
         PackerDataInstance packerData = new PackerDataInstance(oldVersion, compressionSettings);
+        byte[] compressedData = compressData(data, packerData);
+        return createPackResult(data, compressedData, compressionSettings, packerData.getByteMargin());
+    }
 
+    /**
+     * Packs a byte array with the fast match finder, using extreme compression settings.
+     * @param data The data to pack.
+     * @return packedData
+     */
+    public static PackResult packDataFast(byte[] data) {
+        return packDataFast(data, EXTREME_COMPRESSION_SETTINGS, DEFAULT_FAST_SEARCH_DEPTH);
+    }
+
+    /**
+     * Pack a byte array into PP20 compressed data with the fast match finder.
+     * The fast match finder uses hash chains keyed on the next two bytes, and only follows each chain up to the search depth.
+     * The output is valid PP20 data (including the safety margin), but it will not match the output of the original packer, and it is usually slightly larger.
+     * @param data The data to compress.
+     * @param compressionSettings the number of offset bits to use for each compression level
+     * @param searchDepth the maximum number of match candidates to test per byte. Higher values compress better, but are slower.
+     * @return packedData
+     */
+    public static PackResult packDataFast(byte[] data, byte[] compressionSettings, int searchDepth) {
+        if (data.length > MAX_UNCOMPRESSED_FILE_SIZE)
+            throw new RuntimeException("packDataFast tried to compress data larger than the maximum PP20 file size! (" + data.length + " > " + MAX_UNCOMPRESSED_FILE_SIZE + ")!");
+        if (compressionSettings == null || compressionSettings.length != COMPRESSING_SETTING_SIZE)
+            throw new RuntimeException("Compression Settings should have four entries. Had: " + (compressionSettings != null ? compressionSettings.length : -1));
+        if (searchDepth <= 0)
+            throw new IllegalArgumentException("Invalid search depth: " + searchDepth);
+
+        HashChainMatchFinder matchFinder = new HashChainMatchFinder(data, compressionSettings, searchDepth);
+        byte[] compressedData = matchFinder.compressData();
+        return createPackResult(data, compressedData, compressionSettings, matchFinder.getByteMargin());
+    }
+
+    private static PackResult createPackResult(byte[] data, byte[] compressedData, byte[] compressionSettings, int byteMargin) {
         // Take the compressed data, and pad it with the file structure. Then, we're done.
-        byte[] compressedData = compressData(data, packerData);
         byte[] sizeBytes = DataUtils.reverseByteArray(DataUtils.toByteArray(data.length));
         System.arraycopy(MARKER_BYTES, 0, compressedData, 0, MARKER_BYTES.length);
         System.arraycopy(compressionSettings, 0, compressedData, 4, compressionSettings.length);
         System.arraycopy(sizeBytes, 1, compressedData, compressedData.length - 4, Constants.INTEGER_SIZE - 1);
-        return new PackResult(compressedData, packerData.getByteMargin());
+        return new PackResult(compressedData, byteMargin);
     }
 
     @Getter
@@ -95,6 +159,16 @@ public class PP20Packer {
         public int getSafetyMarginWordCount() {
             return 2 + (this.minimumByteMargin / Constants.INTEGER_SIZE);
         }
+
+        /**
+         * Creates a pack result for data which has already been compressed, such as data read from a game file.
+         * @param packedBytes the compressed data
+         * @param safetyMarginWordCount the safety margin word count of the compressed data
+         * @return packResult
+         */
+        public static PackResult fromSafetyMargin(byte[] packedBytes, int safetyMarginWordCount) {
+            return new PackResult(packedBytes, (safetyMarginWordCount - 2) * Constants.INTEGER_SIZE);
+        }
     }
 
     private static int updateSpeedupLarge(byte[] curr, int curIndex, int next, int count, PackerDataInstance info) {
@@ -237,37 +311,44 @@ public class PP20Packer {
 
                 // Write data reference.
                 info.updateByteMargin(writer, srcCurrIdx);
-                if (repeats > COMPRESSING_SETTING_SIZE) {
-                    int repeatValue = (repeats - (PP20Packer.COMPRESSING_SETTING_SIZE + 1));
-
-                    // Write data length.
-                    writer.writeBits(repeatValue % PP20Packer.OFFSET_CONTINUE_WRITING_BITS, PP20Packer.OFFSET_BIT_LENGTH);
-                    for (int i = 0; i < repeatValue / PP20Packer.OFFSET_CONTINUE_WRITING_BITS; ++i)
-                        writer.writeBits(PP20Packer.OFFSET_CONTINUE_WRITING_BITS, PP20Packer.OFFSET_BIT_LENGTH);
-
-                    boolean largeMode = (dataRefOffset >= 0x80); // Offset small mode vs not.
-                    writer.writeBits(dataRefOffset, largeMode ? info.getCompressionSettings()[dataRefCompressionLevel] : PP20Packer.OPTIONAL_BITS_SMALL_OFFSET); // Write offset. (Length is deterministic)
-                    writer.writeBit(Utils.getBit(largeMode)); // Write whether small offset mode is used.
-                } else {
-                    // Write offset. (Data length is deterministic based on the compression level, which is also written.)
-                    writer.writeBits(dataRefOffset, info.getCompressionSettings()[dataRefCompressionLevel]);
-                }
-
-                // Write compression level.
-                writer.writeBits(dataRefCompressionLevel, 2);
+                writeDataReference(writer, repeats, dataRefOffset, dataRefCompressionLevel, info.getCompressionSettings());
                 break;
             }
         }
         info.updateByteMargin(writer, srcCurrIdx);
         writeRawDataPackerHeader(writer, bits);
+        return finishCompressedData(writer, info.getCompressionSettings());
+    }
 
+    private static byte[] finishCompressedData(BitWriter writer, byte[] compressionSettings) {
         int skippedBits = writer.finishCurrentByte();
         int extraBytes = ((writer.getByteCount() % 4) > 0) ? 4 - (writer.getByteCount() % 4) : 0; // Align by 4 bytes, which is what the real PowerPacker does.
-        byte[] byteArray = writer.toByteArray(PP20Packer.MARKER.length() + info.getCompressionSettings().length, 4 + extraBytes);
+        byte[] byteArray = writer.toByteArray(PP20Packer.MARKER.length() + compressionSettings.length, 4 + extraBytes);
         byteArray[byteArray.length - 1] = (byte) (skippedBits + (Constants.BITS_PER_BYTE * extraBytes));
         return byteArray;
     }
 
+    private static void writeDataReference(BitWriter writer, int repeats, int dataRefOffset, int dataRefCompressionLevel, byte[] compressionSettings) {
+        if (repeats > COMPRESSING_SETTING_SIZE) {
+            int repeatValue = (repeats - (PP20Packer.COMPRESSING_SETTING_SIZE + 1));
+
+            // Write data length.
+            writer.writeBits(repeatValue % PP20Packer.OFFSET_CONTINUE_WRITING_BITS, PP20Packer.OFFSET_BIT_LENGTH);
+            for (int i = 0; i < repeatValue / PP20Packer.OFFSET_CONTINUE_WRITING_BITS; ++i)
+                writer.writeBits(PP20Packer.OFFSET_CONTINUE_WRITING_BITS, PP20Packer.OFFSET_BIT_LENGTH);
+
+            boolean largeMode = (dataRefOffset >= 0x80); // Offset small mode vs not.
+            writer.writeBits(dataRefOffset, largeMode ? compressionSettings[dataRefCompressionLevel] : PP20Packer.OPTIONAL_BITS_SMALL_OFFSET); // Write offset. (Length is deterministic)
+            writer.writeBit(Utils.getBit(largeMode)); // Write whether small offset mode is used.
+        } else {
+            // Write offset. (Data length is deterministic based on the compression level, which is also written.)
+            writer.writeBits(dataRefOffset, compressionSettings[dataRefCompressionLevel]);
+        }
+
+        // Write compression level.
+        writer.writeBits(dataRefCompressionLevel, 2);
+    }
+
     private static void writeRawDataPackerHeader(BitWriter writer, int byteLength) {
         int writeLength = byteLength - 1;
         writer.writeBits(writeLength % PP20Packer.INPUT_CONTINUE_WRITING_BITS, PP20Packer.INPUT_BIT_LENGTH);
@@ -320,10 +401,124 @@ public class PP20Packer {
          * @param writer the writer
          */
         public void updateByteMargin(BitWriter writer, int srcCurrIdx) {
-            // Check the documentation for SAFETY_MARGIN_CONSTANT to explain what's going on here.
-            int currentByteMargin = (writer.getBytes().size() + 1) + SAFETY_MARGIN_CONSTANT - srcCurrIdx;
-            if (currentByteMargin > this.byteMargin)
-                this.byteMargin = currentByteMargin;
+            this.byteMargin = Math.max(this.byteMargin, calculateByteMargin(writer, srcCurrIdx));
+        }
+    }
+
+    private static int calculateByteMargin(BitWriter writer, int srcCurrIdx) {
+        // Check the documentation for SAFETY_MARGIN_CONSTANT to explain what's going on here.
+        return (writer.getCompletedByteCount() + 1) + SAFETY_MARGIN_CONSTANT - srcCurrIdx;
+    }
+
+    /**
+     * Finds matches for the fast packing mode.
+     * PP20 data is decompressed from the end of the file to the start, so a data reference copies data which comes later in the file.
+     * Each chain links a position to the next position after it which starts with the same two bytes, so the closest candidates are tested first.
+     */
+    private static class HashChainMatchFinder {
+        private final byte[] data;
+        private final byte[] compressionSettings;
+        private final int[] maxOffsets;
+        private final int searchDepth;
+        private final int[] nextPositions;
+        @Getter private int byteMargin;
+
+        private static final int NO_POSITION = -1;
+
+        public HashChainMatchFinder(byte[] data, byte[] compressionSettings, int searchDepth) {
+            this.data = data;
+            this.compressionSettings = compressionSettings;
+            this.searchDepth = searchDepth;
+            this.maxOffsets = new int[compressionSettings.length];
+            for (int i = 0; i < this.maxOffsets.length; i++)
+                this.maxOffsets[i] = (1 << compressionSettings[i]);
+
+            // Build the chains by walking backwards, so each chain is ordered from the closest position to the furthest.
+            int[] chainHeads = new int[65536]; // 0x10000. Sized at every possible combination of two chars.
+            Arrays.fill(chainHeads, NO_POSITION);
+            this.nextPositions = new int[data.length];
+            if (data.length > 0)
+                this.nextPositions[data.length - 1] = NO_POSITION;
+
+            for (int i = data.length - 2; i >= 0; i--) {
+                int key = ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+                this.nextPositions[i] = chainHeads[key];
+                chainHeads[key] = i;
+            }
+        }
+
+        /**
+         * Compresses the data, using greedy parsing.
+         * @return compressedData, without the header or footer.
+         */
+        public byte[] compressData() {
+            BitWriter writer = new BitWriter();
+            writer.setReverseBits(true);
+
+            int maxShift = this.maxOffsets[this.maxOffsets.length - 1];
+            int srcCurrIdx = 0;
+            int bits = 0;
+            while (srcCurrIdx < this.data.length) {
+                int srcMax = Math.min(this.data.length, srcCurrIdx + 0x7FFF);
+                int repeats = 0;
+                int shift = 0;
+
+                int depth = 0;
+                for (int candidate = this.nextPositions[srcCurrIdx]; candidate != NO_POSITION && depth < this.searchDepth; candidate = this.nextPositions[candidate], depth++) {
+                    int candidateShift = candidate - srcCurrIdx;
+                    if (candidateShift > maxShift)
+                        break; // Chains are ordered by position, so every remaining candidate is also too far away.
+
+                    // Skip candidates which can't beat the current match.
+                    int maxRepeats = srcMax - candidate;
+                    if (maxRepeats <= repeats || (repeats > 0 && this.data[candidate + repeats] != this.data[srcCurrIdx + repeats]))
+                        continue;
+
+                    int currRepeats = MINIMUM_DECODE_DATA_LENGTH; // The chain guarantees the first two bytes match.
+                    while (currRepeats < maxRepeats && this.data[srcCurrIdx + currRepeats] == this.data[candidate + currRepeats])
+                        currRepeats++;
+
+                    // Short data references use fewer offset bits, so they can't reach as far.
+                    int currBits = Math.min(this.compressionSettings.length - 1, currRepeats - 2);
+                    if (currRepeats > repeats && candidateShift <= this.maxOffsets[currBits]) {
+                        repeats = currRepeats;
+                        shift = candidateShift;
+                        if (currRepeats == maxRepeats)
+                            break; // Nothing else can be longer.
+                    }
+                }
+
+                if (repeats < MINIMUM_DECODE_DATA_LENGTH) {
+                    writer.writeByte(this.data[srcCurrIdx++]);
+                    bits++;
+                    continue;
+                }
+
+                srcCurrIdx += repeats;
+
+                // Write Control Code (And possibly raw data packer header.)
+                if (bits == 0) {
+                    writer.writeBit(Utils.flipBit(HAS_RAW_DATA_BIT)); // No Raw Data.
+                } else {
+                    updateByteMargin(writer, srcCurrIdx);
+                    writeRawDataPackerHeader(writer, bits); // Yes Raw Data.
+                    bits = 0;
+                }
+
+                // Write data reference.
+                updateByteMargin(writer, srcCurrIdx);
+                int compressionLevel = Math.min(this.compressionSettings.length - 1, repeats - 2);
+                writeDataReference(writer, repeats, shift - 1, compressionLevel, this.compressionSettings);
+            }
+
+            // The final byte can never be a data reference, since a data reference copies from later in the file. So, there will always be raw data here.
+            updateByteMargin(writer, srcCurrIdx);
+            writeRawDataPackerHeader(writer, bits);
+            return finishCompressedData(writer, this.compressionSettings);
+        }
+
+        private void updateByteMargin(BitWriter writer, int srcCurrIdx) {
+            this.byteMargin = Math.max(this.byteMargin, calculateByteMargin(writer, srcCurrIdx));
         }
     }
 }
\ No newline at end of file
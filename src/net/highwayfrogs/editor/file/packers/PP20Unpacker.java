@@ -3,20 +3,21 @@ package net.highwayfrogs.editor.file.packers;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import net.highwayfrogs.editor.Constants;
-import net.highwayfrogs.editor.file.writer.BitReader;
 import net.highwayfrogs.editor.utils.DataUtils;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 /**
  * PP20 Unpacker: Unpacks PowerPacker compressed data.
- * Source:
- * Original Author: Josef Jelinek
+ * The bitstream is read backwards from the end of the compressed data, and the output is written backwards from the end of the output.
+ * Bits are buffered a word at a time, and non-overlapping data references are copied with System.arraycopy.
+ * Based on the decoder by Josef Jelinek:
  * URL: <a href="https://github.com/josef-jelinek/tiny-mod-player/blob/master/lib.gamod/src/gamod/unpack/PowerPacker.java"/>
  * Copied on August 11, 2018. There is no license attached to the repository, however the author has explicitly granted written permission to use this code.
  */
 public class PP20Unpacker {
     private static final int OFFSET_BIT_OPTIONS = 4;
+    private static final int HEADER_SIZE = PP20Packer.MARKER_BYTES.length + OFFSET_BIT_OPTIONS;
+    private static final int FOOTER_SIZE = Constants.INTEGER_SIZE; // 3 bytes for the unpacked size, 1 byte for the number of bits to skip.
+    private static final int MINIMUM_PACKED_SIZE = HEADER_SIZE + FOOTER_SIZE;
 
     /**
      * Is a given byte array PP20 compressed data?
@@ -33,18 +34,121 @@ public class PP20Unpacker {
      * @return unpackedData
      */
     public static UnpackResult unpackData(byte[] data) {
-        int[] offsetBitLengths = getOffsetBitLengths(data);
-        int skip = data[data.length - 1] & 0xFF; // Last byte contains the amount of bits to trash.
-        byte[] out = new byte[getDecodedDataSize(data)];
-        int outPos = out.length;
-        BitReader in = new BitReader(data, 4);
-        in.setReverseBytes(true);
-        in.readBits(skip); // skipped bits
-
-        AtomicInteger byteMargin = new AtomicInteger();
-        while (outPos > 0)
-            outPos = decodeSegment(in, out, outPos, offsetBitLengths, byteMargin);
-        return new UnpackResult(out, byteMargin.get());
+        byte[] out = new byte[getUnpackedSize(data, 0, data.length)];
+        int byteMargin = unpackData(data, 0, data.length, out, 0);
+        return new UnpackResult(out, byteMargin);
+    }
+
+    /**
+     * Gets the size of the data once it is unpacked.
+     * @param data the array containing the compressed data
+     * @param dataOffset the index into the array which the compressed data starts at
+     * @param dataLength the length of the compressed data
+     * @return unpackedSize
+     */
+    public static int getUnpackedSize(byte[] data, int dataOffset, int dataLength) {
+        if (dataLength < MINIMUM_PACKED_SIZE)
+            throw new IllegalArgumentException("PP20 data must be at least " + MINIMUM_PACKED_SIZE + " bytes, but was only " + dataLength + " bytes.");
+
+        int i = dataOffset + dataLength - 2;
+        return (data[i - 2] & 0xFF) << 16 | (data[i - 1] & 0xFF) << 8 | data[i] & 0xFF;
+    }
+
+    /**
+     * Unpacks PP20 compressed data into a caller-supplied buffer.
+     * No buffers are allocated, so a single output array can be reused for many files.
+     * @param data the array containing the compressed data
+     * @param dataOffset the index into the array which the compressed data starts at
+     * @param dataLength the length of the compressed data
+     * @param output the array to write the unpacked data to. Must have room for getUnpackedSize() bytes.
+     * @param outputOffset the index into the output array to start writing at
+     * @return minimumByteMargin, which can be turned into the safety margin with getSafetyMarginWordCount()
+     */
+    public static int unpackData(byte[] data, int dataOffset, int dataLength, byte[] output, int outputOffset) {
+        int unpackedSize = getUnpackedSize(data, dataOffset, dataLength);
+        if (outputOffset < 0 || outputOffset > output.length - unpackedSize)
+            throw new IndexOutOfBoundsException("Cannot unpack " + unpackedSize + " bytes to index " + outputOffset + " of an array with " + output.length + " bytes.");
+
+        BitStream in = new BitStream(data, dataOffset, dataLength);
+        int offsetBitLengths0 = data[dataOffset + 4];
+        int offsetBitLengths1 = data[dataOffset + 5];
+        int offsetBitLengths2 = data[dataOffset + 6];
+        int offsetBitLengths3 = data[dataOffset + 7];
+        in.readBits(data[dataOffset + dataLength - 1] & 0xFF); // Last byte contains the amount of bits to trash.
+
+        int byteMargin = 0;
+        int outPos = unpackedSize;
+        while (outPos > 0) {
+            // Copy raw data.
+            if (in.readBit() == PP20Packer.HAS_RAW_DATA_BIT) {
+                int count = 1, countInc;
+                while ((countInc = in.readBits(PP20Packer.INPUT_BIT_LENGTH)) == PP20Packer.INPUT_CONTINUE_WRITING_BITS) // Read the string size. If it == 3, that means the length might be longer.
+                    count += PP20Packer.INPUT_CONTINUE_WRITING_BITS;
+
+                count += countInc;
+                if (count > outPos)
+                    throw new RuntimeException("Invalid PP20 data, " + count + " raw bytes were found with only " + outPos + " bytes left to unpack.");
+
+                byteMargin = Math.max(byteMargin, in.getByteMargin(outPos));
+                for (; count > 0; count--)
+                    output[outputOffset + --outPos] = in.readByte();
+
+                if (outPos <= 0)
+                    break;
+            }
+
+            // Copy previously decoded data.
+            int compressionLevel = in.readBits(PP20Packer.COMPRESSION_LEVEL_BITS); // always at least 2 bytes (2 bytes ~ 0, 3 ~ 1, 4 ~ 2, 5+ ~ 3)
+            boolean extraLengthData = (compressionLevel == PP20Packer.INPUT_CONTINUE_WRITING_BITS);
+            int offBits;
+            if (extraLengthData && in.readBit() == Constants.BIT_FALSE) {
+                offBits = PP20Packer.OPTIONAL_BITS_SMALL_OFFSET;
+            } else if (compressionLevel == 0) {
+                offBits = offsetBitLengths0;
+            } else if (compressionLevel == 1) {
+                offBits = offsetBitLengths1;
+            } else if (compressionLevel == 2) {
+                offBits = offsetBitLengths2;
+            } else {
+                offBits = offsetBitLengths3;
+            }
+
+            int off = in.readBits(offBits);
+            int copyLength = compressionLevel + PP20Packer.MINIMUM_DECODE_DATA_LENGTH;
+            if (extraLengthData) { // The length might be extended further.
+                int lastLengthBits;
+                do { // Keep adding until the three read bits are not '111', meaning the length has stopped.
+                    lastLengthBits = in.readBits(PP20Packer.OFFSET_BIT_LENGTH);
+                    copyLength += lastLengthBits;
+                } while (lastLengthBits == PP20Packer.OFFSET_CONTINUE_WRITING_BITS);
+            }
+
+            if (copyLength > outPos || outPos + off >= unpackedSize)
+                throw new RuntimeException("Invalid PP20 data, cannot copy " + copyLength + " bytes from offset " + off + " with " + outPos + "/" + unpackedSize + " bytes left to unpack.");
+
+            byteMargin = Math.max(byteMargin, in.getByteMargin(outPos));
+            int destStart = outputOffset + outPos - copyLength;
+            int sourceStart = destStart + off + 1;
+            if (off + 1 >= copyLength) { // The copied data does not overlap with itself, so it can be copied in bulk.
+                System.arraycopy(output, sourceStart, output, destStart, copyLength);
+            } else { // Overlapping copies repeat the data they have just written, so they must go one byte at a time.
+                for (int i = copyLength - 1; i >= 0; i--)
+                    output[destStart + i] = output[sourceStart + i];
+            }
+
+            outPos -= copyLength;
+        }
+
+        return byteMargin;
+    }
+
+    /**
+     * Get the word offset to ensure the compressed reader never overlaps with the uncompressed writer when unpacking in-place.
+     * @param minimumByteMargin the minimum byte margin calculated while unpacking
+     * @return safetyMarginWordCount
+     */
+    public static int getSafetyMarginWordCount(int minimumByteMargin) {
+        return 2 + (minimumByteMargin / Constants.INTEGER_SIZE);
     }
 
     @Getter
@@ -57,72 +161,123 @@ public class PP20Unpacker {
          * Get the word offset to ensure the compressed reader never overlaps with the uncompressed writer when unpacking in-place.
          */
         public int getSafetyMarginWordCount() {
-            return 2 + (this.minimumByteMargin / Constants.INTEGER_SIZE);
+            return PP20Unpacker.getSafetyMarginWordCount(this.minimumByteMargin);
         }
     }
 
-    private static int[] getOffsetBitLengths(byte[] data) {
-        int[] a = new int[OFFSET_BIT_OPTIONS];
-        for (int i = 0; i < OFFSET_BIT_OPTIONS; i++)
-            a[i] = data[i + OFFSET_BIT_OPTIONS];
-        return a;
-    }
+    /**
+     * Reads the PP20 bitstream, which starts at the end of the compressed data and moves towards the start.
+     * Within each byte, bits are read starting from the least significant bit, and multi-bit values are read most significant bit first.
+     */
+    private static class BitStream {
+        private final byte[] data;
+        private final int dataLength;
+        private final int firstByteIndex; // The lowest index which may be buffered.
+        private final int startByteIndex; // The index of the first byte in the bitstream.
+        private int nextByteIndex; // The index of the next byte to buffer.
+        private long bitBuffer; // Buffered bits, with the next bit to read in the least significant bit.
+        private int bitCount;
 
-    private static int getDecodedDataSize(byte[] data) {
-        int i = data.length - 2;
-        return (data[i - 2] & 0xFF) << 16 | (data[i - 1] & 0xFF) << 8 | data[i] & 0xFF;
-    }
+        private static final int MAX_BUFFERED_BITS = Long.SIZE - Integer.SIZE;
+        private static final byte[] REVERSED_BYTES = new byte[256]; // Maps a byte to the byte with its bits in reverse order.
 
-    private static int decodeSegment(BitReader in, byte[] out, int outPos, int[] offsetBitLengths, AtomicInteger byteMargin) {
-        if (in.readBit() == PP20Packer.HAS_RAW_DATA_BIT)
-            outPos = copyFromInput(in, out, outPos, byteMargin);
-        if (outPos > 0)
-            outPos = copyFromDecoded(in, out, outPos, offsetBitLengths, byteMargin);
-        return outPos;
-    }
+        static {
+            for (int i = 0; i < REVERSED_BYTES.length; i++)
+                REVERSED_BYTES[i] = (byte) (Integer.reverse(i) >>> (Integer.SIZE - Constants.BITS_PER_BYTE));
+        }
 
-    // Appears to put it into the table.
-    private static int copyFromInput(BitReader reader, byte[] out, int bytePos, AtomicInteger byteMargin) {
-        int count = 1, countInc;
-        while ((countInc = reader.readBits(PP20Packer.INPUT_BIT_LENGTH)) == PP20Packer.INPUT_CONTINUE_WRITING_BITS) // Read the string size. If it == 3, that means the length might be longer.
-            count += PP20Packer.INPUT_CONTINUE_WRITING_BITS;
+        public BitStream(byte[] data, int dataOffset, int dataLength) {
+            this.data = data;
+            this.dataLength = dataLength;
+            this.firstByteIndex = dataOffset;
+            this.startByteIndex = dataOffset + dataLength - FOOTER_SIZE - 1;
+            this.nextByteIndex = this.startByteIndex;
+        }
 
-        updateByteMargin(reader, out, bytePos, byteMargin);
-        for (count += countInc; count > 0; count--) // Register the string in the table.
-            out[--bytePos] = (byte) reader.readBits(Constants.BITS_PER_BYTE);
+        private void refill() {
+            // Buffer a full word at a time where possible.
+            while (this.bitCount <= MAX_BUFFERED_BITS) {
+                if (this.nextByteIndex - 3 >= this.firstByteIndex) {
+                    int i = this.nextByteIndex;
+                    long word = (this.data[i] & 0xFF) | (this.data[i - 1] & 0xFF) << 8 | (this.data[i - 2] & 0xFF) << 16 | (this.data[i - 3] & 0xFFL) << 24;
+                    this.bitBuffer |= word << this.bitCount;
+                    this.bitCount += Integer.SIZE;
+                    this.nextByteIndex -= Constants.INTEGER_SIZE;
+                } else if (this.nextByteIndex >= this.firstByteIndex) {
+                    this.bitBuffer |= (long) (this.data[this.nextByteIndex--] & 0xFF) << this.bitCount;
+                    this.bitCount += Constants.BITS_PER_BYTE;
+                } else {
+                    return; // Reached the start of the data.
+                }
+            }
+        }
 
-        return bytePos;
-    }
+        /**
+         * Read the next bit.
+         * @return bitValue
+         */
+        public int readBit() {
+            if (this.bitCount == 0) {
+                refill();
+                if (this.bitCount == 0)
+                    throw new RuntimeException("Invalid PP20 data, the bitstream ended before unpacking was complete.");
+            }
 
-    private static int copyFromDecoded(BitReader in, byte[] out, int bytePos, int[] offsetBitLengths, AtomicInteger byteMargin) {
-        int compressionLevel = in.readBits(PP20Packer.COMPRESSION_LEVEL_BITS); // always at least 2 bytes (2 bytes ~ 0, 3 ~ 1, 4 ~ 2, 5+ ~ 3)
-        boolean extraLengthData = (compressionLevel == PP20Packer.INPUT_CONTINUE_WRITING_BITS);
-        int offBits = extraLengthData && in.readBit() == Constants.BIT_FALSE ? PP20Packer.OPTIONAL_BITS_SMALL_OFFSET : offsetBitLengths[compressionLevel];
-        int off = in.readBits(offBits);
-
-        int copyLength = compressionLevel + PP20Packer.MINIMUM_DECODE_DATA_LENGTH;
-        if (extraLengthData) { // The length might be extended further.
-            int lastLengthBits;
-            do { // Keep adding until the three read bits are not '111', meaning the length has stopped.
-                lastLengthBits = in.readBits(PP20Packer.OFFSET_BIT_LENGTH);
-                copyLength += lastLengthBits;
-            } while (lastLengthBits == PP20Packer.OFFSET_CONTINUE_WRITING_BITS);
+            int bit = (int) (this.bitBuffer & 1);
+            this.bitBuffer >>>= 1;
+            this.bitCount--;
+            return bit;
         }
 
-        updateByteMargin(in, out, bytePos, byteMargin);
-        for (int i = 0; i < copyLength; i++, bytePos--)
-            out[bytePos - 1] = out[bytePos + off];
+        /**
+         * Read the next 8 bits as a byte.
+         * @return byteValue
+         */
+        public byte readByte() {
+            if (this.bitCount < Constants.BITS_PER_BYTE) {
+                refill();
+                if (this.bitCount < Constants.BITS_PER_BYTE)
+                    throw new RuntimeException("Invalid PP20 data, the bitstream ended before unpacking was complete.");
+            }
 
-        return bytePos;
-    }
+            int value = (int) (this.bitBuffer & 0xFF);
+            this.bitBuffer >>>= Constants.BITS_PER_BYTE;
+            this.bitCount -= Constants.BITS_PER_BYTE;
+            return REVERSED_BYTES[value];
+        }
+
+        /**
+         * Read a variable number of bits into an integer.
+         * @param amount The number of bits to read. Must be no more than 31.
+         * @return readValue
+         */
+        public int readBits(int amount) {
+            if (amount == 0)
+                return 0;
 
-    private static void updateByteMargin(BitReader reader, byte[] out, int bytePos, AtomicInteger byteMargin) {
-        // Check the documentation for PP20Packer.SAFETY_MARGIN_CONSTANT to explain what's going on here.
-        // This method has been tested against Beast Wars PC/PSX, Frogger PC/PSX, MediEvil, MediEvil 2, Moon Warrior, and C-12 Final Resistance and outputs perfect safety margin matches for all of them.
-        int writerPosFromOutputBufferEnd = out.length - bytePos;
-        int readerPosFromOutputBufferEnd = out.length - (reader.getData().length - PP20Packer.SAFETY_MARGIN_CONSTANT - 1) + reader.getBytePos();
-        int currentByteMargin = writerPosFromOutputBufferEnd - readerPosFromOutputBufferEnd;
-        if (currentByteMargin > byteMargin.get())
-            byteMargin.set(currentByteMargin);
+            if (this.bitCount < amount) {
+                refill();
+                if (this.bitCount < amount)
+                    throw new RuntimeException("Invalid PP20 data, the bitstream ended before unpacking was complete.");
+            }
+
+            int value = (int) (this.bitBuffer & ((1L << amount) - 1));
+            this.bitBuffer >>>= amount;
+            this.bitCount -= amount;
+            return Integer.reverse(value) >>> (Integer.SIZE - amount); // The first bit read is the most significant bit.
+        }
+
+        /**
+         * Calculates the distance between the bitstream reader and the output writer, if the data were unpacked in-place.
+         * Check the documentation for PP20Packer.SAFETY_MARGIN_CONSTANT to explain what's going on here.
+         * This method has been tested against Beast Wars PC/PSX, Frogger PC/PSX, MediEvil, MediEvil 2, Moon Warrior, and C-12 Final Resistance and outputs perfect safety margin matches for all of them.
+         * @param outPos the position in the output which the next byte will be written before
+         * @return byteMargin
+         */
+        public int getByteMargin(int outPos) {
+            int bufferedByteCount = (this.bitCount + Constants.BITS_PER_BYTE - 1) / Constants.BITS_PER_BYTE;
+            int readByteCount = (this.startByteIndex - this.nextByteIndex) - bufferedByteCount; // Bytes where every bit has been read.
+            return (this.dataLength - PP20Packer.SAFETY_MARGIN_CONSTANT - 1) - (FOOTER_SIZE + readByteCount) - outPos;
+        }
     }
 }
@@ -7,37 +7,55 @@ import java.io.IOException;
 
 /**
  * Allows reading from a byte array.
+ * The source may be a window (offset, length) over a larger array, in which case indices are local to the window.
  * Created by Kneesnap on 8/11/2018.
  */
 @Getter
 public class ArraySource implements DataSource {
     @Setter private int index;
-    private byte[] data;
+    private final byte[] data;
+    private final int offset; // The position in the data array which index 0 corresponds to.
+    private final int size;
 
     public ArraySource(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    public ArraySource(byte[] data, int offset, int size) {
+        if (offset < 0 || size < 0 || offset > data.length - size)
+            throw new IndexOutOfBoundsException("Invalid window (Offset: " + offset + ", Size: " + size + ") for an array of " + data.length + " bytes.");
+
         this.data = data;
+        this.offset = offset;
+        this.size = size;
     }
 
     @Override
     public byte readByte() {
-        return data[this.index++];
+        if (this.index >= this.size)
+            throw new ArrayIndexOutOfBoundsException(this.index);
+
+        return this.data[this.offset + this.index++];
     }
 
     @Override
     public byte[] readBytes(int amount) {
+        if (amount > this.size - this.index)
+            throw new ArrayIndexOutOfBoundsException("Cannot read " + amount + " bytes at " + this.index + ", as the source is only " + this.size + " bytes large.");
+
         byte[] readBytes = new byte[amount];
-        System.arraycopy(this.data, this.index, readBytes, 0, amount);
+        System.arraycopy(this.data, this.offset + this.index, readBytes, 0, amount);
         this.index += amount;
         return readBytes;
     }
 
     @Override
     public int readBytes(byte[] output, int offset, int amount) throws IOException {
-        amount = Math.max(0, Math.min(amount, this.data.length - this.index));
+        amount = Math.max(0, Math.min(amount, this.size - this.index));
         if (amount == 0)
             return 0;
 
-        System.arraycopy(this.data, this.index, output, offset, amount);
+        System.arraycopy(this.data, this.offset + this.index, output, offset, amount);
         this.index += amount;
         return amount;
     }
@@ -46,10 +64,4 @@ public class ArraySource implements DataSource {
     public void skip(int byteCount) {
         this.index += byteCount;
     }
-
-
-    @Override
-    public int getSize() {
-        return data.length;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package net.highwayfrogs.editor.file.reader;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allows reading from a ByteBuffer, such as a memory-mapped file or a window of one.
+ * The buffer position is used as the read index, and primitives are read in little-endian order.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class ByteBufferSource implements DataSource {
+    @Getter private final ByteBuffer buffer;
+
+    public ByteBufferSource(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return this.buffer.get();
+    }
+
+    @Override
+    public byte[] readBytes(int amount) throws IOException {
+        byte[] bytes = new byte[amount];
+        this.buffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public int readBytes(byte[] output, int offset, int amount) throws IOException {
+        amount = Math.max(0, Math.min(amount, this.buffer.remaining()));
+        if (amount == 0)
+            return 0;
+
+        this.buffer.get(output, offset, amount);
+        return amount;
+    }
+
+    @Override
+    public void skip(int byteCount) throws IOException {
+        setIndex(this.buffer.position() + byteCount);
+    }
+
+    @Override
+    public void setIndex(int newIndex) throws IOException {
+        if (newIndex < 0 || newIndex > this.buffer.limit())
+            throw new IOException("Cannot seek to " + newIndex + ", as it is outside of the buffer. (Size: " + this.buffer.limit() + ")");
+
+        this.buffer.position(newIndex);
+    }
+
+    @Override
+    public int getIndex() throws IOException {
+        return this.buffer.position();
+    }
+
+    @Override
+    public int getSize() throws IOException {
+        return this.buffer.limit();
+    }
+
+    /**
+     * Creates a source which reads a window of this buffer, without copying.
+     * @param startIndex the index of the first byte in the window
+     * @param length the number of bytes in the window
+     * @return windowSource
+     */
+    public ByteBufferSource slice(int startIndex, int length) {
+        ByteBuffer window = this.buffer.duplicate();
+        window.position(startIndex);
+        window.limit(startIndex + length);
+        return new ByteBufferSource(window.slice());
+    }
+}
@@ -8,6 +8,7 @@ import net.highwayfrogs.editor.utils.logging.ILogger;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Stack;
@@ -18,10 +19,22 @@ import java.util.Stack;
  */
 public class DataReader {
     private final DataSource source;
+    private final ArraySource arraySource; // Non-null when the source is backed by a byte array, allowing primitives to be decoded directly from it.
+    private final ByteBuffer byteBuffer; // Non-null when the source is backed by a little-endian ByteBuffer whose position is the read index.
     private final Stack<Integer> jumpStack = new Stack<>();
 
     public DataReader(DataSource source) {
         this.source = source;
+        this.arraySource = (source instanceof ArraySource) ? (ArraySource) source : null;
+        this.byteBuffer = (source instanceof ByteBufferSource) ? ((ByteBufferSource) source).getBuffer() : null;
+    }
+
+    /**
+     * Gets the source which data is read from.
+     * @return dataSource
+     */
+    public DataSource getSource() {
+        return this.source;
     }
 
     /**
@@ -143,7 +156,7 @@ public class DataReader {
      * @return floatValue
      */
     public float readFloat() {
-        return DataUtils.readFloatFromBytes(readBytes(Constants.FLOAT_SIZE));
+        return Float.intBitsToFloat(readInt());
     }
 
     /**
@@ -161,6 +174,18 @@ public class DataReader {
      * @return shortValue
      */
     public short readShort() {
+        if (this.arraySource != null) {
+            int index = this.arraySource.getIndex();
+            if (index >= 0 && this.arraySource.getSize() - index >= Constants.SHORT_SIZE) {
+                byte[] data = this.arraySource.getData();
+                int position = this.arraySource.getOffset() + index;
+                this.arraySource.setIndex(index + Constants.SHORT_SIZE);
+                return (short) ((data[position] & 0xFF) | (data[position + 1] << 8));
+            }
+        } else if (this.byteBuffer != null && this.byteBuffer.remaining() >= Constants.SHORT_SIZE) {
+            return this.byteBuffer.getShort();
+        }
+
         short value = 0;
         for (int i = 0; i < Constants.SHORT_SIZE; i++)
             value += (short) ((readByte() & 0xFF) << (Constants.BITS_PER_BYTE * i));
@@ -173,12 +198,155 @@ public class DataReader {
      * @return intValue
      */
     public int readInt(int bytes) {
+        if (this.arraySource != null && bytes > 0 && bytes <= Constants.INTEGER_SIZE) {
+            int index = this.arraySource.getIndex();
+            if (index >= 0 && this.arraySource.getSize() - index >= bytes) {
+                byte[] data = this.arraySource.getData();
+                int position = this.arraySource.getOffset() + index;
+                this.arraySource.setIndex(index + bytes);
+                if (bytes == Constants.INTEGER_SIZE)
+                    return readIntFromArray(data, position);
+
+                int value = 0;
+                for (int i = 0; i < bytes; i++)
+                    value |= (data[position + i] & 0xFF) << (Constants.BITS_PER_BYTE * i);
+                return value;
+            }
+        } else if (this.byteBuffer != null && bytes == Constants.INTEGER_SIZE && this.byteBuffer.remaining() >= Constants.INTEGER_SIZE) {
+            return this.byteBuffer.getInt();
+        }
+
         int value = 0;
         for (int i = 0; i < bytes; i++)
             value += (readByte() & 0xFF) << (Constants.BITS_PER_BYTE * i);
         return value;
     }
 
+    /**
+     * Reads shorts until the given array is filled.
+     * @param destination The array to read shorts into.
+     * @return destination
+     */
+    public short[] readShorts(short[] destination) {
+        return readShorts(destination, 0, destination.length);
+    }
+
+    /**
+     * Reads a number of shorts into an array.
+     * @param destination The array to read shorts into.
+     * @param offset The index into the array to start placing values at.
+     * @param amount The number of shorts to read.
+     * @return destination
+     */
+    public short[] readShorts(short[] destination, int offset, int amount) {
+        if (this.arraySource != null && amount > 0) {
+            int index = this.arraySource.getIndex();
+            long byteLength = (long) amount * Constants.SHORT_SIZE;
+            if (index >= 0 && this.arraySource.getSize() - index >= byteLength) {
+                byte[] data = this.arraySource.getData();
+                int position = this.arraySource.getOffset() + index;
+                for (int i = 0; i < amount; i++, position += Constants.SHORT_SIZE)
+                    destination[offset + i] = (short) ((data[position] & 0xFF) | (data[position + 1] << 8));
+
+                this.arraySource.setIndex(index + (int) byteLength);
+                return destination;
+            }
+        } else if (this.byteBuffer != null && amount > 0 && this.byteBuffer.remaining() / Constants.SHORT_SIZE >= amount) {
+            this.byteBuffer.asShortBuffer().get(destination, offset, amount);
+            this.byteBuffer.position(this.byteBuffer.position() + (amount * Constants.SHORT_SIZE));
+            return destination;
+        }
+
+        for (int i = 0; i < amount; i++)
+            destination[offset + i] = readShort();
+        return destination;
+    }
+
+    /**
+     * Reads integers until the given array is filled.
+     * @param destination The array to read integers into.
+     * @return destination
+     */
+    public int[] readInts(int[] destination) {
+        return readInts(destination, 0, destination.length);
+    }
+
+    /**
+     * Reads a number of integers into an array.
+     * @param destination The array to read integers into.
+     * @param offset The index into the array to start placing values at.
+     * @param amount The number of integers to read.
+     * @return destination
+     */
+    public int[] readInts(int[] destination, int offset, int amount) {
+        if (this.arraySource != null && amount > 0) {
+            int index = this.arraySource.getIndex();
+            long byteLength = (long) amount * Constants.INTEGER_SIZE;
+            if (index >= 0 && this.arraySource.getSize() - index >= byteLength) {
+                byte[] data = this.arraySource.getData();
+                int position = this.arraySource.getOffset() + index;
+                for (int i = 0; i < amount; i++, position += Constants.INTEGER_SIZE)
+                    destination[offset + i] = readIntFromArray(data, position);
+
+                this.arraySource.setIndex(index + (int) byteLength);
+                return destination;
+            }
+        } else if (this.byteBuffer != null && amount > 0 && this.byteBuffer.remaining() / Constants.INTEGER_SIZE >= amount) {
+            this.byteBuffer.asIntBuffer().get(destination, offset, amount);
+            this.byteBuffer.position(this.byteBuffer.position() + (amount * Constants.INTEGER_SIZE));
+            return destination;
+        }
+
+        for (int i = 0; i < amount; i++)
+            destination[offset + i] = readInt();
+        return destination;
+    }
+
+    /**
+     * Reads floats until the given array is filled.
+     * @param destination The array to read floats into.
+     * @return destination
+     */
+    public float[] readFloats(float[] destination) {
+        return readFloats(destination, 0, destination.length);
+    }
+
+    /**
+     * Reads a number of floats into an array.
+     * @param destination The array to read floats into.
+     * @param offset The index into the array to start placing values at.
+     * @param amount The number of floats to read.
+     * @return destination
+     */
+    public float[] readFloats(float[] destination, int offset, int amount) {
+        if (this.arraySource != null && amount > 0) {
+            int index = this.arraySource.getIndex();
+            long byteLength = (long) amount * Constants.FLOAT_SIZE;
+            if (index >= 0 && this.arraySource.getSize() - index >= byteLength) {
+                byte[] data = this.arraySource.getData();
+                int position = this.arraySource.getOffset() + index;
+                for (int i = 0; i < amount; i++, position += Constants.FLOAT_SIZE)
+                    destination[offset + i] = Float.intBitsToFloat(readIntFromArray(data, position));
+
+                this.arraySource.setIndex(index + (int) byteLength);
+                return destination;
+            }
+        } else if (this.byteBuffer != null && amount > 0 && this.byteBuffer.remaining() / Constants.FLOAT_SIZE >= amount) {
+            this.byteBuffer.asFloatBuffer().get(destination, offset, amount);
+            this.byteBuffer.position(this.byteBuffer.position() + (amount * Constants.FLOAT_SIZE));
+            return destination;
+        }
+
+        for (int i = 0; i < amount; i++)
+            destination[offset + i] = readFloat();
+        return destination;
+    }
+
+    private static int readIntFromArray(byte[] data, int index) {
+        return (data[index] & 0xFF) | ((data[index + 1] & 0xFF) << 8)
+                | ((data[index + 2] & 0xFF) << 16) | ((data[index + 3] & 0xFF) << 24);
+    }
+
     /**
      * Read a string of a pre-specified length.
      * @param length The length of the string.
@@ -470,15 +638,52 @@ public class DataReader {
 
     /**
      * Create a sub-reader.
+     * The sub-reader is a view of this reader's data, so no bytes are copied.
      * @param startOffset The offset to start reading from.
      * @param length      The length to read. -1 = Get remaining.
      * @return newReader
      */
     public DataReader newReader(int startOffset, int length) {
-        jumpTemp(startOffset);
-        byte[] bytes = readBytes(length >= 0 ? length : getRemaining());
+        return new DataReader(createSliceSource(startOffset, length >= 0 ? length : getSize() - startOffset));
+    }
+
+    /**
+     * Creates a reader for the next bytes, and skips past them in this reader.
+     * The returned reader indexes its data starting from zero, and is a view of this reader's data, so no bytes are copied.
+     * @param length The number of bytes the new reader will be able to read.
+     * @return sliceReader
+     */
+    public DataReader slice(int length) {
+        if (length < 0 || length > getRemaining())
+            throw new RuntimeException("Cannot slice " + length + " bytes at " + NumberUtils.toHexString(getIndex()) + ". (Remaining: " + getRemaining() + ")");
+
+        DataReader sliceReader = new DataReader(createSliceSource(getIndex(), length));
+        skipBytes(length);
+        return sliceReader;
+    }
+
+    /**
+     * Copies all the bytes readable by this reader into a new array.
+     * The reader index is left unchanged.
+     * @return byteArray
+     */
+    public byte[] toByteArray() {
+        jumpTemp(0);
+        byte[] bytes = readBytes(getSize());
         jumpReturn();
+        return bytes;
+    }
 
-        return new DataReader(new ArraySource(bytes));
+    private DataSource createSliceSource(int startIndex, int length) {
+        if (this.arraySource != null)
+            return new ArraySource(this.arraySource.getData(), this.arraySource.getOffset() + startIndex, length);
+        if (this.source instanceof ByteBufferSource)
+            return ((ByteBufferSource) this.source).slice(startIndex, length);
+
+        try {
+            return new SliceSource(this.source, startIndex, length);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to create a slice of " + length + " bytes at " + NumberUtils.toHexString(startIndex) + ".", ex);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package net.highwayfrogs.editor.file.reader;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through a memory-mapped buffer, so the OS page cache holds the file contents instead of the Java heap.
+ * This is intended for large archives (MWD, HFS, Great Quest .bin files) which are only partially copied out during parsing.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class MappedFileSource extends ByteBufferSource {
+    @Getter private final File file;
+
+    public MappedFileSource(File file) throws IOException {
+        super(mapFile(file));
+        this.file = file;
+    }
+
+    private static MappedByteBuffer mapFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE)
+                throw new IOException("The file '" + file.getName() + "' is too large to be read. (" + fileSize + " bytes)");
+
+            // The mapping remains valid after the channel is closed, and is released once the buffer is garbage collected.
+            return channel.map(MapMode.READ_ONLY, 0, fileSize);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package net.highwayfrogs.editor.file.reader;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Reads a window (offset, length) of another data source without copying it.
+ * Indices are local to the window, and the parent source index is restored after each read.
+ * Array-backed and buffer-backed sources have their own cheaper windows, so this is only used for other kinds of sources.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class SliceSource implements DataSource {
+    @Getter private final DataSource parent;
+    @Getter private final int offset;
+    @Getter private final int size;
+    @Getter private int index;
+
+    public SliceSource(DataSource parent, int offset, int size) throws IOException {
+        if (offset < 0 || size < 0 || offset > parent.getSize() - size)
+            throw new IndexOutOfBoundsException("Invalid window (Offset: " + offset + ", Size: " + size + ") for a source of " + parent.getSize() + " bytes.");
+
+        this.parent = parent;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        if (this.index >= this.size)
+            throw new IOException("Cannot read past the end of the slice. (Size: " + this.size + ")");
+
+        int parentIndex = this.parent.getIndex();
+        try {
+            this.parent.setIndex(this.offset + this.index);
+            byte value = this.parent.readByte();
+            this.index++;
+            return value;
+        } finally {
+            this.parent.setIndex(parentIndex);
+        }
+    }
+
+    @Override
+    public byte[] readBytes(int amount) throws IOException {
+        if (amount > this.size - this.index)
+            throw new IOException("Cannot read " + amount + " bytes at " + this.index + ", as the slice is only " + this.size + " bytes large.");
+
+        int parentIndex = this.parent.getIndex();
+        try {
+            this.parent.setIndex(this.offset + this.index);
+            byte[] bytes = this.parent.readBytes(amount);
+            this.index += amount;
+            return bytes;
+        } finally {
+            this.parent.setIndex(parentIndex);
+        }
+    }
+
+    @Override
+    public int readBytes(byte[] output, int offset, int amount) throws IOException {
+        amount = Math.max(0, Math.min(amount, this.size - this.index));
+        if (amount == 0)
+            return 0;
+
+        int parentIndex = this.parent.getIndex();
+        try {
+            this.parent.setIndex(this.offset + this.index);
+            int bytesRead = this.parent.readBytes(output, offset, amount);
+            this.index += bytesRead;
+            return bytesRead;
+        } finally {
+            this.parent.setIndex(parentIndex);
+        }
+    }
+
+    @Override
+    public void skip(int byteCount) throws IOException {
+        this.index += byteCount;
+    }
+
+    @Override
+    public void setIndex(int newIndex) throws IOException {
+        this.index = newIndex;
+    }
+}
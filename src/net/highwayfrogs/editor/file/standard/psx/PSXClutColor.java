@@ -198,6 +198,20 @@ public class PSXClutColor extends GameObject {
         return clutColor;
     }
 
+    /**
+     * Converts a PSXClutColor stored as a 16bit short into an RGBA int, matching toRGBA().
+     * This is equivalent to readBGRAColorFromShort(color, false), but does not allocate, so it is suitable for decoding pixels.
+     * @param color The short to read from.
+     * @return rgbaColor
+     */
+    public static int toRGBA(short color) {
+        int red = ((color >> RED_OFFSET) & 0x1F) << TO_FULL_BYTE;
+        int green = ((color >> GREEN_OFFSET) & 0x1F) << TO_FULL_BYTE;
+        int blue = ((color >> BLUE_OFFSET) & 0x1F) << TO_FULL_BYTE;
+        int stp = (color & STP_FLAG) == STP_FLAG ? 0x01 : 0x00;
+        return red | (green << 8) | (blue << 16) | (stp << 24);
+    }
+
     /**
      * Reads a PSXClutColor from a 16bit short into an RGBA int.
      * @param color The short to read from.
@@ -1,5 +1,6 @@
 package net.highwayfrogs.editor.file.vlo;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.GameObject;
@@ -22,6 +23,7 @@ public class ClutEntry extends GameObject {
     private PSXRect clutRect = new PSXRect();
     private List<PSXClutColor> colors = new ArrayList<>();
     private transient int tempSaveColorsPointer;
+    @Getter(AccessLevel.NONE) private transient int[] rgbaLookupTable; // The colors as RGBA integers, indexed by clut index.
 
     private static final int BYTE_SIZE = PSXRect.BYTE_SIZE + Constants.INTEGER_SIZE;
 
@@ -62,6 +64,31 @@ public class ClutEntry extends GameObject {
         this.colors.forEach(color -> color.save(writer));
     }
 
+    /**
+     * Gets the colors in this clut as RGBA integers (see PSXClutColor.toRGBA()), so pixels can be decoded without per-pixel object lookups.
+     * The table is created when first requested, and must be invalidated with invalidateLookupTable() when the colors change.
+     * @return rgbaLookupTable
+     */
+    public int[] getRgbaLookupTable() {
+        int[] lookupTable = this.rgbaLookupTable;
+        if (lookupTable == null || lookupTable.length != this.colors.size()) {
+            lookupTable = new int[this.colors.size()];
+            for (int i = 0; i < lookupTable.length; i++)
+                lookupTable[i] = this.colors.get(i).toRGBA();
+
+            this.rgbaLookupTable = lookupTable;
+        }
+
+        return lookupTable;
+    }
+
+    /**
+     * Invalidates the RGBA lookup table, which should be done whenever the colors are changed.
+     */
+    public void invalidateLookupTable() {
+        this.rgbaLookupTable = null;
+    }
+
     /**
      * Calculate the number of colors this entry holds.
      * @return colorCount
@@ -1,6 +1,7 @@
 package net.highwayfrogs.editor.file.vlo;
 
 import javafx.scene.image.Image;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
@@ -44,17 +45,19 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
     private short vramY;
     private short fullWidth;
     private short fullHeight;
-    private short textureId;
+    @Setter(AccessLevel.NONE) private short textureId;
     private short flags;
     private short clutId;
     private byte ingameWidth; // In-game texture width, used to remove texture padding.
     private byte ingameHeight;
-    private byte[] imageBytes;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) private byte[] imageBytes; // RGBA pixel data. PSX images only create this once it is requested.
     private ImageClutMode clutMode; // TPF
     private int abr; // ABR.
 
     private transient int tempSaveImageDataPointer;
-    private transient BufferedImage cachedImage;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) private transient byte[] rawPixelBytes; // PSX pixel data exactly as found in the VLO. Kept until the pixels are requested as RGBA bytes, which may be modified.
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) private transient ClutEntry rawPixelClut; // The clut which the raw pixel data indexes into.
+    @Setter(AccessLevel.NONE) private transient int cacheVersion; // Changes whenever the image does, so GameImageCache entries made before the change are no longer used.
 
     public static final int MAX_DIMENSION = 256;
     private static final int PC_BYTES_PER_PIXEL = 4;
@@ -118,29 +121,13 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
 
         int pixelCount = getFullWidth() * getFullHeight();
         if (getParent().isPsxMode()) {
-            ByteBuffer buffer = ByteBuffer.allocate(PC_BYTES_PER_PIXEL * pixelCount);
-
-            if (getClutMode() == ImageClutMode.MODE_15BIT_NO_CLUT) { // Used in PS1 demo. Example: Frogger's eye, VOL@35 (The fireball texture)
-                for (int i = 0; i < pixelCount; i++)
-                    buffer.putInt(PSXClutColor.readBGRAColorFromShort(reader.readShort(), false));
-            } else if (getClutMode() == ImageClutMode.MODE_8BIT) { // Used in PS1 release. Example: STARTNTSC.VLO
-                ClutEntry clut = getClut();
-                for (int i = 0; i < pixelCount; i++)
-                    readPSXPixel(reader.readUnsignedByteAsShort(), clut, buffer);
-            } else { // 4bit (normal) mode.
-                ClutEntry clut = getClut();
-                for (int i = 0; i < pixelCount / 2; i++) { // We read two pixels per iteration.
-                    short value = reader.readUnsignedByteAsShort();
-                    int low = value & 0x0F;
-                    int high = value >> 4;
-
-                    readPSXPixel(low, clut, buffer);
-                    readPSXPixel(high, clut, buffer);
-                }
-            }
-
-            this.imageBytes = buffer.array();
+            // The pixels are kept in their indexed form, and are only converted to RGBA once they are used.
+            this.imageBytes = null;
+            this.rawPixelClut = getClutMode() != ImageClutMode.MODE_15BIT_NO_CLUT ? getClut() : null;
+            this.rawPixelBytes = reader.readBytes(getRawPixelByteCount(pixelCount));
         } else {
+            this.rawPixelBytes = null;
+            this.rawPixelClut = null;
             this.imageBytes = reader.readBytes(pixelCount * PC_BYTES_PER_PIXEL);
         }
 
@@ -178,6 +165,19 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
         writer.writeByte(this.ingameHeight);
     }
 
+    /**
+     * Sets the texture ID of this image, keeping the texture ID index up to date.
+     * @param textureId The new texture ID.
+     */
+    public void setTextureId(short textureId) {
+        if (this.textureId == textureId)
+            return;
+
+        this.textureId = textureId;
+        if (this.parent != null)
+            this.parent.invalidateTextureIndex();
+    }
+
     @Override
     public ILogger getLogger() {
         return this.parent != null ? this.parent.getLogger() : super.getLogger();
@@ -198,14 +198,25 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
             return;
         }
 
+        if (canWriteRawPixels()) {
+            writer.writeBytes(this.rawPixelBytes); // The image is unchanged, so the original pixels (and clut) are still valid.
+            return;
+        }
+
         if (getClutMode() == ImageClutMode.MODE_15BIT_NO_CLUT) {
             for (int i = 0; i < getImageBytes().length; i += PC_BYTES_PER_PIXEL)
                 PSXClutColor.fromRGBA(this.imageBytes, i).save(writer);
             return;
         }
 
+        // The clut is about to be regenerated, so any other image still using the original clut must be converted to RGBA first.
         ClutEntry clut = getClut();
+        for (GameImage image : getParent().getImages())
+            if (image.rawPixelClut == clut)
+                image.getImageBytes();
+
         clut.getColors().clear(); // Generate a new clut.
+        clut.invalidateLookupTable();
         int maxColors = getClut().calculateColorCount();
 
         for (int i = 0; i < getImageBytes().length; i += PC_BYTES_PER_PIXEL) {
@@ -311,19 +322,125 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
         return (short) ((getVramY() % (getParent().isPsxMode() ? PSX_PAGE_HEIGHT : PC_PAGE_HEIGHT)) + ((getFullHeight() - getIngameHeight()) / 2));
     }
 
-    private void readPSXPixel(int clutIndex, ClutEntry clut, ByteBuffer buffer) {
-        buffer.putInt(clut.getColors().get(clutIndex).toRGBA());
+    /**
+     * Gets the RGBA pixel data for this image.
+     * PSX images are converted from their original indexed form when this is first called.
+     * Because the returned array may be modified, the original pixel data will no longer be saved as-is once this has been called.
+     * @return imageBytes
+     */
+    public byte[] getImageBytes() {
+        if (this.imageBytes == null && this.rawPixelBytes != null) {
+            int[] pixels = new int[getFullWidth() * getFullHeight()];
+            decodeRawPixels(pixels);
+
+            // Convert ARGB -> (Big Endian: ABGR), with the alpha flipped, as stored in the image bytes.
+            ByteBuffer buffer = ByteBuffer.allocate(PC_BYTES_PER_PIXEL * pixels.length);
+            for (int i = 0; i < pixels.length; i++) {
+                int argb = pixels[i];
+                buffer.put((byte) (0xFF - (argb >>> 24)));
+                buffer.put((byte) argb);
+                buffer.put((byte) (argb >> 8));
+                buffer.put((byte) (argb >> 16));
+            }
+
+            this.imageBytes = buffer.array();
+            this.rawPixelBytes = null;
+            this.rawPixelClut = null;
+        }
+
+        return this.imageBytes;
+    }
+
+    /**
+     * Sets the RGBA pixel data for this image.
+     * @param imageBytes the new pixel data
+     */
+    public void setImageBytes(byte[] imageBytes) {
+        this.imageBytes = imageBytes;
+        this.rawPixelBytes = null;
+        this.rawPixelClut = null;
+    }
+
+    /**
+     * Test if the pixels have not been converted from the indexed form they were loaded in.
+     */
+    public boolean hasRawPixels() {
+        return this.rawPixelBytes != null;
+    }
+
+    private boolean canWriteRawPixels() {
+        if (this.rawPixelBytes == null)
+            return false;
+        if (getClutMode() == ImageClutMode.MODE_15BIT_NO_CLUT)
+            return true;
+
+        // Every image sharing the clut must also be unchanged, otherwise the clut will be regenerated.
+        ClutEntry clut = getClut();
+        if (clut != this.rawPixelClut)
+            return false;
+
+        for (GameImage image : getParent().getImages())
+            if (image.clutId == this.clutId && image.getClutMode() != ImageClutMode.MODE_15BIT_NO_CLUT && image.rawPixelClut != clut)
+                return false;
+
+        return true;
+    }
+
+    private int getRawPixelByteCount(int pixelCount) {
+        switch (getClutMode()) {
+            case MODE_15BIT_NO_CLUT: // Used in PS1 demo. Example: Frogger's eye, VOL@35 (The fireball texture)
+                return pixelCount * Constants.SHORT_SIZE;
+            case MODE_8BIT: // Used in PS1 release. Example: STARTNTSC.VLO
+                return pixelCount;
+            default: // 4bit (normal) mode.
+                return pixelCount / 2;
+        }
+    }
+
+    /**
+     * Converts the raw PSX pixel data into ARGB pixels.
+     * @param output the array to write ARGB pixels to
+     */
+    private void decodeRawPixels(int[] output) {
+        byte[] pixels = this.rawPixelBytes;
+        if (getClutMode() == ImageClutMode.MODE_15BIT_NO_CLUT) {
+            for (int i = 0, j = 0; i < output.length; i++, j += Constants.SHORT_SIZE)
+                output[i] = rgbaToARGB(PSXClutColor.toRGBA((short) ((pixels[j] & 0xFF) | (pixels[j + 1] << 8))));
+            return;
+        }
+
+        // Convert the clut to ARGB once, so each pixel is a single array lookup.
+        int[] rgbaColors = this.rawPixelClut.getRgbaLookupTable();
+        int[] palette = new int[rgbaColors.length];
+        for (int i = 0; i < palette.length; i++)
+            palette[i] = rgbaToARGB(rgbaColors[i]);
+
+        if (getClutMode() == ImageClutMode.MODE_8BIT) {
+            for (int i = 0; i < output.length; i++)
+                output[i] = palette[pixels[i] & 0xFF];
+        } else { // 4bit (normal) mode.
+            for (int i = 0, j = 0; i < pixels.length; i++) { // We read two pixels per iteration.
+                int value = pixels[i] & 0xFF;
+                output[j++] = palette[value & 0x0F];
+                output[j++] = palette[value >>> 4];
+            }
+        }
+    }
+
+    private static int rgbaToARGB(int rgba) {
+        // (Little Endian: RGBA) -> (Little Endian: BGRA), the alpha is stored flipped.
+        return ((0xFF - (rgba >>> 24)) << 24) | ((rgba & 0xFF) << 16) | (rgba & 0xFF00) | ((rgba >>> 16) & 0xFF);
     }
 
     private ClutEntry getClut() {
         int clutX = ((clutId & 0x3F) << 4);
         int clutY = (clutId >> 6);
 
-        for (ClutEntry testEntry : getParent().getClutEntries())
-            if (testEntry.getClutRect().getX() == clutX && testEntry.getClutRect().getY() == clutY)
-                return testEntry;
+        ClutEntry clutEntry = getParent().getClutByPosition(clutX, clutY);
+        if (clutEntry == null)
+            throw new RuntimeException("FAiled to find clut for coordinates [" + clutX + ", " + clutY + "].");
 
-        throw new RuntimeException("FAiled to find clut for coordinates [" + clutX + ", " + clutY + "].");
+        return clutEntry;
     }
 
     /**
@@ -388,7 +505,7 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
         byte[] bytes = buffer.array();
 
         // Convert BGRA -> ABGR, and write the new image bytes.
-        this.imageBytes = bytes; // Override existing image.
+        setImageBytes(bytes); // Override existing image.
         for (int i = 0; i < bytes.length; i += PC_BYTES_PER_PIXEL) { // Load image bytes.
             this.imageBytes[i] = (byte) (0xFF - this.imageBytes[i]); // Flip alpha.
             byte temp = this.imageBytes[i + 1];
@@ -403,7 +520,8 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
      * Invalidate the cached image.
      */
     public void invalidateCache() {
-        this.cachedImage = null;
+        this.cacheVersion++;
+        GameImageCache.removeImage(this);
     }
 
     /**
@@ -411,10 +529,11 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
      * @return bufferedImage
      */
     public BufferedImage toBufferedImage() {
-        if (this.cachedImage != null)
-            return this.cachedImage;
+        BufferedImage cachedImage = GameImageCache.getBufferedImage(this, null);
+        if (cachedImage != null)
+            return cachedImage;
 
-        return this.cachedImage = makeUnmodifiedImage();
+        return GameImageCache.putBufferedImage(this, null, makeUnmodifiedImage());
     }
 
     /**
@@ -423,7 +542,11 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
      * @return bufferedImage
      */
     public BufferedImage toBufferedImage(ImageFilterSettings settings) {
-        return applyFilters(toBufferedImage(), settings);
+        BufferedImage cachedImage = GameImageCache.getBufferedImage(this, settings);
+        if (cachedImage != null)
+            return cachedImage;
+
+        return GameImageCache.putBufferedImage(this, settings, applyFilters(toBufferedImage(), settings));
     }
 
     /**
@@ -432,7 +555,11 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
      * @return fxImage
      */
     public Image toFXImage(ImageFilterSettings settings) {
-        return FXUtils.toFXImage(toBufferedImage(settings), false);
+        Image cachedImage = GameImageCache.getFXImage(this, settings);
+        if (cachedImage != null)
+            return cachedImage;
+
+        return GameImageCache.putFXImage(this, settings, FXUtils.toFXImage(toBufferedImage(settings), false));
     }
 
     /**
@@ -440,7 +567,11 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
      * @return fxImage
      */
     public Image toFXImage() {
-        return FXUtils.toFXImage(toBufferedImage(), false);
+        Image cachedImage = GameImageCache.getFXImage(this, null);
+        if (cachedImage != null)
+            return cachedImage;
+
+        return GameImageCache.putFXImage(this, null, FXUtils.toFXImage(toBufferedImage(), false));
     }
 
     /**
@@ -547,6 +678,10 @@ public class GameImage extends SCSharedGameData implements Cloneable, TextureSou
         // Create image.
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         final int[] imageDataBuffer = ImageWorkHorse.getPixelIntegerArray(image);
+        if (this.rawPixelBytes != null && this.imageBytes == null) {
+            decodeRawPixels(imageDataBuffer); // Decode straight into the image, without creating the RGBA bytes.
+            return image;
+        }
 
         // Convert (Big Endian: ABGR, Little Endian: RGBA) -> (Big Endian: BGRA, Little Endian: ARGB), and store in the array.
         for (int i = 0; i < this.imageBytes.length; i += PC_BYTES_PER_PIXEL) {
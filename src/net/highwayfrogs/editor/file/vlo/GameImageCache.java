@@ -0,0 +1,300 @@
+package net.highwayfrogs.editor.file.vlo;
+
+import javafx.scene.image.Image;
+import net.highwayfrogs.editor.games.generic.GameInstance;
+import net.highwayfrogs.editor.utils.DataSizeUnit;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * A memory-bounded cache of rendered game images, shared by every GameImage.
+ * Entries are keyed by the image and the filter settings used to render it, and hold both the AWT and the FX version of the image.
+ * The least recently used entries are evicted once the memory budget is exceeded, and images are softly referenced so the garbage collector may reclaim them under memory pressure.
+ * Entries reference their game image, so they are removed as soon as the image changes or its game instance is closed, instead of waiting to be evicted.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class GameImageCache {
+    private static final LinkedHashMap<CacheKey, CacheEntry> cacheEntries = new LinkedHashMap<>(256, .75F, true);
+    private static final Map<GameImage, List<CacheKey>> cacheKeysByImage = new IdentityHashMap<>();
+    private static final ReferenceQueue<Object> collectedImages = new ReferenceQueue<>();
+    private static long memoryBudget = Math.min(256 * DataSizeUnit.MEGABYTE.getIncrement(), Runtime.getRuntime().maxMemory() / 8);
+    private static long residentBytes;
+    private static long hitCount;
+    private static long missCount;
+    private static long evictionCount;
+
+    /**
+     * Gets the AWT image rendered from a game image with the given filter settings, if it is cached.
+     * @param image The game image which was rendered.
+     * @param settings The filter settings the image was rendered with, or null for the unfiltered image.
+     * @return cachedImage, or null
+     */
+    public static synchronized BufferedImage getBufferedImage(GameImage image, ImageFilterSettings settings) {
+        CacheEntry entry = getEntry(image, settings);
+        BufferedImage cachedImage = entry != null && entry.bufferedImage != null ? entry.bufferedImage.get() : null;
+        recordLookup(cachedImage != null);
+        return cachedImage;
+    }
+
+    /**
+     * Gets the FX image rendered from a game image with the given filter settings, if it is cached.
+     * @param image The game image which was rendered.
+     * @param settings The filter settings the image was rendered with, or null for the unfiltered image.
+     * @return cachedImage, or null
+     */
+    public static synchronized Image getFXImage(GameImage image, ImageFilterSettings settings) {
+        CacheEntry entry = getEntry(image, settings);
+        Image cachedImage = entry != null && entry.fxImage != null ? entry.fxImage.get() : null;
+        recordLookup(cachedImage != null);
+        return cachedImage;
+    }
+
+    /**
+     * Stores the AWT image rendered from a game image.
+     * @param image The game image which was rendered.
+     * @param settings The filter settings the image was rendered with, or null for the unfiltered image.
+     * @param bufferedImage The rendered image.
+     * @return bufferedImage
+     */
+    public static synchronized BufferedImage putBufferedImage(GameImage image, ImageFilterSettings settings, BufferedImage bufferedImage) {
+        CacheEntry entry = getOrCreateEntry(image, settings);
+        entry.removeBufferedImage();
+        entry.bufferedImage = new CachedImageReference<>(bufferedImage, entry.key, (long) bufferedImage.getWidth() * bufferedImage.getHeight() * 4);
+        residentBytes += entry.bufferedImage.byteSize;
+        evictIfOverBudget();
+        return bufferedImage;
+    }
+
+    /**
+     * Stores the FX image rendered from a game image.
+     * @param image The game image which was rendered.
+     * @param settings The filter settings the image was rendered with, or null for the unfiltered image.
+     * @param fxImage The rendered image.
+     * @return fxImage
+     */
+    public static synchronized Image putFXImage(GameImage image, ImageFilterSettings settings, Image fxImage) {
+        CacheEntry entry = getOrCreateEntry(image, settings);
+        entry.removeFXImage();
+        entry.fxImage = new CachedImageReference<>(fxImage, entry.key, (long) fxImage.getWidth() * (long) fxImage.getHeight() * 4);
+        residentBytes += entry.fxImage.byteSize;
+        evictIfOverBudget();
+        return fxImage;
+    }
+
+    /**
+     * Removes every cached image rendered from the given game image.
+     * @param image The game image to remove the cached images of.
+     */
+    public static synchronized void removeImage(GameImage image) {
+        List<CacheKey> imageKeys = cacheKeysByImage.remove(image);
+        if (imageKeys == null)
+            return;
+
+        for (int i = 0; i < imageKeys.size(); i++) {
+            CacheEntry entry = cacheEntries.remove(imageKeys.get(i));
+            if (entry != null) {
+                entry.removeBufferedImage();
+                entry.removeFXImage();
+            }
+        }
+    }
+
+    /**
+     * Removes every cached image rendered from a game image belonging to the given game instance.
+     * @param instance The game instance to remove the cached images of.
+     */
+    public static synchronized void removeGameInstance(GameInstance instance) {
+        if (instance == null)
+            return;
+
+        List<GameImage> instanceImages = new ArrayList<>();
+        for (GameImage image : cacheKeysByImage.keySet())
+            if (image.getGameInstance() == instance)
+                instanceImages.add(image);
+
+        for (int i = 0; i < instanceImages.size(); i++)
+            removeImage(instanceImages.get(i));
+    }
+
+    /**
+     * Removes every cached image.
+     */
+    public static synchronized void clear() {
+        cacheEntries.clear();
+        cacheKeysByImage.clear();
+        residentBytes = 0;
+        while (collectedImages.poll() != null)
+            ; // Their memory is no longer counted.
+    }
+
+    /**
+     * Sets the number of bytes the cached images may use before the least recently used ones are evicted.
+     * @param newMemoryBudget The new memory budget, in bytes.
+     */
+    public static synchronized void setMemoryBudget(long newMemoryBudget) {
+        if (newMemoryBudget < 0)
+            throw new IllegalArgumentException("The memory budget cannot be negative! (" + newMemoryBudget + ")");
+
+        memoryBudget = newMemoryBudget;
+        evictIfOverBudget();
+    }
+
+    /**
+     * Gets the number of bytes the cached images may use before the least recently used ones are evicted.
+     */
+    public static synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Gets the estimated number of bytes used by the images currently held in the cache.
+     */
+    public static synchronized long getResidentBytes() {
+        pollCollectedImages();
+        return residentBytes;
+    }
+
+    /**
+     * Gets the fraction of lookups which found a cached image, between 0 and 1.
+     */
+    public static synchronized double getHitRate() {
+        long lookupCount = hitCount + missCount;
+        return lookupCount > 0 ? (double) hitCount / lookupCount : 0;
+    }
+
+    /**
+     * Gets a summary of the cache state, suitable for display.
+     */
+    public static synchronized String getStatistics() {
+        return String.format("Image Cache: %s / %s, %d Entries, %.1f%% Hit Rate (%d Hits, %d Misses), %d Evictions",
+                DataSizeUnit.formatSize(getResidentBytes()), DataSizeUnit.formatSize(memoryBudget), cacheEntries.size(),
+                getHitRate() * 100, hitCount, missCount, evictionCount);
+    }
+
+    private static void recordLookup(boolean hit) {
+        if (hit) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+    }
+
+    private static CacheEntry getEntry(GameImage image, ImageFilterSettings settings) {
+        pollCollectedImages();
+        return cacheEntries.get(new CacheKey(image, settings));
+    }
+
+    private static CacheEntry getOrCreateEntry(GameImage image, ImageFilterSettings settings) {
+        pollCollectedImages();
+        CacheKey key = new CacheKey(image, settings);
+        CacheEntry entry = cacheEntries.get(key);
+        if (entry == null) {
+            cacheEntries.put(key, entry = new CacheEntry(key));
+            cacheKeysByImage.computeIfAbsent(image, cachedImage -> new ArrayList<>(2)).add(key);
+        }
+
+        return entry;
+    }
+
+    private static void evictIfOverBudget() {
+        Iterator<Entry<CacheKey, CacheEntry>> iterator = cacheEntries.entrySet().iterator();
+        while (residentBytes > memoryBudget && iterator.hasNext()) {
+            CacheEntry entry = iterator.next().getValue();
+            entry.removeBufferedImage();
+            entry.removeFXImage();
+            iterator.remove();
+            removeImageKey(entry.key);
+            evictionCount++;
+        }
+    }
+
+    private static void pollCollectedImages() {
+        CachedImageReference<?> reference;
+        while ((reference = (CachedImageReference<?>) collectedImages.poll()) != null) {
+            CacheEntry entry = cacheEntries.get(reference.key);
+            if (entry != null && entry.bufferedImage == reference) {
+                entry.removeBufferedImage();
+            } else if (entry != null && entry.fxImage == reference) {
+                entry.removeFXImage();
+            } else {
+                continue; // The reference was already replaced or evicted, so its memory is no longer counted.
+            }
+
+            if (entry.bufferedImage == null && entry.fxImage == null) {
+                cacheEntries.remove(reference.key);
+                removeImageKey(reference.key);
+            }
+        }
+    }
+
+    private static void removeImageKey(CacheKey key) {
+        List<CacheKey> imageKeys = cacheKeysByImage.get(key.image);
+        if (imageKeys != null && imageKeys.remove(key) && imageKeys.isEmpty())
+            cacheKeysByImage.remove(key.image);
+    }
+
+    private static class CacheKey {
+        private final GameImage image;
+        private final int imageVersion;
+        private final long settingsVersion;
+
+        private CacheKey(GameImage image, ImageFilterSettings settings) {
+            this.image = image;
+            this.imageVersion = image.getCacheVersion();
+            this.settingsVersion = settings != null ? settings.getCacheVersion() : 0;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof CacheKey))
+                return false;
+
+            CacheKey otherKey = (CacheKey) other;
+            return this.image == otherKey.image && this.imageVersion == otherKey.imageVersion && this.settingsVersion == otherKey.settingsVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(this.image), this.imageVersion, this.settingsVersion);
+        }
+    }
+
+    private static class CacheEntry {
+        private final CacheKey key;
+        private CachedImageReference<BufferedImage> bufferedImage;
+        private CachedImageReference<Image> fxImage;
+
+        private CacheEntry(CacheKey key) {
+            this.key = key;
+        }
+
+        private void removeBufferedImage() {
+            if (this.bufferedImage != null) {
+                residentBytes -= this.bufferedImage.byteSize;
+                this.bufferedImage = null;
+            }
+        }
+
+        private void removeFXImage() {
+            if (this.fxImage != null) {
+                residentBytes -= this.fxImage.byteSize;
+                this.fxImage = null;
+            }
+        }
+    }
+
+    private static class CachedImageReference<T> extends SoftReference<T> {
+        private final CacheKey key;
+        private final long byteSize;
+
+        private CachedImageReference(T image, CacheKey key, long byteSize) {
+            super(image, collectedImages);
+            this.key = key;
+            this.byteSize = byteSize;
+        }
+    }
+}
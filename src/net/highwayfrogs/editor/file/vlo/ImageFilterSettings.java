@@ -4,8 +4,7 @@ import lombok.Getter;
 import net.highwayfrogs.editor.file.vlo.ImageWorkHorse.TransparencyFilter;
 
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Contains information about what operations should and should not be applied.
@@ -19,7 +18,9 @@ public class ImageFilterSettings {
     private boolean allowFlip;
     private boolean allowScrunch;
     private boolean scaleToMaxSize;
-    private Map<BufferedImage, BufferedImage> renderCache = new HashMap<>();
+    private long cacheVersion = nextCacheVersion.incrementAndGet(); // Identifies these settings in the GameImageCache. Changes whenever the settings do.
+
+    private static final AtomicLong nextCacheVersion = new AtomicLong();
 
     public ImageFilterSettings(ImageState state) {
         this.state = state;
@@ -104,9 +105,10 @@ public class ImageFilterSettings {
 
     /**
      * Invalidate the render cache, such as when settings change.
+     * Images rendered with the old settings are left for the GameImageCache to evict.
      */
     public void invalidateRenderCache() {
-        this.renderCache.clear();
+        this.cacheVersion = nextCacheVersion.incrementAndGet();
     }
 
     /**
@@ -116,10 +118,6 @@ public class ImageFilterSettings {
      * @return filteredImage
      */
     public BufferedImage applyFilters(GameImage gameImage, BufferedImage firstImage) {
-        BufferedImage result = this.renderCache.get(firstImage);
-        if (result != null)
-            return result;
-
         BufferedImage image = firstImage;
         if (isTrimEdges() && isExport())
             image = ImageWorkHorse.trimEdges(gameImage, image);
@@ -137,7 +135,6 @@ public class ImageFilterSettings {
         if (transparencyGoal)
             image = ImageWorkHorse.applyFilter(image, new TransparencyFilter());
 
-        this.renderCache.put(firstImage, image);
         return image;
     }
 
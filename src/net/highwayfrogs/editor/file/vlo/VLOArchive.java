@@ -1,6 +1,7 @@
 package net.highwayfrogs.editor.file.vlo;
 
 import javafx.scene.image.Image;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.SneakyThrows;
 import net.highwayfrogs.editor.Constants;
@@ -9,6 +10,7 @@ import net.highwayfrogs.editor.file.vlo.ImageFilterSettings.ImageState;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.games.sony.SCGameFile.SCSharedGameFile;
 import net.highwayfrogs.editor.games.sony.SCGameInstance;
+import net.highwayfrogs.editor.games.sony.shared.mwd.MWDFile;
 import net.highwayfrogs.editor.games.sony.shared.ui.file.VLOController;
 import net.highwayfrogs.editor.gui.GUIMain;
 import net.highwayfrogs.editor.gui.ImageResource;
@@ -23,7 +25,10 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 /**
@@ -35,8 +40,11 @@ import java.util.function.Consumer;
 @Getter
 public class VLOArchive extends SCSharedGameFile {
     private final List<GameImage> images = new ArrayList<>();
-    private final List<ClutEntry> clutEntries = new ArrayList<>();
+    @Getter(AccessLevel.NONE) private final List<ClutEntry> clutEntries = new ArrayList<>();
+    @Getter(AccessLevel.NONE) private final List<ClutEntry> immutableClutEntries = Collections.unmodifiableList(this.clutEntries);
     private boolean psxMode;
+    @Getter(AccessLevel.NONE) private final transient Map<Integer, ClutEntry> clutEntriesByPosition = new HashMap<>(); // Kept up to date as cluts are added.
+    @Getter(AccessLevel.NONE) private transient volatile GameImage[] imagesByTextureId; // Indexed by texture ID. Built on first lookup, and discarded by invalidateTextureIndex().
 
     public static final String PC_SIGNATURE = "2GRP";
     public static final String PSX_SIGNATURE = "2GRV";
@@ -73,7 +81,7 @@ public class VLOArchive extends SCSharedGameFile {
             for (int i = 0; i < clutCount; i++) {
                 ClutEntry clut = new ClutEntry();
                 clut.load(reader);
-                clutEntries.add(clut);
+                addClutEntry(clut);
             }
 
             reader.jumpReturn();
@@ -87,6 +95,12 @@ public class VLOArchive extends SCSharedGameFile {
             this.images.add(image);
         }
         reader.jumpReturn();
+
+        // The MWD index is extended instead of discarded, so loading each VLO does not rebuild it.
+        this.imagesByTextureId = null;
+        MWDFile archive = getArchive();
+        if (archive != null)
+            archive.onVLOLoaded(this);
     }
 
     @Override
@@ -119,6 +133,11 @@ public class VLOArchive extends SCSharedGameFile {
         return false;
     }
 
+    @Override
+    public boolean isParallelLoadSupported() {
+        return true;
+    }
+
     /**
      * Export all images in this VLO archive.
      */
@@ -171,6 +190,33 @@ public class VLOArchive extends SCSharedGameFile {
         return null;
     }
 
+    /**
+     * Gets the clut located at the given VRAM coordinates.
+     * @param x The VRAM x coordinate of the clut.
+     * @param y The VRAM y coordinate of the clut.
+     * @return clutEntry, or null if there is no clut at the position
+     */
+    public ClutEntry getClutByPosition(int x, int y) {
+        return this.clutEntriesByPosition.get(getClutPositionKey(x, y));
+    }
+
+    /**
+     * Gets the clut entries in this archive.
+     * @return clutEntries
+     */
+    public List<ClutEntry> getClutEntries() {
+        return this.immutableClutEntries;
+    }
+
+    private void addClutEntry(ClutEntry clutEntry) {
+        this.clutEntries.add(clutEntry);
+        this.clutEntriesByPosition.putIfAbsent(getClutPositionKey(clutEntry.getClutRect().getX(), clutEntry.getClutRect().getY()), clutEntry);
+    }
+
+    private static int getClutPositionKey(int x, int y) {
+        return (y << 16) | (x & 0xFFFF);
+    }
+
     /**
      * Gets an image by the given texture ID.
      * @param textureId The texture ID to get.
@@ -186,13 +232,51 @@ public class VLOArchive extends SCSharedGameFile {
      * @return gameImage
      */
     public GameImage getImageByTextureId(int textureId, boolean errorIfFail) {
-        for (GameImage testImage : getImages())
-            if (testImage.getTextureId() == textureId)
-                return testImage;
+        GameImage foundImage = null;
+        if (textureId >= 0) {
+            GameImage[] index = this.imagesByTextureId;
+            if (index == null)
+                index = buildTextureIndex();
 
-        if (errorIfFail)
+            foundImage = textureId < index.length ? index[textureId] : null;
+        } else {
+            for (GameImage testImage : getImages()) {
+                if (testImage.getTextureId() == textureId) {
+                    foundImage = testImage;
+                    break;
+                }
+            }
+        }
+
+        if (foundImage == null && errorIfFail)
             throw new RuntimeException("Could not find a texture with the id: " + textureId + ".");
-        return null;
+        return foundImage;
+    }
+
+    /**
+     * Discards the texture ID index of this VLO, and of the MWD holding it.
+     * This should be called whenever an image is added, removed, replaced, or has its texture ID changed.
+     */
+    public void invalidateTextureIndex() {
+        this.imagesByTextureId = null;
+        MWDFile archive = getArchive();
+        if (archive != null)
+            archive.invalidateTextureIndex();
+    }
+
+    private GameImage[] buildTextureIndex() {
+        int maxTextureId = -1;
+        for (GameImage image : this.images)
+            if (image.getTextureId() > maxTextureId)
+                maxTextureId = image.getTextureId();
+
+        GameImage[] index = new GameImage[maxTextureId + 1];
+        for (GameImage image : this.images)
+            if (image.getTextureId() >= 0 && index[image.getTextureId()] == null)
+                index[image.getTextureId()] = image;
+
+        this.imagesByTextureId = index;
+        return index;
     }
 
     /**
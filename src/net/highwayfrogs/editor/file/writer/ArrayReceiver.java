@@ -1,70 +1,113 @@
 package net.highwayfrogs.editor.file.writer;
 
 import lombok.Getter;
-import net.highwayfrogs.editor.Constants;
-import net.highwayfrogs.editor.utils.Utils;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * An in-memory data receiver.
+ * Bytes are stored in a primitive array which grows geometrically, so writing does not box every byte.
  * Created by Kneesnap on 8/13/2018.
  */
-@Getter
 public class ArrayReceiver implements DataReceiver {
-    private final List<Byte> bytes;
-    private int index;
+    private byte[] bytes;
+    private boolean bytesShared; // True once the backing array has been returned by toArray(), so it must be copied before it is written to again.
+    @Getter private int index;
+    @Getter private int size; // The number of bytes which have been written, including any gaps left by seeking past the end.
+
+    private static final int DEFAULT_STARTING_SIZE = 64;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8; // Some VMs reserve header words in an array.
 
     public ArrayReceiver() {
-        this.bytes = new ArrayList<>();
+        this(DEFAULT_STARTING_SIZE);
     }
 
     public ArrayReceiver(int startingSize) {
-        this.bytes = new ArrayList<>(startingSize);
+        if (startingSize < 0)
+            throw new IllegalArgumentException("Invalid starting size: " + startingSize);
+
+        this.bytes = new byte[startingSize];
     }
 
     @Override
-    public void writeByte(byte value)  {
-        while (this.index > bytes.size()) // Add data up to the index.
-            bytes.add(Constants.NULL_BYTE);
-
-        if (bytes.size() > this.index) { // Writing over existing bytes.
-            bytes.set(this.index, value);
-        } else { // Index matches exactly. Append at end.
-            bytes.add(value);
-        }
-
-        this.index++; // Increment index.
+    public void writeByte(byte value) {
+        ensureCapacity(this.index + 1);
+        this.bytes[this.index++] = value;
+        if (this.index > this.size)
+            this.size = this.index;
     }
 
     @Override
     public void writeBytes(byte[] values) {
-        for (byte value : values)
-            writeByte(value);
+        writeBytes(values, 0, values.length);
     }
 
     @Override
-    public void writeBytes(byte[] values, int offset, int amount) throws IOException {
-        amount = Math.max(0, Math.min(amount, values.length - offset - 1));
+    public void writeBytes(byte[] values, int offset, int amount) {
+        amount = Math.max(0, Math.min(amount, values.length - offset));
         if (amount == 0)
             return;
 
-        for (int i = 0; i < amount; i++)
-            writeByte(values[offset + i]);
+        ensureCapacity(this.index + amount);
+        System.arraycopy(values, offset, this.bytes, this.index, amount);
+        this.index += amount;
+        if (this.index > this.size)
+            this.size = this.index;
     }
 
     @Override
     public void setIndex(int newIndex) {
+        if (newIndex < 0)
+            throw new IllegalArgumentException("Cannot seek to a negative index. (" + newIndex + ")");
+
+        // Seeking past the end does not grow the array, the gap will be zero-filled once something is written there.
         this.index = newIndex;
     }
 
     /**
      * Get the array of bytes.
+     * If the backing array is already exactly the size of the written data, it is returned directly without copying.
+     * Otherwise, the backing array is trimmed first, so subsequent calls will not copy either.
+     * The returned array is never modified by the receiver. If more data is written afterward, the receiver copies the array first.
      * @return array
      */
     public byte[] toArray() {
-        return Utils.toArray(bytes);
+        if (this.bytes.length != this.size)
+            this.bytes = Arrays.copyOf(this.bytes, this.size);
+
+        this.bytesShared = true;
+        return this.bytes;
+    }
+
+    /**
+     * Gets a view of the written bytes as a ByteBuffer, without copying.
+     * The buffer will become stale if more data is written afterward.
+     * @return byteBufferView
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(this.bytes, 0, this.size).slice();
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) // Overflow.
+            throw new OutOfMemoryError("Cannot grow the ArrayReceiver past " + MAX_ARRAY_SIZE + " bytes.");
+        if (minCapacity <= this.bytes.length) {
+            if (this.bytesShared) { // The array returned by toArray() must not change.
+                this.bytes = this.bytes.clone();
+                this.bytesShared = false;
+            }
+
+            return;
+        }
+
+        int newCapacity = this.bytes.length + (this.bytes.length >> 1); // Grow by 1.5x.
+        if (newCapacity < minCapacity)
+            newCapacity = minCapacity;
+        if (newCapacity < 0 || newCapacity > MAX_ARRAY_SIZE)
+            newCapacity = Math.max(minCapacity, MAX_ARRAY_SIZE);
+
+        this.bytes = Arrays.copyOf(this.bytes, newCapacity);
+        this.bytesShared = false;
     }
-}
\ No newline at end of file
+}
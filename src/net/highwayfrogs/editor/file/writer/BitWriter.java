@@ -1,12 +1,12 @@
 package net.highwayfrogs.editor.file.writer;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.utils.Utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Write bits into a buffer.
@@ -17,19 +17,22 @@ import java.util.List;
  */
 @Getter
 public class BitWriter {
-    private final List<Byte> bytes = new ArrayList<>();
+    @Getter(AccessLevel.NONE) private byte[] bytes = new byte[DEFAULT_STARTING_SIZE];
+    private int completedByteCount; // The number of bytes which have been fully written.
     private int currentBit = Constants.BITS_PER_BYTE;
     private byte currentByte;
     @Setter private boolean reverseBytes;
     @Setter private boolean reverseBits;
 
+    private static final int DEFAULT_STARTING_SIZE = 64;
+
     /**
      * Gets the current number of bytes this takes up.
      * Even if only 1 bit is used in a byte, that counts.
      * @return byteCount
      */
     public int getByteCount() {
-        return this.bytes.size() + (this.currentBit != Constants.BITS_PER_BYTE ? 1 : 0);
+        return this.completedByteCount + (this.currentBit != Constants.BITS_PER_BYTE ? 1 : 0);
     }
 
     /**
@@ -48,13 +51,20 @@ public class BitWriter {
         if (bit != Constants.BIT_TRUE && bit != Constants.BIT_FALSE) // Since this is a high call function, we avoid Utils.verify.
             throw new RuntimeException("Invalid bit number " + bit + ".");
 
+        appendBit(bit);
+    }
+
+    private void appendBit(int bit) {
         // Add the bit to the current byte.
         if (bit == Constants.BIT_TRUE)
             this.currentByte |= (bit << getCurrentBitID());
 
-        // If the current byte is complete, add it to the list of bytes.
+        // If the current byte is complete, add it to the array of bytes.
         if (--this.currentBit == 0) {
-            this.bytes.add(this.currentByte);
+            if (this.completedByteCount == this.bytes.length)
+                this.bytes = Arrays.copyOf(this.bytes, this.bytes.length + (this.bytes.length >> 1));
+
+            this.bytes[this.completedByteCount++] = this.currentByte;
             this.currentByte = 0;
             this.currentBit = Constants.BITS_PER_BYTE;
         }
@@ -81,10 +91,10 @@ public class BitWriter {
     public void writeBits(int number, int bitCount) {
         if (this.reverseBits) {
             for (int i = 0; i < bitCount; i++)
-                writeBit(((number & (Constants.BIT_TRUE << i)) != 0) ? Constants.BIT_TRUE : Constants.BIT_FALSE);
+                appendBit((number >> i) & Constants.BIT_TRUE);
         } else {
             for (int i = bitCount - 1; i >= 0; i--)
-                writeBit((number >> i) & Constants.BIT_TRUE);
+                appendBit((number >> i) & Constants.BIT_TRUE);
         }
     }
 
@@ -95,10 +105,10 @@ public class BitWriter {
     public void writeByte(byte value) {
         if (this.reverseBits) {
             for (int i = 0; i < Constants.BITS_PER_BYTE; i++)
-                writeBit(((value & (Constants.BIT_TRUE << i)) != 0) ? Constants.BIT_TRUE : Constants.BIT_FALSE);
+                appendBit((value >> i) & Constants.BIT_TRUE);
         } else {
             for (int i = Constants.BITS_PER_BYTE - 1; i >= 0; i--)
-                writeBit((value >> i) & Constants.BIT_TRUE);
+                appendBit((value >> i) & Constants.BIT_TRUE);
         }
     }
 
@@ -120,10 +130,14 @@ public class BitWriter {
         finishCurrentByte();
 
         // Write in backwards order, because PP20 does that.
-        byte[] arr = new byte[extraBytesBefore + this.bytes.size() + extraBytesAfter];
-        int i = isReverseBytes() ? arr.length - 1 - extraBytesAfter : extraBytesBefore;
-        for (Byte aByte : this.bytes)
-            arr[isReverseBytes() ? i-- : i++] = aByte;
+        byte[] arr = new byte[extraBytesBefore + this.completedByteCount + extraBytesAfter];
+        if (isReverseBytes()) {
+            int i = arr.length - 1 - extraBytesAfter;
+            for (int j = 0; j < this.completedByteCount; j++)
+                arr[i--] = this.bytes[j];
+        } else {
+            System.arraycopy(this.bytes, 0, arr, extraBytesBefore, this.completedByteCount);
+        }
 
         return arr;
     }
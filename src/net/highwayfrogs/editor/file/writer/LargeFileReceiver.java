@@ -5,51 +5,159 @@ import net.highwayfrogs.editor.utils.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
  * Writes data to large files without storing it in memory.
+ * Writes are collected in a write-behind buffer which is flushed to the file in large blocks.
+ * Writes to data which has already been flushed (such as back-patching a pointer) are written directly to their file position, so they do not flush the buffer.
  * Created by Kneesnap on 8/24/2023.
  */
 public class LargeFileReceiver implements DataReceiver {
     private final File targetFile;
-    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final byte[] buffer;
+    private final ByteBuffer bufferWrapper;
+    private final byte[] singleByteArray = new byte[1];
+    private int bufferStart; // The file position which buffer[0] will be written to.
+    private int bufferLength; // The number of bytes in the buffer which should be written.
+    private int fileSize; // The size of the data which has been written to the file itself.
+    private int index;
+
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
 
-    @SneakyThrows
     public LargeFileReceiver(File file) {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    @SneakyThrows
+    public LargeFileReceiver(File file, int bufferSize) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+
         this.targetFile = file;
         FileUtils.deleteFile(file);
-        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = new byte[bufferSize];
+        this.bufferWrapper = ByteBuffer.wrap(this.buffer);
     }
 
     @Override
     public void writeByte(byte value) throws IOException {
-        this.randomAccessFile.writeByte(value);
+        int bufferOffset = this.index - this.bufferStart;
+        if (bufferOffset >= 0 && bufferOffset < this.buffer.length && bufferOffset <= this.bufferLength) {
+            this.buffer[bufferOffset] = value;
+            if (bufferOffset == this.bufferLength)
+                this.bufferLength++;
+            this.index++;
+            return;
+        }
+
+        this.singleByteArray[0] = value;
+        writeBytes(this.singleByteArray, 0, 1);
     }
 
     @Override
     public void writeBytes(byte[] values) throws IOException {
-        this.randomAccessFile.write(values);
+        writeBytes(values, 0, values.length);
     }
 
     @Override
     public void writeBytes(byte[] values, int offset, int amount) throws IOException {
-        this.randomAccessFile.write(values, offset, amount);
+        amount = Math.max(0, Math.min(amount, values.length - offset));
+        if (amount == 0)
+            return;
+
+        int bufferEnd = this.bufferStart + this.bufferLength;
+        if (!canWriteToBuffer(amount)) {
+            if (this.index + amount <= this.bufferStart) { // The data is before the buffered data, write it directly. (Usually back-patching)
+                writeToFile(values, offset, amount, this.index);
+                this.index += amount;
+                return;
+            }
+
+            // The data overlaps or comes after the buffered data, so the buffer must be written before it can be reused.
+            flush();
+            this.bufferStart = this.index;
+            if (amount >= this.buffer.length) { // Too large to buffer.
+                writeToFile(values, offset, amount, this.index);
+                this.index += amount;
+                this.bufferStart = this.index;
+                return;
+            }
+
+            bufferEnd = this.bufferStart;
+        }
+
+        int bufferOffset = this.index - this.bufferStart;
+        if (this.index > bufferEnd) // Seeked past the end, so zero-fill the gap.
+            Arrays.fill(this.buffer, this.bufferLength, bufferOffset, (byte) 0);
+
+        System.arraycopy(values, offset, this.buffer, bufferOffset, amount);
+        this.index += amount;
+        this.bufferLength = Math.max(this.bufferLength, bufferOffset + amount);
     }
 
     @Override
     public void setIndex(int newIndex) throws IOException {
-        this.randomAccessFile.seek(newIndex);
+        if (newIndex < 0)
+            throw new IOException("Cannot seek to a negative index. (" + newIndex + ")");
+
+        // Seeking does not flush, the next write decides whether the buffer can be kept.
+        this.index = newIndex;
     }
 
     @Override
     public int getIndex() throws IOException {
-        return (int) this.randomAccessFile.getFilePointer();
+        return this.index;
+    }
+
+    /**
+     * Writes any buffered data to the file.
+     */
+    public void flush() throws IOException {
+        if (this.bufferLength > 0)
+            writeToFile(this.buffer, 0, this.bufferLength, this.bufferStart);
+
+        this.bufferStart += this.bufferLength;
+        this.bufferLength = 0;
     }
 
     @Override
     @SneakyThrows
     public void close() {
-        this.randomAccessFile.close();
+        if (!this.channel.isOpen())
+            return;
+
+        try {
+            flush();
+            this.channel.force(true);
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    private boolean canWriteToBuffer(int amount) {
+        int bufferOffset = this.index - this.bufferStart;
+        if (bufferOffset < 0 || bufferOffset > this.buffer.length - amount)
+            return false;
+
+        // Writing past the end of the buffered data leaves a gap. The gap can only be zero-filled if the file has no data there.
+        return bufferOffset <= this.bufferLength || this.bufferStart + this.bufferLength >= this.fileSize;
+    }
+
+    private void writeToFile(byte[] values, int offset, int amount, int position) throws IOException {
+        ByteBuffer source = (values == this.buffer) ? this.bufferWrapper : ByteBuffer.wrap(values);
+        source.limit(offset + amount);
+        source.position(offset);
+
+        long writePosition = position;
+        while (source.hasRemaining())
+            writePosition += this.channel.write(source, writePosition);
+
+        this.fileSize = Math.max(this.fileSize, position + amount);
     }
-}
\ No newline at end of file
+}
@@ -6,10 +6,12 @@ import javafx.stage.Stage;
 import lombok.Getter;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.config.Config;
+import net.highwayfrogs.editor.games.generic.data.FileDataRetention;
 import net.highwayfrogs.editor.gui.GUIMain;
 import net.highwayfrogs.editor.gui.GameUIController;
 import net.highwayfrogs.editor.gui.MainMenuController;
 import net.highwayfrogs.editor.scripting.NoodleScriptEngine;
+import net.highwayfrogs.editor.system.Config.ConfigValueNode;
 import net.highwayfrogs.editor.utils.FXUtils;
 import net.highwayfrogs.editor.utils.Utils;
 import net.highwayfrogs.editor.utils.logging.MainGameInstanceLogger;
@@ -33,6 +35,7 @@ public abstract class GameInstance implements IGameInstance {
     private StringBuilder cachedLogging;
 
     static final Map<IGameType, Map<String, FXMLLoader>> knownResourcePaths = new HashMap<>();
+    public static final String CONFIG_FILE_DATA_RETENTION = "fileDataRetention"; // Controls how much of the original file data is kept in memory after loading.
 
     public GameInstance(IGameType gameType) {
         if (gameType == null)
@@ -106,6 +109,15 @@ public abstract class GameInstance implements IGameInstance {
         return stage;
     }
 
+    /**
+     * Gets how much of the original data of each game file should be kept in memory once the file has been loaded.
+     * @return fileDataRetention
+     */
+    public FileDataRetention getFileDataRetention() {
+        ConfigValueNode retentionNode = this.config != null ? this.config.getOptionalKeyValueNode(CONFIG_FILE_DATA_RETENTION) : null;
+        return retentionNode != null ? retentionNode.getAsEnum(FileDataRetention.KEEP_ALL) : FileDataRetention.KEEP_ALL;
+    }
+
     /**
      * Gets the folder where the main game files are located.
      * @return gameFolder
@@ -0,0 +1,12 @@
+package net.highwayfrogs.editor.games.generic.data;
+
+/**
+ * Controls how much of the original data of each game file is kept in memory once the file has been loaded.
+ * Configured per game instance with the 'fileDataRetention' key.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public enum FileDataRetention {
+    KEEP_ALL, // The original bytes (and the compressed bytes, when the file was compressed) are kept in memory.
+    HASH_ONLY, // Only the size and the SHA1 hash of the original bytes are kept. The original data is read (and decompressed) again from the archive if it is exported, and compressed files are compressed again when saved.
+    MAPPED_ARCHIVE // Only the location of each file in the memory-mapped archive is kept, and the bytes are read again whenever they are needed.
+}
@@ -0,0 +1,162 @@
+package net.highwayfrogs.editor.games.generic.data;
+
+import lombok.Getter;
+import net.highwayfrogs.editor.file.reader.ByteBufferSource;
+import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.games.generic.GameInstance;
+import net.highwayfrogs.editor.utils.Utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Holds the original data of a game file after it has been loaded, to the extent allowed by the game instance's FileDataRetention.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class RetainedFileData {
+    @Getter private final int length;
+    private final byte[] data;
+    private final Supplier<byte[]> dataSource;
+    private volatile String sha1Hash;
+
+    private RetainedFileData(int length, byte[] data, Supplier<byte[]> dataSource, String sha1Hash) {
+        this.length = length;
+        this.data = data;
+        this.dataSource = dataSource;
+        this.sha1Hash = sha1Hash;
+    }
+
+    /**
+     * Gets the original file data.
+     * @return fileData, or null if it could not be read again
+     */
+    public byte[] getData() {
+        if (this.data != null)
+            return this.data;
+
+        return this.dataSource != null ? this.dataSource.get() : null;
+    }
+
+    /**
+     * Test if the original file data can be obtained.
+     */
+    public boolean isDataAvailable() {
+        return this.data != null || this.dataSource != null;
+    }
+
+    /**
+     * Gets the SHA1 hash of the original file data.
+     */
+    public String getSha1Hash() {
+        if (this.sha1Hash == null)
+            this.sha1Hash = Utils.calculateSHA1Hash(getData());
+
+        return this.sha1Hash;
+    }
+
+    /**
+     * Creates a holder for the original data of a file, keeping as much of the data as the game instance allows.
+     * @param instance the game instance to get the retention policy from
+     * @param data the original file data
+     * @param dataSource reads the original file data again, if the data is available elsewhere. May be null.
+     * @return retainedFileData
+     */
+    public static RetainedFileData create(GameInstance instance, byte[] data, Supplier<byte[]> dataSource) {
+        if (data == null)
+            throw new NullPointerException("data");
+
+        switch (getRetention(instance)) {
+            case HASH_ONLY:
+                if (dataSource != null) // The data is only read again when it is exported.
+                    return new RetainedFileData(data.length, null, dataSource, Utils.calculateSHA1Hash(data));
+                // There is nowhere to read the data from again, so the data is kept.
+            case MAPPED_ARCHIVE:
+                if (dataSource != null)
+                    return new RetainedFileData(data.length, null, dataSource, null);
+                // There is nowhere to read the data from again, so the data is kept.
+            case KEEP_ALL:
+            default:
+                return new RetainedFileData(data.length, data, null, null);
+        }
+    }
+
+    /**
+     * Gets the data source which reads the original file data again, if the data is not kept in memory.
+     * @return dataSource, or null
+     */
+    public Supplier<byte[]> getDataSource() {
+        return this.data == null ? this.dataSource : null;
+    }
+
+    /**
+     * Creates a data source which copies a range of bytes out of the buffer a reader reads from.
+     * This allows file data to be read again from a memory-mapped archive, without keeping a copy on the heap.
+     * @param reader the reader to read data from
+     * @param startIndex the index of the first byte to read
+     * @param length the number of bytes to read
+     * @return dataSource, or null if the reader does not read from a buffer
+     */
+    public static Supplier<byte[]> createBufferSource(DataReader reader, int startIndex, int length) {
+        if (reader == null || !(reader.getSource() instanceof ByteBufferSource))
+            return null;
+
+        return new BufferRangeSource(((ByteBufferSource) reader.getSource()).getBuffer(), startIndex, length);
+    }
+
+    /**
+     * Creates a data source which reads a range of bytes out of the data provided by another data source.
+     * If the parent data source reads directly from a buffer (see createBufferSource), the range is read from the buffer without reading the rest of the parent data.
+     * Otherwise, the full parent data must be read (and possibly decompressed) to get the range, which is only allowed under HASH_ONLY, where the data is only read again to export it.
+     * @param instance the game instance to get the retention policy from
+     * @param parentSource the data source to read from
+     * @param startIndex the index of the first byte to read, relative to the start of the parent data
+     * @param length the number of bytes to read
+     * @return dataSource, or null if the range cannot be read from the parent data source cheaply enough for the retention policy
+     */
+    public static Supplier<byte[]> createRangeSource(GameInstance instance, Supplier<byte[]> parentSource, int startIndex, int length) {
+        if (parentSource == null)
+            return null;
+
+        if (!(parentSource instanceof BufferRangeSource)) {
+            if (getRetention(instance) != FileDataRetention.HASH_ONLY)
+                return null;
+
+            return () -> {
+                byte[] parentData = parentSource.get();
+                return parentData != null ? Arrays.copyOfRange(parentData, startIndex, startIndex + length) : null;
+            };
+        }
+
+        BufferRangeSource parentRange = (BufferRangeSource) parentSource;
+        if (startIndex < 0 || length < 0 || startIndex + length > parentRange.length)
+            throw new IndexOutOfBoundsException("The range [" + startIndex + ", " + (startIndex + length) + ") is outside of the parent data. (Length: " + parentRange.length + ")");
+
+        return new BufferRangeSource(parentRange.buffer, parentRange.startIndex + startIndex, length);
+    }
+
+    private static FileDataRetention getRetention(GameInstance instance) {
+        return instance != null ? instance.getFileDataRetention() : FileDataRetention.KEEP_ALL;
+    }
+
+    private static class BufferRangeSource implements Supplier<byte[]> {
+        private final ByteBuffer buffer;
+        private final int startIndex;
+        private final int length;
+
+        private BufferRangeSource(ByteBuffer buffer, int startIndex, int length) {
+            this.buffer = buffer;
+            this.startIndex = startIndex;
+            this.length = length;
+        }
+
+        @Override
+        public byte[] get() {
+            byte[] data = new byte[this.length];
+            ByteBuffer window = this.buffer.duplicate(); // The duplicate has its own position, so it can be read from any thread.
+            window.position(this.startIndex);
+            window.get(data);
+            return data;
+        }
+    }
+}
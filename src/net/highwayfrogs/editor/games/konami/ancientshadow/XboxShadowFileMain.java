@@ -7,6 +7,7 @@ import net.highwayfrogs.editor.file.GameObject;
 import net.highwayfrogs.editor.file.reader.ArraySource;
 import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.reader.FileSource;
+import net.highwayfrogs.editor.file.reader.MappedFileSource;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.file.writer.FileReceiver;
 import net.highwayfrogs.editor.games.konami.beyond.FroggerBeyondUtil;
@@ -44,9 +45,8 @@ public class XboxShadowFileMain {
             return;
         }
 
-        byte[] packed = Files.readAllBytes(file.toPath());
         HFSFile hfsFile = new HFSFile();
-        hfsFile.load(new DataReader(new ArraySource(packed)));
+        hfsFile.load(new DataReader(new MappedFileSource(file)));
 
         // Save data.
         int id = 0;
@@ -1,11 +1,23 @@
 package net.highwayfrogs.editor.games.konami.greatquest;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.utils.NumberUtils;
+import net.highwayfrogs.editor.utils.Utils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 /**
  * Contains algorithm for generating strings that reduce to an arbitrary hash.
@@ -53,6 +65,7 @@ public class GreatQuestHashReverser {
     private static final int NIBBLE_COUNT = 8; // The number of nibbles in a hash. (32 bits / 4 bits per nibble = 8 nibbles)
     private static boolean UPPER_CASE_SUPPORTED;
     private static final int MAXIMUM_UNKNOWN_CHARACTERS_PER_NIBBLE = 2; // 3 is probably feasible but will probably use > 10GB of RAM, and take several minutes to calculate.
+    private static final int THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
 
     private static final Map<Character, String> LIKELIHOOD_MAP = new HashMap<Character, String>() { // Used for finding what strings look like english text.
         {
@@ -100,6 +113,7 @@ public class GreatQuestHashReverser {
         System.out.println("Starting your input with '$<hash>,<template>' will find all strings which matches the hash by filling in the '*' characters in the template.");
         System.out.println("Starting your input with '@<hash>,<template>' will perform searches on the template by replacing '*' with increasing numbers of asterisks.");
         System.out.println("Starting your input with '#<hash>,<suffix>' will return the hash with the provided suffix removed. (Useful for finding the hash of a shared prefix)");
+        System.out.println("Starting your input with '&<template>,<hash>,<hash>...' will search for every hash at once using the template, spreading the work across all CPU cores.");
         System.out.println("Putting a '!' at the end will force non-repeat mode.");
         // Example Command: '$6AFA9D47,D00lILog*t' will find the letter 'o' for '*' making D00lILog*t.
 
@@ -173,6 +187,34 @@ public class GreatQuestHashReverser {
                 System.out.println(" - " + str);
             System.out.println(reverseHashes.size() + " result(s) in " + (hashEndTime - hashStartTime) + " ms for " + NumberUtils.to0PrefixedHexString(hash) + ".");
             printHashIfKnown(hash);
+        } else if (line.startsWith("&")) {
+            String[] split = line.substring(1).split(",");
+            if (split.length < 2) {
+                System.out.println("There were no hashes provided.");
+                return;
+            }
+
+            String template = split[0];
+            List<HashReverseRequest> requests = new ArrayList<>();
+            for (int i = 1; i < split.length; i++)
+                requests.add(new HashReverseRequest(Integer.parseUnsignedInt(split[i].trim(), 16), template));
+            System.out.println("Brute-forcing '" + template + "' to find strings that hash to " + requests.size() + " hash(es).");
+
+            long hashStartTime = System.currentTimeMillis();
+            Map<HashReverseRequest, List<String>> results = GreatQuestHashReverser.reverseHashes(requests, null, 0, null);
+            long hashEndTime = System.currentTimeMillis();
+
+            for (Map.Entry<HashReverseRequest, List<String>> entry : results.entrySet()) {
+                List<String> reverseHashes = entry.getValue();
+                Collections.reverse(reverseHashes); // Show the most likely ones at the bottom to reduce scrolling.
+                System.out.println();
+                System.out.println(reverseHashes.size() + " result(s) for " + NumberUtils.to0PrefixedHexString(entry.getKey().getHash()) + ":");
+                for (String str : reverseHashes)
+                    System.out.println(" - " + str);
+                printHashIfKnown(entry.getKey().getHash());
+            }
+
+            System.out.println("Searched for " + results.size() + " hash(es) in " + (hashEndTime - hashStartTime) + " ms.");
         } else if (line.startsWith("#")) {
             line = line.substring(1);
 
@@ -380,12 +422,92 @@ public class GreatQuestHashReverser {
     public static List<String> reverseHashForTemplate(String template, int hash, boolean debugMode, boolean allowRepeatMode) {
         initGlobalData();
 
+        // Verify there is at least one character to replace.
+        TGQHashContext context = createContext(template, hash, debugMode, allowRepeatMode);
+        if (context == null)
+            return (GreatQuestUtils.hash(template) == hash) ? Collections.singletonList(template) : Collections.emptyList();
+
+        return generateStrings(context);
+    }
+
+    /**
+     * Reverses many hashes at once, spreading the searches across all CPU cores.
+     * Each request is searched the same way reverseHash() would search it, sharing the precomputed lookup trees between all searches.
+     * @param requests             The hashes to reverse, and the prefix or template to reverse each one with.
+     * @param resultFilter         If not null, only strings accepted by this filter (such as a dictionary check) are kept. This is called from the search threads.
+     * @param maxResultsPerRequest Once this many strings have been accepted for a request, any searches still running for it are cut off. Zero or less means there is no limit.
+     * @param resultListener       If not null, each accepted string is passed to this as soon as it is found. This is called from the search threads.
+     * @return The accepted strings for each request, sorted by how likely they are to be valid file names.
+     */
+    public static Map<HashReverseRequest, List<String>> reverseHashes(Collection<HashReverseRequest> requests, Predicate<String> resultFilter, int maxResultsPerRequest, BiConsumer<HashReverseRequest, String> resultListener) {
+        initGlobalData();
+
+        // Create the searches for each request. A prefix is expanded into a search for each number of characters which could follow it.
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<HashReverseRequestState> states = new ArrayList<>(requests.size());
+        List<TemplateSearch> searches = new ArrayList<>();
+        for (HashReverseRequest request : requests) {
+            HashReverseRequestState state = new HashReverseRequestState(request, resultFilter, maxResultsPerRequest, resultListener);
+            states.add(state);
+
+            String template = request.getTemplate();
+            try {
+                if (template.contains("*")) {
+                    TGQHashContext context = createContext(template, request.getHash(), false, request.isAllowRepeatMode());
+                    searches.add(new TemplateSearch(context, state::acceptResult, () -> cancelled.get() || state.isFinished()));
+                } else if (GreatQuestUtils.hash(template) == request.getHash()) {
+                    state.acceptResult(template);
+                } else {
+                    for (int i = 0; i < NIBBLE_COUNT; i++) {
+                        template += "*";
+                        TGQHashContext context = createContext(template, request.getHash(), false, false);
+                        searches.add(new TemplateSearch(context, state::acceptResult, () -> cancelled.get() || state.isFinished()));
+                    }
+                }
+            } catch (Throwable th) {
+                Utils.handleError(null, th, false, "Cannot reverse hash %s using '%s'.", NumberUtils.to0PrefixedHexString(request.getHash()), template);
+            }
+        }
+
+        // Start the largest searches first, so the smaller ones can fill in the gaps once there are fewer searches left than threads.
+        searches.sort(Comparator.comparingInt(TemplateSearch::getUnknownCharacterCount).reversed());
+        ExecutorService threadPool = Executors.newWorkStealingPool(THREAD_COUNT); // Only exists for the duration of the batch, so its threads don't outlive it.
+        try {
+            List<Future<?>> futures = new ArrayList<>(searches.size());
+            for (TemplateSearch search : searches)
+                futures.add(threadPool.submit(search::run));
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException ex) {
+                    cancelled.set(true);
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while reversing hashes.", ex);
+                } catch (ExecutionException ex) {
+                    Utils.handleError(null, ex.getCause(), false, "A hash reverse search failed.");
+                }
+            }
+        } finally {
+            threadPool.shutdownNow();
+        }
+
+        // Sort the results.
+        Map<HashReverseRequest, List<String>> results = new LinkedHashMap<>();
+        for (HashReverseRequestState state : states) {
+            List<String> sortedResults = new ArrayList<>(state.getResults());
+            sortedResults.sort(Comparator.comparingDouble(GreatQuestHashReverser::calculateScore).reversed());
+            results.put(state.getRequest(), sortedResults);
+        }
+
+        return results;
+    }
+
+    private static TGQHashContext createContext(String template, int hash, boolean debugMode, boolean allowRepeatMode) {
         char[] stringChars = template.toCharArray();
         int[] charsToReplace = getReplacementPositions(stringChars);
-
-        // Verify there is at least one character to replace.
         if (charsToReplace.length == 0)
-            return (GreatQuestUtils.hash(template) == hash) ? Collections.singletonList(template) : Collections.emptyList();
+            return null;
 
         // XOR out the known characters, limiting the possible resulting characters.
         int templateHash = GreatQuestUtils.hash(template.replace('*', '\0')); // '\0' is a character that will not modify the string when Xor'd.
@@ -410,9 +532,7 @@ public class GreatQuestHashReverser {
         if (debugMode)
             System.out.println("Duplication Mode: " + repeatMode + " (" + repeatStart + ")");
 
-        // Generate strings from the pairs.
-        TGQHashContext context = new TGQHashContext(template, stringChars, charsToReplace, templateHash, hash, repeatStart, debugMode);
-        return generateStrings(context);
+        return new TGQHashContext(template, stringChars, charsToReplace, templateHash, hash, repeatStart, debugMode);
     }
 
     private static CharacterPairTreeBase[] setupDefaultTreeArray(TGQHashContext context) {
@@ -452,35 +572,16 @@ public class GreatQuestHashReverser {
     }
 
     private static List<String> generateStrings(TGQHashContext context) {
-        // Generate possible strings.
-        boolean debugMode = context.isDebugMode();
-        List<String> results = new ArrayList<>();
-        List<PartialHashString> queue = new ArrayList<>(); // LIFO.
-        queue.add(new PartialHashString(context));
-        while (queue.size() > 0) {
-            PartialHashString temp = queue.remove(queue.size() - 1);
-
-            // The string is complete.
-            if (temp.isDone()) {
-                if (temp.getHash() == context.getTargetHash() && (!debugMode || GreatQuestUtils.hash(temp.toString()) == context.getTargetHash())) {
-                    String tempStr = temp.toString();
-                    if (!results.contains(tempStr)) {
-                        results.add(tempStr);
-                    } else if (debugMode) {
-                        System.out.println("Attempted to add duplicate string '" + tempStr + "'.");
-                    }
-                } else if (debugMode) {
-                    System.out.println("Finished string to a non-matching hash: '" + temp + "', Tracked: " + NumberUtils.to0PrefixedHexString(temp.getHash()) + ", String: " + NumberUtils.to0PrefixedHexString(GreatQuestUtils.hash(temp.toString())) + ", Target: " + NumberUtils.to0PrefixedHexString(context.getTargetHash()));
-                }
-
-                continue;
-            }
-
-            temp.guessNextCharacter(queue);
-        }
+        Set<String> results = new LinkedHashSet<>();
+        new TemplateSearch(context, result -> {
+            if (!results.add(result) && context.isDebugMode())
+                System.out.println("Attempted to add duplicate string '" + result + "'.");
+            return true;
+        }, null).run();
 
-        results.sort(Comparator.comparingDouble(GreatQuestHashReverser::calculateScore).reversed());
-        return results;
+        List<String> sortedResults = new ArrayList<>(results);
+        sortedResults.sort(Comparator.comparingDouble(GreatQuestHashReverser::calculateScore).reversed());
+        return sortedResults;
     }
 
     @Getter
@@ -676,24 +777,73 @@ public class GreatQuestHashReverser {
         }
     }
 
-    @Getter
-    private static class PartialHashString {
+    /**
+     * A depth-first search over the characters of a template which reuses the same arrays for every candidate string.
+     * Instead of copying the partial string for each guess, the chosen character, the tree nodes it replaced, and the hash are kept per position, and restored when backtracking.
+     */
+    private static class TemplateSearch {
         private final TGQHashContext context;
+        private final Predicate<String> resultHandler;
+        private final BooleanSupplier stopCondition;
         private final char[] characters;
+        private final char[] resultCharacters;
         private final CharacterPairTreeBase[] treeNodes;
-        private final int position;
-        private final int hash;
+        private final int[] hashes; // [position] -> The hash before the character at the position is chosen.
+        private final int[] nibbleIds;
+        private final int[] previousNibbleIds;
+        private final boolean[] firstInSequence;
+        private final boolean[] lastInSequence;
+        private final CharacterPairTreeNode[][] candidates; // [position][candidate]
+        private final CharacterPairTreeNode[][] candidatePreviousNodes; // [position][candidate] -> The node chosen for the previous nibble, if the position starts a sequence.
+        private final int[] candidatesLeft;
+        private final CharacterPairTreeBase[] replacedNodes;
+        private final CharacterPairTreeBase[] replacedPreviousNodes;
+        private boolean stopped;
+
+        private static final int STOP_CHECK_INTERVAL = 1024;
 
-        public PartialHashString(TGQHashContext context) {
-            this(context, new char[context.getIndicesToReplace().length], setupDefaultTreeArray(context), 0, context.getTemplateHash());
+        /**
+         * Creates a new search.
+         * @param context the context to search
+         * @param resultHandler called with each string which matches the hash, returning false to stop the search
+         * @param stopCondition if not null, the search stops once this returns true
+         */
+        public TemplateSearch(TGQHashContext context, Predicate<String> resultHandler, BooleanSupplier stopCondition) {
+            this.context = context;
+            this.resultHandler = resultHandler;
+            this.stopCondition = stopCondition;
+
+            int[] charSlots = context.getIndicesToReplace();
+            int length = charSlots.length;
+            this.characters = new char[length];
+            this.resultCharacters = Arrays.copyOf(context.getTemplateCharacters(), context.getTargetLength());
+            this.treeNodes = setupDefaultTreeArray(context);
+            this.hashes = new int[length + 1];
+            this.hashes[0] = context.getTemplateHash();
+            this.nibbleIds = new int[length];
+            this.previousNibbleIds = new int[length];
+            this.firstInSequence = new boolean[length];
+            this.lastInSequence = new boolean[length];
+            this.candidates = new CharacterPairTreeNode[length][];
+            this.candidatePreviousNodes = new CharacterPairTreeNode[length][];
+            this.candidatesLeft = new int[length];
+            this.replacedNodes = new CharacterPairTreeBase[length];
+            this.replacedPreviousNodes = new CharacterPairTreeBase[length];
+            for (int i = 0; i < length; i++) {
+                this.nibbleIds[i] = calculateNibbleId(context.getTargetLength(), charSlots[i]);
+                this.previousNibbleIds[i] = calculateNibbleId(context.getTargetLength(), charSlots[i] - 1);
+                this.firstInSequence[i] = (i == 0) || (charSlots[i] != charSlots[i - 1] + 1); // Check if the last character was part of the template (and subsequently was XOR'd out already.)
+                this.lastInSequence[i] = (i == length - 1) || (charSlots[i] + 1 != charSlots[i + 1]);
+                this.candidates[i] = new CharacterPairTreeNode[16];
+                this.candidatePreviousNodes[i] = new CharacterPairTreeNode[16];
+            }
         }
 
-        private PartialHashString(TGQHashContext context, char[] characters, CharacterPairTreeBase[] treeNodes, int position, int hash) {
-            this.context = context;
-            this.characters = characters;
-            this.treeNodes = treeNodes;
-            this.position = position;
-            this.hash = hash;
+        /**
+         * Gets the number of characters this search fills in.
+         */
+        public int getUnknownCharacterCount() {
+            return this.characters.length;
         }
 
         /**
@@ -706,87 +856,109 @@ public class GreatQuestHashReverser {
         }
 
         /**
-         * Test if the string has been completed.
+         * Runs the search until every candidate has been tried, or the search is stopped.
          */
-        public boolean isDone() {
-            return this.position >= this.characters.length;
-        }
-
-        /**
-         * Gets the index in the template string to the character this partial string will fill.
-         * @return templateIndex
-         */
-        public int getTemplateIndex() {
-            if (isDone())
-                throw new RuntimeException("A completed string has no position in the template.");
-
-            return this.context.getIndicesToReplace()[this.position];
-        }
-
-        /**
-         * Gets the ID of the nibble the previous character slot takes up.
-         */
-        public int getPreviousNibbleId() {
-            return calculateNibbleId(this.context.getTargetLength(), this.context.getIndicesToReplace()[this.position] - 1);
-        }
+        public void run() {
+            int length = this.characters.length;
+            int position = 0;
+            int iterations = 0;
+            collectCandidates(position);
+            while (position >= 0 && !this.stopped) {
+                if (this.stopCondition != null && ++iterations % STOP_CHECK_INTERVAL == 0 && this.stopCondition.getAsBoolean())
+                    break;
+
+                if (this.candidatesLeft[position] <= 0) { // There's nothing left to try here, so go back to the previous character.
+                    if (--position >= 0)
+                        undoChoice(position);
+                    continue;
+                }
 
-        /**
-         * Gets the ID of the nibble the current character slot takes up.
-         */
-        public int getNibbleId() {
-            return calculateNibbleId(this.context.getTargetLength(), this.context.getIndicesToReplace()[this.position]);
+                // Candidates are tried last to first, matching the order of the original LIFO queue.
+                int candidateIndex = --this.candidatesLeft[position];
+                choose(position, this.candidates[position][candidateIndex], this.candidatePreviousNodes[position][candidateIndex]);
+                if (position == length - 1) {
+                    onStringCompleted();
+                    undoChoice(position);
+                } else {
+                    collectCandidates(++position);
+                }
+            }
         }
 
-        /**
-         * Choose the next character in the sequence.
-         * @param node The node selected in the tree representing the next character chosen.
-         * @return A new object with the slightly more completed string.
-         */
-        public PartialHashString chooseNext(CharacterPairTreeNode node) {
-            return this.chooseNext(node, null);
+        private void onStringCompleted() {
+            int hash = this.hashes[this.characters.length];
+            boolean debugMode = isDebuggable();
+            if (hash == this.context.getTargetHash() && (!debugMode || GreatQuestUtils.hash(toString(this.characters.length)) == this.context.getTargetHash())) {
+                if (!this.resultHandler.test(toString(this.characters.length)))
+                    this.stopped = true;
+            } else if (debugMode) {
+                String tempStr = toString(this.characters.length);
+                System.out.println("Finished string to a non-matching hash: '" + tempStr + "', Tracked: " + NumberUtils.to0PrefixedHexString(hash) + ", String: " + NumberUtils.to0PrefixedHexString(GreatQuestUtils.hash(tempStr)) + ", Target: " + NumberUtils.to0PrefixedHexString(this.context.getTargetHash()));
+            }
         }
 
         /**
-         * Choose the next character in the sequence.
-         * @param node The node selected in the tree representing the next character chosen.
-         * @return A new object with the slightly more completed string.
+         * Choose the character at the given position.
+         * @param position the position to choose the character for
+         * @param node the node selected in the tree representing the chosen character
+         * @param prevNibbleNode the node selected in the tree for the previous nibble, if the position starts a sequence
          */
-        public PartialHashString chooseNext(CharacterPairTreeNode node, CharacterPairTreeNode prevNibbleNode) {
-            if (isDone())
-                throw new RuntimeException("Cannot add more characters to a completed string.");
-
-            // Setup new string array.
+        private void choose(int position, CharacterPairTreeNode node, CharacterPairTreeNode prevNibbleNode) {
             char chosen = node.getFirst();
-            char[] newCharacters = Arrays.copyOf(this.characters, this.characters.length);
-            newCharacters[this.position] = chosen;
-
-            // Setup new node array.
-            CharacterPairTreeBase[] newNodes = Arrays.copyOf(this.treeNodes, this.treeNodes.length);
-            newNodes[getNibbleId()] = node;
-            if (prevNibbleNode != null)
-                newNodes[getPreviousNibbleId()] = prevNibbleNode;
+            this.characters[position] = chosen;
+
+            // Update node array.
+            int nibbleId = this.nibbleIds[position];
+            this.replacedNodes[position] = this.treeNodes[nibbleId];
+            this.treeNodes[nibbleId] = node;
+            if (prevNibbleNode != null) {
+                this.replacedPreviousNodes[position] = this.treeNodes[this.previousNibbleIds[position]];
+                this.treeNodes[this.previousNibbleIds[position]] = prevNibbleNode;
+            } else {
+                this.replacedPreviousNodes[position] = null;
+            }
 
             // For hash calculating purposes, treat it as lower case.
             if (!UPPER_CASE_SUPPORTED && isUpperCaseLetter(chosen))
                 chosen = Character.toLowerCase(chosen);
 
             // Calculate new hash.
-            int nibbleId = getNibbleId();
-            int newHash = this.hash ^ (((byte) chosen) << (getNibbleId() << 2));
+            int newHash = this.hashes[position] ^ (((byte) chosen) << (nibbleId << 2));
             if (nibbleId == NIBBLE_COUNT - 1) // If we're at the highest bit, make sure to XOR the lowest one too.
                 newHash ^= getNibble(chosen, 1);
 
-            return new PartialHashString(this.context, newCharacters, newNodes, this.position + 1, newHash);
+            this.hashes[position + 1] = newHash;
+        }
+
+        /**
+         * Restores the tree nodes replaced when the character at the given position was chosen.
+         * @param position the position to undo
+         */
+        private void undoChoice(int position) {
+            if (this.replacedPreviousNodes[position] != null)
+                this.treeNodes[this.previousNibbleIds[position]] = this.replacedPreviousNodes[position];
+            this.treeNodes[this.nibbleIds[position]] = this.replacedNodes[position];
+        }
+
+        private void addCandidate(int position, CharacterPairTreeNode node, CharacterPairTreeNode prevNibbleNode) {
+            int index = this.candidatesLeft[position]++;
+            if (index >= this.candidates[position].length) {
+                this.candidates[position] = Arrays.copyOf(this.candidates[position], index * 2);
+                this.candidatePreviousNodes[position] = Arrays.copyOf(this.candidatePreviousNodes[position], index * 2);
+            }
+
+            this.candidates[position][index] = node;
+            this.candidatePreviousNodes[position][index] = prevNibbleNode;
         }
 
-        private boolean canUseNode(CharacterPairTreeNode node, boolean isLastCharacterInSequence) {
+        private boolean canUseNode(int position, CharacterPairTreeNode node, boolean isLastCharacterInSequence) {
             boolean debugMode = isDebuggable();
 
             // Perform duplicate mode checks.
             if (this.context.isRepeatMode()) {
-                if (this.position >= this.context.getRepeatSequenceLength()) { // Test if we're past the first sequence.
+                if (position >= this.context.getRepeatSequenceLength()) { // Test if we're past the first sequence.
                     // Ensure we're only allowing the same characters as the first sequence.
-                    int relativePos = this.position % this.context.getRepeatSequenceLength();
+                    int relativePos = position % this.context.getRepeatSequenceLength();
                     if (node.getFirst() != this.characters[relativePos]) {
                         if (debugMode) {
                             System.out.print(" - Denying '");
@@ -800,16 +972,14 @@ public class GreatQuestHashReverser {
                     }
                 } else {
                     // Determine if any already applied characters impact the current nibble.
-                    int currentNibble = getNibbleId();
-                    for (int i = 0; i <= this.position; i++) {
+                    int currentNibble = this.nibbleIds[position];
+                    for (int i = 0; i <= position; i++) {
                         int futureStrIndex = this.context.getIndicesToReplace()[i + this.context.getRepeatSequenceLength()];
                         int targetNibble = calculateNibbleId(this.context.getTargetLength(), futureStrIndex);
                         if (targetNibble != currentNibble)
                             continue;
 
-                        int actualStrIndex = this.context.getIndicesToReplace()[i];
-                        int actualNibble = calculateNibbleId(this.context.getTargetLength(), actualStrIndex);
-                        CharacterPairTreeBase futureBase = (i == this.position) ? node : this.treeNodes[actualNibble];
+                        CharacterPairTreeBase futureBase = (i == position) ? node : this.treeNodes[this.nibbleIds[i]];
                         if (futureBase.isRoot())
                             continue;
 
@@ -866,34 +1036,28 @@ public class GreatQuestHashReverser {
         }
 
         /**
-         * Generates possible next characters, and adds them to the provided queue.
-         * @param queue The queue to add the guesses to.
+         * Finds the characters which could be placed at the given position, and stores them as the candidates for the position.
+         * @param position the position to find candidates for
          */
-        public void guessNextCharacter(List<PartialHashString> queue) {
-            if (isDone())
-                return; // Nothing to add.
-
+        private void collectCandidates(int position) {
+            this.candidatesLeft[position] = 0;
             boolean debugMode = isDebuggable();
-            int[] charSlots = this.context.getIndicesToReplace();
-            int charTemplatePos = getTemplateIndex(); // The position of the character in the template we are guessing.
-            CharacterPairTreeBase currNode = this.treeNodes[getNibbleId()];
-            CharacterPairTreeBase prevNode = this.treeNodes[getPreviousNibbleId()];
-            boolean isLastCharacterInString = (this.position >= this.characters.length - 1);
-            boolean isLastCharacterInSequence = isLastCharacterInString || (charTemplatePos + 1 != charSlots[this.position + 1]);
-            boolean isFirstInSequence = (this.position == 0) // If we're beyond the first replacement character,
-                    || (charTemplatePos != charSlots[this.position - 1] + 1); // Check if the last character was part of the template (and subsequently was XOR'd out already.)
+            CharacterPairTreeBase currNode = this.treeNodes[this.nibbleIds[position]];
+            CharacterPairTreeBase prevNode = this.treeNodes[this.previousNibbleIds[position]];
+            boolean isLastCharacterInSequence = this.lastInSequence[position];
+            boolean isFirstInSequence = this.firstInSequence[position];
 
             if (debugMode) {
                 System.out.print("Current Chars: '");
-                System.out.print(this);
+                System.out.print(toString(position));
                 System.out.print("', Nibble ID: ");
-                System.out.print(getNibbleId());
+                System.out.print(this.nibbleIds[position]);
                 System.out.print(", isFirstInSequence: ");
                 System.out.print(isFirstInSequence);
                 System.out.print(", isLastCharacterInSequence: ");
                 System.out.print(isLastCharacterInSequence);
                 System.out.print(", isLastCharacterInString: ");
-                System.out.println(isLastCharacterInString);
+                System.out.println(position >= this.characters.length - 1);
             }
 
             if (!isFirstInSequence) {
@@ -917,8 +1081,8 @@ public class GreatQuestHashReverser {
                 // Add next characters.
                 for (int i = 0; i < newNodes.size(); i++) {
                     CharacterPairTreeNode newNode = newNodes.get(i);
-                    if (canUseNode(newNode, isLastCharacterInSequence))
-                        queue.add(chooseNext(newNode));
+                    if (canUseNode(position, newNode, isLastCharacterInSequence))
+                        addCandidate(position, newNode, null);
                 }
 
                 return;
@@ -950,37 +1114,23 @@ public class GreatQuestHashReverser {
 
                 for (int j = 0; j < ourNodes.size(); j++) {
                     CharacterPairTreeNode testNode = ourNodes.get(j);
-                    if (canUseNode(testNode, isLastCharacterInSequence))
-                        queue.add(chooseNext(testNode, keyNode));
+                    if (canUseNode(position, testNode, isLastCharacterInSequence))
+                        addCandidate(position, testNode, keyNode);
                 }
             }
         }
 
-        @Override
-        public String toString() {
-            char[] template = this.context.getTemplateCharacters();
+        /**
+         * Creates the string with the characters chosen so far. Characters which have not been chosen yet are shown as '*'.
+         * @param chosenCount the number of characters which have been chosen
+         * @return string
+         */
+        private String toString(int chosenCount) {
             int[] charsToReplace = this.context.getIndicesToReplace();
-            if (charsToReplace.length != this.characters.length)
-                throw new RuntimeException("The amount of characters to replace did not match the act");
-
-            // Replace characters with replacements.
-            for (int i = 0; i < charsToReplace.length; i++) {
-                char temp = template[charsToReplace[i]];
-                template[charsToReplace[i]] = this.characters[i];
-                this.characters[i] = temp;
-            }
+            for (int i = 0; i < charsToReplace.length; i++)
+                this.resultCharacters[charsToReplace[i]] = (i < chosenCount) ? this.characters[i] : '*';
 
-            // Create result string.
-            String result = new String(template).replace('\0', '*');
-
-            // Restore template.
-            for (int i = 0; i < charsToReplace.length; i++) {
-                char temp = template[charsToReplace[i]];
-                template[charsToReplace[i]] = this.characters[i];
-                this.characters[i] = temp;
-            }
-
-            return result;
+            return new String(this.resultCharacters);
         }
     }
 
@@ -1015,6 +1165,70 @@ public class GreatQuestHashReverser {
         }
     }
 
+    /**
+     * A hash to reverse as part of a batch.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class HashReverseRequest {
+        private final int hash;
+        private final String template; // A template containing '*' characters to fill in, or a prefix which the rest of the string follows.
+        private final boolean allowRepeatMode;
+
+        public HashReverseRequest(int hash, String template) {
+            this(hash, template, true);
+        }
+    }
+
+    @Getter
+    private static class HashReverseRequestState {
+        private final HashReverseRequest request;
+        @Getter(AccessLevel.NONE) private final Predicate<String> resultFilter;
+        @Getter(AccessLevel.NONE) private final int maxResults;
+        @Getter(AccessLevel.NONE) private final BiConsumer<HashReverseRequest, String> resultListener;
+        @Getter(AccessLevel.NONE) private final Set<String> seenResults = ConcurrentHashMap.newKeySet();
+        @Getter(AccessLevel.NONE) private final AtomicInteger acceptedResultCount = new AtomicInteger();
+        private final List<String> results = Collections.synchronizedList(new ArrayList<>());
+
+        public HashReverseRequestState(HashReverseRequest request, Predicate<String> resultFilter, int maxResults, BiConsumer<HashReverseRequest, String> resultListener) {
+            this.request = request;
+            this.resultFilter = resultFilter;
+            this.maxResults = maxResults;
+            this.resultListener = resultListener;
+        }
+
+        /**
+         * Test if enough results have been accepted that the searches for this request can stop.
+         */
+        public boolean isFinished() {
+            return this.maxResults > 0 && this.acceptedResultCount.get() >= this.maxResults;
+        }
+
+        /**
+         * Accepts a string found to match the hash, if it passes the filter.
+         * @param result The string which matches the hash.
+         * @return If the search should continue.
+         */
+        public boolean acceptResult(String result) {
+            if (isFinished())
+                return false;
+            if (this.resultFilter != null && !this.resultFilter.test(result))
+                return true;
+            if (!this.seenResults.add(result))
+                return true; // Several templates can create the same string.
+
+            int resultCount = this.acceptedResultCount.incrementAndGet();
+            if (this.maxResults > 0 && resultCount > this.maxResults)
+                return false; // Another thread reached the limit first.
+
+            this.results.add(result);
+            if (this.resultListener != null)
+                this.resultListener.accept(this.request, result);
+
+            return this.maxResults <= 0 || resultCount < this.maxResults;
+        }
+    }
+
     private static int calculateNibbleId(int strLength, int strPos) {
         // We can ignore the nibbles impacted by the initial value of string length.
         // This is because we've moving from the end of the string (the lowest nibble in a hash) to an offset to the start of the string.
@@ -1171,7 +1385,7 @@ public class GreatQuestHashReverser {
         }
     }
 
-    private static void initGlobalData() {
+    private static synchronized void initGlobalData() {
         initNibbleLookupTable();
         initXorLookupTable();
         initLookupTree();
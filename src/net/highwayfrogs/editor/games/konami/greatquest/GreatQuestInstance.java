@@ -3,9 +3,11 @@ package net.highwayfrogs.editor.games.konami.greatquest;
 import lombok.Getter;
 import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.reader.FileSource;
+import net.highwayfrogs.editor.file.reader.MappedFileSource;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.file.writer.LargeFileReceiver;
 import net.highwayfrogs.editor.games.generic.GameInstance;
+import net.highwayfrogs.editor.games.generic.data.FileDataRetention;
 import net.highwayfrogs.editor.games.konami.greatquest.animation.kcTrack;
 import net.highwayfrogs.editor.games.konami.greatquest.animation.key.kcAnimState;
 import net.highwayfrogs.editor.games.konami.greatquest.animation.key.kcTrackKeyBezier.kcTrackKeyBezierPosition;
@@ -139,7 +141,7 @@ public class GreatQuestInstance extends GameInstance {
 
         // Load the main file.
         try {
-            DataReader reader = new DataReader(new FileSource(binFile));
+            DataReader reader = new DataReader(new MappedFileSource(binFile));
             this.mainArchive = new GreatQuestAssetBinFile(this);
             this.mainArchive.load(reader, progressBar);
             this.allFiles.addAll(this.mainArchive.getFiles());
@@ -241,6 +243,11 @@ public class GreatQuestInstance extends GameInstance {
      * @param progressBar the progress bar to display progress for
      */
     public void saveGame(File outputBinFile, ProgressBarComponent progressBar) {
+        // Original file data is read back from the loaded .bin while saving, so it cannot be overwritten.
+        if (getFileDataRetention() != FileDataRetention.KEEP_ALL && this.mainArchiveBinFile != null
+                && this.mainArchiveBinFile.getAbsoluteFile().equals(outputBinFile.getAbsoluteFile()))
+            throw new IllegalArgumentException("Cannot overwrite '" + outputBinFile.getName() + "' while original file data is read from it. (" + CONFIG_FILE_DATA_RETENTION + ": " + getFileDataRetention() + ")");
+
         // Save SBRs.
         if (progressBar != null)
             progressBar.setTotalProgress(this.looseFiles.size());
@@ -6,6 +6,7 @@ import javafx.scene.control.MenuItem;
 import javafx.scene.image.Image;
 import lombok.SneakyThrows;
 import net.highwayfrogs.editor.Constants;
+import net.highwayfrogs.editor.file.reader.ArraySource;
 import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestHash;
@@ -79,17 +80,19 @@ public class GreatQuestChunkedFile extends GreatQuestArchiveFile implements IFil
         this.chunks.clear();
 
         // Prepare chunks.
-        Map<kcCResource, byte[]> cachedRawDataMap = new HashMap<>();
+        Map<kcCResource, DataReader> cachedChunkReaders = new HashMap<>();
+        Map<kcCResource, Integer> chunkDataOffsets = new HashMap<>();
         kcCResourceTOC tocChunk = null;
         int tocPos = 0;
         while (reader.hasMore()) {
             String identifier = reader.readTerminatedString(4);
             int length = reader.readInt() + kcCResource.NAME_SIZE; // 0x20 and not 0x24 because we're reading from the start of the data, not the length.
-            byte[] readBytes = reader.readBytes(Math.min(reader.getRemaining(), length));
+            int chunkDataOffset = reader.getIndex();
+            DataReader chunkReader = reader.slice(Math.min(reader.getRemaining(), length));
 
             // Read chunk.
             KCResourceID readType = KCResourceID.getByMagic(identifier);
-            kcCResource newChunk = createResource(readType, readBytes, identifier);
+            kcCResource newChunk = createResource(readType, chunkReader, identifier);
 
             if (newChunk instanceof kcCResourceTOC) {
                 // If we encounter a table of contents, use it for reading the upcoming chunks!
@@ -97,9 +100,10 @@ public class GreatQuestChunkedFile extends GreatQuestArchiveFile implements IFil
                     throw new IllegalStateException("kcCResourceTOC was not the first chunk in the file!");
 
                 tocChunk = (kcCResourceTOC) newChunk;
-                tocChunk.loadFromRawBytes(readBytes);
+                tocChunk.loadFromReader(chunkReader, chunkDataOffset);
             } else {
-                cachedRawDataMap.put(newChunk, readBytes);
+                cachedChunkReaders.put(newChunk, chunkReader);
+                chunkDataOffsets.put(newChunk, chunkDataOffset);
                 this.chunks.add(newChunk);
 
                 // Apply the hash from the table of contents.
@@ -113,7 +117,7 @@ public class GreatQuestChunkedFile extends GreatQuestArchiveFile implements IFil
         for (int i = 0; i < this.chunks.size(); i++) {
             kcCResource chunk = this.chunks.get(i);
             if (!(chunk instanceof kcCResourceTOC)) {
-                chunk.loadFromRawBytes(cachedRawDataMap.remove(chunk));
+                chunk.loadFromReader(cachedChunkReaders.remove(chunk), chunkDataOffsets.remove(chunk));
                 if (lastChunk != null && RESOURCE_ORDERING.compare(chunk, lastChunk) < 0)
                     getLogger().warning("The chunk '" + chunk.getName() + "'/" + chunk.getHashAsHexString() + " was expected to be sorted before '" + lastChunk.getName() + "'/" + lastChunk.getHashAsHexString() + ", but it was found after it!");
 
@@ -1026,7 +1030,7 @@ public class GreatQuestChunkedFile extends GreatQuestArchiveFile implements IFil
                 builder.append("]: '");
                 builder.append(chunk.getName());
                 builder.append("', ");
-                builder.append(chunk.getRawData() != null ? chunk.getRawData().length : 0);
+                builder.append(Math.max(0, chunk.getRawDataLength()));
                 builder.append(" bytes");
                 if (!chunk.isHashBasedOnName() && chunk.getSelfHash().getOriginalString() != null)
                     builder.append(" (").append(chunk.getSelfHash().getOriginalString()).append(')');
@@ -1064,7 +1068,7 @@ public class GreatQuestChunkedFile extends GreatQuestArchiveFile implements IFil
 
             // Check there is data.
             String fileName = NumberUtils.padNumberString(count, 3);
-            if (chunk.getRawData() == null) {
+            if (!chunk.isRawDataAvailable()) {
                 getLogger().warning("Skipping chunk with null data: '" + signature + "-" + fileName + "'.");
                 continue;
             }
@@ -1211,10 +1215,21 @@ public class GreatQuestChunkedFile extends GreatQuestArchiveFile implements IFil
      * @return newResource
      */
     public kcCResource createResource(KCResourceID readType, byte[] rawBytes, String identifier) {
+        return createResource(readType, new DataReader(new ArraySource(rawBytes)), identifier);
+    }
+
+    /**
+     * Creates a new resource.
+     * @param readType the type of resource to create
+     * @param chunkReader a reader for the raw chunk data to create with. The reader index is not changed.
+     * @param identifier the raw identifier string
+     * @return newResource
+     */
+    public kcCResource createResource(KCResourceID readType, DataReader chunkReader, String identifier) {
         kcCResource newChunk;
-        if (readType == KCResourceID.RAW && DataUtils.testSignature(rawBytes, kcEnvironment.ENVIRONMENT_NAME)) {
+        if (readType == KCResourceID.RAW && testSignature(chunkReader, kcEnvironment.ENVIRONMENT_NAME)) {
             newChunk = new kcEnvironment(this);
-        } else if (readType == KCResourceID.RAW && DataUtils.testSignature(rawBytes, kcScriptList.GLOBAL_SCRIPT_NAME)) {
+        } else if (readType == KCResourceID.RAW && testSignature(chunkReader, kcScriptList.GLOBAL_SCRIPT_NAME)) {
             newChunk = new kcScriptList(this);
         } else if (readType != null && readType.getMaker() != null) {
             newChunk = readType.getMaker().apply(this);
@@ -1225,4 +1240,15 @@ public class GreatQuestChunkedFile extends GreatQuestArchiveFile implements IFil
 
         return newChunk;
     }
-}
\ No newline at end of file
+
+    private static boolean testSignature(DataReader chunkReader, String signature) {
+        byte[] signatureBytes = signature.getBytes();
+        if (chunkReader.getSize() < signatureBytes.length)
+            return false;
+
+        chunkReader.jumpTemp(0);
+        byte[] readBytes = chunkReader.readBytes(signatureBytes.length);
+        chunkReader.jumpReturn();
+        return DataUtils.testSignature(readBytes, signatureBytes);
+    }
+}
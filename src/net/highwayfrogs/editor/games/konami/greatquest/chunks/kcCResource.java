@@ -12,6 +12,7 @@ import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.reader.ArraySource;
 import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.writer.DataWriter;
+import net.highwayfrogs.editor.games.generic.data.FileDataRetention;
 import net.highwayfrogs.editor.games.generic.data.GameData;
 import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestHash;
 import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestHash.kcHashedResource;
@@ -35,13 +36,18 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Represents a resource in a TGQ file.
  * Created by Kneesnap on 8/25/2019.
  */
 public abstract class kcCResource extends GameData<GreatQuestInstance> implements kcHashedResource, ICollectionViewEntry, IPropertyListCreator {
-    @Getter private byte[] rawData;
+    private DataReader rawDataReader; // A view of the resource data as it was read, which is only copied into rawData when requested.
+    private Supplier<byte[]> rawDataSource; // Reads the resource data again from the parent file, when the view is not retained.
+    @Getter private int rawDataLength = -1; // The length of the resource data as it was read, or -1 if it was not read.
+    private int loadingParentFileOffset = -1; // While loading from the parent file's original data, this is where the resource data starts in that data.
+    private byte[] rawData;
     @Getter private final KCResourceID chunkType;
     @Getter private final GreatQuestHash<? extends kcCResource> selfHash; // The real hash comes from the TOC chunk.
     @Getter private final ObjectProperty<String> nameProperty = new SimpleObjectProperty<>(); // Usually this is what the hash is based on, but not always.
@@ -183,9 +189,44 @@ public abstract class kcCResource extends GameData<GreatQuestInstance> implement
      * @param reader The reader to read raw data from.
      */
     protected void readRawData(DataReader reader) {
-        reader.jumpTemp(reader.getIndex());
-        this.rawData = reader.readBytes(reader.getRemaining());
-        reader.jumpReturn();
+        this.rawData = null;
+        this.rawDataLength = reader.getRemaining();
+        FileDataRetention retention = getGameInstance() != null ? getGameInstance().getFileDataRetention() : FileDataRetention.KEEP_ALL;
+        if (retention == FileDataRetention.KEEP_ALL) {
+            this.rawDataReader = reader.newReader(reader.getIndex(), reader.getRemaining());
+            this.rawDataSource = null;
+            return;
+        }
+
+        // The view would keep the whole file data in memory, so the data is re-read from the parent file instead, if possible.
+        this.rawDataReader = null;
+        this.rawDataSource = null;
+        GreatQuestChunkedFile parentFile = getParentFile();
+        if (parentFile != null && this.loadingParentFileOffset >= 0)
+            this.rawDataSource = parentFile.createOriginalDataRangeSource(this.loadingParentFileOffset + reader.getIndex(), this.rawDataLength);
+        if (this.rawDataSource == null) // The data can't be read again from where it came from, so keep what was read.
+            this.rawData = reader.newReader(reader.getIndex(), reader.getRemaining()).toByteArray();
+    }
+
+    /**
+     * Test if the raw resource data which was read when the resource was loaded can be obtained.
+     */
+    public boolean isRawDataAvailable() {
+        return this.rawData != null || this.rawDataReader != null || this.rawDataSource != null;
+    }
+
+    /**
+     * Gets the raw resource data which was read when the resource was loaded, if it was loaded.
+     * The data is only copied out of the source it was read from the first time this is called.
+     * @return rawData, or null
+     */
+    public byte[] getRawData() {
+        if (this.rawData == null && this.rawDataReader != null)
+            this.rawData = this.rawDataReader.toByteArray();
+        if (this.rawData == null && this.rawDataSource != null)
+            return this.rawDataSource.get(); // Not kept, since that would defeat the retention policy.
+
+        return this.rawData;
     }
 
     /**
@@ -216,7 +257,27 @@ public abstract class kcCResource extends GameData<GreatQuestInstance> implement
         if (rawBytes == null)
             throw new NullPointerException("rawBytes");
 
-        DataReader chunkReader = new DataReader(new ArraySource(rawBytes));
+        loadFromReader(new DataReader(new ArraySource(rawBytes)));
+    }
+
+    /**
+     * Loads the resource contents from a reader containing only the resource data.
+     * @param chunkReader the reader to read the data from
+     */
+    public void loadFromReader(DataReader chunkReader) {
+        loadFromReader(chunkReader, -1);
+    }
+
+    /**
+     * Loads the resource contents from a reader containing only the resource data.
+     * @param chunkReader the reader to read the data from
+     * @param parentFileOffset the offset of the resource data within the original data of the parent file, or -1 if the data did not come from the parent file
+     */
+    public void loadFromReader(DataReader chunkReader, int parentFileOffset) {
+        if (chunkReader == null)
+            throw new NullPointerException("chunkReader");
+
+        this.loadingParentFileOffset = parentFileOffset;
         try {
             this.load(chunkReader);
 
@@ -225,6 +286,8 @@ public abstract class kcCResource extends GameData<GreatQuestInstance> implement
                 getLogger().warning("GreatQuest Resource " + StringUtils.stripAlphanumeric(getChunkIdentifier()) + "/'" + getName() + "' in '" + getParentFile().getDebugName() + "' had " + chunkReader.getRemaining() + " remaining unread bytes.");
         } catch (Throwable th) {
             Utils.handleError(getLogger(), th, false, "Failed to read %s chunk from '%s'.", getChunkType(), getParentFile().getDebugName());
+        } finally {
+            this.loadingParentFileOffset = -1;
         }
     }
 
@@ -323,8 +386,8 @@ public abstract class kcCResource extends GameData<GreatQuestInstance> implement
         propertyList.add("Name", getName());
         if (!this.hashBasedOnName)
             propertyList.add("Original Name", this.selfHash.getOriginalString());
-        if (this.rawData != null)
-            propertyList.add("Loaded Data Length", DataSizeUnit.formatSize(this.rawData.length) + " (" + this.rawData.length + " bytes)");
+        if (this.rawDataLength >= 0)
+            propertyList.add("Loaded Data Length", DataSizeUnit.formatSize(this.rawDataLength) + " (" + this.rawDataLength + " bytes)");
 
         return propertyList;
     }
@@ -359,7 +422,7 @@ public abstract class kcCResource extends GameData<GreatQuestInstance> implement
 
         MenuItem exportRawDataItem = new MenuItem("Export Original Data");
         contextMenu.getItems().add(exportRawDataItem);
-        exportRawDataItem.setOnMenuValidation(event -> ((MenuItem) event.getTarget()).setDisable(this.rawData == null));
+        exportRawDataItem.setOnMenuValidation(event -> ((MenuItem) event.getTarget()).setDisable(!isRawDataAvailable()));
         exportRawDataItem.setOnAction(event -> {
             File outputFile = FileUtils.askUserToSaveFile(getGameInstance(), CHUNK_FILE_PATH, getName() + "-RAW", true);
             if (outputFile != null)
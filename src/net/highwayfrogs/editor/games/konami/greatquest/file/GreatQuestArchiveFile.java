@@ -2,10 +2,12 @@ package net.highwayfrogs.editor.games.konami.greatquest.file;
 
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import net.highwayfrogs.editor.file.reader.ArraySource;
 import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.games.generic.data.RetainedFileData;
 import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestHash;
 import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestHash.kcHashedResource;
 import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestInstance;
@@ -25,6 +27,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 /**
  * A base TGQ file.
@@ -32,7 +35,9 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public abstract class GreatQuestArchiveFile extends GreatQuestGameFile implements ICollectionViewEntry, IPropertyListCreator, kcHashedResource {
     @Getter private final GreatQuestHash<GreatQuestArchiveFile> selfHash;
-    @Getter private byte[] rawData;
+    @Getter(AccessLevel.NONE) private RetainedFileData rawData;
+    private byte[] unloadedFileData; // The file data to load the file from, which is released once the file has been loaded.
+    private boolean loadingOriginalData; // True while the file is being loaded from the original data it was read with.
     @Getter private String fileName;
     @Getter private String filePath;
     @Getter private boolean collision; // This is true iff there are multiple files that share the hash.
@@ -59,7 +64,7 @@ public abstract class GreatQuestArchiveFile extends GreatQuestGameFile implement
 
     @Override
     public void setupRightClickMenuItems(ContextMenu contextMenu) {
-        if (this.rawData != null) {
+        if (isRawDataAvailable()) {
             MenuItem saveOriginalFileData = new MenuItem("Export Original File Data");
             contextMenu.getItems().add(saveOriginalFileData);
             saveOriginalFileData.setOnAction(event -> {
@@ -80,8 +85,12 @@ public abstract class GreatQuestArchiveFile extends GreatQuestGameFile implement
         if (targetFile == null)
             throw new NullPointerException("targetFile");
 
+        byte[] rawData = getRawData();
+        if (rawData == null)
+            throw new IllegalStateException("The original file data for '" + getFileName() + "' is not available, so it cannot be exported.");
+
         try {
-            Files.write(targetFile.toPath(), this.rawData);
+            Files.write(targetFile.toPath(), rawData);
         } catch (IOException ex) {
             throw new RuntimeException("Failed to export original file data for '" + getFileName() + "' to '" + targetFile.getName() + "'.", ex);
         }
@@ -107,7 +116,7 @@ public abstract class GreatQuestArchiveFile extends GreatQuestGameFile implement
         propertyList.add("Name Collision", this.collision);
         propertyList.add("Compression Enabled", this.compressed);
         if (this.rawData != null)
-            propertyList.add("Loaded File Size", DataSizeUnit.formatSize(this.rawData.length));
+            propertyList.add("Loaded File Size", DataSizeUnit.formatSize(this.rawData.getLength()));
 
         return propertyList;
     }
@@ -118,13 +127,67 @@ public abstract class GreatQuestArchiveFile extends GreatQuestGameFile implement
      * @param compressed Whether this file is compressed.
      */
     public void init(String realName, boolean compressed, int hash, byte[] rawBytes, boolean collision) {
+        init(realName, compressed, hash, rawBytes, null, collision);
+    }
+
+    /**
+     * Initialize the information about this file.
+     * @param realName   This file's raw name. Can be null.
+     * @param compressed Whether this file is compressed.
+     * @param rawDataSource Reads the raw bytes again from the archive, allowing them to be released. Can be null.
+     */
+    public void init(String realName, boolean compressed, int hash, byte[] rawBytes, Supplier<byte[]> rawDataSource, boolean collision) {
         setFilePath(realName);
         this.compressed = compressed;
         this.selfHash.setHash(hash);
-        this.rawData = rawBytes;
+        this.rawData = rawBytes != null ? RetainedFileData.create(getGameInstance(), rawBytes, rawDataSource) : null;
+        this.unloadedFileData = rawBytes;
         this.collision = collision;
     }
 
+    /**
+     * Gets the original file data, as it was read from the archive.
+     * @return rawData, or null if the file was not read from an archive
+     */
+    public byte[] getRawData() {
+        return this.rawData != null ? this.rawData.getData() : null;
+    }
+
+    /**
+     * Test if the original file data can be obtained.
+     */
+    public boolean isRawDataAvailable() {
+        return this.rawData != null && this.rawData.isDataAvailable();
+    }
+
+    /**
+     * Loads the file from the data provided to init(), then releases that data.
+     */
+    public void loadFileFromInitData() {
+        byte[] fileBytes = this.unloadedFileData != null ? this.unloadedFileData : getRawData();
+        this.unloadedFileData = null;
+        this.loadingOriginalData = true;
+        try {
+            loadFileFromBytes(fileBytes);
+        } finally {
+            this.loadingOriginalData = false;
+        }
+    }
+
+    /**
+     * Creates a data source which reads a range of the original file data again from the archive, without reading the rest of the file.
+     * This is only available while the file is being loaded from its original data, since the data being loaded may otherwise be unrelated.
+     * @param startIndex the index of the first byte to read, relative to the start of the file data
+     * @param length the number of bytes to read
+     * @return dataSource, or null if the range cannot be read again cheaply enough for the file data retention policy
+     */
+    public Supplier<byte[]> createOriginalDataRangeSource(int startIndex, int length) {
+        if (!this.loadingOriginalData || this.rawData == null)
+            return null;
+
+        return RetainedFileData.createRangeSource(getGameInstance(), this.rawData.getDataSource(), startIndex, length);
+    }
+
     /**
      * Loads the file from the provided bytes.
      * @param fileBytes the bytes to load the file data from
@@ -234,7 +297,7 @@ public abstract class GreatQuestArchiveFile extends GreatQuestGameFile implement
     public void export(File baseFolder) {
         File targetFile = GreatQuestUtils.getExportFile(baseFolder, this);
         File targetFolder = targetFile.getParentFile();
-        if (this.rawData != null && (!targetFile.exists() || targetFile.length() != this.rawData.length))
+        if (isRawDataAvailable() && (!targetFile.exists() || targetFile.length() != this.rawData.getLength()))
             exportOriginalFileData(targetFile);
 
         if (this instanceof IFileExport) {
@@ -6,6 +6,7 @@ import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.writer.ArrayReceiver;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.games.generic.data.GameData;
+import net.highwayfrogs.editor.games.generic.data.RetainedFileData;
 import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestInstance;
 import net.highwayfrogs.editor.games.konami.greatquest.GreatQuestUtils;
 import net.highwayfrogs.editor.games.konami.greatquest.chunks.GreatQuestChunkedFile;
@@ -20,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Parses FTGQ's main game data file. It's called "data.bin" in all of the builds we've seen.
@@ -162,7 +164,7 @@ public class GreatQuestAssetBinFile extends GameData<GreatQuestInstance> {
             progressBar.setStatusMessage("Reading '" + file.getExportName() + "'");
 
         try {
-            file.loadFileFromBytes(file.getRawData());
+            file.loadFileFromInitData();
         } catch (Throwable th) {
             Utils.handleError(getLogger(), th, false);
         }
@@ -417,10 +419,15 @@ public class GreatQuestAssetBinFile extends GameData<GreatQuestInstance> {
 
             requireReaderIndex(reader, this.offset, "Expected file data for '" + this.name + "'");
             byte[] fileBytes;
+            Supplier<byte[]> fileDataSource;
             if (isCompressed) {
+                Supplier<byte[]> compressedDataSource = RetainedFileData.createBufferSource(reader, this.offset, this.compressedSize);
                 byte[] compressedFileBytes = reader.readBytes(this.compressedSize);
                 fileBytes = GreatQuestUtils.zlibDecompress(compressedFileBytes, this.size);
+                int size = this.size;
+                fileDataSource = compressedDataSource != null ? () -> GreatQuestUtils.zlibDecompress(compressedDataSource.get(), size) : null;
             } else {
+                fileDataSource = RetainedFileData.createBufferSource(reader, this.offset, this.size);
                 fileBytes = reader.readBytes(this.size);
             }
 
@@ -438,7 +445,7 @@ public class GreatQuestAssetBinFile extends GameData<GreatQuestInstance> {
             }
 
             // Setup file.
-            readFile.init(this.name, isCompressed, this.nameHash, fileBytes, this.hasCollision);
+            readFile.init(this.name, isCompressed, this.nameHash, fileBytes, fileDataSource, this.hasCollision);
             if (progressBar != null)
                 progressBar.setStatusMessage("Preparing '" + readFile.getExportName() + "'");
 
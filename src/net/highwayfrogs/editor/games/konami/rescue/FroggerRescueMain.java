@@ -3,6 +3,7 @@ package net.highwayfrogs.editor.games.konami.rescue;
 
 import net.highwayfrogs.editor.file.reader.ArraySource;
 import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.file.reader.MappedFileSource;
 import net.highwayfrogs.editor.games.konami.hudson.HudsonGameFile;
 import net.highwayfrogs.editor.games.renderware.RwStreamChunk;
 import net.highwayfrogs.editor.games.renderware.RwStreamChunkTypeRegistry;
@@ -68,9 +69,8 @@ public class FroggerRescueMain {
     }
 
     private static HFSFile loadHfsFile(File file) throws IOException {
-        byte[] packed = Files.readAllBytes(file.toPath());
         HFSFile hfsFile = new HFSFile(new PhysicalFileDefinition(null, file));
-        hfsFile.load(new DataReader(new ArraySource(packed)));
+        hfsFile.load(new DataReader(new MappedFileSource(file)));
         return hfsFile;
     }
 
@@ -112,6 +112,11 @@ public class PSXTIMFile extends SCSharedGameFile {
         this.rawImageBytes = reader.readBytes(imageEndPos - reader.getIndex());
     }
 
+    @Override
+    public boolean isParallelLoadSupported() {
+        return true;
+    }
+
     private PSXClutColor[][] readPalettes(DataReader reader, BPPType bppType, int clutWidth, PSXClutColor[][] palettes) {
         int clutHeight = palettes.length;
         if (clutWidth == 0 || clutHeight == 0 || clutWidth > 256 || clutHeight > 256)
@@ -8,12 +8,10 @@ import net.highwayfrogs.editor.file.vlo.ImageWorkHorse;
 import net.highwayfrogs.editor.games.psx.CVector;
 import net.highwayfrogs.editor.games.sony.shared.SCByteTextureUV;
 import net.highwayfrogs.editor.gui.texture.ITextureSource;
-import net.highwayfrogs.editor.utils.ColorUtils;
-import net.highwayfrogs.editor.utils.fx.wrapper.FXIntArray;
-import net.highwayfrogs.editor.utils.objects.IndexBitArray;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 /**
  * JavaFX does not give us anywhere near enough control over the 3D rendering pipeline to properly recreate the gouraud shading seen on the PlayStation.
@@ -29,19 +27,18 @@ import java.awt.image.BufferedImage;
  * This order matches how the PSX GPU processes a quad, first using vertices 1-2-3, then 2-3-4, according to <a href="https://psx-spx.consoledev.net/graphicsprocessingunitgpu/">this link</a>.
  * Created by Kneesnap on 12/19/2023.
  */
-@Getter
 public class PSXTextureShader {
     private static final ThreadLocal<PSXTextureShader> TEXTURE_SHADER_THREAD = ThreadLocal.withInitial(PSXTextureShader::new);
     @SuppressWarnings("MismatchedReadAndWriteOfArray") // It is actually read.
     private final TextureCoordinate[] triangleCoordinates = new TextureCoordinate[3];
-    @SuppressWarnings("MismatchedReadAndWriteOfArray") // It is actually read.
-    private final CVector[] triangleColors = new CVector[3];
-    private final CVector tempColorVector1 = new CVector();
-    private final CVector tempColorVector2 = new CVector();
-    private final CVector tempColorVector3 = new CVector();
-    private final IndexBitArray pixelPosSeen = new IndexBitArray();
-    private final IndexBitArray firstLayerPixelShadePositions = new IndexBitArray();
-    private final FXIntArray pixelPosBuffer = new FXIntArray();
+    private final int[] triangleColors = new int[3];
+    private int[] pixelShadedGenerations = EMPTY_ARRAY; // [pixelIndex] -> The last shading generation which gave the pixel a shading color.
+    private int[] pixelQueuedGenerations = EMPTY_ARRAY; // [pixelIndex] -> The last shading generation which queued the pixel for expansion shading.
+    private int[] pixelQueue = new int[256]; // Pairs of (pixel index, shading color) to apply expansion shading to.
+    private int pixelQueueSize;
+    private int shadingGeneration; // Incremented for each image, so the per-pixel arrays never need to be cleared.
+    private static final int[] EMPTY_ARRAY = new int[0];
+    private static final int FIXED_POINT_SHIFT = 16; // Gouraud shading colors are interpolated as 16.16 fixed point numbers.
     private static final int DEFAULT_SHADING_EXPANSION_LAYERS = 2; // 2 seems to be the minimum which fully covers the polygons.
     public static final int UNSHADED_COLOR_ARGB = 0x80808080;
     public static final CVector UNSHADED_COLOR = CVector.makeColorFromRGB(UNSHADED_COLOR_ARGB);
@@ -49,8 +46,6 @@ public class PSXTextureShader {
     private PSXTextureShader() {
         for (int i = 0; i < this.triangleCoordinates.length; i++)
             this.triangleCoordinates[i] = new TextureCoordinate();
-        for (int i = 0; i < this.triangleColors.length; i++)
-            this.triangleColors[i] = new CVector();
     }
 
     @Getter
@@ -91,6 +86,62 @@ public class PSXTextureShader {
         return TEXTURE_SHADER_THREAD.get();
     }
 
+    /**
+     * Prepares the per-pixel scratch data to shade a new image.
+     * @param pixelCount The number of pixels in the image.
+     */
+    private void startShading(int pixelCount) {
+        if (this.pixelShadedGenerations.length < pixelCount) {
+            this.pixelShadedGenerations = new int[pixelCount];
+            this.pixelQueuedGenerations = new int[pixelCount];
+            this.shadingGeneration = 0;
+        } else if (this.shadingGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(this.pixelShadedGenerations, 0);
+            Arrays.fill(this.pixelQueuedGenerations, 0);
+            this.shadingGeneration = 0;
+        }
+
+        this.shadingGeneration++;
+        this.pixelQueueSize = 0;
+    }
+
+    private boolean isPixelShaded(int pixelIndex) {
+        return this.pixelShadedGenerations[pixelIndex] == this.shadingGeneration;
+    }
+
+    /**
+     * Marks a pixel as having a shading color.
+     * @param pixelIndex The index of the pixel.
+     * @return true iff the pixel was not already marked
+     */
+    private boolean markPixelShaded(int pixelIndex) {
+        if (this.pixelShadedGenerations[pixelIndex] == this.shadingGeneration)
+            return false;
+
+        this.pixelShadedGenerations[pixelIndex] = this.shadingGeneration;
+        return true;
+    }
+
+    /**
+     * Queues a pixel next to the polygon for expansion shading, unless it has a shading color, or is already queued.
+     * @param pixelIndex The index of the pixel.
+     */
+    private void queueExpansionPixel(int pixelIndex) {
+        if (this.pixelShadedGenerations[pixelIndex] == this.shadingGeneration || this.pixelQueuedGenerations[pixelIndex] == this.shadingGeneration)
+            return;
+
+        this.pixelQueuedGenerations[pixelIndex] = this.shadingGeneration;
+        addQueuedPixel(pixelIndex, 0);
+    }
+
+    private void addQueuedPixel(int pixelIndex, int color) {
+        if (this.pixelQueueSize + 2 > this.pixelQueue.length)
+            this.pixelQueue = Arrays.copyOf(this.pixelQueue, this.pixelQueue.length * 2);
+
+        this.pixelQueue[this.pixelQueueSize++] = pixelIndex;
+        this.pixelQueue[this.pixelQueueSize++] = color;
+    }
+
     /**
      * Makes a gouraud shaded, untextured image (POLY_G3 / POLY_G4)
      * @param width  The width of the image.
@@ -104,56 +155,58 @@ public class PSXTextureShader {
 
     /**
      * Makes a gouraud shaded, untextured image (POLY_G3 / POLY_G4)
-     * @param targetImage The image to write the shaded data to. If null, a new one will be created.
+     * @param targetImage The image to write the shaded data to. It is only used if it is a TYPE_INT_ARGB image of the right size, otherwise a new one will be created.
      * @param width  The width of the image.
      * @param height The height of the image.
      * @param colors The colors to apply to the image. (8 bits, 0 - 255)
      * @return gouraudShadedImage
      */
     public static BufferedImage makeGouraudShadedImage(BufferedImage targetImage, int width, int height, CVector[] colors) {
-        if (targetImage == null)
-            targetImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        targetImage = getWritableTargetImage(targetImage, width, height);
 
         int startX = PSXShadeTextureDefinition.UNTEXTURED_PADDING_SIZE;
         int startY = PSXShadeTextureDefinition.UNTEXTURED_PADDING_SIZE;
         int endX = width - PSXShadeTextureDefinition.UNTEXTURED_PADDING_SIZE - 1;
         int endY = height - PSXShadeTextureDefinition.UNTEXTURED_PADDING_SIZE - 1;
 
+        int imageWidth = targetImage.getWidth();
+        int imageHeight = targetImage.getHeight();
+        int[] rawTargetImage = ImageWorkHorse.getPixelIntegerArray(targetImage);
         PSXTextureShader instance = getInstance();
-        instance.getFirstLayerPixelShadePositions().clear();
-        instance.getPixelPosSeen().clear();
-        instance.getPixelPosBuffer().clear();
-        TextureCoordinate[] coordinates = instance.getTriangleCoordinates();
+        instance.startShading(imageWidth * imageHeight);
+        TextureCoordinate[] coordinates = instance.triangleCoordinates;
+        int[] triangleColors = instance.triangleColors;
         if (colors.length == 3) {
+            triangleColors[0] = colors[0].toARGB();
+            triangleColors[1] = colors[1].toARGB();
+            triangleColors[2] = colors[2].toARGB();
             coordinates[0].setXY(startX, startY);
             coordinates[1].setXY(endX, startY);
             coordinates[2].setXY(startX, endY);
-            shadeTriangle(instance, null, targetImage, colors, coordinates);
+            shadeTriangle(instance, rawTargetImage, imageWidth, imageHeight, triangleColors, coordinates);
         } else if (colors.length == 4) {
-            CVector[] triangleColors = instance.getTriangleColors();
-
             // Left triangle. (0, 0 is the top-left corner)
-            triangleColors[0].copyFrom(colors[0]);
-            triangleColors[1].copyFrom(colors[1]);
-            triangleColors[2].copyFrom(colors[2]);
+            triangleColors[0] = colors[0].toARGB();
+            triangleColors[1] = colors[1].toARGB();
+            triangleColors[2] = colors[2].toARGB();
             coordinates[0].setXY(startX, startY);
             coordinates[1].setXY(endX, startY);
             coordinates[2].setXY(startX, endY);
-            shadeTriangle(instance, null, targetImage, triangleColors, coordinates);
+            shadeTriangle(instance, rawTargetImage, imageWidth, imageHeight, triangleColors, coordinates);
 
             // Right triangle. (width, height is the bottom-right corner)
-            triangleColors[0].copyFrom(colors[3]);
-            triangleColors[1].copyFrom(colors[2]);
-            triangleColors[2].copyFrom(colors[1]);
+            triangleColors[0] = colors[3].toARGB();
+            triangleColors[1] = colors[2].toARGB();
+            triangleColors[2] = colors[1].toARGB();
             coordinates[0].setXY(endX, endY);
             coordinates[1].setXY(startX, endY);
             coordinates[2].setXY(endX, startY);
-            shadeTriangle(instance, null, targetImage, triangleColors, coordinates);
+            shadeTriangle(instance, rawTargetImage, imageWidth, imageHeight, triangleColors, coordinates);
         } else {
             throw new RuntimeException("Can't create gouraud shaded image with " + colors.length + " colors.");
         }
 
-        expandShading(targetImage, instance, DEFAULT_SHADING_EXPANSION_LAYERS);
+        expandShading(instance, rawTargetImage, imageWidth, imageHeight, DEFAULT_SHADING_EXPANSION_LAYERS);
         return targetImage;
     }
 
@@ -175,7 +228,7 @@ public class PSXTextureShader {
     /**
      * Makes a gouraud shaded, textured image (POLY_GT3 / POLY_GT4)
      * @param originalImage The original image to create this one from.
-     * @param targetImage The image to write the shaded data to. If null, a new one will be created.
+     * @param targetImage The image to write the shaded data to. It is only used if it is a TYPE_INT_ARGB image of the right size, otherwise a new one will be created.
      * @param textureSource The texture source which the texture came from.
      * @param colors The colors to apply to the image.
      * @param textureUvs The texture uvs to use as the corner of the triangles.
@@ -185,59 +238,62 @@ public class PSXTextureShader {
      * @return gouraudShadedImage
      */
     public static BufferedImage makeTexturedGouraudShadedImage(BufferedImage originalImage, BufferedImage targetImage, ITextureSource textureSource, CVector[] colors, SCByteTextureUV[] textureUvs, int textureScaleX, int textureScaleY, boolean highlightCorners) {
-        if (targetImage == null)
-            targetImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        targetImage = getWritableTargetImage(targetImage, originalImage.getWidth(), originalImage.getHeight());
 
+        int imageWidth = targetImage.getWidth();
+        int imageHeight = targetImage.getHeight();
+        int[] rawSourceImage = ImageWorkHorse.getReadOnlyPixelIntegerArray(originalImage);
+        int[] rawTargetImage = ImageWorkHorse.getPixelIntegerArray(targetImage);
         PSXTextureShader instance = getInstance();
-        TextureCoordinate[] coordinates = instance.getTriangleCoordinates();
-        instance.getFirstLayerPixelShadePositions().clear();
-        instance.getPixelPosSeen().clear();
-        instance.getPixelPosBuffer().clear();
+        instance.startShading(imageWidth * imageHeight);
+        TextureCoordinate[] coordinates = instance.triangleCoordinates;
+        int[] triangleColors = instance.triangleColors;
         if (colors.length == 3) {
+            triangleColors[0] = colors[0].toARGB();
+            triangleColors[1] = colors[1].toARGB();
+            triangleColors[2] = colors[2].toARGB();
             coordinates[0].loadUV(textureSource, textureUvs[0], textureScaleX, textureScaleY);
             coordinates[1].loadUV(textureSource, textureUvs[1], textureScaleX, textureScaleY);
             coordinates[2].loadUV(textureSource, textureUvs[2], textureScaleX, textureScaleY);
-            shadeTriangle(instance, originalImage, targetImage, colors, coordinates);
+            shadeTriangle(instance, rawTargetImage, imageWidth, imageHeight, triangleColors, coordinates);
 
             // Expand shading, then apply shading to the source image.
-            expandShading(targetImage, instance, DEFAULT_SHADING_EXPANSION_LAYERS);
-            applyShadingToSourceImage(originalImage, targetImage);
+            expandShading(instance, rawTargetImage, imageWidth, imageHeight, DEFAULT_SHADING_EXPANSION_LAYERS);
+            applyShadingToSourceImage(rawSourceImage, rawTargetImage, imageWidth * imageHeight);
             if (highlightCorners) {
-                targetImage.setRGB(coordinates[0].getX(), coordinates[0].getY(), Color.YELLOW.getRGB());
-                targetImage.setRGB(coordinates[1].getX(), coordinates[1].getY(), Color.GREEN.getRGB());
-                targetImage.setRGB(coordinates[2].getX(), coordinates[2].getY(), Color.RED.getRGB());
+                setPixel(rawTargetImage, imageWidth, coordinates[0], Color.YELLOW);
+                setPixel(rawTargetImage, imageWidth, coordinates[1], Color.GREEN);
+                setPixel(rawTargetImage, imageWidth, coordinates[2], Color.RED);
             }
 
         } else if (colors.length == 4) {
-            CVector[] triangleColors = instance.getTriangleColors();
-
             // Left triangle.
-            triangleColors[0].copyFrom(colors[0]);
-            triangleColors[1].copyFrom(colors[1]);
-            triangleColors[2].copyFrom(colors[2]);
+            triangleColors[0] = colors[0].toARGB();
+            triangleColors[1] = colors[1].toARGB();
+            triangleColors[2] = colors[2].toARGB();
             coordinates[0].loadUV(textureSource, textureUvs[0], textureScaleX, textureScaleY);
             coordinates[1].loadUV(textureSource, textureUvs[1], textureScaleX, textureScaleY);
             coordinates[2].loadUV(textureSource, textureUvs[2], textureScaleX, textureScaleY);
-            shadeTriangle(instance, originalImage, targetImage, triangleColors, coordinates);
+            shadeTriangle(instance, rawTargetImage, imageWidth, imageHeight, triangleColors, coordinates);
 
             // Right triangle.
-            triangleColors[0].copyFrom(colors[3]);
-            triangleColors[1].copyFrom(colors[2]);
-            triangleColors[2].copyFrom(colors[1]);
+            triangleColors[0] = colors[3].toARGB();
+            triangleColors[1] = colors[2].toARGB();
+            triangleColors[2] = colors[1].toARGB();
             coordinates[0].loadUV(textureSource, textureUvs[3], textureScaleX, textureScaleY);
             coordinates[1].loadUV(textureSource, textureUvs[2], textureScaleX, textureScaleY);
             coordinates[2].loadUV(textureSource, textureUvs[1], textureScaleX, textureScaleY);
-            shadeTriangle(instance, originalImage, targetImage, triangleColors, coordinates);
+            shadeTriangle(instance, rawTargetImage, imageWidth, imageHeight, triangleColors, coordinates);
 
             // Expand shading, then apply shading to the source image.
-            expandShading(targetImage, instance, DEFAULT_SHADING_EXPANSION_LAYERS);
-            applyShadingToSourceImage(originalImage, targetImage);
+            expandShading(instance, rawTargetImage, imageWidth, imageHeight, DEFAULT_SHADING_EXPANSION_LAYERS);
+            applyShadingToSourceImage(rawSourceImage, rawTargetImage, imageWidth * imageHeight);
             if (highlightCorners) {
-                targetImage.setRGB(coordinates[0].getX(), coordinates[0].getY(), Color.BLUE.getRGB()); // 3
-                targetImage.setRGB(coordinates[1].getX(), coordinates[1].getY(), Color.RED.getRGB()); // 2
-                targetImage.setRGB(coordinates[2].getX(), coordinates[2].getY(), Color.GREEN.getRGB()); // 1
+                setPixel(rawTargetImage, imageWidth, coordinates[0], Color.BLUE); // 3
+                setPixel(rawTargetImage, imageWidth, coordinates[1], Color.RED); // 2
+                setPixel(rawTargetImage, imageWidth, coordinates[2], Color.GREEN); // 1
                 coordinates[0].loadUV(textureSource, textureUvs[0], textureScaleX, textureScaleY);
-                targetImage.setRGB(coordinates[0].getX(), coordinates[0].getY(), Color.YELLOW.getRGB()); // 0
+                setPixel(rawTargetImage, imageWidth, coordinates[0], Color.YELLOW); // 0
             }
         } else {
             throw new RuntimeException("Can't create gouraud shaded image with " + colors.length + " colors.");
@@ -246,20 +302,21 @@ public class PSXTextureShader {
         return targetImage;
     }
 
+    private static void setPixel(int[] rawImage, int imageWidth, TextureCoordinate position, Color color) {
+        rawImage[(position.getY() * imageWidth) + position.getX()] = color.getRGB();
+    }
+
     /**
      * Draws a gouraud shading triangle onto an image.
+     * The edges are walked one scanline at a time, and the colors are interpolated as fixed point integers, writing directly to the image's pixel array.
      * @param instance The cached data we can use for the shading.
-     * @param sourceImage The texture to validate against.
-     * @param targetImage The image to draw the shaded image onto.
-     * @param colors The colors of each triangle vertex.
+     * @param rawTargetImage The pixels of the image to draw the shaded image onto.
+     * @param imageWidth The width of the image.
+     * @param imageHeight The height of the image.
+     * @param colors The ARGB colors of each triangle vertex.
      * @param vertices The position of each triangle vertex.
      */
-    private static void shadeTriangle(PSXTextureShader instance, BufferedImage sourceImage, BufferedImage targetImage, CVector[] colors, TextureCoordinate[] vertices) {
-        if (sourceImage != null && (sourceImage.getWidth() != targetImage.getWidth() || sourceImage.getHeight() != targetImage.getHeight()))
-            throw new RuntimeException("The source image had dimensions of " + sourceImage.getWidth() + "x" + sourceImage.getHeight() + ", but the target image was " + targetImage.getWidth() + "x" + targetImage.getHeight() + ".");
-
-        int imageWidth = targetImage.getWidth();
-
+    private static void shadeTriangle(PSXTextureShader instance, int[] rawTargetImage, int imageWidth, int imageHeight, int[] colors, TextureCoordinate[] vertices) {
         // BufferedImage's origin is the top left corner. (Ie: X = 0, Y = 0 is the top left corner)
         // Step 1) Find the scanline bounds.
         int topIndex = -1;
@@ -302,101 +359,120 @@ public class PSXTextureShader {
 
         // Draw the scan-lines.
         int lastLeftLineX = -1, lastRightLineX = -1;
-        IndexBitArray seenPixelPos = instance.getPixelPosSeen();
-        IndexBitArray firstLayerPixelShadePositions = instance.getFirstLayerPixelShadePositions();
-        FXIntArray pixelPosBuffer = instance.getPixelPosBuffer();
-        int[] rawTargetImage = ImageWorkHorse.getPixelIntegerArray(targetImage);
-        int maxRenderedTriangleY = Math.min(maxTriangleY, targetImage.getHeight() - 1);
+        int maxRenderedTriangleY = Math.min(maxTriangleY, imageHeight - 1);
         for (int y = Math.max(0, minTriangleY); y <= maxRenderedTriangleY; y++) {
             // Calculate the left scanline boundary.
-            CVector leftLineColor;
-            int leftLineX;
+            int leftLineX, leftStartColor, leftEndColor, leftStep, leftStepCount;
             if (y < leftPos.getY()) { // Interpolate between top vertex and left vertex.
-                int yOffset = (y - minTriangleY);
-                leftLineColor = interpolateCVector(colors[topIndex], colors[leftIndex], (float) yOffset / topToLeftHeight, instance.getTempColorVector1());
-                leftLineX = topPos.getX() + (int) (inverseLeftSlope * yOffset);
+                leftStep = (y - minTriangleY);
+                leftStepCount = topToLeftHeight;
+                leftStartColor = colors[topIndex];
+                leftEndColor = colors[leftIndex];
+                leftLineX = topPos.getX() + (int) (inverseLeftSlope * leftStep);
             } else if (y > leftPos.getY()) { // Interpolate between left vertex and right vertex.
-                int yOffset = (y - leftPos.getY());
-                leftLineColor = interpolateCVector(colors[leftIndex], colors[rightIndex], (float) yOffset / leftToRightHeight, instance.getTempColorVector1());
-                leftLineX = leftPos.getX() + (int) (inverseLeftRightSlope * yOffset);
+                leftStep = (y - leftPos.getY());
+                leftStepCount = leftToRightHeight;
+                leftStartColor = colors[leftIndex];
+                leftEndColor = colors[rightIndex];
+                leftLineX = leftPos.getX() + (int) (inverseLeftRightSlope * leftStep);
             } else { // Use data directly from the vertex since it's on this scanline.
-                leftLineColor = colors[leftIndex];
+                leftStep = 0;
+                leftStepCount = 1;
+                leftStartColor = leftEndColor = colors[leftIndex];
                 leftLineX = leftPos.getX();
             }
 
             // Calculate the right scanline boundary.
-            CVector rightLineColor;
-            int rightLineX;
+            int rightLineX, rightStartColor, rightEndColor, rightStep, rightStepCount;
             if (y < rightPos.getY()) { // Interpolate between top vertex and right vertex.
-                int yOffset = (y - minTriangleY);
-                rightLineColor = interpolateCVector(colors[topIndex], colors[rightIndex], (float) yOffset / topToRightHeight, instance.getTempColorVector2());
-                rightLineX = topPos.getX() + (int) (inverseRightSlope * yOffset);
+                rightStep = (y - minTriangleY);
+                rightStepCount = topToRightHeight;
+                rightStartColor = colors[topIndex];
+                rightEndColor = colors[rightIndex];
+                rightLineX = topPos.getX() + (int) (inverseRightSlope * rightStep);
             } else if (y > rightPos.getY()) { // Interpolate between right vertex and left vertex.
-                int yOffset = (y - rightPos.getY());
-                rightLineColor = interpolateCVector(colors[rightIndex], colors[leftIndex], (float) yOffset / rightToLeftHeight, instance.getTempColorVector2());
-                rightLineX = rightPos.getX() + (int) (inverseLeftRightSlope * yOffset);
+                rightStep = (y - rightPos.getY());
+                rightStepCount = rightToLeftHeight;
+                rightStartColor = colors[rightIndex];
+                rightEndColor = colors[leftIndex];
+                rightLineX = rightPos.getX() + (int) (inverseLeftRightSlope * rightStep);
             } else { // Use data directly from the vertex since it's on this scanline.
-                rightLineColor = colors[rightIndex];
+                rightStep = 0;
+                rightStepCount = 1;
+                rightStartColor = rightEndColor = colors[rightIndex];
                 rightLineX = rightPos.getX();
             }
 
+            int leftRed = interpolateFixedPoint(getRed(leftStartColor), getRed(leftEndColor), leftStep, leftStepCount);
+            int leftGreen = interpolateFixedPoint(getGreen(leftStartColor), getGreen(leftEndColor), leftStep, leftStepCount);
+            int leftBlue = interpolateFixedPoint(getBlue(leftStartColor), getBlue(leftEndColor), leftStep, leftStepCount);
+            int rightRed = interpolateFixedPoint(getRed(rightStartColor), getRed(rightEndColor), rightStep, rightStepCount);
+            int rightGreen = interpolateFixedPoint(getGreen(rightStartColor), getGreen(rightEndColor), rightStep, rightStepCount);
+            int rightBlue = interpolateFixedPoint(getBlue(rightStartColor), getBlue(rightEndColor), rightStep, rightStepCount);
+
             // Ensures the line is always drawn. (MediEvil has situations where the topIndex is somewhat ambiguous, and this ensures the image still draws properly)
             if (leftLineX > rightLineX) {
                 int temp = leftLineX;
                 leftLineX = rightLineX;
                 rightLineX = temp;
-                CVector tempColor = leftLineColor;
-                leftLineColor = rightLineColor;
-                rightLineColor = tempColor;
+                temp = leftRed;
+                leftRed = rightRed;
+                rightRed = temp;
+                temp = leftGreen;
+                leftGreen = rightGreen;
+                rightGreen = temp;
+                temp = leftBlue;
+                leftBlue = rightBlue;
+                rightBlue = temp;
+            }
+
+            // Calculate how much the color changes per pixel.
+            int lineWidth = rightLineX - leftLineX;
+            int redStep = 0, greenStep = 0, blueStep = 0;
+            if (lineWidth > 0) {
+                redStep = Math.floorDiv(rightRed - leftRed, lineWidth);
+                greenStep = Math.floorDiv(rightGreen - leftGreen, lineWidth);
+                blueStep = Math.floorDiv(rightBlue - leftBlue, lineWidth);
+
+                // The steps are rounded down, so offset the start by the most they can fall short over the line. This keeps every pixel between the two edge colors.
+                leftRed += lineWidth;
+                leftGreen += lineWidth;
+                leftBlue += lineWidth;
+            } else { // A single pixel is halfway between both colors.
+                leftRed = (leftRed + rightRed) >> 1;
+                leftGreen = (leftGreen + rightGreen) >> 1;
+                leftBlue = (leftBlue + rightBlue) >> 1;
             }
 
             // Fill a scanline with interpolated pixel shading colors, and mark other areas as having shading.
-            CVector tempInterpolatedColor = instance.getTempColorVector3();
             int minX = Math.max(0, lastLeftLineX >= 0 ? Math.min(lastLeftLineX, leftLineX) : leftLineX);
-            int maxX = Math.max(lastRightLineX, rightLineX);
+            int maxX = Math.min(imageWidth - 1, Math.max(lastRightLineX, rightLineX));
+            int rowStartIndex = (y * imageWidth);
             for (int x = minX; x <= maxX; x++) {
-                int pixelIndex = (y * imageWidth) + x;
+                int pixelIndex = rowStartIndex + x;
 
                 // The pixel is part of the current scanline.
                 if (x >= leftLineX && x <= rightLineX) {
-                    // Calculate (& write to the image) the interpolated pixel shading color.
-                    int pixelColor = calculatePixelColor(tempInterpolatedColor, leftLineColor, rightLineColor, leftLineX, rightLineX, x);
-                    rawTargetImage[pixelIndex] = pixelColor;
-                    seenPixelPos.setBit(pixelIndex, true);
+                    // Write the interpolated pixel shading color to the image.
+                    int pixelOffset = x - leftLineX;
+                    rawTargetImage[pixelIndex] = fixedPointToARGB(leftRed + (redStep * pixelOffset), leftGreen + (greenStep * pixelOffset), leftBlue + (blueStep * pixelOffset));
+                    instance.markPixelShaded(pixelIndex);
 
                     // Test if the pixel is part of the current scanline, but not the previous one. (It needs expansion shading!)
-                    if (y > 0) {
-                        int lastLinePixelIndex = ((y - 1) * imageWidth) + x;
-                        if (!seenPixelPos.getBit(lastLinePixelIndex) && firstLayerPixelShadePositions.setBit(lastLinePixelIndex, true)) {
-                            pixelPosBuffer.add(lastLinePixelIndex);
-                            pixelPosBuffer.add(1); // Different IDs are used for debugging / troubleshooting.
-                        }
-                    }
+                    if (y > 0)
+                        instance.queueExpansionPixel(pixelIndex - imageWidth);
                 } else {
                     // The pixel was part of the previous scanline, but not the current one. (It needs expansion shading!)
-                    if (!seenPixelPos.getBit(pixelIndex) && firstLayerPixelShadePositions.setBit(pixelIndex, true)) {
-                        pixelPosBuffer.add(pixelIndex);
-                        pixelPosBuffer.add(2);
-                    }
+                    instance.queueExpansionPixel(pixelIndex);
                 }
             }
 
             // Adds the pixel to the left & right of the line to the shading expansion buffer.
             if (rightLineX >= leftLineX) {
-                if (leftLineX > 0) {
-                    int pixelIndex = (y * imageWidth) + (leftLineX - 1);
-                    if (!seenPixelPos.getBit(pixelIndex) && firstLayerPixelShadePositions.setBit(pixelIndex, true)) {
-                        pixelPosBuffer.add(pixelIndex);
-                        pixelPosBuffer.add(3);
-                    }
-                }
-                if (rightLineX < targetImage.getWidth() - 1) {
-                    int pixelIndex = (y * imageWidth) + (rightLineX + 1);
-                    if (!seenPixelPos.getBit(pixelIndex) && firstLayerPixelShadePositions.setBit(pixelIndex, true)) {
-                        pixelPosBuffer.add(pixelIndex);
-                        pixelPosBuffer.add(4);
-                    }
-                }
+                if (leftLineX > 0)
+                    instance.queueExpansionPixel(rowStartIndex + (leftLineX - 1));
+                if (rightLineX < imageWidth - 1)
+                    instance.queueExpansionPixel(rowStartIndex + (rightLineX + 1));
             }
 
             lastLeftLineX = leftLineX;
@@ -404,138 +480,105 @@ public class PSXTextureShader {
         }
 
         // Mark the line under the final scanline for expansion shading.
-        if (targetImage.getHeight() > maxRenderedTriangleY + 1) {
-            for (int x = Math.max(0, lastLeftLineX); x <= lastRightLineX; x++) {
-                int pixelIndex = ((maxRenderedTriangleY + 1) * imageWidth) + x;
-                if (!seenPixelPos.getBit(pixelIndex) && firstLayerPixelShadePositions.setBit(pixelIndex, true)) {
-                    pixelPosBuffer.add(pixelIndex);
-                    pixelPosBuffer.add(5);
-                }
-            }
+        if (imageHeight > maxRenderedTriangleY + 1) {
+            int rowStartIndex = ((maxRenderedTriangleY + 1) * imageWidth);
+            for (int x = Math.max(0, lastLeftLineX); x <= Math.min(imageWidth - 1, lastRightLineX); x++)
+                instance.queueExpansionPixel(rowStartIndex + x);
         }
     }
 
-    private static int calculatePixelColor(CVector temp, CVector leftLineColor, CVector rightLineColor, int leftLineX, int rightLineX, int x) {
-        // Calculate interpolation factor.
-        float xLerpFactor = .5F;
-        if (leftLineX != rightLineX)
-            xLerpFactor = ((float) (x - leftLineX)) / (rightLineX - leftLineX);
+    /**
+     * Interpolates between two color components.
+     * @param start The component value at the first step. (0 - 255)
+     * @param end The component value at the last step. (0 - 255)
+     * @param step The step to get the value for.
+     * @param stepCount The number of steps between the first and the last value.
+     * @return interpolatedValue, as a fixed point number
+     */
+    private static int interpolateFixedPoint(int start, int end, int step, int stepCount) {
+        if (step <= 0 || stepCount <= 0)
+            return start << FIXED_POINT_SHIFT;
+        if (step >= stepCount)
+            return end << FIXED_POINT_SHIFT;
+
+        // Edge colors are rounded down to whole numbers before being interpolated across the scanline.
+        return (start + Math.floorDiv((end - start) * step, stepCount)) << FIXED_POINT_SHIFT;
+    }
 
-        // Apply shading to pixel in scanline.
-        return interpolateCVector(leftLineColor, rightLineColor, xLerpFactor, temp).toARGB();
+    private static int fixedPointToARGB(int red, int green, int blue) {
+        return makeARGB(red >> FIXED_POINT_SHIFT, green >> FIXED_POINT_SHIFT, blue >> FIXED_POINT_SHIFT);
+    }
+
+    private static int makeARGB(int red, int green, int blue) {
+        return 0xFF000000 | (red << 16) | (green << 8) | blue;
+    }
+
+    private static int getRed(int argb) {
+        return (argb >> 16) & 0xFF;
+    }
+
+    private static int getGreen(int argb) {
+        return (argb >> 8) & 0xFF;
+    }
+
+    private static int getBlue(int argb) {
+        return argb & 0xFF;
     }
 
     /**
      * Expands the gouraud shading to other parts of the image using flood fill.
-     * This assumes the pixel position buffer has been filled with the edges of the polygon as part of the shadeTriangle() function.
-     * @param targetImage The image to draw the shaded image onto.
+     * This assumes the pixel queue has been filled with the edges of the polygon as part of the shadeTriangle() function.
      * @param instance The shader instance to get the data from.
+     * @param rawTargetImage The pixels of the image to draw the shaded image onto.
+     * @param imageWidth The width of the image.
+     * @param imageHeight The height of the image.
      * @param maxLayers the maximum number of pixels to write
      */
-    private static void expandShading(BufferedImage targetImage, PSXTextureShader instance, int maxLayers) {
-        // 1) Clear the pixel seen flags from the expansion pixels, since them being set will cause the shading to load from unset pixels.
-        FXIntArray pixelPosBuffer = instance.getPixelPosBuffer();
-        IndexBitArray seenPixelPos = instance.getPixelPosSeen();
-
-        // 2) Calculate the colors for the pixel positions in the buffer.
-        int[] rawTargetImage = ImageWorkHorse.getPixelIntegerArray(targetImage);
-        for (int i = 0; i < pixelPosBuffer.size(); i += 2) {
-            int pixelPos = pixelPosBuffer.get(i);
-            if (!seenPixelPos.setBit(pixelPos, true)) {
-                pixelPosBuffer.set(i, -1); // Skip this, the image actually did have a pixel get placed here.
+    private static void expandShading(PSXTextureShader instance, int[] rawTargetImage, int imageWidth, int imageHeight, int maxLayers) {
+        // 1) Calculate the colors for the pixel positions in the queue.
+        for (int i = 0; i < instance.pixelQueueSize; i += 2) {
+            int pixelPos = instance.pixelQueue[i];
+            if (!instance.markPixelShaded(pixelPos)) {
+                instance.pixelQueue[i] = -1; // Skip this, the image actually did have a pixel get placed here.
                 continue;
             }
 
-            CVector pixelShadingColor = tryLoadColor(targetImage, rawTargetImage, instance, pixelPos);
-            pixelPosBuffer.set(i + 1, pixelShadingColor != null ? pixelShadingColor.toARGB() : UNSHADED_COLOR_ARGB);
+            int pixelShadingColor = tryLoadColor(instance, rawTargetImage, imageWidth, imageHeight, pixelPos);
+            instance.pixelQueue[i + 1] = (pixelShadingColor != 0) ? pixelShadingColor : UNSHADED_COLOR_ARGB;
         }
 
-        // 3) Flood-fill the shading layers.
+        // 2) Flood-fill the shading layers.
         int colorStartIndex = 0;
         for (int i = 0; i < maxLayers; i++)
-            colorStartIndex = floodFillLayer(targetImage, rawTargetImage, instance, colorStartIndex, i >= maxLayers - 1);
+            colorStartIndex = floodFillLayer(instance, rawTargetImage, imageWidth, imageHeight, colorStartIndex, i >= maxLayers - 1);
     }
 
-    private static int floodFillLayer(BufferedImage targetImage, int[] rawTargetImage, PSXTextureShader instance, int colorStartIndex, boolean lastLayer) {
-        FXIntArray pixelPosBuffer = instance.getPixelPosBuffer();
-        IndexBitArray seenPixelPos = instance.getPixelPosSeen();
-        int imageWidth = targetImage.getWidth();
-        int imageHeight = targetImage.getHeight();
-
+    private static int floodFillLayer(PSXTextureShader instance, int[] rawTargetImage, int imageWidth, int imageHeight, int colorStartIndex, boolean lastLayer) {
         // 1) Fill the colors for the current layer.
-        int nextColorStartIndex = pixelPosBuffer.size();
+        int nextColorStartIndex = instance.pixelQueueSize;
         for (int i = colorStartIndex; i < nextColorStartIndex; i += 2) {
-            int currentPixelPos = pixelPosBuffer.get(i);
-            int currentColor = pixelPosBuffer.get(i + 1);
+            int currentPixelPos = instance.pixelQueue[i];
             if (currentPixelPos >= 0)
-                rawTargetImage[currentPixelPos] = currentColor;
+                rawTargetImage[currentPixelPos] = instance.pixelQueue[i + 1];
         }
 
         // 2) Fill the queue for the next layer.
         if (!lastLayer) {
             for (int i = colorStartIndex; i < nextColorStartIndex; i += 2) {
-                int currentPixelPos = pixelPosBuffer.get(i);
+                int currentPixelPos = instance.pixelQueue[i];
                 if (currentPixelPos < 0)
                     continue;
 
                 int x = currentPixelPos % imageWidth;
                 int y = currentPixelPos / imageWidth;
-
-                // Attempt to load color from the left pixel.
-                if (x > 0) {
-                    int leftPixel = (y * imageWidth) + (x - 1);
-
-                    if (!seenPixelPos.getBit(leftPixel)) { // The nearby pixel needs shading color data.
-                        CVector color = tryLoadColor(targetImage, rawTargetImage, instance, leftPixel);
-                        if (color != null) {
-                            seenPixelPos.setBit(leftPixel, true);
-                            pixelPosBuffer.add(leftPixel);
-                            pixelPosBuffer.add(color.toARGB());
-                        }
-                    }
-                }
-
-                // Attempt to load color from the right pixel.
-                if (x < imageWidth - 1) {
-                    int rightPixel = (y * imageWidth) + (x + 1);
-
-                    if (!seenPixelPos.getBit(rightPixel)) { // The nearby pixel needs shading color data.
-                        CVector color = tryLoadColor(targetImage, rawTargetImage, instance, rightPixel);
-                        if (color != null) {
-                            seenPixelPos.setBit(rightPixel, true);
-                            pixelPosBuffer.add(rightPixel);
-                            pixelPosBuffer.add(color.toARGB());
-                        }
-                    }
-                }
-
-                // Attempt to load color from the upper pixel.
-                if (y > 0) {
-                    int upperPixel = ((y - 1) * imageWidth) + x;
-
-                    if (!seenPixelPos.getBit(upperPixel)) { // The nearby pixel needs shading color data.
-                        CVector color = tryLoadColor(targetImage, rawTargetImage, instance, upperPixel);
-                        if (color != null) {
-                            seenPixelPos.setBit(upperPixel, true);
-                            pixelPosBuffer.add(upperPixel);
-                            pixelPosBuffer.add(color.toARGB());
-                        }
-                    }
-                }
-
-                // Attempt to load color from the lower pixel.
-                if (y < imageHeight - 1) {
-                    int lowerPixel = ((y + 1) * imageWidth) + x;
-
-                    if (!seenPixelPos.getBit(lowerPixel)) { // The nearby pixel needs shading color data.
-                        CVector color = tryLoadColor(targetImage, rawTargetImage, instance, lowerPixel);
-                        if (color != null) {
-                            seenPixelPos.setBit(lowerPixel, true);
-                            pixelPosBuffer.add(lowerPixel);
-                            pixelPosBuffer.add(color.toARGB());
-                        }
-                    }
-                }
+                if (x > 0) // Attempt to load color from the left pixel.
+                    tryQueueFloodFillPixel(instance, rawTargetImage, imageWidth, imageHeight, currentPixelPos - 1);
+                if (x < imageWidth - 1) // Attempt to load color from the right pixel.
+                    tryQueueFloodFillPixel(instance, rawTargetImage, imageWidth, imageHeight, currentPixelPos + 1);
+                if (y > 0) // Attempt to load color from the upper pixel.
+                    tryQueueFloodFillPixel(instance, rawTargetImage, imageWidth, imageHeight, currentPixelPos - imageWidth);
+                if (y < imageHeight - 1) // Attempt to load color from the lower pixel.
+                    tryQueueFloodFillPixel(instance, rawTargetImage, imageWidth, imageHeight, currentPixelPos + imageWidth);
             }
         }
 
@@ -543,122 +586,92 @@ public class PSXTextureShader {
         return nextColorStartIndex;
     }
 
+    private static void tryQueueFloodFillPixel(PSXTextureShader instance, int[] rawTargetImage, int imageWidth, int imageHeight, int pixelPos) {
+        if (instance.isPixelShaded(pixelPos))
+            return; // The pixel already has shading color data.
+
+        int color = tryLoadColor(instance, rawTargetImage, imageWidth, imageHeight, pixelPos);
+        if (color != 0) {
+            instance.markPixelShaded(pixelPos);
+            instance.addQueuedPixel(pixelPos, color);
+        }
+    }
+
     private static final float[] COLOR_MIXING_FACTOR = {1F, .5F, 2 / 3F, .75F};
-    private static CVector tryLoadColor(BufferedImage targetImage, int[] rawTargetImage, PSXTextureShader instance, int currentPixelPos) {
-        IndexBitArray seenPixelPos = instance.getPixelPosSeen();
-        CVector result = instance.getTempColorVector1();
-        CVector tempColor = instance.getTempColorVector2();
-        int imageWidth = targetImage.getWidth();
+    private static int tryLoadColor(PSXTextureShader instance, int[] rawTargetImage, int imageWidth, int imageHeight, int currentPixelPos) {
         int x = currentPixelPos % imageWidth;
         int y = currentPixelPos / imageWidth;
         int colorsMixed = 0;
+        int result = 0;
 
         // Attempt to load color from the left pixel.
-        if (x > 0) {
-            int leftPixel = (y * imageWidth) + (x - 1);
-
-            if (seenPixelPos.getBit(leftPixel)) { // The nearby pixel has shading color data.
-                int leftPixelColor = rawTargetImage[leftPixel];
-                if (leftPixelColor != 0) {
-                    result.fromARGB(leftPixelColor);
-                    colorsMixed++;
-                }
-            }
+        if (x > 0 && instance.isPixelShaded(currentPixelPos - 1)) {
+            int leftPixelColor = rawTargetImage[currentPixelPos - 1];
+            if (leftPixelColor != 0)
+                result = mixColor(result, colorsMixed++, leftPixelColor);
         }
 
         // Attempt to load color from the right pixel.
-        if (x < imageWidth - 1) {
-            int rightPixel = (y * imageWidth) + (x + 1);
-
-            if (seenPixelPos.getBit(rightPixel)) { // The nearby pixel has shading color data.
-                int rightPixelColor = rawTargetImage[rightPixel];
-                if (rightPixelColor != 0) {
-                    if (colorsMixed++ > 0) {
-                        tempColor.fromARGB(rightPixelColor);
-                        result = interpolateCVector(tempColor, result, COLOR_MIXING_FACTOR[colorsMixed - 1], result);
-                    } else {
-                        result.fromARGB(rightPixelColor);
-                    }
-                }
-            }
+        if (x < imageWidth - 1 && instance.isPixelShaded(currentPixelPos + 1)) {
+            int rightPixelColor = rawTargetImage[currentPixelPos + 1];
+            if (rightPixelColor != 0)
+                result = mixColor(result, colorsMixed++, rightPixelColor);
         }
 
         // Attempt to load color from the above pixel.
-        if (y > 0) {
-            int upperPixel = ((y - 1) * imageWidth) + x;
-
-            if (seenPixelPos.getBit(upperPixel)) { // The nearby pixel has shading color data.
-                int upperPixelColor = rawTargetImage[upperPixel];
-                if (upperPixelColor != 0) {
-                    if (colorsMixed++ > 0) {
-                        tempColor.fromARGB(upperPixelColor);
-                        result = interpolateCVector(tempColor, result, COLOR_MIXING_FACTOR[colorsMixed - 1], result);
-                    } else {
-                        result.fromARGB(upperPixelColor);
-                    }
-                }
-            }
+        if (y > 0 && instance.isPixelShaded(currentPixelPos - imageWidth)) {
+            int upperPixelColor = rawTargetImage[currentPixelPos - imageWidth];
+            if (upperPixelColor != 0)
+                result = mixColor(result, colorsMixed++, upperPixelColor);
         }
 
         // Attempt to load color from the lower pixel.
-        if (y < targetImage.getHeight() - 1) {
-            int lowerPixel = ((y + 1) * imageWidth) + x;
-
-            if (seenPixelPos.getBit(lowerPixel)) { // The nearby pixel has shading color data.
-                int lowerPixelColor = rawTargetImage[lowerPixel];
-                if (lowerPixelColor != 0) {
-                    if (colorsMixed++ > 0) {
-                        tempColor.fromARGB(lowerPixelColor);
-                        result = interpolateCVector(tempColor, result, COLOR_MIXING_FACTOR[colorsMixed - 1], result);
-                    } else {
-                        result.fromARGB(lowerPixelColor);
-                    }
-                }
-            }
+        if (y < imageHeight - 1 && instance.isPixelShaded(currentPixelPos + imageWidth)) {
+            int lowerPixelColor = rawTargetImage[currentPixelPos + imageWidth];
+            if (lowerPixelColor != 0)
+                result = mixColor(result, colorsMixed++, lowerPixelColor);
         }
 
-        return colorsMixed > 0 ? result : null;
+        return result; // The alpha is always set for a mixed color, so zero means no color was found.
     }
 
-    private static void shadeRawPixel(int[] sourceImage, int[] targetImage, int pixelIndex, int shadeColor) {
+    /**
+     * Mixes a color into an average of colors.
+     * @param mixedColor The colors mixed so far.
+     * @param colorsMixed The number of colors mixed so far.
+     * @param newColor The color to mix in.
+     * @return newMixedColor
+     */
+    private static int mixColor(int mixedColor, int colorsMixed, int newColor) {
+        if (colorsMixed == 0)
+            return makeARGB(getRed(newColor), getGreen(newColor), getBlue(newColor));
+
+        float factor = COLOR_MIXING_FACTOR[colorsMixed];
+        int red = (int) ((getRed(newColor) * (1 - factor)) + (getRed(mixedColor) * factor));
+        int green = (int) ((getGreen(newColor) * (1 - factor)) + (getGreen(mixedColor) * factor));
+        int blue = (int) ((getBlue(newColor) * (1 - factor)) + (getBlue(mixedColor) * factor));
+        return makeARGB(red, green, blue);
+    }
+
+    private static int shadeRawPixel(int textureColor, int shadeColor) {
         // This function is optimized for performance, since this is performance critical.
         // The big performance killer here was .setRGB(), with the runner up being the color functions in the Utils class.
         // Putting the bit manipulation here seemed to make a huge difference, which is why it was implemented here.
-        if (sourceImage != null) {
-            int textureColor = sourceImage[pixelIndex];
-            byte alpha = (byte) ((textureColor >> 24) & 0xFF);
-            int oldRed = ((textureColor >> 16) & 0xFF);
-            int oldGreen = ((textureColor >> 8) & 0xFF);
-            int oldBlue = (textureColor & 0xFF);
-
-            // If the value exceeds the max, clamp it to the max.
-            // It's not explicitly mentioned what happens if it goes above 255, but I think clamping it works.
-            // I think "the results can't exceed the maximum brightness, i.e. the 5bit values written to the frame-buffer are saturated to max 1F" means it's clamped, but I'm not sure.
-            // Reference: https://psx-spx.consoledev.net/graphicsprocessingunitgpu/
-            int shadeRed = (shadeColor >> 16) & 0xFF;
-            int shadeGreen = (shadeColor >> 8) & 0xFF;
-            int shadeBlue = shadeColor & 0xFF;
-            byte newRed = (byte) Math.min(255, (shadeRed / 128D) * oldRed);
-            byte newGreen = (byte) Math.min(255, (shadeGreen / 128D) * oldGreen);
-            byte newBlue = (byte) Math.min(255, (shadeBlue / 128D) * oldBlue);
-            targetImage[pixelIndex] = ColorUtils.toARGB(newRed, newGreen, newBlue, alpha);
-        } else {
-            targetImage[pixelIndex] = shadeColor;
-        }
-    }
 
-    private static void applyShadingToSourceImage(BufferedImage sourceImage, BufferedImage targetImage) {
-        if (sourceImage == null)
-            return;
-        if (targetImage == null)
-            throw new NullPointerException("targetImage");
+        // If the value exceeds the max, clamp it to the max.
+        // It's not explicitly mentioned what happens if it goes above 255, but I think clamping it works.
+        // I think "the results can't exceed the maximum brightness, i.e. the 5bit values written to the frame-buffer are saturated to max 1F" means it's clamped, but I'm not sure.
+        // Reference: https://psx-spx.consoledev.net/graphicsprocessingunitgpu/
+        int newRed = Math.min(255, (getRed(shadeColor) * getRed(textureColor)) >> 7); // (shade / 128) * texture
+        int newGreen = Math.min(255, (getGreen(shadeColor) * getGreen(textureColor)) >> 7);
+        int newBlue = Math.min(255, (getBlue(shadeColor) * getBlue(textureColor)) >> 7);
+        return (textureColor & 0xFF000000) | (newRed << 16) | (newGreen << 8) | newBlue;
+    }
 
+    private static void applyShadingToSourceImage(int[] rawSourceImage, int[] rawTargetImage, int pixelCount) {
         // This has been optimized for performance, since it has been deemed performance critical code.
-        int[] rawSourceImage = ImageWorkHorse.getReadOnlyPixelIntegerArray(sourceImage);
-        int[] rawTargetImage = ImageWorkHorse.getPixelIntegerArray(targetImage);
-        int pixelCount = targetImage.getWidth() * targetImage.getHeight();
         for (int i = 0; i < pixelCount; i++)
-            shadeRawPixel(rawSourceImage, rawTargetImage, i, rawTargetImage[i]);
+            rawTargetImage[i] = shadeRawPixel(rawSourceImage[i], rawTargetImage[i]);
     }
 
     /**
@@ -704,7 +717,7 @@ public class PSXTextureShader {
     /**
      * Makes a textured flat shaded image (POLY_FT3 / POLY_FT4).
      * @param originalTexture The original texture to apply shading to.
-     * @param targetImage The image to write the shaded data to. If null, a new one will be created.
+     * @param targetImage The image to write the shaded data to. It is only used if it is a TYPE_INT_ARGB image of the right size, otherwise a new one will be created.
      * @param color           The shading color to apply.
      * @return flatTextureShadedImage
      */
@@ -713,17 +726,31 @@ public class PSXTextureShader {
         if (colorArgb == UNSHADED_COLOR_ARGB)
             return originalTexture;
 
-        if (targetImage == null)
-            targetImage = new BufferedImage(originalTexture.getWidth(), originalTexture.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        targetImage = getWritableTargetImage(targetImage, originalTexture.getWidth(), originalTexture.getHeight());
         int[] rawSourceImage = ImageWorkHorse.getReadOnlyPixelIntegerArray(originalTexture);
         int[] rawTargetImage = ImageWorkHorse.getPixelIntegerArray(targetImage);
         int pixelCount = targetImage.getWidth() * targetImage.getHeight();
         for (int i = 0; i < pixelCount; i++)
-            shadeRawPixel(rawSourceImage, rawTargetImage, i, colorArgb);
+            rawTargetImage[i] = shadeRawPixel(rawSourceImage[i], colorArgb);
 
         return targetImage;
     }
 
+    /**
+     * Gets the image to write shaded pixels to.
+     * Pixels are written straight to the backing int array of the image, so a provided image with a different size or pixel format cannot be reused.
+     * @param targetImage The image which the caller would like to reuse, or null.
+     * @param width The width which the image must have.
+     * @param height The height which the image must have.
+     * @return writableTargetImage
+     */
+    private static BufferedImage getWritableTargetImage(BufferedImage targetImage, int width, int height) {
+        if (targetImage != null && targetImage.getType() == BufferedImage.TYPE_INT_ARGB && targetImage.getWidth() == width && targetImage.getHeight() == height)
+            return targetImage;
+
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
     /**
      * Interpolate two color vectors.
      * @param a      The first color vector.
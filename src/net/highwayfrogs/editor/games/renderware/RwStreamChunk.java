@@ -6,7 +6,6 @@ import javafx.scene.image.Image;
 import lombok.Getter;
 import lombok.NonNull;
 import net.highwayfrogs.editor.Constants;
-import net.highwayfrogs.editor.file.reader.ArraySource;
 import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.games.generic.data.GameData.SharedGameData;
@@ -40,7 +39,8 @@ public abstract class RwStreamChunk extends SharedGameData implements IRwStreamC
     @Getter private final RwStreamChunk parentChunk;
     @Getter @NonNull private final IRwStreamChunkType chunkType;
     @Getter protected int version; // RwVersion
-    @Getter private byte[] rawReadData;
+    private DataReader rawReadDataReader; // A view of the chunk data as it was read, which is only copied into rawReadData when requested.
+    private byte[] rawReadData;
     @Getter private final List<RwStreamChunk> childChunks = new ArrayList<>();
     @Getter protected final List<IRwStreamChunkUIEntry> childUISections = new ArrayList<>();
     @Getter private ChunkReadResult readResult = ChunkReadResult.READ_HAS_NOT_OCCURRED;
@@ -78,8 +78,9 @@ public abstract class RwStreamChunk extends SharedGameData implements IRwStreamC
             return;
         }*/ // TODO: Test against Rescue? Beyond?
 
-        this.rawReadData = reader.readBytes(readSize);
-        DataReader chunkReader = new DataReader(new ArraySource(this.rawReadData));
+        this.rawReadData = null;
+        DataReader chunkReader = reader.slice(readSize);
+        this.rawReadDataReader = chunkReader;
 
         try {
             loadChunkData(chunkReader, readSize, this.version);
@@ -131,6 +132,18 @@ public abstract class RwStreamChunk extends SharedGameData implements IRwStreamC
         });
     }
 
+    /**
+     * Gets the raw chunk data which was read when the chunk was loaded, if it was loaded.
+     * The data is only copied out of the source it was read from the first time this is called.
+     * @return rawReadData, or null
+     */
+    public byte[] getRawReadData() {
+        if (this.rawReadData == null && this.rawReadDataReader != null)
+            this.rawReadData = this.rawReadDataReader.toByteArray();
+
+        return this.rawReadData;
+    }
+
     /**
      * Returns a UI controller specific to this chunk, if one exists.
      */
@@ -452,7 +465,7 @@ public abstract class RwStreamChunk extends SharedGameData implements IRwStreamC
      * Gets information used for the logger.
      */
     protected String getLoggerInfo() {
-        return (this.rawReadData != null ? "size=" + this.rawReadData.length + "," : "") + "ver=" + RwVersion.convertVersionToString(this.version);
+        return (this.rawReadDataReader != null ? "size=" + this.rawReadDataReader.getSize() + "," : "") + "ver=" + RwVersion.convertVersionToString(this.version);
     }
 
     @Override
@@ -521,8 +534,8 @@ public abstract class RwStreamChunk extends SharedGameData implements IRwStreamC
     public PropertyList addToPropertyList(PropertyList propertyList) {
         propertyList.add("Type ID", NumberUtils.toHexString(this.chunkType.getTypeId()) + " (" + Utils.getSimpleName(this) + ")");
         propertyList.add("RenderWare Version", RwVersion.getDebugString(this.version));
-        if (this.rawReadData != null)
-            propertyList.add("Size (In Bytes)", this.rawReadData.length + " (" + DataSizeUnit.formatSize(this.rawReadData.length) + ")");
+        if (this.rawReadDataReader != null)
+            propertyList.add("Size (In Bytes)", this.rawReadDataReader.getSize() + " (" + DataSizeUnit.formatSize(this.rawReadDataReader.getSize()) + ")");
 
         return propertyList;
     }
@@ -145,7 +145,7 @@ public class SCGameConfig extends GameConfig {
             return null;
 
         String vloName = childConfig.getString(name);
-        return instance.getMainArchive().resolveForEachFile(VLOArchive.class, vlo -> vlo.getFileDisplayName().startsWith(vloName) ? vlo : null);
+        return instance.getMainArchive().findVLOByName(vloName);
     }
 
     /**
@@ -5,12 +5,10 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.image.Image;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
-import net.highwayfrogs.editor.file.packers.PP20Packer;
-import net.highwayfrogs.editor.file.packers.PP20Packer.PackResult;
-import net.highwayfrogs.editor.file.writer.ArrayReceiver;
-import net.highwayfrogs.editor.file.writer.DataWriter;
+import net.highwayfrogs.editor.games.generic.data.RetainedFileData;
 import net.highwayfrogs.editor.games.sony.shared.mwd.WADFile;
 import net.highwayfrogs.editor.games.sony.shared.mwd.mwi.ISCFileDefinition;
 import net.highwayfrogs.editor.games.sony.shared.mwd.mwi.MWIResourceEntry;
@@ -18,7 +16,6 @@ import net.highwayfrogs.editor.games.sony.shared.ui.SCFileEditorUIController;
 import net.highwayfrogs.editor.gui.DefaultFileUIController;
 import net.highwayfrogs.editor.gui.GameUIController;
 import net.highwayfrogs.editor.gui.components.CollectionViewComponent.ICollectionViewEntry;
-import net.highwayfrogs.editor.gui.components.ProgressBarComponent;
 import net.highwayfrogs.editor.gui.components.PropertyListViewerComponent.IPropertyListCreator;
 import net.highwayfrogs.editor.gui.components.PropertyListViewerComponent.PropertyList;
 import net.highwayfrogs.editor.utils.FXUtils;
@@ -31,6 +28,7 @@ import net.highwayfrogs.editor.utils.logging.ILogger;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.function.Supplier;
 
 /**
  * Represents a file (data corresponding to MWI entry or contents of a filesystem entity).
@@ -40,8 +38,10 @@ import java.nio.file.Files;
 @Setter
 @Getter
 public abstract class SCGameFile<TGameInstance extends SCGameInstance> extends SCGameData<TGameInstance> implements ICollectionViewEntry, IPropertyListCreator {
-    private byte[] rawFileData;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) private RetainedFileData rawFileData; // The original file data, to the extent the instance's FileDataRetention allows.
     private ISCFileDefinition fileDefinition;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) private transient Runnable pendingLoad; // Reads the file contents, if loading has been deferred until first access.
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) private transient volatile boolean loadPending;
 
     public static final SavedFilePath SINGLE_FILE_IMPORT_PATH = new SavedFilePath("singleFileImportPath", "Choose the file to import.", BrowserFileType.ALL_FILES);
     public static final SavedFilePath SINGLE_FILE_EXPORT_PATH = new SavedFilePath("singleFileExportPath", "Choose the file to save the data as.", BrowserFileType.ALL_FILES);
@@ -50,6 +50,48 @@ public abstract class SCGameFile<TGameInstance extends SCGameInstance> extends S
         super(instance);
     }
 
+    /**
+     * Gets the original file data, as it was when the file was loaded or imported.
+     * @return rawFileData, or null if the data was not kept
+     */
+    public byte[] getRawFileData() {
+        return this.rawFileData != null ? this.rawFileData.getData() : null;
+    }
+
+    /**
+     * Test if the original file data is available.
+     */
+    public boolean isRawFileDataAvailable() {
+        return this.rawFileData != null && this.rawFileData.isDataAvailable();
+    }
+
+    /**
+     * Creates a data source which reads a range of the original file data again from the archive it was loaded from, without reading the rest of the file.
+     * @param startIndex the index of the first byte to read, relative to the start of the file
+     * @param length the number of bytes to read
+     * @return dataSource, or null if the range cannot be read again cheaply enough for the file data retention policy
+     */
+    public Supplier<byte[]> createRawFileDataRangeSource(int startIndex, int length) {
+        return this.rawFileData != null ? RetainedFileData.createRangeSource(getGameInstance(), this.rawFileData.getDataSource(), startIndex, length) : null;
+    }
+
+    /**
+     * Sets the original file data, keeping as much of it in memory as the game instance allows.
+     * @param fileData the original file data
+     */
+    public void setRawFileData(byte[] fileData) {
+        setRawFileData(fileData, null);
+    }
+
+    /**
+     * Sets the original file data, keeping as much of it in memory as the game instance allows.
+     * @param fileData the original file data
+     * @param fileDataSource reads the original file data again from the archive it was loaded from, if possible. May be null.
+     */
+    public void setRawFileData(byte[] fileData, Supplier<byte[]> fileDataSource) {
+        this.rawFileData = fileData != null ? RetainedFileData.create(getGameInstance(), fileData, fileDataSource) : null;
+    }
+
     /**
      * Warn if the end of the file is not reached.
      */
@@ -57,6 +99,65 @@ public abstract class SCGameFile<TGameInstance extends SCGameInstance> extends S
         return true;
     }
 
+    /**
+     * Test if this file can be loaded on a worker thread in parallel with other files.
+     * This should only be enabled for file types whose load does not read or modify state shared with other files.
+     */
+    public boolean isParallelLoadSupported() {
+        return false;
+    }
+
+    /**
+     * Test if loading this file can be deferred until it is first accessed.
+     * By default, this is allowed for any file type which is safe to load in parallel, since a deferred load may run on any thread at any time.
+     */
+    public boolean isLazyLoadSupported() {
+        return isParallelLoadSupported();
+    }
+
+    /**
+     * Test if the file contents have not been read yet, because loading has been deferred until first access.
+     */
+    public boolean isLoadPending() {
+        return this.loadPending;
+    }
+
+    /**
+     * Defers reading the file contents until the file is first accessed, see ensureLoaded().
+     * @param pendingLoad the behavior which reads the file contents
+     */
+    public synchronized void deferLoad(Runnable pendingLoad) {
+        if (pendingLoad == null)
+            throw new NullPointerException("pendingLoad");
+        if (this.loadPending)
+            throw new IllegalStateException("The file '" + getFileDisplayName() + "' already has a pending load.");
+
+        this.pendingLoad = pendingLoad;
+        this.loadPending = true;
+    }
+
+    /**
+     * Reads the file contents if loading was deferred, and does nothing otherwise.
+     * This is safe to call from any thread. If another thread is already loading the file, this waits for it to finish.
+     */
+    public void ensureLoaded() {
+        if (!this.loadPending)
+            return;
+
+        synchronized (this) {
+            Runnable pendingLoad = this.pendingLoad;
+            if (pendingLoad == null)
+                return; // Either another thread already loaded the file, or the file is being loaded by this thread.
+
+            this.pendingLoad = null;
+            try {
+                pendingLoad.run();
+            } finally {
+                this.loadPending = false;
+            }
+        }
+    }
+
     @Override
     public ILogger getLogger() {
         return getFileDefinition().getLogger();
@@ -123,8 +224,17 @@ public abstract class SCGameFile<TGameInstance extends SCGameInstance> extends S
     public void saveToFile(File outputFile, boolean original, boolean showPopupOnError) {
         boolean success;
         if (original) {
-            success = FileUtils.writeBytesToFile(getLogger(), outputFile, this.rawFileData, showPopupOnError);
+            byte[] rawFileBytes = getRawFileData();
+            if (rawFileBytes == null) {
+                getLogger().severe("The original data of '%s' is not available.", getFileDisplayName());
+                if (showPopupOnError)
+                    FXUtils.makePopUp("The original data of '" + getFileDisplayName() + "' is not available, so it cannot be exported.", AlertType.ERROR);
+                return;
+            }
+
+            success = FileUtils.writeBytesToFile(getLogger(), outputFile, rawFileBytes, showPopupOnError);
         } else {
+            ensureLoaded();
             success = writeDataToFile(getLogger(), outputFile, showPopupOnError);
         }
 
@@ -139,6 +249,7 @@ public abstract class SCGameFile<TGameInstance extends SCGameInstance> extends S
      * @param parent The wad file this is edited from.
      */
     public void handleWadEdit(WADFile parent) {
+        ensureLoaded();
         GameUIController<?> uiController = makeEditorUI();
         if (uiController != null) {
             getGameInstance().getMainMenuController().showEditor(uiController);
@@ -224,44 +335,6 @@ public abstract class SCGameFile<TGameInstance extends SCGameInstance> extends S
         getLogger().warning("The file (" + getClass().getSimpleName() + ") does not have an alternate file-type it can export as.");
     }
 
-    /**
-     * Writes the file contents as a binary data stream to the provided DataWriter.
-     * @param writer The data writer to write the data to.
-     * @param progressBar The progress bar to update, if there is one.
-     */
-    public void saveFile(DataWriter writer, ProgressBarComponent progressBar) {
-        if (progressBar != null)
-            progressBar.setStatusMessage("Saving '" + getFileDisplayName() + "'");
-        long startTime = System.currentTimeMillis();
-
-        try {
-            // Save the file contents to a byte array.
-            ArrayReceiver receiver = new ArrayReceiver();
-            this.save(new DataWriter(receiver));
-
-            // Potentially compress the saved byte array.
-            byte[] fileBytes = receiver.toArray();
-            PackResult packResult = getFileDefinition().isCompressed() ? PP20Packer.packData(fileBytes) : null;
-
-            MWIResourceEntry mwiEntry = getIndexEntry();
-            if (mwiEntry != null)
-                mwiEntry.onSaveData(fileBytes, packResult);
-
-            writer.writeBytes(packResult != null ? packResult.getPackedBytes() : fileBytes);
-        } catch (Throwable th) {
-            Utils.handleError(getLogger(), th, true, "Failed to save file '%s' to MWD.", getFileDisplayName());
-            return;
-        }
-
-        // Report timing.
-        long endTime = System.currentTimeMillis();
-        if (progressBar != null)
-            progressBar.addCompletedProgress(1);
-        long timeTaken = (endTime - startTime);
-        if (timeTaken >= 10)
-            getLogger().warning("Saving the file '" + getFileDisplayName() + "' took " + timeTaken + " ms.");
-    }
-
     /**
      * Loads a GameFile editor.
      * @param gameInstance the game instance to create the editor for
@@ -1,26 +1,32 @@
 package net.highwayfrogs.editor.games.sony;
 
 import lombok.Getter;
+import lombok.Setter;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.config.Config;
 import net.highwayfrogs.editor.file.reader.ArraySource;
 import net.highwayfrogs.editor.file.reader.DataReader;
-import net.highwayfrogs.editor.file.reader.FileSource;
+import net.highwayfrogs.editor.file.reader.MappedFileSource;
 import net.highwayfrogs.editor.file.vlo.GameImage;
 import net.highwayfrogs.editor.file.vlo.VLOArchive;
 import net.highwayfrogs.editor.file.writer.ArrayReceiver;
 import net.highwayfrogs.editor.file.writer.DataWriter;
+import net.highwayfrogs.editor.file.writer.FileReceiver;
 import net.highwayfrogs.editor.file.writer.FixedArrayReceiver;
+import net.highwayfrogs.editor.file.writer.LargeFileReceiver;
 import net.highwayfrogs.editor.games.generic.GameInstance;
 import net.highwayfrogs.editor.games.sony.shared.LinkedTextureRemap;
 import net.highwayfrogs.editor.games.sony.shared.TextureRemapArray;
 import net.highwayfrogs.editor.games.sony.shared.mwd.MWDFile;
+import net.highwayfrogs.editor.games.sony.shared.mwd.MWDFile.FileLoadObserver;
+import net.highwayfrogs.editor.games.sony.shared.mwd.WADFile.WADEntry;
 import net.highwayfrogs.editor.games.sony.shared.mwd.mwi.MWIResourceEntry;
 import net.highwayfrogs.editor.games.sony.shared.mwd.mwi.MillenniumWadIndex;
 import net.highwayfrogs.editor.games.sony.shared.overlay.SCOverlayTable;
 import net.highwayfrogs.editor.games.sony.shared.ui.SCGameFileGroupedListViewComponent;
 import net.highwayfrogs.editor.games.sony.shared.ui.SCMainMenuUIController;
 import net.highwayfrogs.editor.gui.components.ProgressBarComponent;
+import net.highwayfrogs.editor.system.Config.ConfigValueNode;
 import net.highwayfrogs.editor.utils.FileUtils;
 import net.highwayfrogs.editor.utils.Utils;
 
@@ -30,6 +36,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents an instance of a game created by Sony Cambridge / Millennium Interactive.
@@ -38,25 +45,32 @@ import java.util.*;
  */
 public abstract class SCGameInstance extends GameInstance {
     @Getter private final Map<MWIResourceEntry, SCGameFile<?>> fileObjectsByFileEntries;
+    @Getter private final Map<MWIResourceEntry, WADEntry> pendingWadEntries = new ConcurrentHashMap<>(); // WAD entries whose files will be created when first requested. Deferred files may be requested from any thread.
     @Getter private final SCOverlayTable overlayTable;
     @Getter private MWDFile mainArchive;
     @Getter private MillenniumWadIndex archiveIndex;
     @Getter private File mwdFile;
     @Getter private File exeFile;
     @Getter private long ramOffset;
+    @Getter @Setter private transient FileLoadObserver fileLoadObserver; // Wraps the read of each file in the MWD, such as to measure load times. Must be set before the game is loaded.
 
     // Instance data read from game files:
     private boolean loadingAllRemaps;
     @Getter private final List<TextureRemapArray> textureRemaps = new ArrayList<>();
     private final Map<MWIResourceEntry, LinkedTextureRemap<?>> linkedTextureMaps = new HashMap<>();
-    @Getter private final List<Long> bmpTexturePointers = new ArrayList<>();
+    private final List<Long> bmpTexturePointers = new ArrayList<>();
+    private final List<Long> immutableBmpTexturePointers = Collections.unmodifiableList(this.bmpTexturePointers);
+    private volatile BmpTexturePointerIndex bmpTexturePointerIndex = BmpTexturePointerIndex.EMPTY; // Replaced as a whole whenever bmpTexturePointers changes.
 
     private byte[] cachedExecutableBytes;
     private DataReader cachedExecutableReader;
 
+    private static final String CONFIG_LAZY_FILE_LOADING = "lazyFileLoading"; // When true, files which support it are not read until they are first used.
+    public static final String CONFIG_FAST_COMPRESSION = "fastCompression"; // When true, files are compressed with the fast PP20 match finder when saved.
+
     public SCGameInstance(SCGameType gameType) {
         super(gameType);
-        this.fileObjectsByFileEntries = new HashMap<>();
+        this.fileObjectsByFileEntries = new ConcurrentHashMap<>(); // Deferred files register themselves from whichever thread requests them first.
         this.overlayTable = new SCOverlayTable(this);
     }
 
@@ -82,9 +96,10 @@ public abstract class SCGameInstance extends GameInstance {
         if (oldFile != null)
             oldFile.setFileDefinition(null);
 
-        this.fileObjectsByFileEntries.put(entry, newFile);
-        if (newFile != null)
+        if (newFile != null) {
+            this.fileObjectsByFileEntries.put(entry, newFile);
             newFile.setFileDefinition(entry);
+        }
         return oldFile;
     }
 
@@ -416,7 +431,7 @@ public abstract class SCGameInstance extends GameInstance {
      */
     @SuppressWarnings("unchecked")
     public <T extends SCGameFile<?>> T getGameFile(int resourceId) {
-        return (T) this.fileObjectsByFileEntries.get(getResourceEntryByID(resourceId));
+        return (T) getGameFile(getResourceEntryByID(resourceId));
     }
 
     /**
@@ -433,7 +448,7 @@ public abstract class SCGameInstance extends GameInstance {
             throw new IllegalArgumentException("There was no file entry for resource ID: " + resourceId);
         }
 
-        SCGameFile<?> gameFile = this.fileObjectsByFileEntries.get(resourceEntry);
+        SCGameFile<?> gameFile = getGameFile(resourceEntry);
         if (!fileClass.isInstance(gameFile)) {
             if (allowNull)
                 return null;
@@ -451,7 +466,27 @@ public abstract class SCGameInstance extends GameInstance {
      */
     @SuppressWarnings("unchecked")
     public <T extends SCGameFile<?>> T getGameFile(MWIResourceEntry resourceEntry) {
-        return (T) this.fileObjectsByFileEntries.get(resourceEntry);
+        SCGameFile<?> gameFile = this.fileObjectsByFileEntries.get(resourceEntry);
+        if (gameFile == null && resourceEntry != null) {
+            WADEntry pendingWadEntry = this.pendingWadEntries.get(resourceEntry);
+            if (pendingWadEntry != null) {
+                gameFile = pendingWadEntry.getFile();
+            } else { // A pending entry is only removed after its file is registered, so if it was loaded by another thread since the first lookup, the file is registered now.
+                gameFile = this.fileObjectsByFileEntries.get(resourceEntry);
+            }
+        }
+
+        if (gameFile != null)
+            gameFile.ensureLoaded();
+
+        return (T) gameFile;
+    }
+
+    /**
+     * Gets the pointers to each texture, indexed by texture ID.
+     */
+    public List<Long> getBmpTexturePointers() {
+        return this.immutableBmpTexturePointers;
     }
 
     /**
@@ -462,7 +497,17 @@ public abstract class SCGameInstance extends GameInstance {
     public int getTextureIdFromPointer(long pointer) {
         if (this.bmpTexturePointers.isEmpty())
             throw new RuntimeException("Cannot get texture-id from pointer without bmpPointerAddress being set!");
-        return this.bmpTexturePointers.indexOf(pointer);
+
+        return this.bmpTexturePointerIndex.getTextureId(pointer);
+    }
+
+    /**
+     * Test if the given pointer is found in the bmp texture pointer table.
+     * @param pointer The pointer to test.
+     * @return true iff the pointer points to a texture
+     */
+    public boolean isBmpTexturePointer(long pointer) {
+        return !this.bmpTexturePointers.isEmpty() && getTextureIdFromPointer(pointer) >= 0;
     }
 
     /**
@@ -587,6 +632,7 @@ public abstract class SCGameInstance extends GameInstance {
     // Beyond here are functions for handling game data from game files, and potentially also configuration data.
     private void readBmpPointerData(DataReader reader) {
         this.bmpTexturePointers.clear();
+        this.bmpTexturePointerIndex = BmpTexturePointerIndex.EMPTY;
         if (this.getVersionConfig().getBmpPointerAddress() <= 0)
             return; // Not specified.
 
@@ -595,11 +641,14 @@ public abstract class SCGameInstance extends GameInstance {
         long nextPossiblePtr;
         while (reader.hasMore() && isValidLookingPointer(nextPossiblePtr = reader.readUnsignedIntAsLong()))
             this.bmpTexturePointers.add(nextPossiblePtr);
+        this.bmpTexturePointerIndex = BmpTexturePointerIndex.create(this.bmpTexturePointers);
     }
 
     private void validateBmpPointerData(MWDFile mwdFile) {
         if (this.bmpTexturePointers.isEmpty())
             return;
+        if (mwdFile.hasPendingLoads())
+            return; // Reading every texture ID would immediately load every deferred VLO.
 
         short highestTextureId = -1;
         for (VLOArchive vloArchive : mwdFile.getAllFiles(VLOArchive.class))
@@ -662,6 +711,24 @@ public abstract class SCGameInstance extends GameInstance {
         writer.writeBytes(receiver.toArray());
     }
 
+    /**
+     * Test if the user has enabled lazy file loading for this game version.
+     * When enabled, files which support it are not read from the MWD until they are first used.
+     */
+    public boolean isLazyFileLoadingEnabled() {
+        ConfigValueNode lazyLoadNode = getConfig() != null ? getConfig().getOptionalKeyValueNode(CONFIG_LAZY_FILE_LOADING) : null;
+        return lazyLoadNode != null && lazyLoadNode.getAsBoolean();
+    }
+
+    /**
+     * Test if the user has enabled fast compression for this game version.
+     * When enabled, saving compresses files with the fast PP20 match finder, which is much faster, but creates slightly larger files than the original packer.
+     */
+    public boolean isFastCompressionEnabled() {
+        ConfigValueNode fastCompressionNode = getConfig() != null ? getConfig().getOptionalKeyValueNode(CONFIG_FAST_COMPRESSION) : null;
+        return fastCompressionNode != null && fastCompressionNode.getAsBoolean();
+    }
+
     /**
      * Read the MWD file.
      * @param progressBar the progress bar to display load progress on, if it exists
@@ -671,16 +738,17 @@ public abstract class SCGameInstance extends GameInstance {
             throw new RuntimeException("The MWI cannot be read because either no MWI offset was specified or the configuration hasn't been loaded yet.");
 
         MWDFile mwdFile = new MWDFile(this);
+        mwdFile.setLazyLoadEnabled(isLazyFileLoadingEnabled());
         this.mainArchive = mwdFile;
 
         // Read the MWD.
         if (this.getVersionConfig().isMwdLooseFiles()) {
             mwdFile.loadFilesFromDirectory(progressBar);
         } else {
-            FileSource fileSource;
+            MappedFileSource fileSource;
 
             try {
-                fileSource = new FileSource(this.mwdFile);
+                fileSource = new MappedFileSource(this.mwdFile);
             } catch (IOException ex) {
                 throw new RuntimeException("Failed to read MWD file '" + this.mwdFile + "'.");
             }
@@ -693,6 +761,47 @@ public abstract class SCGameInstance extends GameInstance {
         return mwdFile;
     }
 
+    /**
+     * Saves the game files.
+     * @param outputMwdFile the file to save the MWD to
+     * @param outputMwiFile the file to save the MWI to
+     * @param outputExeFile the file to save the modified executable to
+     * @param progressBar the progress bar to display save progress on, if it exists
+     */
+    public void saveGame(File outputMwdFile, File outputMwiFile, File outputExeFile, ProgressBarComponent progressBar) {
+        if (this.mwdFile != null && this.mwdFile.getAbsoluteFile().equals(outputMwdFile.getAbsoluteFile()))
+            throw new IllegalArgumentException("Cannot overwrite '" + outputMwdFile.getName() + "', since file data is still read from it.");
+
+        // Save the MWD file.
+        DataWriter mwdWriter = new DataWriter(new LargeFileReceiver(outputMwdFile));
+
+        try {
+            getMainArchive().save(mwdWriter, progressBar);
+        } catch (Throwable th) {
+            throw new RuntimeException("Failed to save the MWD file: '" + outputMwdFile.getName() + "'.", th);
+        } finally {
+            mwdWriter.closeReceiver();
+        }
+
+        // Save the executable too.
+        if (progressBar != null)
+            progressBar.update(0, 1, "Saving the modified executable...");
+
+        try {
+            saveExecutable(outputExeFile, true);
+            if (progressBar != null)
+                progressBar.addCompletedProgress(1);
+        } catch (Throwable th) {
+            throw new RuntimeException("Failed to save the patched game executable '" + outputExeFile.getName() + "'.", th);
+        }
+
+        // Wait until after the MWD has been saved to save the MWI.
+        FileUtils.deleteFile(outputMwiFile); // Don't merge files, create a new one.
+        DataWriter writer = new DataWriter(new FileReceiver(outputMwiFile));
+        getArchiveIndex().save(writer);
+        writer.closeReceiver();
+    }
+
     /**
      * Saves the cached executable bytes with any modifications applied to a file.
      * @param outputFile         The file to save to.
@@ -738,4 +847,45 @@ public abstract class SCGameInstance extends GameInstance {
         this.writeBmpPointerData(writer);
         this.writeTextureRemaps(writer);
     }
-}
\ No newline at end of file
+
+    private static class BmpTexturePointerIndex {
+        private final long[] sortedPointers; // Sorted copy of the bmp texture pointers, for finding the texture ID of a pointer with a binary search.
+        private final int[] textureIds; // The texture ID of each pointer in sortedPointers.
+
+        private static final BmpTexturePointerIndex EMPTY = new BmpTexturePointerIndex(new long[0], new int[0]);
+
+        private BmpTexturePointerIndex(long[] sortedPointers, int[] textureIds) {
+            this.sortedPointers = sortedPointers;
+            this.textureIds = textureIds;
+        }
+
+        private int getTextureId(long pointer) {
+            int index = Arrays.binarySearch(this.sortedPointers, pointer);
+            if (index < 0)
+                return -1;
+
+            // If the same pointer is seen more than once, the lowest texture ID is used.
+            while (index > 0 && this.sortedPointers[index - 1] == pointer)
+                index--;
+
+            return this.textureIds[index];
+        }
+
+        private static BmpTexturePointerIndex create(List<Long> bmpTexturePointers) {
+            int pointerCount = bmpTexturePointers.size();
+            long[] entries = new long[pointerCount];
+            for (int i = 0; i < pointerCount; i++) // Pointers are offset into the signed range so they sort as unsigned, and the texture ID in the low bits breaks ties.
+                entries[i] = ((bmpTexturePointers.get(i) - 0x80000000L) << 32) | i;
+            Arrays.sort(entries);
+
+            long[] pointers = new long[pointerCount];
+            int[] textureIds = new int[pointerCount];
+            for (int i = 0; i < pointerCount; i++) {
+                pointers[i] = (entries[i] >> 32) + 0x80000000L;
+                textureIds[i] = (int) entries[i];
+            }
+
+            return new BmpTexturePointerIndex(pointers, textureIds);
+        }
+    }
+}
@@ -94,39 +94,46 @@ public class SCUtils {
 
     /**
      * Creates a new mof holder for the file entry and game instance combo.
+     * The complete MOF which an incomplete MOF copies its data from is found when the MOF loads, see findCompleteMof().
      * @param resourceEntry The file entry to create the file from.
      * @return mofHolder
      */
     public static MOFHolder makeMofHolder(MWIResourceEntry resourceEntry) {
+        return new MOFHolder(resourceEntry.getGameInstance(), null, null);
+    }
+
+    /**
+     * Finds the complete MOF which an incomplete MOF shares its data with.
+     * This is the MOF configured as the parent override, or otherwise the last complete MOF before the given resource.
+     * @param resourceEntry The file entry of the incomplete MOF.
+     * @return completeMof, or null if there is none
+     */
+    public static MOFHolder findCompleteMof(MWIResourceEntry resourceEntry) {
         SCGameInstance instance = resourceEntry.getGameInstance();
         String fileName = resourceEntry.getDisplayName();
-        MOFHolder completeMof = null;
 
         // Override lookup.
         String otherMofFile = instance.getVersionConfig().getMofParentOverrides().get(fileName);
         if (otherMofFile != null) {
+            MOFHolder completeMof = null;
             MWIResourceEntry replaceEntry = instance.getResourceEntryByName(otherMofFile);
             if (replaceEntry != null)
                 completeMof = instance.getGameFile(replaceEntry.getResourceId());
             if (completeMof == null)
                 resourceEntry.getLogger().warning("MOF Parent Override for '" + otherMofFile + "' was not found. Entry: " + replaceEntry);
-        } else {
-            MOFHolder lastCompleteMOF = null;
-            for (int i = resourceEntry.getResourceId() - 1; i >= 0; i--) {
-                SCGameFile<?> testMof = instance.getGameFile(i);
-                if (testMof instanceof MOFHolder) {
-                    MOFHolder newHolder = (MOFHolder) testMof;
-                    if (!newHolder.isIncomplete()) {
-                        lastCompleteMOF = newHolder;
-                        break;
-                    }
-                }
-            }
+            return completeMof;
+        }
 
-            completeMof = lastCompleteMOF;
+        for (int i = resourceEntry.getResourceId() - 1; i >= 0; i--) {
+            SCGameFile<?> testMof = instance.getGameFile(i);
+            if (testMof instanceof MOFHolder) {
+                MOFHolder newHolder = (MOFHolder) testMof;
+                if (!newHolder.isIncomplete())
+                    return newHolder;
+            }
         }
 
-        return new MOFHolder(resourceEntry.getGameInstance(), null, completeMof);
+        return null;
     }
 
     /**
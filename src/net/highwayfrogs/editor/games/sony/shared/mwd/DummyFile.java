@@ -36,6 +36,11 @@ public class DummyFile extends SCSharedGameFile {
         writer.writeBytes(getArray());
     }
 
+    @Override
+    public boolean isParallelLoadSupported() {
+        return true;
+    }
+
     /**
      * Gets the file data as an array.
      */
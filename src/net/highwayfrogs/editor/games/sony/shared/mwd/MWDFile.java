@@ -1,8 +1,13 @@
 package net.highwayfrogs.editor.games.sony.shared.mwd;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.mof.MOFHolder;
+import net.highwayfrogs.editor.file.packers.PP20Packer;
+import net.highwayfrogs.editor.file.packers.PP20Packer.PackResult;
 import net.highwayfrogs.editor.file.packers.PP20Unpacker;
 import net.highwayfrogs.editor.file.packers.PP20Unpacker.UnpackResult;
 import net.highwayfrogs.editor.file.reader.ArraySource;
@@ -11,7 +16,9 @@ import net.highwayfrogs.editor.file.vlo.GameImage;
 import net.highwayfrogs.editor.file.vlo.ImageFilterSettings;
 import net.highwayfrogs.editor.file.vlo.ImageFilterSettings.ImageState;
 import net.highwayfrogs.editor.file.vlo.VLOArchive;
+import net.highwayfrogs.editor.file.writer.ArrayReceiver;
 import net.highwayfrogs.editor.file.writer.DataWriter;
+import net.highwayfrogs.editor.games.generic.data.RetainedFileData;
 import net.highwayfrogs.editor.games.sony.SCGameData.SCSharedGameData;
 import net.highwayfrogs.editor.games.sony.SCGameFile;
 import net.highwayfrogs.editor.games.sony.SCGameInstance;
@@ -30,8 +37,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -43,8 +55,13 @@ import java.util.stream.Collectors;
 public class MWDFile extends SCSharedGameData {
     private String buildNotes;
     private final List<SCGameFile<?>> files = new ArrayList<>();
+    @Setter private transient boolean parallelLoadEnabled = true; // When enabled, decompression and file types supporting it are loaded on a worker pool.
+    @Setter private transient boolean lazyLoadEnabled; // When enabled, file types supporting it are not read until first access, or until the background loader reaches them.
 
     private final transient Map<FroggerMapTheme, VLOArchive> vloThemeCache = new HashMap<>();
+    @Getter(AccessLevel.NONE) private transient volatile TextureIndex textureIndex; // The images in each loaded VLO, indexed by texture ID. Extended as each VLO loads.
+    @Getter(AccessLevel.NONE) private final transient AtomicInteger textureIndexGeneration = new AtomicInteger(); // Changes whenever the texture index is discarded.
+    @Getter(AccessLevel.NONE) private final transient Object textureIndexLock = new Object();
 
     private static final String MARKER = "DAWM";
     private static final int BUILD_NOTES_SIZE = 2040;
@@ -52,6 +69,10 @@ public class MWDFile extends SCSharedGameData {
     private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm:ss");
     public static final ImageFilterSettings VLO_ICON_SETTING = new ImageFilterSettings(ImageState.EXPORT);
 
+    static final int LOAD_THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    static final ExecutorService MWD_LOAD_THREAD_POOL = Executors.newWorkStealingPool(LOAD_THREAD_COUNT);
+    private static final int MAX_PENDING_FILE_SAVES = 4 * PP20Packer.THREAD_COUNT; // How many files may be packed ahead of the one being written.
+
     public MWDFile(SCGameInstance instance) {
         super(instance);
     }
@@ -77,6 +98,12 @@ public class MWDFile extends SCSharedGameData {
         this.buildNotes = reader.readNullTerminatedFixedSizeString(BUILD_NOTES_SIZE);
         getGameInstance().getLogger().info("Build Notes: \n" + this.buildNotes + (this.buildNotes.endsWith("\n") ? "" : "\n"));
 
+        if (this.parallelLoadEnabled && LOAD_THREAD_COUNT > 1) {
+            loadFilesInParallel(reader, mwiEntries, progressBar);
+            startBackgroundLoading();
+            return;
+        }
+
         boolean lastFileLoadSuccess = false;
         for (MWIResourceEntry entry : mwiEntries) {
             if (entry.testFlag(MWIResourceEntry.FLAG_GROUP_ACCESS)) {
@@ -93,10 +120,13 @@ public class MWDFile extends SCSharedGameData {
             }
 
             // Read next file.
+            Supplier<byte[]> packedDataSource = RetainedFileData.createBufferSource(reader, reader.getIndex(), entry.getArchiveSize());
             byte[] fileBytes = reader.readBytes(entry.getArchiveSize());
-            lastFileLoadSuccess = loadNextFile(fileBytes, entry, progressBar);
+            lastFileLoadSuccess = loadNextFile(fileBytes, packedDataSource, entry, progressBar);
             reader.align(Constants.CD_SECTOR_SIZE);
         }
+
+        startBackgroundLoading();
     }
 
     /**
@@ -152,20 +182,103 @@ public class MWDFile extends SCSharedGameData {
                 continue; // Couldn't find the file.
             }
 
-            loadNextFile(fileBytes, entry, progressBar);
+            loadNextFile(fileBytes, () -> readLooseFile(localFile), entry, progressBar);
+        }
+
+        startBackgroundLoading();
+    }
+
+    /**
+     * Loads the files in the MWD using the worker pool.
+     * The file data is read sequentially, then decompressed in parallel. Files are registered in MWI order on the calling thread.
+     * Files which support it are loaded on the worker pool, while all other files are loaded on the calling thread once every file before them has finished loading.
+     * This means files which read cross-file state during load see the same state as they would when loading sequentially.
+     * @param reader the reader to read the file data from
+     * @param mwiEntries the MWI entries to load files for
+     * @param progressBar the progress bar to update, if exists
+     */
+    private void loadFilesInParallel(DataReader reader, List<MWIResourceEntry> mwiEntries, ProgressBarComponent progressBar) {
+        // Read the file data, and start decompressing it.
+        List<MWIResourceEntry> loadEntries = new ArrayList<>();
+        List<Supplier<byte[]>> packedDataSources = new ArrayList<>();
+        List<Future<byte[]>> unpackTasks = new ArrayList<>();
+        for (MWIResourceEntry entry : mwiEntries) {
+            if (entry.testFlag(MWIResourceEntry.FLAG_GROUP_ACCESS)) {
+                if (progressBar != null)
+                    progressBar.addCompletedProgress(1);
+                continue; // This file is part of a WAD archive, and isn't a file entry in the MWD, so we can't load it here.
+            }
+
+            // Validate position.
+            if (loadEntries.size() > 0) {
+                requireReaderIndex(reader, entry.getArchiveOffset(), "Expected file contents for '" + entry.getDisplayName() + "'");
+            } else {
+                reader.setIndex(entry.getArchiveOffset());
+            }
+
+            Supplier<byte[]> packedDataSource = RetainedFileData.createBufferSource(reader, reader.getIndex(), entry.getArchiveSize());
+            byte[] fileBytes = reader.readBytes(entry.getArchiveSize());
+            reader.align(Constants.CD_SECTOR_SIZE);
+            loadEntries.add(entry);
+            packedDataSources.add(packedDataSource);
+            unpackTasks.add(MWD_LOAD_THREAD_POOL.submit(() -> unpackFile(fileBytes, packedDataSource, entry)));
+        }
+
+        // Register & load files in MWI order.
+        List<Future<?>> pendingLoadTasks = new ArrayList<>();
+        for (int i = 0; i < loadEntries.size(); i++) {
+            MWIResourceEntry entry = loadEntries.get(i);
+            byte[] fileBytes = Utils.awaitTask(unpackTasks.get(i));
+            unpackTasks.set(i, null); // The file bytes are now owned by the file object.
+
+            SCGameFile<?> file = loadFile(fileBytes, entry, createUnpackedDataSource(packedDataSources.get(i), entry.isCompressed()));
+            this.files.add(file);
+            if (this.lazyLoadEnabled && file.isLazyLoadSupported()) {
+                deferFileContents(file, fileBytes, entry, progressBar);
+            } else if (file.isParallelLoadSupported()) {
+                pendingLoadTasks.add(MWD_LOAD_THREAD_POOL.submit(() -> readFileContents(file, fileBytes, entry, progressBar)));
+            } else {
+                // Files which are not safe to load in parallel may access earlier files, so wait for them to finish.
+                for (int j = 0; j < pendingLoadTasks.size(); j++)
+                    Utils.awaitTask(pendingLoadTasks.get(j));
+                pendingLoadTasks.clear();
+
+                readFileContents(file, fileBytes, entry, progressBar);
+            }
         }
+
+        for (int i = 0; i < pendingLoadTasks.size(); i++)
+            Utils.awaitTask(pendingLoadTasks.get(i));
     }
 
     /**
      * Loads the next file corresponding to the MWI resource.
      * @param fileBytes the bytes of the file to load. May be compressed.
+     * @param packedDataSource reads the bytes of the file again from where they were loaded, if possible. May be null.
      * @param mwiEntry the MWI entry corresponding to the file
      * @param progressBar the progress bar to update, if there is one.
      */
-    private boolean loadNextFile(byte[] fileBytes, MWIResourceEntry mwiEntry, ProgressBarComponent progressBar) {
-        if (progressBar != null)
-            progressBar.setStatusMessage("Reading '" + mwiEntry.getDisplayName() + "'");
+    private boolean loadNextFile(byte[] fileBytes, Supplier<byte[]> packedDataSource, MWIResourceEntry mwiEntry, ProgressBarComponent progressBar) {
+        fileBytes = unpackFile(fileBytes, packedDataSource, mwiEntry);
+        SCGameFile<?> file = loadFile(fileBytes, mwiEntry, createUnpackedDataSource(packedDataSource, mwiEntry.isCompressed()));
+        this.files.add(file);
+        if (this.lazyLoadEnabled && file.isLazyLoadSupported()) {
+            deferFileContents(file, fileBytes, mwiEntry, progressBar);
+            return true;
+        }
+
+        return readFileContents(file, fileBytes, mwiEntry, progressBar);
+    }
 
+    /**
+     * Decompresses the file data if it is PP20 compressed, and validates it against the MWI entry.
+     * This does not access any state shared between files, so it is safe to call from the worker pool.
+     * @param fileBytes the bytes of the file to unpack. May be compressed.
+     * @param packedDataSource reads the bytes of the file again from where they were loaded, if possible. May be null.
+     * @param mwiEntry the MWI entry corresponding to the file
+     * @return unpackedFileBytes
+     */
+    private byte[] unpackFile(byte[] fileBytes, Supplier<byte[]> packedDataSource, MWIResourceEntry mwiEntry) {
         // Read the file. Decompress if it is PP20 compression.
         int safetyMarginWordCount = 0;
         byte[] compressedBytes = null;
@@ -183,14 +296,99 @@ public class MWDFile extends SCSharedGameData {
         if (mwiEntry.getUnpackedSize() != fileBytes.length)
             getLogger().severe("ERROR: File is marked as being " + mwiEntry.getUnpackedSize() + " bytes large, but is actually " + fileBytes.length + " bytes large.");
 
-        mwiEntry.onLoadData(fileBytes, compressedBytes, safetyMarginWordCount);
-        SCGameFile<?> file = loadFile(fileBytes, mwiEntry);
-        this.files.add(file);
+        mwiEntry.onLoadData(fileBytes, compressedBytes, compressedBytes != null ? packedDataSource : null, safetyMarginWordCount);
+        return fileBytes;
+    }
+
+    /**
+     * Creates a data source which reads file data again from where it was loaded, and decompresses it if it is PP20 compressed.
+     * @param packedDataSource reads the file data as it was found in the archive. May be null.
+     * @param allowCompression if false, the data is never decompressed
+     * @return unpackedDataSource, or null if there is no packed data source
+     */
+    static Supplier<byte[]> createUnpackedDataSource(Supplier<byte[]> packedDataSource, boolean allowCompression) {
+        if (packedDataSource == null || !allowCompression)
+            return packedDataSource;
+
+        return () -> {
+            byte[] fileBytes = packedDataSource.get();
+            return fileBytes != null && PP20Unpacker.isCompressed(fileBytes) ? PP20Unpacker.unpackData(fileBytes).getUnpackedBytes() : fileBytes;
+        };
+    }
+
+    private static byte[] readLooseFile(File file) {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to read file '" + file + "'.", ex);
+        }
+    }
+
+    /**
+     * Defers loading the contents of a file which has already been registered until it is first accessed.
+     * @param file the file to defer loading for
+     * @param fileBytes the unpacked bytes of the file
+     * @param mwiEntry the MWI entry corresponding to the file
+     * @param progressBar the progress bar to update, if there is one.
+     */
+    private void deferFileContents(SCGameFile<?> file, byte[] fileBytes, MWIResourceEntry mwiEntry, ProgressBarComponent progressBar) {
+        file.deferLoad(() -> readFileContents(file, fileBytes, mwiEntry, null));
+        if (progressBar != null)
+            progressBar.addCompletedProgress(1);
+    }
+
+    /**
+     * Starts a low priority background thread which loads each file whose load was deferred, in MWI order.
+     * Files accessed before the background thread reaches them are loaded on the thread which accessed them instead.
+     */
+    private void startBackgroundLoading() {
+        List<SCGameFile<?>> pendingFiles = new ArrayList<>();
+        for (int i = 0; i < this.files.size(); i++) {
+            SCGameFile<?> file = this.files.get(i);
+            if (file.isLoadPending())
+                pendingFiles.add(file);
+        }
+
+        if (pendingFiles.isEmpty())
+            return;
+
+        getLogger().info("Deferred loading " + pendingFiles.size() + " file(s) until they are used.");
+        Thread loaderThread = new Thread(() -> {
+            for (int i = 0; i < pendingFiles.size(); i++)
+                pendingFiles.get(i).ensureLoaded();
+        }, "MWD Background Loader");
+        loaderThread.setDaemon(true);
+        loaderThread.setPriority(Thread.MIN_PRIORITY);
+        loaderThread.start();
+    }
+
+    /**
+     * Test if any file in the MWD has not been loaded yet, because its load was deferred.
+     */
+    public boolean hasPendingLoads() {
+        for (int i = 0; i < this.files.size(); i++)
+            if (this.files.get(i).isLoadPending())
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Loads the contents of a file which has already been registered.
+     * @param file the file to load
+     * @param fileBytes the unpacked bytes of the file
+     * @param mwiEntry the MWI entry corresponding to the file
+     * @param progressBar the progress bar to update, if there is one.
+     * @return true iff the file loaded successfully
+     */
+    private boolean readFileContents(SCGameFile<?> file, byte[] fileBytes, MWIResourceEntry mwiEntry, ProgressBarComponent progressBar) {
+        if (progressBar != null)
+            progressBar.setStatusMessage("Reading '" + mwiEntry.getDisplayName() + "'");
 
         boolean success = true;
         try {
             DataReader singleFileReader = new DataReader(new ArraySource(fileBytes));
-            file.load(singleFileReader);
+            observeFileLoad(file, fileBytes.length, () -> file.load(singleFileReader));
             if (singleFileReader.hasMore() && file.warnIfEndNotReached()) // Warn if the full file is not read.
                 file.getLogger().warning("File contents were read to index " + NumberUtils.toHexString(singleFileReader.getIndex()) + ", leaving " + singleFileReader.getRemaining() + " bytes unread. (Length: " + NumberUtils.toHexString(fileBytes.length) + ")");
         } catch (Exception ex) {
@@ -204,6 +402,21 @@ public class MWDFile extends SCSharedGameData {
         return success;
     }
 
+    /**
+     * Reads a file, through the file load observer of the game instance if there is one.
+     * @param file the file to read
+     * @param byteCount the size of the unpacked file data
+     * @param load reads the file contents
+     */
+    static void observeFileLoad(SCGameFile<?> file, int byteCount, Runnable load) {
+        FileLoadObserver observer = file.getGameInstance().getFileLoadObserver();
+        if (observer != null) {
+            observer.observeLoad(file, byteCount, load);
+        } else {
+            load.run();
+        }
+    }
+
     /**
      * Create a replacement file. (Does not actually update MWD)
      * @param fileBytes The bytes to replace the file with.
@@ -264,6 +477,8 @@ public class MWDFile extends SCSharedGameData {
             this.files.set(fileIndex, newFile);
         if (wadEntry != null)
             wadEntry.setFile(newFile);
+        if (oldFile instanceof VLOArchive || newFile instanceof VLOArchive)
+            invalidateTextureIndex();
     }
 
     /**
@@ -272,8 +487,19 @@ public class MWDFile extends SCSharedGameData {
      * @param entry     The file entry being loaded.
      * @return loadedFile
      */
-    @SuppressWarnings("unchecked")
     public <T extends SCGameFile<?>> T loadFile(byte[] fileBytes, MWIResourceEntry entry) {
+        return loadFile(fileBytes, entry, null);
+    }
+
+    /**
+     * Create a GameFile instance.
+     * @param fileBytes The data to read
+     * @param entry     The file entry being loaded.
+     * @param fileDataSource Reads the data again from where it was loaded, if possible. May be null.
+     * @return loadedFile
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends SCGameFile<?>> T loadFile(byte[] fileBytes, MWIResourceEntry entry, Supplier<byte[]> fileDataSource) {
         // Turn the byte data into the appropriate game-file.
         SCGameFile<?> file = getGameInstance().createFile(entry, fileBytes);
         if (file == null)
@@ -281,7 +507,7 @@ public class MWDFile extends SCSharedGameData {
 
         getGameInstance().getFileObjectsByFileEntries().put(entry, file);
         file.setFileDefinition(entry);
-        file.setRawFileData(fileBytes);
+        file.setRawFileData(fileBytes, fileDataSource);
         return (T) file;
     }
 
@@ -314,23 +540,107 @@ public class MWDFile extends SCSharedGameData {
         writer.align(Constants.CD_SECTOR_SIZE);
 
         long mwdStart = System.currentTimeMillis();
-        for (SCGameFile<?> file : this.files) {
-            if ((writer.getIndex() % Constants.CD_SECTOR_SIZE) != 0)
-                throw new RuntimeException("Writer index (" + NumberUtils.toHexString(writer.getIndex()) + ") was not aligned to CD sector size!");
 
-            MWIResourceEntry entry = file.getIndexEntry();
-            int currentSector = writer.getIndex() / Constants.CD_SECTOR_SIZE;
-            entry.setSectorOffset(currentSector);
+        // Serialize each file in order, and compress it on the worker pool while the files after it serialize.
+        // Only a limited number of files may wait to be written, so the data of the whole MWD is never held in memory at once.
+        Deque<PendingFileSave> pendingSaves = new ArrayDeque<>(MAX_PENDING_FILE_SAVES);
+        for (SCGameFile<?> file : this.files) {
+            if (pendingSaves.size() >= MAX_PENDING_FILE_SAVES)
+                writeNextFileSave(writer, pendingSaves.poll(), progressBar);
 
-            file.saveFile(writer, progressBar);
-            writer.align(Constants.CD_SECTOR_SIZE);
+            pendingSaves.add(startFileSave(file, progressBar));
         }
+
+        // Write the remaining results in order. The output is identical to saving each file sequentially.
+        while (!pendingSaves.isEmpty())
+            writeNextFileSave(writer, pendingSaves.poll(), progressBar);
+
         getLogger().info("MWD Built. Total Time: " + (System.currentTimeMillis() - mwdStart) + " ms.");
 
         // Fill the rest of the file with null bytes.
         writer.align(Constants.CD_SECTOR_SIZE);
     }
 
+    private PendingFileSave startFileSave(SCGameFile<?> file, ProgressBarComponent progressBar) {
+        if (progressBar != null)
+            progressBar.setStatusMessage("Saving '" + file.getFileDisplayName() + "'");
+
+        file.ensureLoaded(); // Saving may have side effects, so deferred files are loaded instead of writing their original bytes.
+        long startTime = System.currentTimeMillis();
+        PendingFileSave pendingSave = new PendingFileSave(file);
+        try {
+            ArrayReceiver receiver = new ArrayReceiver();
+            file.save(new DataWriter(receiver));
+            pendingSave.fileBytes = receiver.toArray();
+            if (file.getFileDefinition().isCompressed()) {
+                MWIResourceEntry mwiEntry = file.getIndexEntry();
+                pendingSave.packTask = mwiEntry != null ? mwiEntry.packFileDataAsync(pendingSave.fileBytes) : PP20Packer.packDataAsync(pendingSave.fileBytes, getGameInstance().isFastCompressionEnabled());
+            }
+        } catch (Throwable th) {
+            Utils.handleError(file.getLogger(), th, true, "Failed to save file '%s' to MWD.", file.getFileDisplayName());
+            return pendingSave;
+        }
+
+        long timeTaken = (System.currentTimeMillis() - startTime);
+        if (timeTaken >= 10)
+            file.getLogger().warning("Saving the file '" + file.getFileDisplayName() + "' took " + timeTaken + " ms.");
+
+        return pendingSave;
+    }
+
+    private void writeNextFileSave(DataWriter writer, PendingFileSave pendingSave, ProgressBarComponent progressBar) {
+        if ((writer.getIndex() % Constants.CD_SECTOR_SIZE) != 0)
+            throw new RuntimeException("Writer index (" + NumberUtils.toHexString(writer.getIndex()) + ") was not aligned to CD sector size!");
+
+        MWIResourceEntry entry = pendingSave.file.getIndexEntry();
+        int currentSector = writer.getIndex() / Constants.CD_SECTOR_SIZE;
+        entry.setSectorOffset(currentSector);
+
+        writeFileSave(writer, pendingSave, progressBar);
+        writer.align(Constants.CD_SECTOR_SIZE);
+    }
+
+    private void writeFileSave(DataWriter writer, PendingFileSave pendingSave, ProgressBarComponent progressBar) {
+        SCGameFile<?> file = pendingSave.file;
+        if (pendingSave.fileBytes == null)
+            return; // The file failed to save, and the error has already been reported.
+
+        try {
+            PackResult packResult = pendingSave.packTask != null ? Utils.awaitTask(pendingSave.packTask) : null;
+            MWIResourceEntry mwiEntry = file.getIndexEntry();
+            if (mwiEntry != null)
+                mwiEntry.onSaveData(pendingSave.fileBytes, packResult);
+
+            writer.writeBytes(packResult != null ? packResult.getPackedBytes() : pendingSave.fileBytes);
+        } catch (Throwable th) {
+            Utils.handleError(file.getLogger(), th, true, "Failed to save file '%s' to MWD.", file.getFileDisplayName());
+            return;
+        }
+
+        if (progressBar != null)
+            progressBar.addCompletedProgress(1);
+    }
+
+    /**
+     * Observes each file read from the MWD, including the files found in WADs.
+     */
+    public interface FileLoadObserver {
+        /**
+         * Called to read a file. Files may be read on any thread, since they can load in parallel, or when first accessed.
+         * @param file the file which is being read
+         * @param byteCount the size of the unpacked file data
+         * @param load reads the file contents. This must be run exactly once, and any exception it throws must not be caught.
+         */
+        void observeLoad(SCGameFile<?> file, int byteCount, Runnable load);
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingFileSave {
+        private final SCGameFile<?> file;
+        private byte[] fileBytes;
+        private Future<PackResult> packTask;
+    }
+
     /**
      * Grabs the first VLO we can find.
      */
@@ -340,43 +650,120 @@ public class MWDFile extends SCSharedGameData {
                 .map(VLOArchive.class::cast)
                 .collect(Collectors.toList());
 
-        return allVLOs.size() > 0 ? allVLOs.get(0) : null;
+        VLOArchive firstVLO = allVLOs.size() > 0 ? allVLOs.get(0) : null;
+        if (firstVLO != null)
+            firstVLO.ensureLoaded();
+
+        return firstVLO;
+    }
+
+    /**
+     * Finds the VLO which a map theme is most likely to use, without asking the user.
+     * Only the VLO which is found is loaded.
+     * @param theme The theme to find the VLO for. Can be null.
+     * @return themeVLO, or null if no VLO could be determined
+     */
+    public VLOArchive findThemeVLO(FroggerMapTheme theme) {
+        if (theme == null)
+            return null;
+
+        VLOArchive cachedVLO = this.vloThemeCache.get(theme);
+        if (cachedVLO != null)
+            return cachedVLO;
+
+        return findVLOByName(theme.getInternalName());
+    }
+
+    /**
+     * Finds the first VLO whose name starts with the given text.
+     * VLOs are matched by the name of their MWI entry, so only the VLO which is found is loaded.
+     * @param namePrefix The text which the name of the VLO starts with.
+     * @return vloArchive, or null if there is no such VLO
+     */
+    public VLOArchive findVLOByName(String namePrefix) {
+        for (MWIResourceEntry entry : getVLOEntries()) {
+            if (!entry.getDisplayName().startsWith(namePrefix))
+                continue;
+
+            VLOArchive vlo = getVLO(entry);
+            if (vlo != null)
+                return vlo;
+        }
+
+        return null;
     }
 
     /**
      * Get the VLO for a given map theme.
+     * VLOs are only loaded when their icon is displayed, or they are selected.
      * @param theme     The theme to get it for. Can be null, will prompt user then.
      * @param handler   The handler for when the VLO is determined.
      * @param allowNull Are null VLOs allowed?
      */
     public void promptVLOSelection(FroggerMapTheme theme, Consumer<VLOArchive> handler, boolean allowNull) {
-        List<VLOArchive> allVLOs = getAllFiles(VLOArchive.class);
+        List<MWIResourceEntry> vloEntries = getVLOEntries();
 
         if (allowNull)
-            allVLOs.add(0, null);
+            vloEntries.add(0, null);
 
         if (theme != null) {
-            List<VLOArchive> movedVLOs = allVLOs.stream()
-                    .filter(vlo -> {
-                        MWIResourceEntry entry = vlo != null ? vlo.getIndexEntry() : null;
-                        return entry != null && entry.getDisplayName().startsWith(theme.getInternalName());
-                    })
+            List<MWIResourceEntry> movedEntries = vloEntries.stream()
+                    .filter(entry -> entry != null && entry.getDisplayName().startsWith(theme.getInternalName()))
                     .collect(Collectors.toList());
-            allVLOs.removeAll(movedVLOs);
-            allVLOs.addAll(0, movedVLOs);
+            vloEntries.removeAll(movedEntries);
+            vloEntries.addAll(0, movedEntries);
         }
 
         VLOArchive cachedVLO = this.vloThemeCache.get(theme); // Move cached vlo to the top.
-        if (cachedVLO != null && allVLOs.remove(cachedVLO))
-            allVLOs.add(0, cachedVLO);
+        MWIResourceEntry cachedEntry = cachedVLO != null ? cachedVLO.getIndexEntry() : null;
+        if (cachedEntry != null && vloEntries.remove(cachedEntry))
+            vloEntries.add(0, cachedEntry);
 
-        SelectionMenu.promptSelection(getGameInstance(), "Select " + (theme != null ? theme.name() + "'s" : "a") + " VLO.", vlo -> {
+        SelectionMenu.promptSelection(getGameInstance(), "Select " + (theme != null ? theme.name() + "'s" : "a") + " VLO.", entry -> {
+                    VLOArchive vlo = entry != null ? getVLO(entry) : null;
                     if (vlo != null && theme != null)
                         this.vloThemeCache.put(theme, vlo);
                     handler.accept(vlo);
-                }, allVLOs,
-                vlo -> vlo != null ? vlo.getFileDisplayName() : "No Textures",
-                vlo -> vlo.getImages().get(0).toFXImage(VLO_ICON_SETTING));
+                }, vloEntries,
+                entry -> entry != null ? entry.getDisplayName() : "No Textures",
+                entry -> {
+                    VLOArchive vlo = entry != null ? getVLO(entry) : null;
+                    return vlo != null && vlo.getImages().size() > 0 ? vlo.getImages().get(0).toFXImage(VLO_ICON_SETTING) : null;
+                });
+    }
+
+    /**
+     * Gets the MWI entry of each VLO, including those found in wads, without loading any file.
+     * WAD entries which have not been loaded yet are recognized by their file extension.
+     * @return vloEntries
+     */
+    private List<MWIResourceEntry> getVLOEntries() {
+        List<MWIResourceEntry> results = new ArrayList<>();
+        for (SCGameFile<?> file : getFiles()) {
+            if (file instanceof VLOArchive) {
+                MWIResourceEntry entry = file.getIndexEntry();
+                if (entry != null)
+                    results.add(entry);
+            } else if (file instanceof WADFile) {
+                for (WADEntry wadEntry : ((WADFile) file).getFiles()) {
+                    SCGameFile<?> loadedFile = wadEntry.getLoadedFile();
+                    if ((loadedFile instanceof VLOArchive) || (loadedFile == null && wadEntry.isLoadPending() && wadEntry.getFileEntry().hasExtension("vlo")))
+                        results.add(wadEntry.getFileEntry());
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets the VLO for an MWI entry, loading it if it has not been loaded yet.
+     * @param entry The MWI entry of the VLO.
+     * @return vloArchive, or null if the entry is not a VLO
+     */
+    private VLOArchive getVLO(MWIResourceEntry entry) {
+        SCGameFile<?> file = getGameInstance().getGameFile(entry);
+        return file instanceof VLOArchive ? (VLOArchive) file : null;
     }
 
     /**
@@ -387,15 +774,19 @@ public class MWDFile extends SCSharedGameData {
         List<T> results = new ArrayList<>();
 
         for (SCGameFile<?> file : getFiles()) {
-            if (fileClass.isInstance(file))
+            if (fileClass.isInstance(file)) {
+                file.ensureLoaded();
                 results.add(fileClass.cast(file));
+            }
 
             if (file instanceof WADFile) {
                 WADFile wadFile = (WADFile) file;
                 for (WADEntry entry : wadFile.getFiles()) {
                     SCGameFile<?> testFile = entry.getFile();
-                    if (fileClass.isInstance(testFile))
+                    if (fileClass.isInstance(testFile)) {
+                        testFile.ensureLoaded();
                         results.add(fileClass.cast(testFile));
+                    }
                 }
             }
         }
@@ -410,15 +801,19 @@ public class MWDFile extends SCSharedGameData {
      */
     public <T extends SCGameFile<?>> void forEachFile(Class<T> fileClass, Consumer<T> handler) {
         for (SCGameFile<?> file : getFiles()) {
-            if (fileClass.isInstance(file))
+            if (fileClass.isInstance(file)) {
+                file.ensureLoaded();
                 handler.accept(fileClass.cast(file));
+            }
 
             if (file instanceof WADFile) {
                 WADFile wadFile = (WADFile) file;
                 for (WADEntry entry : wadFile.getFiles()) {
                     SCGameFile<?> testFile = entry.getFile();
-                    if (fileClass.isInstance(testFile))
+                    if (fileClass.isInstance(testFile)) {
+                        testFile.ensureLoaded();
                         handler.accept(fileClass.cast(testFile));
+                    }
                 }
             }
         }
@@ -432,6 +827,7 @@ public class MWDFile extends SCSharedGameData {
     public <T extends SCGameFile<?>, R> R resolveForEachFile(Class<T> fileClass, Function<T, R> handler) {
         for (SCGameFile<?> file : getFiles()) {
             if (fileClass.isInstance(file)) {
+                file.ensureLoaded();
                 R result = handler.apply(fileClass.cast(file));
                 if (result != null)
                     return result; // If there's a result.
@@ -442,6 +838,8 @@ public class MWDFile extends SCSharedGameData {
                 for (WADEntry wadEntry : wadFile.getFiles()) {
                     if (!fileClass.isInstance(wadEntry.getFile()))
                         continue;
+
+                    wadEntry.getFile().ensureLoaded();
                     R result = handler.apply(fileClass.cast(wadEntry.getFile()));
                     if (result != null)
                         return result;
@@ -460,13 +858,21 @@ public class MWDFile extends SCSharedGameData {
     @SuppressWarnings("unchecked")
     public <TGameFile extends SCGameFile<? extends SCGameInstance>> TGameFile getFileByName(String fileName) {
         for (SCGameFile<?> gameFile : getFiles()) {
-            if (matchesFileName(gameFile.getIndexEntry(), fileName))
+            if (matchesFileName(gameFile.getIndexEntry(), fileName)) {
+                gameFile.ensureLoaded();
                 return (TGameFile) gameFile;
+            }
 
-            if (gameFile instanceof WADFile)
-                for (WADEntry wadFileEntry : ((WADFile) gameFile).getFiles())
-                    if (matchesFileName(wadFileEntry.getFileEntry(), fileName))
-                        return (TGameFile) wadFileEntry.getFile();
+            if (gameFile instanceof WADFile) {
+                for (WADEntry wadFileEntry : ((WADFile) gameFile).getFiles()) {
+                    if (matchesFileName(wadFileEntry.getFileEntry(), fileName)) {
+                        SCGameFile<?> wadFile = wadFileEntry.getFile();
+                        if (wadFile != null)
+                            wadFile.ensureLoaded();
+                        return (TGameFile) wadFile;
+                    }
+                }
+            }
         }
 
         return null;
@@ -502,7 +908,7 @@ public class MWDFile extends SCSharedGameData {
             WADFile wadFile = (WADFile) testFile;
             for (int j = 0; j < wadFile.getFiles().size(); j++) {
                 WADEntry wadEntry = wadFile.getFiles().get(j);
-                if (wadEntry.getFile() == gameFile)
+                if (wadEntry.getLoadedFile() == gameFile) // An entry which has not loaded its file cannot hold the file.
                     return wadEntry;
             }
         }
@@ -512,31 +918,270 @@ public class MWDFile extends SCSharedGameData {
 
     /**
      * Gets an image by the given texture ID.
+     * The VLOs which have been loaded are searched first, and others are only loaded until one containing the texture ID is found.
      * @param textureId The texture ID to get.
      * @return gameImage
      */
     public GameImage getImageByTextureId(int textureId) {
-        for (VLOArchive vlo : getAllFiles(VLOArchive.class))
-            for (GameImage testImage : vlo.getImages())
-                if (testImage.getTextureId() == textureId)
-                    return testImage;
+        if (textureId < 0) {
+            List<GameImage> images = findImagesByTextureId(textureId);
+            return images.size() > 0 ? images.get(0) : null;
+        }
 
-        return null;
+        GameImage[] images = getTextureIndex().getImages(textureId);
+        if (images == null)
+            images = indexRemainingVLOs(textureId).getImages(textureId);
+
+        return images != null && images.length > 0 ? images[0] : null;
     }
 
     /**
-     * Gets an image by the given texture ID.
+     * Gets every image using the given texture ID.
+     * Any VLO could use the texture ID, so each VLO which has not been loaded yet is loaded.
      * @param textureId The texture ID to get.
-     * @return gameImage
+     * @return gameImages
      */
     public List<GameImage> getImagesByTextureId(int textureId) {
-        List<GameImage> results = new ArrayList<>();
+        if (textureId < 0)
+            return findImagesByTextureId(textureId);
 
-        for (VLOArchive vlo : getAllFiles(VLOArchive.class))
+        GameImage[] images = indexRemainingVLOs(-1).getImages(textureId);
+        return images != null ? new ArrayList<>(Arrays.asList(images)) : new ArrayList<>();
+    }
+
+    /**
+     * Discards the texture ID index, so it will be rebuilt on the next lookup.
+     * The index is not checked against the images it holds, so this must be called whenever a VLO is replaced, has images added or removed, or has an image's texture ID changed.
+     */
+    public void invalidateTextureIndex() {
+        synchronized (this.textureIndexLock) {
+            this.textureIndex = null;
+            this.textureIndexGeneration.incrementAndGet();
+        }
+    }
+
+    /**
+     * Adds the images of a VLO which just finished loading to the texture ID index.
+     * If the index has not been built yet, it will include the VLO once it is.
+     * @param vloArchive The VLO which was loaded.
+     */
+    public void onVLOLoaded(VLOArchive vloArchive) {
+        synchronized (this.textureIndexLock) {
+            TextureIndex index = this.textureIndex;
+            if (index == null)
+                return;
+
+            if (index.contains(vloArchive)) { // The VLO was loaded again, so its old images may be in the index.
+                invalidateTextureIndex();
+            } else {
+                this.textureIndex = index.add(vloArchive);
+            }
+        }
+    }
+
+    private TextureIndex getTextureIndex() {
+        TextureIndex index = this.textureIndex;
+        return index != null ? index : buildTextureIndex();
+    }
+
+    private TextureIndex buildTextureIndex() {
+        int generation = this.textureIndexGeneration.get();
+
+        // Only VLOs which have finished loading are indexed, the others are added as they load.
+        boolean complete = true;
+        List<VLOArchive> vloArchives = new ArrayList<>();
+        for (SCGameFile<?> file : getFiles()) {
+            if (file instanceof VLOArchive) {
+                if (file.isLoadPending()) {
+                    complete = false;
+                } else {
+                    vloArchives.add((VLOArchive) file);
+                }
+            } else if (file instanceof WADFile) {
+                for (WADEntry wadEntry : ((WADFile) file).getFiles()) {
+                    SCGameFile<?> loadedFile = wadEntry.getLoadedFile();
+                    if (wadEntry.isLoadPending()) {
+                        if (loadedFile instanceof VLOArchive || (loadedFile == null && wadEntry.getFileEntry().hasExtension("vlo")))
+                            complete = false;
+                    } else if (loadedFile instanceof VLOArchive) {
+                        vloArchives.add((VLOArchive) loadedFile);
+                    }
+                }
+            }
+        }
+
+        TextureIndex index = TextureIndex.create(vloArchives, complete);
+        synchronized (this.textureIndexLock) {
+            if (generation != this.textureIndexGeneration.get())
+                return index; // Don't keep the index if a VLO changed while it was being built.
+
+            TextureIndex currentIndex = this.textureIndex;
+            if (currentIndex != null)
+                return currentIndex; // Another thread built the index first.
+
+            this.textureIndex = index;
+        }
+
+        return index;
+    }
+
+    /**
+     * Adds each VLO which is not in the texture ID index yet to the index, loading it if it has not been loaded.
+     * @param textureId If zero or above, stop once a VLO using this texture ID has been added.
+     * @return textureIndex
+     */
+    private TextureIndex indexRemainingVLOs(int textureId) {
+        TextureIndex index = getTextureIndex();
+        if (index.isComplete())
+            return index;
+
+        int generation = this.textureIndexGeneration.get();
+        for (MWIResourceEntry entry : getVLOEntries()) {
+            VLOArchive vlo = getVLO(entry);
+            if (vlo == null || index.contains(vlo))
+                continue;
+
+            synchronized (this.textureIndexLock) {
+                TextureIndex currentIndex = this.textureIndex;
+                if (currentIndex == null || generation != this.textureIndexGeneration.get()) {
+                    index = index.add(vlo); // The index was discarded, so this lookup continues with its own copy.
+                } else {
+                    this.textureIndex = index = currentIndex.contains(vlo) ? currentIndex : currentIndex.add(vlo);
+                }
+            }
+
+            if (textureId >= 0 && index.getImages(textureId) != null)
+                return index;
+        }
+
+        // Every VLO is now indexed, so misses no longer need to look for VLOs which have not been loaded.
+        synchronized (this.textureIndexLock) {
+            if (generation == this.textureIndexGeneration.get() && this.textureIndex != null)
+                this.textureIndex = this.textureIndex.markComplete();
+        }
+
+        return index;
+    }
+
+    private List<GameImage> findImagesByTextureId(int textureId) {
+        List<GameImage> results = new ArrayList<>();
+        for (VLOArchive vlo : getTextureIndex().getVloArchives())
             for (GameImage testImage : vlo.getImages())
                 if (testImage.getTextureId() == textureId)
                     results.add(testImage);
 
         return results;
     }
-}
\ No newline at end of file
+
+    /**
+     * Every image in a group of VLOs, indexed by texture ID.
+     * An index is never modified once created, so it can be read from any thread. Adding a VLO creates a new index instead.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class TextureIndex {
+        @Getter(AccessLevel.NONE) private final GameImage[][] imagesByTextureId;
+        private final List<VLOArchive> vloArchives;
+        private final boolean complete; // True iff every VLO in the MWD is included.
+
+        /**
+         * Creates an index of the images in the given VLOs.
+         * @param vloArchives The VLOs to index.
+         * @param complete Whether these are all of the VLOs in the MWD.
+         * @return textureIndex
+         */
+        public static TextureIndex create(List<VLOArchive> vloArchives, boolean complete) {
+            // Count the images using each texture ID, so each group can be allocated at its final size.
+            int[] imageCounts = new int[0];
+            for (VLOArchive vlo : vloArchives) {
+                for (GameImage image : vlo.getImages()) {
+                    int textureId = image.getTextureId();
+                    if (textureId < 0)
+                        continue;
+
+                    if (textureId >= imageCounts.length)
+                        imageCounts = Arrays.copyOf(imageCounts, Math.max(textureId + 1, imageCounts.length * 2));
+                    imageCounts[textureId]++;
+                }
+            }
+
+            GameImage[][] index = new GameImage[imageCounts.length][];
+            for (VLOArchive vlo : vloArchives) {
+                for (GameImage image : vlo.getImages()) {
+                    int textureId = image.getTextureId();
+                    if (textureId < 0)
+                        continue;
+
+                    GameImage[] images = index[textureId];
+                    if (images == null)
+                        index[textureId] = images = new GameImage[imageCounts[textureId]];
+                    images[images.length - imageCounts[textureId]--] = image;
+                }
+            }
+
+            return new TextureIndex(index, Collections.unmodifiableList(new ArrayList<>(vloArchives)), complete);
+        }
+
+        /**
+         * Gets the images using a texture ID.
+         * @param textureId The texture ID to get.
+         * @return images, or null if no indexed image uses the texture ID
+         */
+        public GameImage[] getImages(int textureId) {
+            return textureId >= 0 && textureId < this.imagesByTextureId.length ? this.imagesByTextureId[textureId] : null;
+        }
+
+        /**
+         * Test if a VLO is included in this index.
+         * @param vloArchive The VLO to test.
+         */
+        public boolean contains(VLOArchive vloArchive) {
+            for (int i = 0; i < this.vloArchives.size(); i++)
+                if (this.vloArchives.get(i) == vloArchive)
+                    return true;
+
+            return false;
+        }
+
+        /**
+         * Creates a new index which also includes the images of a VLO.
+         * The image groups which are unchanged are shared with this index.
+         * @param vloArchive The VLO to add.
+         * @return newIndex
+         */
+        public TextureIndex add(VLOArchive vloArchive) {
+            GameImage[][] newIndex = this.imagesByTextureId.clone();
+            for (GameImage image : vloArchive.getImages()) {
+                int textureId = image.getTextureId();
+                if (textureId < 0)
+                    continue;
+
+                if (textureId >= newIndex.length)
+                    newIndex = Arrays.copyOf(newIndex, Math.max(textureId + 1, newIndex.length * 2));
+
+                GameImage[] images = newIndex[textureId];
+                if (images == null) {
+                    images = new GameImage[1];
+                } else {
+                    images = Arrays.copyOf(images, images.length + 1);
+                }
+
+                images[images.length - 1] = image;
+                newIndex[textureId] = images;
+            }
+
+            List<VLOArchive> newVloArchives = new ArrayList<>(this.vloArchives.size() + 1);
+            newVloArchives.addAll(this.vloArchives);
+            newVloArchives.add(vloArchive);
+            return new TextureIndex(newIndex, Collections.unmodifiableList(newVloArchives), this.complete);
+        }
+
+        /**
+         * Creates a copy of this index which is marked as including every VLO in the MWD.
+         * @return completeIndex
+         */
+        public TextureIndex markComplete() {
+            return this.complete ? this : new TextureIndex(this.imagesByTextureId, this.vloArchives, true);
+        }
+    }
+}
@@ -3,12 +3,12 @@ package net.highwayfrogs.editor.games.sony.shared.mwd;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.image.Image;
+import lombok.AccessLevel;
 import lombok.Getter;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.config.exe.ThemeBook;
 import net.highwayfrogs.editor.file.mof.MOFFile;
 import net.highwayfrogs.editor.file.mof.MOFHolder;
-import net.highwayfrogs.editor.file.packers.PP20Packer;
 import net.highwayfrogs.editor.file.packers.PP20Packer.PackResult;
 import net.highwayfrogs.editor.file.packers.PP20Unpacker;
 import net.highwayfrogs.editor.file.packers.PP20Unpacker.UnpackResult;
@@ -35,6 +35,8 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Represents a WAD file.
@@ -57,6 +59,7 @@ public class WADFile extends SCSharedGameFile {
     @Override
     public void load(DataReader reader) {
         this.files.clear();
+        List<byte[]> entryFileBytes = new ArrayList<>();
         int lastFileCount = -1;
         while (reader.hasMore()) {
             int resourceId = reader.readInt();
@@ -77,69 +80,178 @@ public class WADFile extends SCSharedGameFile {
                 getLogger().severe("The MWI file entry for '" + fileName + "' had a type ID of " + fileMwiEntry.getTypeId() + ", but the WAD Entry had a type ID of " + fileTypeId);
 
             // Read file contents.
+            Supplier<byte[]> packedDataSource = createRawFileDataRangeSource(reader.getIndex(), fileSizeInBytes); // If null, the entry data is kept instead.
             byte[] fileBytes = reader.readBytes(fileSizeInBytes);
             reader.alignRequireEmpty(Constants.INTEGER_SIZE);
 
-            // Decompress if compressed.
-            byte[] compressedFileBytes = null;
-            int safetyMarginWordCount = 0;
             boolean dataAppearsCompressed = PP20Unpacker.isCompressed(fileBytes);
             if (dataAppearsCompressed != fileMwiEntry.isCompressed())
                 getLogger().severe("The wad entry '" + fileMwiEntry.getDisplayName() + "' appears" + (dataAppearsCompressed ? "" : " NOT") + " to be compressed, but the MWI entry disagrees.");
-            if (dataAppearsCompressed) {
-                compressedFileBytes = fileBytes;
-                UnpackResult unpackResult = PP20Unpacker.unpackData(fileBytes);
-                fileBytes = unpackResult.getUnpackedBytes();
-                safetyMarginWordCount = unpackResult.getSafetyMarginWordCount();
-            }
 
-            // Run load data hook.
-            fileMwiEntry.onLoadData(fileBytes, compressedFileBytes, safetyMarginWordCount);
+            WADEntry wadEntry = new WADEntry(getGameInstance(), resourceId, dataAppearsCompressed, null);
+            wadEntry.packedDataSource = packedDataSource;
+            this.files.add(wadEntry);
+            entryFileBytes.add(fileBytes);
+            lastFileCount = fileCount;
+        }
 
-            // Create file.
-            SCGameFile<?> file = getGameInstance().createFile(fileMwiEntry, fileBytes);
-            if (file == null) {
-                file = new DummyFile(getGameInstance(), fileBytes.length);
-                getLogger().warning("File '" + fileName + "' was of an unknown file type. (" + fileMwiEntry.getTypeId() + ")");
-            }
+        MWDFile archive = getArchive();
+        if (archive != null && archive.isLazyLoadEnabled()) {
+            // The files stay packed until they are first requested through WADEntry.getFile().
+            // MOFs are deferred too, but requesting an incomplete MOF first loads the complete MOF it copies its parts from.
+            for (int i = 0; i < this.files.size(); i++)
+                this.files.get(i).deferFile(this, entryFileBytes.get(i));
+        } else if ((archive == null || archive.isParallelLoadEnabled()) && MWDFile.LOAD_THREAD_COUNT > 1 && this.files.size() > 1) {
+            loadEntriesInParallel(entryFileBytes);
+        } else {
+            for (int i = 0; i < this.files.size(); i++)
+                loadEntryFile(this.files.get(i), entryFileBytes.get(i));
+        }
+    }
 
-            // Setup file.
-            WADEntry newEntry = new WADEntry(getGameInstance(), resourceId, dataAppearsCompressed, null);
-            newEntry.setFile(file);
-            this.files.add(newEntry);
-            file.setRawFileData(fileBytes);
+    /**
+     * Loads the files in the WAD using the MWD worker pool.
+     * All files are decompressed in parallel, then created in WAD order on the calling thread.
+     * Like MWD loading, file types which support it are loaded on the worker pool, and all others wait for the files before them.
+     * This means MOFs, which make up most map WADs, are still parsed one at a time on the calling thread, and only their decompression runs in parallel.
+     * An incomplete MOF copies its parts from the last complete MOF before it and links its animation names in the shared config, so MOFs must load in WAD order.
+     * @param entryFileBytes the file data for each WAD entry, as found in the WAD
+     */
+    private void loadEntriesInParallel(List<byte[]> entryFileBytes) {
+        List<Future<byte[]>> unpackTasks = new ArrayList<>(this.files.size());
+        for (int i = 0; i < this.files.size(); i++) {
+            WADEntry wadEntry = this.files.get(i);
+            MWIResourceEntry mwiEntry = wadEntry.getFileEntry();
+            byte[] fileBytes = entryFileBytes.get(i);
+            unpackTasks.add(MWDFile.MWD_LOAD_THREAD_POOL.submit(() -> unpackEntryData(mwiEntry, fileBytes, wadEntry.packedDataSource)));
+        }
 
-            try {
-                DataReader wadFileReader = new DataReader(new ArraySource(fileBytes));
-                file.load(wadFileReader);
-                if (wadFileReader.hasMore() && file.warnIfEndNotReached())
-                    file.getLogger().warning("File contents were read to index " + NumberUtils.toHexString(wadFileReader.getIndex()) + ", leaving " + wadFileReader.getRemaining() + " bytes unread. (Length: " + NumberUtils.toHexString(wadFileReader.getSize()) + ")");
-            } catch (Exception ex) {
-                Utils.handleError(getLogger(), ex, false, "Failed to load %s. (%d)", fileName, resourceId);
-
-                // Make it a dummy file instead since it failed.
-                file = new DummyFile(getGameInstance(), fileBytes.length);
-                file.setRawFileData(fileBytes);
-                newEntry.setFile(file);
-                file.load(new DataReader(new ArraySource(fileBytes)));
+        List<WADEntry> pendingEntries = new ArrayList<>();
+        List<byte[]> pendingFileBytes = new ArrayList<>(); // The raw file data may not be kept in memory, so it is held here in case the file must be replaced.
+        List<Future<Boolean>> pendingLoadTasks = new ArrayList<>();
+        for (int i = 0; i < this.files.size(); i++) {
+            WADEntry wadEntry = this.files.get(i);
+            byte[] fileBytes = Utils.awaitTask(unpackTasks.get(i));
+            SCGameFile<?> file = createEntryFile(wadEntry, fileBytes);
+            if (file.isParallelLoadSupported()) {
+                pendingEntries.add(wadEntry);
+                pendingFileBytes.add(fileBytes);
+                pendingLoadTasks.add(MWDFile.MWD_LOAD_THREAD_POOL.submit(() -> readEntryFile(wadEntry, file, fileBytes)));
+            } else {
+                // Files which are not safe to load in parallel may access earlier files, so wait for them to finish.
+                awaitEntryLoads(pendingEntries, pendingFileBytes, pendingLoadTasks);
+                if (!readEntryFile(wadEntry, file, fileBytes))
+                    replaceWithDummyFile(wadEntry, fileBytes);
             }
+        }
 
-            lastFileCount = fileCount;
+        awaitEntryLoads(pendingEntries, pendingFileBytes, pendingLoadTasks);
+    }
+
+    private void awaitEntryLoads(List<WADEntry> pendingEntries, List<byte[]> pendingFileBytes, List<Future<Boolean>> pendingLoadTasks) {
+        for (int i = 0; i < pendingLoadTasks.size(); i++)
+            if (!Utils.awaitTask(pendingLoadTasks.get(i))) // The file registry is not thread-safe, so failed files are replaced here.
+                replaceWithDummyFile(pendingEntries.get(i), pendingFileBytes.get(i));
+
+        pendingEntries.clear();
+        pendingFileBytes.clear();
+        pendingLoadTasks.clear();
+    }
+
+    /**
+     * Decompresses, creates, and loads the file for a WAD entry.
+     * @param wadEntry the entry to load the file for
+     * @param fileBytes the file data as found in the WAD, which may be compressed
+     */
+    void loadEntryFile(WADEntry wadEntry, byte[] fileBytes) {
+        fileBytes = unpackEntryData(wadEntry.getFileEntry(), fileBytes, wadEntry.packedDataSource);
+        SCGameFile<?> file = createEntryFile(wadEntry, fileBytes);
+        if (!readEntryFile(wadEntry, file, fileBytes))
+            replaceWithDummyFile(wadEntry, fileBytes);
+    }
+
+    /**
+     * Decompresses the file data if it is PP20 compressed.
+     * This does not access any state shared between files, so it is safe to call from the worker pool.
+     * @param mwiEntry the MWI entry corresponding to the file
+     * @param fileBytes the file data as found in the WAD, which may be compressed
+     * @param packedDataSource reads the file data as found in the WAD again, if possible. May be null.
+     * @return unpackedFileBytes
+     */
+    private byte[] unpackEntryData(MWIResourceEntry mwiEntry, byte[] fileBytes, Supplier<byte[]> packedDataSource) {
+        byte[] compressedFileBytes = null;
+        int safetyMarginWordCount = 0;
+        if (PP20Unpacker.isCompressed(fileBytes)) {
+            compressedFileBytes = fileBytes;
+            UnpackResult unpackResult = PP20Unpacker.unpackData(fileBytes);
+            fileBytes = unpackResult.getUnpackedBytes();
+            safetyMarginWordCount = unpackResult.getSafetyMarginWordCount();
+        }
+
+        // Run load data hook.
+        mwiEntry.onLoadData(fileBytes, compressedFileBytes, compressedFileBytes != null ? packedDataSource : null, safetyMarginWordCount);
+        return fileBytes;
+    }
+
+    private SCGameFile<?> createEntryFile(WADEntry wadEntry, byte[] fileBytes) {
+        MWIResourceEntry mwiEntry = wadEntry.getFileEntry();
+        SCGameFile<?> file = getGameInstance().createFile(mwiEntry, fileBytes);
+        if (file == null) {
+            file = new DummyFile(getGameInstance(), fileBytes.length);
+            getLogger().warning("File '" + mwiEntry.getDisplayName() + "' was of an unknown file type. (" + mwiEntry.getTypeId() + ")");
         }
+
+        wadEntry.setFile(file);
+        file.setRawFileData(fileBytes, MWDFile.createUnpackedDataSource(wadEntry.packedDataSource, true));
+        return file;
+    }
+
+    private boolean readEntryFile(WADEntry wadEntry, SCGameFile<?> file, byte[] fileBytes) {
+        try {
+            DataReader wadFileReader = new DataReader(new ArraySource(fileBytes));
+            MWDFile.observeFileLoad(file, fileBytes.length, () -> file.load(wadFileReader));
+            if (wadFileReader.hasMore() && file.warnIfEndNotReached())
+                file.getLogger().warning("File contents were read to index " + NumberUtils.toHexString(wadFileReader.getIndex()) + ", leaving " + wadFileReader.getRemaining() + " bytes unread. (Length: " + NumberUtils.toHexString(wadFileReader.getSize()) + ")");
+            return true;
+        } catch (Exception ex) {
+            Utils.handleError(getLogger(), ex, false, "Failed to load %s. (%d)", wadEntry.getFileEntry().getDisplayName(), wadEntry.getResourceId());
+            return false;
+        }
+    }
+
+    private void replaceWithDummyFile(WADEntry wadEntry, byte[] fileBytes) {
+        // Make it a dummy file instead since it failed.
+        SCGameFile<?> file = new DummyFile(getGameInstance(), fileBytes.length);
+        file.setRawFileData(fileBytes);
+        wadEntry.setFile(file);
+        file.load(new DataReader(new ArraySource(fileBytes)));
     }
 
     @Override
     public void save(DataWriter writer) {
-        for (WADEntry entry : this.files) {
-            writer.writeInt(entry.getResourceId());
-            writer.writeInt(entry.getFileEntry().getTypeId());
-
-            MWIResourceEntry mwiEntry = entry.getFileEntry();
+        // Serialize each file in order, and compress them on the worker pool.
+        byte[][] fileBytesList = new byte[this.files.size()][];
+        List<Future<PackResult>> packTasks = new ArrayList<>(this.files.size());
+        for (int i = 0; i < this.files.size(); i++) {
+            WADEntry entry = this.files.get(i);
             ArrayReceiver receiver = new ArrayReceiver();
             entry.getFile().save(new DataWriter(receiver));
 
             byte[] fileBytes = receiver.toArray();
-            PackResult packResult = entry.isCompressed() ? PP20Packer.packData(fileBytes) : null;
+            fileBytesList[i] = fileBytes;
+            packTasks.add(entry.isCompressed() ? entry.getFileEntry().packFileDataAsync(fileBytes) : null);
+        }
+
+        // Write the files in order.
+        for (int i = 0; i < this.files.size(); i++) {
+            WADEntry entry = this.files.get(i);
+            writer.writeInt(entry.getResourceId());
+            writer.writeInt(entry.getFileEntry().getTypeId());
+
+            MWIResourceEntry mwiEntry = entry.getFileEntry();
+            byte[] fileBytes = fileBytesList[i];
+            Future<PackResult> packTask = packTasks.get(i);
+            PackResult packResult = packTask != null ? Utils.awaitTask(packTask) : null;
             mwiEntry.onSaveData(fileBytes, packResult);
 
             byte[] writtenBytes = packResult != null ? packResult.getPackedBytes() : fileBytes;
@@ -250,7 +362,11 @@ public class WADFile extends SCSharedGameFile {
     public static class WADEntry extends SCSharedGameObject {
         private final int resourceId;
         private final boolean compressed;
-        private SCGameFile<?> file;
+        @Getter(AccessLevel.NONE) private volatile SCGameFile<?> file;
+        @Getter(AccessLevel.NONE) private transient WADFile deferredParent; // The WAD which will load the file.
+        @Getter(AccessLevel.NONE) private transient byte[] deferredFileBytes; // The file data as found in the WAD (possibly still compressed), until the file is first requested.
+        @Getter(AccessLevel.NONE) private transient volatile boolean loadPending; // True until a deferred file has finished loading.
+        @Getter(AccessLevel.NONE) private transient Supplier<byte[]> packedDataSource; // Reads the file data as found in the WAD again, when it is not kept in memory.
 
         public WADEntry(SCGameInstance instance, int resourceId, boolean compressed, SCGameFile<?> file) {
             super(instance);
@@ -267,6 +383,76 @@ public class WADFile extends SCSharedGameFile {
             return getGameInstance().getResourceEntryByID(this.resourceId);
         }
 
+        /**
+         * Gets the file linked to this wad entry.
+         * If the file has not been loaded yet, it will be decompressed and loaded now.
+         * @return file
+         */
+        public SCGameFile<?> getFile() {
+            if (this.loadPending)
+                loadDeferredFile(); // Waits for the file to finish loading, if another thread is loading it.
+
+            return this.file;
+        }
+
+        /**
+         * Gets the file linked to this wad entry, without loading it if it has not been loaded yet.
+         * @return file, or null if the file has not been loaded
+         */
+        public SCGameFile<?> getLoadedFile() {
+            return this.file;
+        }
+
+        /**
+         * Test if the file for this entry has not been created yet, because it is waiting to be requested.
+         */
+        public boolean isLoadPending() {
+            return this.loadPending;
+        }
+
+        /**
+         * Defers creating and loading the file until it is first requested.
+         * @param parent the WAD file which the entry belongs to
+         * @param fileBytes the file data as found in the WAD, which may be compressed
+         */
+        synchronized void deferFile(WADFile parent, byte[] fileBytes) {
+            this.deferredParent = parent;
+            this.deferredFileBytes = fileBytes;
+            this.loadPending = true;
+            getGameInstance().getPendingWadEntries().put(getFileEntry(), this);
+        }
+
+        private synchronized void loadDeferredFile() {
+            byte[] fileBytes = this.deferredFileBytes;
+            if (fileBytes == null)
+                return; // Another thread loaded the file first, or this thread is loading it now.
+
+            // The bytes are released first, so the file being requested while it loads does not load it again.
+            WADFile parent = this.deferredParent;
+            this.deferredFileBytes = null;
+            this.deferredParent = null;
+            try {
+                parent.loadEntryFile(this, fileBytes);
+            } finally {
+                finishDeferredFile();
+            }
+        }
+
+        private void clearDeferredFile() {
+            if (this.deferredFileBytes == null)
+                return;
+
+            this.deferredFileBytes = null;
+            this.deferredParent = null;
+            finishDeferredFile();
+        }
+
+        private void finishDeferredFile() {
+            // This happens after the file is registered, so a lookup which misses the pending entry will find the file.
+            getGameInstance().getPendingWadEntries().remove(getFileEntry(), this);
+            this.loadPending = false;
+        }
+
         /**
          * Check if this is a dummied MOF Entry.
          * @return isDummyMOF
@@ -291,7 +477,7 @@ public class WADFile extends SCSharedGameFile {
          * Set the file linked to this wad entry.
          * @param newFile The new file
          */
-        public void setFile(SCGameFile<?> newFile) {
+        public synchronized void setFile(SCGameFile<?> newFile) {
             MWIResourceEntry mwiEntry = getFileEntry();
             if (this.file != null) {
                 this.file.setFileDefinition(null);
@@ -299,9 +485,12 @@ public class WADFile extends SCSharedGameFile {
             }
 
             this.file = newFile;
-            getGameInstance().getFileObjectsByFileEntries().put(mwiEntry, newFile);
-            if (newFile != null)
+            if (newFile != null) {
+                getGameInstance().getFileObjectsByFileEntries().put(mwiEntry, newFile);
                 newFile.setFileDefinition(mwiEntry);
+            }
+
+            clearDeferredFile(); // A file set directly replaces one which was never loaded.
         }
     }
-}
\ No newline at end of file
+}
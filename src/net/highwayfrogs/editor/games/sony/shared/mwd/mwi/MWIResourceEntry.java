@@ -3,9 +3,11 @@ package net.highwayfrogs.editor.games.sony.shared.mwd.mwi;
 import lombok.Getter;
 import lombok.Setter;
 import net.highwayfrogs.editor.Constants;
+import net.highwayfrogs.editor.file.packers.PP20Packer;
 import net.highwayfrogs.editor.file.packers.PP20Packer.PackResult;
 import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.writer.DataWriter;
+import net.highwayfrogs.editor.games.generic.data.FileDataRetention;
 import net.highwayfrogs.editor.games.sony.*;
 import net.highwayfrogs.editor.games.sony.SCGameData.SCSharedGameData;
 import net.highwayfrogs.editor.games.sony.frogger.utils.FroggerVersionComparison;
@@ -15,6 +17,9 @@ import net.highwayfrogs.editor.utils.logging.ILogger;
 import net.highwayfrogs.editor.utils.logging.InstanceLogger.LazyInstanceLogger;
 
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Represents an entry in the MWI.
@@ -32,6 +37,10 @@ public class MWIResourceEntry extends SCSharedGameData implements ISCFileDefinit
     @Getter private String filePath;
     @Getter private String sha1Hash;
     private transient ILogger logger;
+    private transient String cachedPackHash; // The SHA1 hash of the unpacked file data which cachedPackResult holds the compressed form of.
+    private transient PackResult cachedPackResult; // The most recent compressed form of the file data, so unchanged files are not compressed again.
+    private transient Supplier<byte[]> cachedPackSource; // Reads the compressed form of the file data again from the archive, when it is not kept in memory.
+    private transient int cachedPackSafetyMarginWordCount;
     transient int filePathPointerAddress = NO_FILE_NAME_MARKER;
 
     // This flag set seems to be consistent.
@@ -313,9 +322,10 @@ public class MWIResourceEntry extends SCSharedGameData implements ISCFileDefinit
      * Called when we load the resource data.
      * @param fileBytes the file bytes to load
      * @param compressedFileBytes the compressed file bytes to load from, if the file was compressed
+     * @param compressedFileSource reads the compressed file bytes again from the archive, if possible. May be null.
      * @param safetyMarginWordCount the safety margin word count calculated during decompression
      */
-    public void onLoadData(byte[] fileBytes, byte[] compressedFileBytes, int safetyMarginWordCount) {
+    public void onLoadData(byte[] fileBytes, byte[] compressedFileBytes, Supplier<byte[]> compressedFileSource, int safetyMarginWordCount) {
         if (hasChecksum() && this.checksum != 0) {
             byte[] rawBytes = compressedFileBytes != null ? compressedFileBytes : fileBytes;
             int calculatedChecksum = SCUtils.calculateChecksum(rawBytes);
@@ -327,8 +337,48 @@ public class MWIResourceEntry extends SCSharedGameData implements ISCFileDefinit
             getLogger().warning("Safety Margin mismatch!! Read Safety Margin: " + this.safetyMarginWordCount + ", Calculated Safety Margin: " + safetyMarginWordCount);
 
         // Calculate the SHA1 hash.
+        String fileHash = (compressedFileBytes != null || FroggerVersionComparison.isEnabled()) ? Utils.calculateSHA1Hash(fileBytes) : null;
         if (FroggerVersionComparison.isEnabled() && this.sha1Hash == null)
-            this.sha1Hash = Utils.calculateSHA1Hash(fileBytes);
+            this.sha1Hash = fileHash;
+
+        // Remember the compressed data, so it can be saved again without recompressing if the file does not change.
+        FileDataRetention retention = getGameInstance().getFileDataRetention();
+        this.cachedPackResult = null;
+        this.cachedPackSource = null;
+        if (compressedFileBytes == null || retention == FileDataRetention.HASH_ONLY) {
+            this.cachedPackHash = null; // Without the compressed data, the file will be compressed again when saved.
+        } else if (retention == FileDataRetention.MAPPED_ARCHIVE && compressedFileSource != null) {
+            this.cachedPackHash = fileHash;
+            this.cachedPackSource = compressedFileSource;
+            this.cachedPackSafetyMarginWordCount = safetyMarginWordCount;
+        } else {
+            this.cachedPackHash = fileHash;
+            this.cachedPackResult = PackResult.fromSafetyMargin(compressedFileBytes, safetyMarginWordCount);
+        }
+    }
+
+    /**
+     * Compresses the file data with PP20 on a worker thread.
+     * If the file data is identical to the data which was last loaded or compressed, the previous compressed data is reused instead.
+     * @param fileBytes the unpacked file data to compress
+     * @return packTask
+     */
+    public Future<PackResult> packFileDataAsync(byte[] fileBytes) {
+        PackResult cachedResult = getCachedPackResult(fileBytes);
+        return cachedResult != null ? CompletableFuture.completedFuture(cachedResult) : PP20Packer.packDataAsync(fileBytes, getGameInstance().isFastCompressionEnabled());
+    }
+
+    private PackResult getCachedPackResult(byte[] fileBytes) {
+        PackResult cachedResult = this.cachedPackResult;
+        Supplier<byte[]> cachedSource = this.cachedPackSource;
+        if ((cachedResult == null && cachedSource == null) || this.cachedPackHash == null)
+            return null;
+
+        String fileHash = Utils.calculateSHA1Hash(fileBytes);
+        if (!this.cachedPackHash.equals(fileHash))
+            return null;
+
+        return cachedResult != null ? cachedResult : PackResult.fromSafetyMargin(cachedSource.get(), this.cachedPackSafetyMarginWordCount);
     }
 
     /**
@@ -345,5 +395,18 @@ public class MWIResourceEntry extends SCSharedGameData implements ISCFileDefinit
         this.unpackedSize = fileBytes.length;
         this.packedSize = (packResult != null) ? packResult.getPackedBytes().length : fileBytes.length;
         this.safetyMarginWordCount = packResult != null ? packResult.getSafetyMarginWordCount() : 0;
+
+        // Cache the compressed data, unless it came from the cache.
+        if (packResult == this.cachedPackResult)
+            return;
+
+        String fileHash = packResult != null ? Utils.calculateSHA1Hash(fileBytes) : null;
+        if (this.cachedPackSource != null && fileHash != null && fileHash.equals(this.cachedPackHash))
+            return; // The compressed data was read from the archive, and can be read from there again.
+
+        boolean keepPackResult = packResult != null && getGameInstance().getFileDataRetention() == FileDataRetention.KEEP_ALL;
+        this.cachedPackHash = keepPackResult ? fileHash : null;
+        this.cachedPackResult = keepPackResult ? packResult : null;
+        this.cachedPackSource = null;
     }
 }
@@ -101,33 +101,8 @@ public class SCMainMenuUIController<TGameInstance extends SCGameInstance> extend
         File outputMwiFile = new File(baseFolder, FileUtils.stripExtension(getGameInstance().getMwdFile().getName()) + "-MODIFIED.MWI");
         File outputExeFile = new File(baseFolder, FileUtils.stripExtension(getGameInstance().getExeFile().getName()) + "-modified.exe");
 
-        ProgressBarComponent.openProgressBarWindow(getGameInstance(), "Saving Files", progressBar -> {
-            // Save the MWD file.
-            DataWriter mwdWriter = new DataWriter(new FileReceiver(outputMwdFile));
-
-            try {
-                getGameInstance().getMainArchive().save(mwdWriter, progressBar);
-            } catch (Throwable th) {
-                throw new RuntimeException("Failed to save the MWD file: '" + outputMwdFile.getName() + "'.", th);
-            } finally {
-                mwdWriter.closeReceiver();
-            }
-
-            // Save the executable too.
-            progressBar.update(0, 1, "Saving the modified executable...");
-            try {
-                getGameInstance().saveExecutable(outputExeFile, true);
-                progressBar.addCompletedProgress(1);
-            } catch (Throwable th) {
-                throw new RuntimeException("Failed to save the patched game executable '" + outputExeFile.getName() + "'.", th);
-            }
-
-            // Wait until after the MWD has been saved to save the MWI.
-            FileUtils.deleteFile(outputMwiFile); // Don't merge files, create a new one.
-            DataWriter writer = new DataWriter(new FileReceiver(outputMwiFile));
-            getGameInstance().getArchiveIndex().save(writer);
-            writer.closeReceiver();
-        });
+        ProgressBarComponent.openProgressBarWindow(getGameInstance(), "Saving Files",
+                progressBar -> getGameInstance().saveGame(outputMwdFile, outputMwiFile, outputExeFile, progressBar));
     }
 
     @Override
@@ -192,6 +167,9 @@ public class SCMainMenuUIController<TGameInstance extends SCGameInstance> extend
      * @param file the file to display UI for
      */
     public void showEditor(SCGameFile<?> file) {
+        if (file != null)
+            file.ensureLoaded();
+
         GameUIController<?> controller = getCurrentEditor();
         if (controller instanceof SCFileEditorUIController) {
             @SuppressWarnings("unchecked")
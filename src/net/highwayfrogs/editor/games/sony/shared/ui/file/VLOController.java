@@ -110,6 +110,7 @@ public class VLOController extends SCFileEditorUIController<SCGameInstance, VLOA
 
             int newView = getFile().getImages().size();
             getFile().getImages().add(gameImage.clone());
+            getFile().invalidateTextureIndex();
             imageList.setItems(FXCollections.observableArrayList(getFile().getImages()));
             imageList.getSelectionModel().select(newView);
             imageList.scrollTo(newView);
@@ -1,12 +1,15 @@
 package net.highwayfrogs.editor.games.sony.shared.utils;
 
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import net.highwayfrogs.editor.gui.extra.hash.FroggerHashUtil;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This tool has been created to permute variations of certain keywords, combining them together with other keywords, in order to find linker hash matches.
@@ -291,6 +294,7 @@ public class SCHashPermuter {
 
     /**
      * Find strings created via permutations of the provided words which have the desired linker hash.
+     * Blocks until the search completes, reporting progress periodically.
      * @param minLinkerHash The minimum desired linker hash.
      * @param maxLinkerHash The maximum desired linker hash.
      * @param prefix        A prefix to apply to the string. Can be null.
@@ -298,6 +302,20 @@ public class SCHashPermuter {
      * @param words         The list of words to permute. (Each word can have multiple "permutation words", to allow for variations.)
      */
     public static void findLinkerHash(int minLinkerHash, int maxLinkerHash, String prefix, String suffix, List<Word> words) {
+        startLinkerHashSearch(minLinkerHash, maxLinkerHash, prefix, suffix, words).awaitCompletion();
+    }
+
+    /**
+     * Starts searching for strings created via permutations of the provided words which have the desired linker hash.
+     * The search runs on all available cores, and can be cancelled with the returned search object.
+     * @param minLinkerHash The minimum desired linker hash.
+     * @param maxLinkerHash The maximum desired linker hash.
+     * @param prefix        A prefix to apply to the string. Can be null.
+     * @param suffix        A suffix to apply to the string. Can be null.
+     * @param words         The list of words to permute. (Each word can have multiple "permutation words", to allow for variations.)
+     * @return search
+     */
+    public static LinkerHashSearch startLinkerHashSearch(int minLinkerHash, int maxLinkerHash, String prefix, String suffix, List<Word> words) {
         if (minLinkerHash < 0 || minLinkerHash >= FroggerHashUtil.LINKER_HASH_TABLE_SIZE)
             throw new IllegalArgumentException("The provided minimum linker hash was not in the expected range of a linker hash. (" + minLinkerHash + ")");
         if (maxLinkerHash < 0 || maxLinkerHash >= FroggerHashUtil.LINKER_HASH_TABLE_SIZE)
@@ -320,41 +338,12 @@ public class SCHashPermuter {
         System.out.println("Testing " + permutationCount + " possible permutations.");
 
         // 2) Permute results
-        long permuteStart = System.currentTimeMillis();
-        int tempIndex;
-        int[] wordIndices = new int[words.size()];
-        StringBuilder builder = new StringBuilder();
-        do {
-            // a) Generate string.
-            builder.setLength(0);
-            if (prefix != null && !prefix.isEmpty())
-                builder.append(prefix);
-            for (int i = 0; i < words.size(); i++)
-                builder.append(words.get(i).getPermutationWord(wordIndices[i]));
-            if (suffix != null && !suffix.isEmpty())
-                builder.append(suffix);
-
-            // b) Check result against linker hash.
-            String result = builder.toString();
-            int linkerHash = FroggerHashUtil.getLinkerHash(result);
-            if (linkerHash >= minLinkerHash && linkerHash <= maxLinkerHash && shouldShowWord(result, words, wordIndices))
-                printResult(result); // Frogger global variables always start with a capital letter, (Although PSX SDK ones do not), so we can skip ones that don't.
-
-            // c) Move on to the next permutation.
-            tempIndex = wordIndices.length - 1;
-            while (tempIndex >= 0 && ++wordIndices[tempIndex] >= words.get(tempIndex).getPermutationWordCount()) {
-                wordIndices[tempIndex] = 0;
-                tempIndex--; // Try again but with the next one.
-            }
-        } while (tempIndex >= 0);
-
-        // Done.
-        long permuteEnd = System.currentTimeMillis();
-        System.out.println("Done permuting in " + (permuteEnd - permuteStart) + " ms.");
-        System.out.println();
+        LinkerHashSearch search = new LinkerHashSearch(minLinkerHash, maxLinkerHash, prefix, suffix, words, permutationCount);
+        search.start();
+        return search;
     }
 
-    private static void printResult(String result) {
+    private static synchronized void printResult(String result) {
         System.out.print("Result '");
         System.out.print(result);
         System.out.print("', Linker Hash: ");
@@ -363,6 +352,231 @@ public class SCHashPermuter {
         System.out.println(FroggerHashUtil.getAssemblerHash(result));
     }
 
+    /**
+     * A linker hash search running in the background.
+     * The linker hash of a string is its length plus the sum of its characters, so the hash of each permutation word is calculated once.
+     * Then, the hash of a full permutation is the sum of the hashes of its words, and a string is only built for permutations which match.
+     * The permutation space is split by the leading words into tasks run by a fork/join pool.
+     */
+    public static class LinkerHashSearch {
+        private final int minLinkerHash;
+        private final int maxLinkerHash;
+        private final String prefix;
+        private final String suffix;
+        private final List<Word> words;
+        @Getter private final BigInteger permutationCount;
+        private final int[][] wordHashes; // [wordIndex][permutationWordIndex] -> linker hash of the permutation word.
+        private final int baseHash; // Linker hash of the prefix & suffix.
+        private final int splitWordCount; // The number of leading words which each task has fixed permutation words for.
+        private final int taskCount;
+        private final ForkJoinPool threadPool;
+        private final AtomicLong testedPermutations = new AtomicLong();
+        @Getter private final List<String> results = new CopyOnWriteArrayList<>();
+        @Getter private volatile boolean cancelled;
+        private ForkJoinTask<?> rootTask;
+        private long startTime;
+
+        private static final int TASKS_PER_THREAD = 16;
+        private static final long PROGRESS_INTERVAL_MS = 5000;
+        private static final int PROGRESS_FLUSH_INTERVAL = 1 << 20;
+
+        private LinkerHashSearch(int minLinkerHash, int maxLinkerHash, String prefix, String suffix, List<Word> words, BigInteger permutationCount) {
+            this.minLinkerHash = minLinkerHash;
+            this.maxLinkerHash = maxLinkerHash;
+            this.prefix = prefix != null ? prefix : "";
+            this.suffix = suffix != null ? suffix : "";
+            this.words = new ArrayList<>(words);
+            this.permutationCount = permutationCount;
+            this.baseHash = getPartialLinkerHash(this.prefix + this.suffix);
+            this.wordHashes = new int[words.size()][];
+            for (int i = 0; i < this.wordHashes.length; i++) {
+                Word word = words.get(i);
+                int[] hashes = this.wordHashes[i] = new int[word.getPermutationWordCount()];
+                for (int j = 0; j < hashes.length; j++)
+                    hashes[j] = getPartialLinkerHash(word.getPermutationWord(j));
+            }
+
+            // Split across enough leading words to keep every thread busy, while leaving the last word for the inner loop.
+            int threadCount = Runtime.getRuntime().availableProcessors();
+            int splitWordCount = 0;
+            long taskCount = 1;
+            while (splitWordCount < words.size() - 1 && taskCount < (long) threadCount * TASKS_PER_THREAD
+                    && taskCount * this.wordHashes[splitWordCount].length <= Integer.MAX_VALUE)
+                taskCount *= this.wordHashes[splitWordCount++].length;
+
+            this.splitWordCount = splitWordCount;
+            this.taskCount = (int) taskCount;
+            this.threadPool = new ForkJoinPool(threadCount);
+        }
+
+        private void start() {
+            this.startTime = System.currentTimeMillis();
+            this.rootTask = this.threadPool.submit(new PermutationTask(0, this.taskCount));
+        }
+
+        /**
+         * Test if the search has finished, either by completing or being cancelled.
+         */
+        public boolean isDone() {
+            return this.rootTask.isDone();
+        }
+
+        /**
+         * Cancels the search. Permutations which are already being tested may still report results.
+         */
+        public void cancel() {
+            this.cancelled = true;
+            this.threadPool.shutdown();
+        }
+
+        /**
+         * Gets the number of permutations tested so far.
+         */
+        public long getTestedPermutationCount() {
+            return this.testedPermutations.get();
+        }
+
+        /**
+         * Gets the fraction of permutations tested so far, from 0 to 1.
+         */
+        public double getProgress() {
+            double permutationCount = this.permutationCount.doubleValue();
+            return permutationCount > 0 ? Math.min(1D, this.testedPermutations.get() / permutationCount) : 1D;
+        }
+
+        /**
+         * Estimates the number of milliseconds until the search completes, or -1 if no estimate is available yet.
+         */
+        public long getEstimatedTimeRemaining() {
+            double progress = getProgress();
+            if (progress <= 0)
+                return -1;
+
+            long elapsedTime = System.currentTimeMillis() - this.startTime;
+            return (long) (elapsedTime * ((1D - progress) / progress));
+        }
+
+        /**
+         * Blocks until the search completes, printing progress periodically.
+         */
+        public void awaitCompletion() {
+            try {
+                while (!isDone()) {
+                    try {
+                        this.rootTask.get(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException ex) {
+                        long timeRemaining = getEstimatedTimeRemaining();
+                        System.out.printf("Progress: %.2f%% (%d/%s), ETA: %s.%n", getProgress() * 100, getTestedPermutationCount(),
+                                this.permutationCount, timeRemaining >= 0 ? (timeRemaining / 1000) + " seconds" : "unknown");
+                    }
+                }
+            } catch (InterruptedException ex) {
+                cancel();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                throw new RuntimeException("The linker hash search failed.", ex.getCause());
+            } finally {
+                this.threadPool.shutdown();
+            }
+
+            System.out.println((this.cancelled ? "Cancelled permuting after " : "Done permuting in ") + (System.currentTimeMillis() - this.startTime) + " ms.");
+            System.out.println();
+        }
+
+        /**
+         * Tests all permutations where the leading words use the permutation words given by the task id.
+         * @param taskId the task id, which is decoded into permutation word indices for the leading words
+         */
+        private void runTask(int taskId) {
+            int wordCount = this.wordHashes.length;
+            int lastWord = wordCount - 1;
+            int[] wordIndices = new int[wordCount];
+            int[] partialHashes = new int[wordCount]; // partialHashes[i] = hash of the prefix, suffix, and words before word i.
+
+            // Decode the leading word indices from the task id.
+            for (int i = this.splitWordCount - 1; i >= 0; i--) {
+                int permutationWordCount = this.wordHashes[i].length;
+                wordIndices[i] = taskId % permutationWordCount;
+                taskId /= permutationWordCount;
+            }
+
+            partialHashes[0] = this.baseHash;
+            for (int i = 0; i < lastWord; i++)
+                partialHashes[i + 1] = partialHashes[i] + this.wordHashes[i][wordIndices[i]];
+
+            int[] lastWordHashes = this.wordHashes[lastWord];
+            long untrackedPermutations = 0;
+            int tempIndex;
+            do {
+                // a) Test all permutation words of the last word against the linker hash.
+                int partialHash = partialHashes[lastWord];
+                for (int i = 0; i < lastWordHashes.length; i++) {
+                    int linkerHash = (partialHash + lastWordHashes[i]) % FroggerHashUtil.LINKER_HASH_TABLE_SIZE;
+                    if (linkerHash >= this.minLinkerHash && linkerHash <= this.maxLinkerHash) {
+                        wordIndices[lastWord] = i;
+                        onMatch(wordIndices);
+                    }
+                }
+
+                untrackedPermutations += lastWordHashes.length;
+                if (untrackedPermutations >= PROGRESS_FLUSH_INTERVAL) {
+                    this.testedPermutations.addAndGet(untrackedPermutations);
+                    untrackedPermutations = 0;
+                    if (this.cancelled)
+                        return;
+                }
+
+                // b) Move on to the next permutation, updating the hashes of the words after the one which changed.
+                tempIndex = lastWord - 1;
+                while (tempIndex >= this.splitWordCount && ++wordIndices[tempIndex] >= this.wordHashes[tempIndex].length) {
+                    wordIndices[tempIndex] = 0;
+                    tempIndex--; // Try again but with the next one.
+                }
+
+                for (int i = Math.max(tempIndex, 0); i < lastWord; i++)
+                    partialHashes[i + 1] = partialHashes[i] + this.wordHashes[i][wordIndices[i]];
+            } while (tempIndex >= this.splitWordCount);
+
+            this.testedPermutations.addAndGet(untrackedPermutations);
+        }
+
+        private void onMatch(int[] wordIndices) {
+            StringBuilder builder = new StringBuilder(this.prefix);
+            for (int i = 0; i < wordIndices.length; i++)
+                builder.append(this.words.get(i).getPermutationWord(wordIndices[i]));
+            builder.append(this.suffix);
+
+            String result = builder.toString();
+            if (shouldShowWord(result, this.words, wordIndices)) { // Frogger global variables always start with a capital letter, (Although PSX SDK ones do not), so we can skip ones that don't.
+                this.results.add(result);
+                printResult(result);
+            }
+        }
+
+        private static int getPartialLinkerHash(String input) {
+            return FroggerHashUtil.getFullLinkerHash(input) % FroggerHashUtil.LINKER_HASH_TABLE_SIZE;
+        }
+
+        @RequiredArgsConstructor
+        private class PermutationTask extends RecursiveAction {
+            private final int startTaskId;
+            private final int endTaskId;
+
+            @Override
+            protected void compute() {
+                if (LinkerHashSearch.this.cancelled)
+                    return;
+
+                if (this.endTaskId - this.startTaskId > 1) {
+                    int middleTaskId = this.startTaskId + ((this.endTaskId - this.startTaskId) / 2);
+                    invokeAll(new PermutationTask(this.startTaskId, middleTaskId), new PermutationTask(middleTaskId, this.endTaskId));
+                } else {
+                    runTask(this.startTaskId);
+                }
+            }
+        }
+    }
+
     public static abstract class Word {
         /**
          * Gets the permutation word for a particular index.
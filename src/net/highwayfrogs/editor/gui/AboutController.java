@@ -8,6 +8,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
 import net.highwayfrogs.editor.Constants;
+import net.highwayfrogs.editor.file.vlo.GameImageCache;
 import net.highwayfrogs.editor.games.generic.GameInstance;
 import net.highwayfrogs.editor.utils.DataSizeUnit;
 import net.highwayfrogs.editor.utils.FXUtils;
@@ -31,7 +32,8 @@ public class AboutController extends GameUIController<GameInstance> {
         versionLabel.setText("FrogLord " + Constants.VERSION);
         javaVersionLabel.setText("Java Version: " + System.getProperty("java.runtime.version") + ", JavaFX: " + VersionInfo.getVersion());
         javaRuntimeName.setText("Java Runtime: " + System.getProperty("java.runtime.name"));
-        memoryLabel.setText("Memory Info: " + DataSizeUnit.formatSize(Runtime.getRuntime().totalMemory()) + ", Total: " + DataSizeUnit.formatSize(Runtime.getRuntime().maxMemory()) + " Max");
+        memoryLabel.setText("Memory Info: " + DataSizeUnit.formatSize(Runtime.getRuntime().totalMemory()) + ", Total: " + DataSizeUnit.formatSize(Runtime.getRuntime().maxMemory()) + " Max"
+                + "\n" + GameImageCache.getStatistics());
     }
 
     @Override
@@ -5,8 +5,10 @@ import javafx.application.Platform;
 import javafx.scene.control.Alert.AlertType;
 import javafx.stage.Stage;
 import lombok.Getter;
+import net.highwayfrogs.editor.file.vlo.GameImageCache;
 import net.highwayfrogs.editor.games.generic.GameInstance;
 import net.highwayfrogs.editor.system.Config;
+import net.highwayfrogs.editor.system.Config.ConfigValueNode;
 import net.highwayfrogs.editor.utils.DataSizeUnit;
 import net.highwayfrogs.editor.utils.FXUtils;
 import net.highwayfrogs.editor.utils.FileUtils;
@@ -51,6 +53,8 @@ public class GUIMain extends Application {
     @Getter private static GUIMain application;
     @Getter private static final List<GameInstance> activeGameInstances = new CopyOnWriteArrayList<>();
 
+    private static final String CONFIG_IMAGE_CACHE_SIZE = "imageCacheSizeMb"; // The amount of memory rendered images may use before the least recently used ones are discarded.
+
     public static void main(String[] args) {
         launch(GUIMain.class, args);
     }
@@ -73,6 +77,10 @@ public class GUIMain extends Application {
 
         mainConfigFile = new File(mainApplicationFolder, "main.cfg");
         mainConfig = Config.loadConfigFromTextFile(mainConfigFile, true);
+        ConfigValueNode imageCacheSizeNode = mainConfig.getOptionalKeyValueNode(CONFIG_IMAGE_CACHE_SIZE);
+        if (imageCacheSizeNode != null)
+            GameImageCache.setMemoryBudget(imageCacheSizeNode.getAsInteger() * DataSizeUnit.MEGABYTE.getIncrement());
+
         openLoadGameSettingsMenu();
     }
 
@@ -11,6 +11,7 @@ import javafx.scene.control.*;
 import javafx.scene.layout.AnchorPane;
 import lombok.Getter;
 import net.highwayfrogs.editor.Constants;
+import net.highwayfrogs.editor.file.vlo.GameImageCache;
 import net.highwayfrogs.editor.games.generic.GameInstance;
 import net.highwayfrogs.editor.gui.components.CollectionEditorComponent;
 import net.highwayfrogs.editor.gui.components.CollectionViewComponent.ICollectionViewEntry;
@@ -115,6 +116,7 @@ public abstract class MainMenuController<TGameInstance extends GameInstance, TFi
     @Override
     public void onSceneRemove(Scene oldScene) {
         GUIMain.getActiveGameInstances().remove(getGameInstance()); // Window getting closed.
+        GameImageCache.removeGameInstance(getGameInstance());
         super.onSceneRemove(oldScene);
     }
 
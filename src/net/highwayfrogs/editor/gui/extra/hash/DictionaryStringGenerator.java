@@ -8,35 +8,144 @@ import java.util.*;
 
 /**
  * Generates strings based on a word dictionary.
+ * The linker hash of a string is its length plus the sum of its characters, so the hash of several words joined together is the sum of the hashes of each part.
+ * Words are indexed by (character sum % 512, length), which allows the words completing a combination to be looked up directly from the hash which remains.
  * Created by Kneesnap on 2/27/2022.
  */
 public class DictionaryStringGenerator implements IHashStringGenerator {
-    private final List<String> allLoadedWords = new ArrayList<>();
-    private final Map<Integer, List<String>> wordsByHash = new HashMap<>();
+    private String[] words = new String[0]; // Dictionary words (in file order) come first, followed by the generated short strings.
+    private int dictionaryWordCount; // Only words below this index are used in word combinations.
+    private int maxWordLength;
+    private int[] wordCharSums; // Character sum % LINKER_HASH_TABLE_SIZE.
+    private int[] bucketStartIndices; // [bucketId] -> The index into bucketWordIds where the bucket starts. The bucket ends where the next bucket starts.
+    private int[] bucketWordIds;
+    private WordPrefixTrie prefixTrie = new WordPrefixTrie();
+    private final Set<String> cachedResults = new LinkedHashSet<>();
     private final List<String> cachedGeneratedList = new ArrayList<>();
 
+    private static final String WORD_SEPARATOR = "_";
+    private static final int WORD_SEPARATOR_HASH = FroggerHashUtil.getFullLinkerHash(WORD_SEPARATOR);
+    private static final int MAX_RESULTS = 5000;
+
     @Override
     public List<String> generateStrings(int targetLinkerHash, String searchQuery) {
-        if (allLoadedWords.isEmpty())
+        return generateStrings(targetLinkerHash, searchQuery, 0);
+    }
+
+    @Override
+    public List<String> generateStrings(int targetLinkerHash, String searchQuery, int maxLength) {
+        if (this.words.length == 0)
             return Collections.singletonList("Please load a dictionary first.");
 
-        List<String> words = wordsByHash.get(targetLinkerHash);
-        if (words == null)
-            return Collections.emptyList();
+        if (maxLength <= 0 || maxLength > FroggerHashUtil.MAX_SYMBOL_NAME_LENGTH)
+            maxLength = FroggerHashUtil.MAX_SYMBOL_NAME_LENGTH;
+
+        // Single words match the query anywhere, like before.
+        this.cachedResults.clear();
+        boolean hasQuery = (searchQuery != null && searchQuery.length() > 0);
+        for (int length = 1; length <= Math.min(maxLength, this.maxWordLength); length++) {
+            int bucketId = getBucketId(targetLinkerHash, length);
+            for (int i = this.bucketStartIndices[bucketId]; i < this.bucketStartIndices[bucketId + 1]; i++) {
+                String word = this.words[this.bucketWordIds[i]];
+                if ((!hasQuery || word.contains(searchQuery)) && !addResult(word))
+                    return getResults();
+            }
+        }
+
+        // Word combinations must include a word starting with the query.
+        int[] anchorWordIds = hasQuery ? this.prefixTrie.findWordIds(searchQuery) : null;
+        if (addWordPairs(targetLinkerHash, anchorWordIds, maxLength))
+            addWordTriples(targetLinkerHash, anchorWordIds, maxLength);
+
+        return getResults();
+    }
 
-        cachedGeneratedList.clear();
-        cachedGeneratedList.addAll(words);
+    private List<String> getResults() {
+        this.cachedGeneratedList.clear();
+        this.cachedGeneratedList.addAll(this.cachedResults);
+        return this.cachedGeneratedList;
+    }
 
-        if (searchQuery != null && searchQuery.length() > 0) {
-            Iterator<String> iterator = cachedGeneratedList.iterator();
-            while (iterator.hasNext()) {
-                String word = iterator.next();
-                if (!word.contains(searchQuery))
-                    iterator.remove();
+    private boolean addResult(String result) {
+        this.cachedResults.add(result);
+        return this.cachedResults.size() < MAX_RESULTS;
+    }
+
+    /**
+     * Adds two-word combinations which match the hash.
+     * @return If more results can be added.
+     */
+    private boolean addWordPairs(int targetLinkerHash, int[] anchorWordIds, int maxLength) {
+        int firstWordCount = (anchorWordIds != null) ? anchorWordIds.length : this.dictionaryWordCount;
+        for (int i = 0; i < firstWordCount; i++) {
+            int firstId = (anchorWordIds != null) ? anchorWordIds[i] : i;
+            String first = this.words[firstId];
+            int remainingHash = targetLinkerHash - getLinkerHash(firstId) - WORD_SEPARATOR_HASH;
+            int remainingLength = maxLength - first.length() - WORD_SEPARATOR.length();
+            for (int length = 1; length <= Math.min(remainingLength, this.maxWordLength); length++) {
+                int bucketId = getBucketId(remainingHash, length);
+                for (int j = this.bucketStartIndices[bucketId]; j < this.bucketStartIndices[bucketId + 1]; j++) {
+                    int secondId = this.bucketWordIds[j];
+                    if (secondId >= this.dictionaryWordCount)
+                        break; // The generated strings are sorted after the dictionary words.
+
+                    String second = this.words[secondId];
+                    if (!addResult(first + WORD_SEPARATOR + second))
+                        return false;
+                    if (anchorWordIds != null && !addResult(second + WORD_SEPARATOR + first))
+                        return false;
+                }
             }
         }
 
-        return cachedGeneratedList;
+        return true;
+    }
+
+    /**
+     * Adds three-word combinations which match the hash.
+     * @return If more results can be added.
+     */
+    private boolean addWordTriples(int targetLinkerHash, int[] anchorWordIds, int maxLength) {
+        int firstWordCount = (anchorWordIds != null) ? anchorWordIds.length : this.dictionaryWordCount;
+        for (int i = 0; i < firstWordCount; i++) {
+            int firstId = (anchorWordIds != null) ? anchorWordIds[i] : i;
+            String first = this.words[firstId];
+            int firstRemainingLength = maxLength - first.length() - (2 * WORD_SEPARATOR.length());
+            if (firstRemainingLength < 2)
+                continue;
+
+            for (int secondId = 0; secondId < this.dictionaryWordCount; secondId++) {
+                String second = this.words[secondId];
+                int remainingHash = targetLinkerHash - getLinkerHash(firstId) - getLinkerHash(secondId) - (2 * WORD_SEPARATOR_HASH);
+                int remainingLength = firstRemainingLength - second.length();
+                for (int length = 1; length <= Math.min(remainingLength, this.maxWordLength); length++) {
+                    int bucketId = getBucketId(remainingHash, length);
+                    for (int j = this.bucketStartIndices[bucketId]; j < this.bucketStartIndices[bucketId + 1]; j++) {
+                        int thirdId = this.bucketWordIds[j];
+                        if (thirdId >= this.dictionaryWordCount)
+                            break; // The generated strings are sorted after the dictionary words.
+
+                        String third = this.words[thirdId];
+                        if (!addResult(first + WORD_SEPARATOR + second + WORD_SEPARATOR + third))
+                            return false;
+                        if (anchorWordIds != null && (!addResult(second + WORD_SEPARATOR + first + WORD_SEPARATOR + third)
+                                || !addResult(second + WORD_SEPARATOR + third + WORD_SEPARATOR + first)))
+                            return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private int getLinkerHash(int wordId) {
+        return this.wordCharSums[wordId] + this.words[wordId].length();
+    }
+
+    private static int getBucketId(int linkerHash, int length) {
+        int charSum = Math.floorMod(linkerHash - length, FroggerHashUtil.LINKER_HASH_TABLE_SIZE);
+        return (charSum * (FroggerHashUtil.MAX_SYMBOL_NAME_LENGTH + 1)) + length;
     }
 
     @Override
@@ -53,26 +162,152 @@ public class DictionaryStringGenerator implements IHashStringGenerator {
         if (file == null || !file.exists() || !file.isFile())
             throw new RuntimeException("File not found: '" + file + "'.");
 
-        allLoadedWords.clear();
-        allLoadedWords.addAll(Files.readAllLines(file.toPath()));
+        Set<String> loadedWords = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(file.toPath())) {
+            String word = line.trim();
+            if (word.length() > 0 && word.length() <= FroggerHashUtil.MAX_SYMBOL_NAME_LENGTH)
+                loadedWords.add(word);
+        }
 
+        int dictionaryWordCount = loadedWords.size();
         char[] characters = "_0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
         for (char i = 0; i < characters.length; i++) {
             String temp = "" + characters[i];
-            if (!allLoadedWords.contains(temp))
-                allLoadedWords.add(temp);
+            loadedWords.add(temp);
+            for (char j = 0; j < characters.length; j++)
+                loadedWords.add(temp + characters[j]);
+        }
+
+        String[] words = loadedWords.toArray(new String[0]);
+        int[] wordCharSums = new int[words.length];
+        int maxWordLength = 0;
+        WordPrefixTrie prefixTrie = new WordPrefixTrie();
+        for (int i = 0; i < words.length; i++) {
+            String word = words[i];
+            wordCharSums[i] = FroggerHashUtil.getFullAssemblerHash(word) % FroggerHashUtil.LINKER_HASH_TABLE_SIZE;
+            maxWordLength = Math.max(maxWordLength, word.length());
+            if (i < dictionaryWordCount)
+                prefixTrie.addWord(word, i);
+        }
+
+        // Sort the words into buckets, keeping them in dictionary order within each bucket.
+        int[] bucketStartIndices = new int[(FroggerHashUtil.LINKER_HASH_TABLE_SIZE * (FroggerHashUtil.MAX_SYMBOL_NAME_LENGTH + 1)) + 1];
+        for (int i = 0; i < words.length; i++)
+            bucketStartIndices[(wordCharSums[i] * (FroggerHashUtil.MAX_SYMBOL_NAME_LENGTH + 1)) + words[i].length() + 1]++;
+        for (int i = 1; i < bucketStartIndices.length; i++)
+            bucketStartIndices[i] += bucketStartIndices[i - 1];
 
-            for (char j = 0; j < characters.length; j++) {
-                String temp2 = temp + characters[j];
-                if (!allLoadedWords.contains(temp2))
-                    allLoadedWords.add(temp2);
+        int[] bucketWordIds = new int[words.length];
+        int[] bucketPositions = Arrays.copyOf(bucketStartIndices, bucketStartIndices.length);
+        for (int i = 0; i < words.length; i++)
+            bucketWordIds[bucketPositions[(wordCharSums[i] * (FroggerHashUtil.MAX_SYMBOL_NAME_LENGTH + 1)) + words[i].length()]++] = i;
+
+        this.words = words;
+        this.dictionaryWordCount = dictionaryWordCount;
+        this.maxWordLength = maxWordLength;
+        this.wordCharSums = wordCharSums;
+        this.bucketStartIndices = bucketStartIndices;
+        this.bucketWordIds = bucketWordIds;
+        this.prefixTrie = prefixTrie;
+    }
+
+    /**
+     * A prefix tree of the dictionary words.
+     * The nodes are stored in arrays, so large dictionaries do not need an object per node.
+     */
+    private static class WordPrefixTrie {
+        private char[] nodeCharacters = new char[64];
+        private int[] nodeFirstChildren = new int[64];
+        private int[] nodeNextSiblings = new int[64];
+        private int[] nodeWordIds = new int[64];
+        private int nodeCount;
+
+        public WordPrefixTrie() {
+            addNode('\0'); // Root.
+        }
+
+        /**
+         * Adds a word to the tree.
+         * @param word The word to add.
+         * @param wordId The id of the word.
+         */
+        public void addWord(String word, int wordId) {
+            int node = 0;
+            for (int i = 0; i < word.length(); i++) {
+                char temp = word.charAt(i);
+                int child = findChild(node, temp);
+                if (child < 0) {
+                    child = addNode(temp);
+                    this.nodeNextSiblings[child] = this.nodeFirstChildren[node];
+                    this.nodeFirstChildren[node] = child;
+                }
+
+                node = child;
             }
+
+            this.nodeWordIds[node] = wordId;
         }
 
-        wordsByHash.values().forEach(List::clear);
-        for (String word : allLoadedWords)
-            wordsByHash.computeIfAbsent(FroggerHashUtil.getLinkerHash(word), key -> new ArrayList<>()).add(word);
+        /**
+         * Finds the ids of all words which start with the prefix.
+         * @param prefix The prefix to search for.
+         * @return wordIds, sorted in ascending order
+         */
+        public int[] findWordIds(String prefix) {
+            int node = 0;
+            for (int i = 0; i < prefix.length() && node >= 0; i++)
+                node = findChild(node, prefix.charAt(i));
+            if (node < 0)
+                return new int[0];
+
+            int[] wordIds = new int[16];
+            int wordCount = 0;
+            int[] nodeStack = new int[16];
+            int stackSize = 0;
+            nodeStack[stackSize++] = node;
+            while (stackSize > 0) {
+                int temp = nodeStack[--stackSize];
+                if (this.nodeWordIds[temp] >= 0) {
+                    if (wordCount >= wordIds.length)
+                        wordIds = Arrays.copyOf(wordIds, wordIds.length * 2);
+                    wordIds[wordCount++] = this.nodeWordIds[temp];
+                }
 
+                for (int child = this.nodeFirstChildren[temp]; child >= 0; child = this.nodeNextSiblings[child]) {
+                    if (stackSize >= nodeStack.length)
+                        nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+                    nodeStack[stackSize++] = child;
+                }
+            }
+
+            int[] results = Arrays.copyOf(wordIds, wordCount);
+            Arrays.sort(results); // Dictionary order.
+            return results;
+        }
 
+        private int findChild(int node, char value) {
+            for (int child = this.nodeFirstChildren[node]; child >= 0; child = this.nodeNextSiblings[child])
+                if (this.nodeCharacters[child] == value)
+                    return child;
+
+            return -1;
+        }
+
+        private int addNode(char value) {
+            if (this.nodeCount >= this.nodeCharacters.length) {
+                int newLength = this.nodeCharacters.length * 2;
+                this.nodeCharacters = Arrays.copyOf(this.nodeCharacters, newLength);
+                this.nodeFirstChildren = Arrays.copyOf(this.nodeFirstChildren, newLength);
+                this.nodeNextSiblings = Arrays.copyOf(this.nodeNextSiblings, newLength);
+                this.nodeWordIds = Arrays.copyOf(this.nodeWordIds, newLength);
+            }
+
+            int node = this.nodeCount++;
+            this.nodeCharacters[node] = value;
+            this.nodeFirstChildren[node] = -1;
+            this.nodeNextSiblings[node] = -1;
+            this.nodeWordIds[node] = -1;
+            return node;
+        }
     }
-}
\ No newline at end of file
+}
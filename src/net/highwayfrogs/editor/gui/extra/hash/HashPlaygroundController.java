@@ -54,6 +54,7 @@ public class HashPlaygroundController extends GameUIController<SCGameInstance> {
 
     @Override
     protected void onControllerLoad(Node rootNode) {
+        this.stringGenerator.onSetup(this);
         this.generateNewString();
         this.prefixTextField.textProperty().addListener((observable, oldValue, newValue) -> this.generateNewString());
         this.suffixTextField.textProperty().addListener((observable, oldValue, newValue) -> this.generateNewString());
@@ -77,6 +78,21 @@ public class HashPlaygroundController extends GameUIController<SCGameInstance> {
         this.generateStrings(null);
     }
 
+    /**
+     * Sets the text shown in place of the generated strings while there are none, such as while the string generator is still loading.
+     * @param statusText the text to show, or null to show nothing
+     */
+    public void setGeneratorStatus(String statusText) {
+        this.stringsListView.setPlaceholder(statusText != null ? new Label(statusText) : null);
+    }
+
+    /**
+     * Regenerates the displayed strings, such as after the string generator has finished loading.
+     */
+    public void updateGeneratedStrings() {
+        this.generateStrings(null);
+    }
+
     @FXML
     private void generateStrings(ActionEvent evt) {
         if (!NumberUtils.isInteger(this.targetLinkerHashField.getText()))
@@ -97,9 +113,7 @@ public class HashPlaygroundController extends GameUIController<SCGameInstance> {
         if (suffix != null)
             targetLinkerHash = FroggerHashUtil.getLinkerHashWithoutSubstring(suffix, targetLinkerHash);
 
-        List<String> output = this.stringGenerator.generateStrings(targetLinkerHash, this.searchFilterField.getText());
-        if (maxWordSize > 0)
-            output.removeIf(word -> word.length() > maxWordSize);
+        List<String> output = this.stringGenerator.generateStrings(targetLinkerHash, this.searchFilterField.getText(), maxWordSize);
         this.stringsListView.setItems(FXCollections.observableArrayList(output));
     }
 
@@ -15,6 +15,20 @@ public interface IHashStringGenerator {
      */
     public List<String> generateStrings(int targetLinkerHash, String searchQuery);
 
+    /**
+     * Generates strings no longer than the given length.
+     * @param targetLinkerHash The hash to target the generation of.
+     * @param searchQuery      The query to use to restrict what is displayed. Behavior can vary with different generators.
+     * @param maxLength        The maximum length of a generated string, or 0 if there is no limit.
+     * @return Generated strings.
+     */
+    public default List<String> generateStrings(int targetLinkerHash, String searchQuery, int maxLength) {
+        List<String> output = generateStrings(targetLinkerHash, searchQuery);
+        if (maxLength > 0)
+            output.removeIf(word -> word.length() > maxLength);
+        return output;
+    }
+
     /**
      * Called to setup the string generator.
      * @param controller The UI controller which is using this generator. Null should be supported.
@@ -1,5 +1,6 @@
 package net.highwayfrogs.editor.gui.extra.hash.tree;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -9,7 +10,8 @@ import java.util.List;
  * Created by Kneesnap on 2/25/2022.
  */
 public class HashStringCountMap {
-    private final byte[] counts = new byte[HashSumLookupTree.ALLOWED_NAME_CHARACTERS.length + 1];
+    private final byte[] counts = new byte[COUNT_ARRAY_SIZE];
+    public static final int COUNT_ARRAY_SIZE = HashSumLookupTree.ALLOWED_NAME_CHARACTERS.length + 1;
     private static final int[] INDEX_BY_CHARACTER_MAP;
     private static final StringBuilder TEMP_BUILDER = new StringBuilder();
     private static final List<HashStringCountMap> POOL = new ArrayList<>();
@@ -107,6 +109,25 @@ public class HashStringCountMap {
         return (other instanceof HashStringCountMap) && Arrays.equals(this.counts, ((HashStringCountMap) other).counts);
     }
 
+    /**
+     * Copies the character counts of this count map into an array.
+     * @param output the array to write the counts to
+     * @param offset the index into the array to write COUNT_ARRAY_SIZE counts to
+     */
+    void writeCounts(byte[] output, int offset) {
+        System.arraycopy(this.counts, 0, output, offset, this.counts.length);
+    }
+
+    /**
+     * Replaces the character counts of this count map with counts read from a buffer.
+     * @param buffer the buffer to read the counts from
+     * @param offset the index into the buffer to read COUNT_ARRAY_SIZE counts from
+     */
+    void readCounts(ByteBuffer buffer, int offset) {
+        for (int i = 0; i < this.counts.length; i++)
+            this.counts[i] = buffer.get(offset + i);
+    }
+
     public void free() {
         Arrays.fill(this.counts, (byte) 0);
         POOL.add(this);
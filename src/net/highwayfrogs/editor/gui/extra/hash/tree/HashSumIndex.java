@@ -0,0 +1,189 @@
+package net.highwayfrogs.editor.gui.extra.hash.tree;
+
+import lombok.Getter;
+import net.highwayfrogs.editor.Constants;
+import net.highwayfrogs.editor.file.reader.ArraySource;
+import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.file.reader.MappedFileSource;
+import net.highwayfrogs.editor.file.writer.ArrayReceiver;
+import net.highwayfrogs.editor.file.writer.DataWriter;
+import net.highwayfrogs.editor.file.writer.FileReceiver;
+import net.highwayfrogs.editor.utils.Utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * A compact index of the string count maps which resolve to each hash sum.
+ * The index is stored as primitive arrays, so it can be saved to disk once, and memory-mapped in later sessions instead of being resolved again.
+ * File Format:
+ *  - Header: Signature, format version, alphabet, and the limits used to build the index. If any of these differ, the index is considered stale.
+ *  - int[sumCount + 1]: The index of the first count map for each sum. The count maps for a sum end where the next sum's count maps begin.
+ *  - byte[countMapCount * COUNT_ARRAY_SIZE]: The character counts of each count map.
+ * Created by Kneesnap on 10/17/2026.
+ */
+public class HashSumIndex {
+    private final int[] sumOffsets;
+    private final ByteBuffer countMapData;
+    @Getter private final int countMapCount;
+
+    private static final String SIGNATURE = "HSIX";
+    private static final int FORMAT_VERSION = 1;
+
+    private HashSumIndex(int[] sumOffsets, ByteBuffer countMapData) {
+        this.sumOffsets = sumOffsets;
+        this.countMapData = countMapData;
+        this.countMapCount = sumOffsets[sumOffsets.length - 1];
+    }
+
+    /**
+     * Gets the highest sum which has been indexed.
+     */
+    public int getMaxSum() {
+        return this.sumOffsets.length - 2;
+    }
+
+    /**
+     * Adds the strings generated by the count maps of the given sum to the result list.
+     * @param sum the sum to generate strings for
+     * @param queryMap if not null, only count maps containing every character in this count map are included
+     * @param results the list to add the generated strings to
+     */
+    public void generateStrings(int sum, HashStringCountMap queryMap, List<String> results) {
+        if (sum < 0 || sum > getMaxSum())
+            return;
+
+        HashStringCountMap tempMap = new HashStringCountMap();
+        for (int i = this.sumOffsets[sum]; i < this.sumOffsets[sum + 1]; i++) {
+            tempMap.readCounts(this.countMapData, i * HashStringCountMap.COUNT_ARRAY_SIZE);
+            if (tempMap.contains(queryMap))
+                results.add(tempMap.generateString());
+        }
+    }
+
+    /**
+     * Saves the index to a file.
+     * The file is written next to the target and then moved over it, so a partially written index is never loaded.
+     * @param file the file to save the index to
+     */
+    public void save(File file) {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        int countMapDataSize = this.countMapCount * HashStringCountMap.COUNT_ARRAY_SIZE;
+        DataWriter writer = new DataWriter(new FileReceiver(tempFile, countMapDataSize + (this.sumOffsets.length * 4) + 128));
+        writeHeader(writer);
+        writer.writeInt(this.sumOffsets.length - 1);
+        for (int i = 0; i < this.sumOffsets.length; i++)
+            writer.writeInt(this.sumOffsets[i]);
+
+        byte[] countMapBytes = new byte[countMapDataSize];
+        ByteBuffer countMapData = this.countMapData.duplicate();
+        countMapData.position(0);
+        countMapData.get(countMapBytes);
+        writer.writeBytes(countMapBytes);
+        writer.closeReceiver();
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to move the hash sum index to '" + file + "'.", ex);
+        }
+    }
+
+    /**
+     * Loads an index from a file by memory-mapping it.
+     * The file is validated with a plain stream first, so a stale or truncated index is never mapped. (A live mapping prevents the file from being replaced on some platforms)
+     * @param file the file to load the index from
+     * @return index, or null if the file does not exist or was built with different settings
+     */
+    public static HashSumIndex load(File file) {
+        if (file == null || !file.isFile())
+            return null;
+
+        try {
+            byte[] expectedHeader = createHeader();
+            int[] sumOffsets;
+            try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                byte[] header = new byte[expectedHeader.length + Constants.INTEGER_SIZE];
+                if (file.length() < header.length)
+                    return null; // Truncated.
+
+                inputStream.readFully(header);
+                if (!Arrays.equals(expectedHeader, Arrays.copyOf(header, expectedHeader.length)))
+                    return null; // Built with different settings.
+
+                DataReader headerReader = new DataReader(new ArraySource(header));
+                headerReader.setIndex(expectedHeader.length);
+                int sumCount = headerReader.readInt();
+                if (sumCount < 0 || file.length() < header.length + ((long) (sumCount + 1) * Constants.INTEGER_SIZE))
+                    return null; // Truncated.
+
+                byte[] sumOffsetBytes = new byte[(sumCount + 1) * Constants.INTEGER_SIZE];
+                inputStream.readFully(sumOffsetBytes);
+                sumOffsets = new DataReader(new ArraySource(sumOffsetBytes)).readInts(new int[sumCount + 1]);
+            }
+
+            int countMapDataStart = expectedHeader.length + ((sumOffsets.length + 1) * Constants.INTEGER_SIZE);
+            int countMapDataSize = sumOffsets[sumOffsets.length - 1] * HashStringCountMap.COUNT_ARRAY_SIZE;
+            if (file.length() < (long) countMapDataStart + countMapDataSize)
+                return null; // Truncated.
+
+            MappedFileSource source = new MappedFileSource(file);
+            return new HashSumIndex(sumOffsets, source.slice(countMapDataStart, countMapDataSize).getBuffer());
+        } catch (Throwable th) {
+            Utils.handleError(null, th, false, "Failed to load the hash sum index from '%s'.", file);
+            return null;
+        }
+    }
+
+    /**
+     * Creates an index from resolved count maps.
+     * @param sumCountMaps the count maps which resolve to each sum
+     * @return index
+     */
+    public static HashSumIndex fromCountMaps(Map<HashSum, Set<HashStringCountMap>> sumCountMaps) {
+        int maxSum = -1;
+        int countMapCount = 0;
+        for (Map.Entry<HashSum, Set<HashStringCountMap>> entry : sumCountMaps.entrySet()) {
+            maxSum = Math.max(maxSum, entry.getKey().getSum());
+            countMapCount += entry.getValue().size();
+        }
+
+        int[] countsPerSum = new int[maxSum + 1];
+        for (Map.Entry<HashSum, Set<HashStringCountMap>> entry : sumCountMaps.entrySet())
+            countsPerSum[entry.getKey().getSum()] = entry.getValue().size();
+
+        int[] sumOffsets = new int[maxSum + 2];
+        for (int sum = 0; sum <= maxSum; sum++)
+            sumOffsets[sum + 1] = sumOffsets[sum] + countsPerSum[sum];
+
+        byte[] countMapData = new byte[countMapCount * HashStringCountMap.COUNT_ARRAY_SIZE];
+        for (Map.Entry<HashSum, Set<HashStringCountMap>> entry : sumCountMaps.entrySet()) {
+            int countMapIndex = sumOffsets[entry.getKey().getSum()];
+            for (HashStringCountMap countMap : entry.getValue())
+                countMap.writeCounts(countMapData, (countMapIndex++) * HashStringCountMap.COUNT_ARRAY_SIZE);
+        }
+
+        return new HashSumIndex(sumOffsets, ByteBuffer.wrap(countMapData));
+    }
+
+    private static void writeHeader(DataWriter writer) {
+        writer.writeStringBytes(SIGNATURE);
+        writer.writeInt(FORMAT_VERSION);
+        writer.writeInt(HashTreeStringGenerator.MAX_INDEXED_SUM);
+        writer.writeInt(HashTreeStringGenerator.MAX_UNDERSCORE_COUNT);
+        writer.writeInt(HashTreeStringGenerator.MAX_DIGIT_COUNT);
+        writer.writeInt(HashStringCountMap.COUNT_ARRAY_SIZE);
+        writer.writeNullTerminatedString(new String(HashSumLookupTree.ALLOWED_NAME_CHARACTERS));
+    }
+
+    private static byte[] createHeader() {
+        ArrayReceiver receiver = new ArrayReceiver();
+        DataWriter writer = new DataWriter(receiver);
+        writeHeader(writer);
+        writer.closeReceiver();
+        return receiver.toArray();
+    }
+}
@@ -1,59 +1,120 @@
 package net.highwayfrogs.editor.gui.extra.hash.tree;
 
-import lombok.Getter;
+import net.highwayfrogs.editor.gui.GUIMain;
 import net.highwayfrogs.editor.gui.extra.hash.FroggerHashUtil;
 import net.highwayfrogs.editor.gui.extra.hash.HashPlaygroundController;
 import net.highwayfrogs.editor.gui.extra.hash.IHashStringGenerator;
+import net.highwayfrogs.editor.utils.FXUtils;
+import net.highwayfrogs.editor.utils.Utils;
+import net.highwayfrogs.editor.utils.logging.ClassNameLogger;
+import net.highwayfrogs.editor.utils.logging.ILogger;
 
+import java.io.File;
 import java.util.*;
 
 /**
  * Uses a tree and dynamic generation
+ * The resolved count maps are saved to a compact index file, so they only need to be resolved once.
  * Created by Kneesnap on 2/25/2022.
  */
 public class HashTreeStringGenerator implements IHashStringGenerator {
-    @Getter private static HashSumLookupTree lookupTree;
-    @Getter
-    private static Map<HashSum, Set<HashStringCountMap>> sumCountMaps;
+    private static volatile HashSumIndex sumIndex;
+    private static Thread indexBuildThread;
+    private static final List<HashPlaygroundController> controllersAwaitingIndex = new ArrayList<>(); // Guarded by HashTreeStringGenerator.class.
+    public static final int MAX_INDEXED_SUM = FroggerHashUtil.LINKER_HASH_TABLE_SIZE; // Sums at or above this are not resolved, as the number of count maps grows too quickly.
+    public static final int MAX_UNDERSCORE_COUNT = 3;
+    public static final int MAX_DIGIT_COUNT = 3;
+    private static final String INDEX_FILE_NAME = "hash-sum-index.bin";
 
     @Override
     public List<String> generateStrings(int targetLinkerHash, String searchQuery) {
-        Set<HashStringCountMap> allResults = new HashSet<>();
-
-
-        for (int i = 0; i < Integer.MAX_VALUE; i++) {
-            int currHash = targetLinkerHash + (FroggerHashUtil.LINKER_HASH_TABLE_SIZE * i);
-            if (currHash > lookupTree.getMaxSum())
-                break; // Reached end.
-
-            HashSum sum = lookupTree.get(currHash);
-            if (sum != null && sumCountMaps.containsKey(sum))
-                allResults.addAll(sumCountMaps.get(sum));
-        }
+        HashSumIndex index = sumIndex;
+        if (index == null) // The index is still being built, and the controller has been told.
+            return new ArrayList<>();
 
         List<String> results = new ArrayList<>();
         HashStringCountMap queryMap = searchQuery != null && searchQuery.length() > 0 ? HashStringCountMap.createCountMap(searchQuery) : null;
-        for (HashStringCountMap countMap : allResults)
-            if (countMap.contains(queryMap))
-                results.add(countMap.generateString());
+        for (int currHash = targetLinkerHash; currHash <= index.getMaxSum(); currHash += FroggerHashUtil.LINKER_HASH_TABLE_SIZE)
+            index.generateStrings(currHash, queryMap, results);
 
         return results;
-
     }
 
     @Override
     public void onSetup(HashPlaygroundController controller) {
-        if (lookupTree == null)
-            lookupTree = HashSumLookupTree.buildTree();
+        if (sumIndex != null)
+            return;
+
+        File indexFile = new File(GUIMain.getMainApplicationFolder(), INDEX_FILE_NAME);
+        sumIndex = HashSumIndex.load(indexFile);
+        if (sumIndex != null)
+            return;
+
+        // The index is missing or was built with a different alphabet/limits, so rebuild it without blocking the UI.
+        synchronized (HashTreeStringGenerator.class) {
+            if (controller != null) {
+                controller.setGeneratorStatus("The hash sum index is still being built, please wait.");
+                controllersAwaitingIndex.add(controller);
+            }
+
+            if (indexBuildThread != null)
+                return;
+
+            ILogger logger = ClassNameLogger.getLogger(null, HashTreeStringGenerator.class);
+            logger.info("Building the hash sum index. Strings will be generated once it is ready.");
+            indexBuildThread = new Thread(() -> {
+                HashSumIndex newIndex;
+                try {
+                    long buildStart = System.currentTimeMillis();
+                    newIndex = buildSumIndex();
+                    logger.info("Built the hash sum index with %d count maps in %d ms.", newIndex.getCountMapCount(), System.currentTimeMillis() - buildStart);
+                } catch (Throwable th) {
+                    Utils.handleError(logger, th, false, "Failed to build the hash sum index.");
+                    synchronized (HashTreeStringGenerator.class) {
+                        indexBuildThread = null; // Allow trying again.
+                    }
+                    notifyControllersAwaitingIndex("The hash sum index could not be built.");
+                    return;
+                }
+
+                sumIndex = newIndex;
+                notifyControllersAwaitingIndex(null);
 
-        if (sumCountMaps == null)
-            buildSumCountMaps();
+                try {
+                    newIndex.save(indexFile);
+                } catch (Throwable th) {
+                    Utils.handleError(logger, th, false, "Failed to save the hash sum index to '%s'. It will be built again next time.", indexFile);
+                }
+            }, "Hash Sum Index Builder");
+            indexBuildThread.setDaemon(true);
+            indexBuildThread.start();
+        }
     }
 
-    private static void buildSumCountMaps() {
+    private static void notifyControllersAwaitingIndex(String statusText) {
+        List<HashPlaygroundController> controllers;
+        synchronized (HashTreeStringGenerator.class) {
+            controllers = new ArrayList<>(controllersAwaitingIndex);
+            controllersAwaitingIndex.clear();
+        }
+
+        FXUtils.runOnFXThread(() -> {
+            for (HashPlaygroundController controller : controllers) {
+                controller.setGeneratorStatus(statusText);
+                controller.updateGeneratedStrings();
+            }
+        });
+    }
+
+    /**
+     * Resolves the count maps for every hash sum below MAX_INDEXED_SUM, and creates an index from them.
+     * @return sumIndex
+     */
+    public static HashSumIndex buildSumIndex() {
+        HashSumLookupTree lookupTree = HashSumLookupTree.buildTree();
         List<HashSum> allSums = new ArrayList<>(lookupTree.getAllSums());
         System.out.println("Sums: " + allSums.size() + ", " + lookupTree.getMaxSum());
-        allSums.removeIf(sum -> sum.getSum() >= 512); // TODO: TOSS
+        allSums.removeIf(sum -> sum.getSum() >= MAX_INDEXED_SUM);
 
         // 1. Build hash sum mappings.
         Map<HashSumPair, HashSum> sumUsingPair = mapPairsToSum(allSums);
@@ -63,7 +124,8 @@ public class HashTreeStringGenerator implements IHashStringGenerator {
         List<HashSum> remainingSums = orderSumsByPairAvailability(allSums);
 
         // 3. Resolve count maps. (This is slow.)
-        sumCountMaps = resolveCountMaps(sumUsingPair, pairsPerSum, remainingSums);
+        Map<HashSum, Set<HashStringCountMap>> sumCountMaps = resolveCountMaps(sumUsingPair, pairsPerSum, remainingSums);
+        return HashSumIndex.fromCountMaps(sumCountMaps);
     }
 
     private static Map<HashSumPair, HashSum> mapPairsToSum(List<HashSum> allSums) {
@@ -167,15 +229,19 @@ public class HashTreeStringGenerator implements IHashStringGenerator {
                             for (HashStringCountMap countMap2 : maps2) {
                                 HashStringCountMap newCountMap = countMap1.add(countMap2);
 
-                                if (newCountMap.getCount('_') > 3)
+                                if (newCountMap.getCount('_') > MAX_UNDERSCORE_COUNT) {
+                                    newCountMap.free();
                                     continue;
+                                }
 
                                 int numCount = 0;
-                                for (char c = '0'; c <= '9' && numCount <= 3; c++)
+                                for (char c = '0'; c <= '9' && numCount <= MAX_DIGIT_COUNT; c++)
                                     numCount += newCountMap.getCount(c);
 
-                                if (numCount > 3)
+                                if (numCount > MAX_DIGIT_COUNT) {
+                                    newCountMap.free();
                                     continue;
+                                }
 
                                 HashSum nextSum = sumUsingPair.get(tempPair);
                                 boolean addedSuccessfully = false;
@@ -24,6 +24,8 @@ import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
 import javafx.stage.Window;
+import lombok.Getter;
+import lombok.Setter;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.games.generic.GameInstance;
 import net.highwayfrogs.editor.gui.GUIMain;
@@ -51,6 +53,7 @@ public class FXUtils {
     private static final Map<BufferedImage, TextureCache> imageCacheMap = new HashMap<>();
     private static final long IMAGE_CACHE_EXPIRE = TimeUnit.MINUTES.toMillis(5);
     private static final Map<String, FXMLLoader> CACHED_RESOURCE_PATH_FXML_LOADERS = new HashMap<>();
+    @Getter @Setter private static boolean headless; // When true, popups are written to the log instead, so the JavaFX toolkit is never needed.
 
     /**
      * Make a combo box scroll to the value it has selected.
@@ -407,6 +410,8 @@ public class FXUtils {
 
         if (printException) {
             Utils.handleError(null, ex, true, stringWriter.toString());
+        } else if (headless) {
+            Utils.getInstanceLogger().severe(stringWriter.toString());
         } else {
             String errorMessage = stringWriter.toString();
 
@@ -426,6 +431,11 @@ public class FXUtils {
      * @param message The message to display.
      */
     public static void makePopUp(String message, AlertType type) {
+        if (headless) {
+            logPopUp(message, type);
+            return;
+        }
+
         new Alert(type, message, ButtonType.OK).showAndWait();
     }
 
@@ -434,9 +444,24 @@ public class FXUtils {
      * @param message The message to display.
      */
     public static boolean makePopUpYesNo(String message) {
+        if (headless) {
+            logPopUp(message + " (Answered 'No', since there is nobody to ask.)", AlertType.CONFIRMATION);
+            return false;
+        }
+
         return new Alert(AlertType.CONFIRMATION, message, ButtonType.YES, ButtonType.NO).showAndWait().orElse(ButtonType.NO) == ButtonType.YES;
     }
 
+    private static void logPopUp(String message, AlertType type) {
+        if (type == AlertType.ERROR) {
+            Utils.getInstanceLogger().severe(message);
+        } else if (type == AlertType.WARNING) {
+            Utils.getInstanceLogger().warning(message);
+        } else {
+            Utils.getInstanceLogger().info(message);
+        }
+    }
+
     /**
      * Report an error if the action fails.
      * @param action the action to run
@@ -13,6 +13,8 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.ToIntBiFunction;
 import java.util.function.ToIntFunction;
 import java.util.function.ToLongBiFunction;
@@ -219,7 +221,7 @@ public class Utils {
         }
 
         // Create popup window.
-        if (showWindow) {
+        if (showWindow && !FXUtils.isHeadless()) {
             if (Platform.isFxApplicationThread()) {
                 FXUtils.makeErrorPopUp(null, th, false);
             } else {
@@ -315,7 +317,7 @@ public class Utils {
         }
 
         // Create popup window.
-        if (showWindow) {
+        if (showWindow && !FXUtils.isHeadless()) {
             if (Platform.isFxApplicationThread()) {
                 FXUtils.makeErrorPopUp(formattedMessage, th, false);
             } else {
@@ -641,4 +643,26 @@ public class Utils {
 
         return builder.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Waits for an asynchronous task to complete, and gets its result.
+     * If the task failed, the exception it threw is rethrown on the calling thread.
+     * @param task the task to wait for
+     * @return taskResult
+     */
+    public static <T> T awaitTask(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a task to complete.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException("The task failed.", cause);
+        }
+    }
+}